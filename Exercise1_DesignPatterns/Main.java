@@ -58,11 +58,13 @@ public class Main {
 
             if (choice != 0) {
                 LoggerUtil.info("Press Enter to continue...");
+                LoggerUtil.flush();
                 scanner.nextLine();  // Consume the newline
             }
 
         } while (choice != 0);
 
+        LoggerUtil.flush();
         scanner.close();
     }
 
@@ -80,6 +82,7 @@ public class Main {
 
     private static int getUserChoice(Scanner scanner) {
         while (true) {
+            LoggerUtil.flush(); // the prompt must be on screen before blocking on input
             try {
                 return scanner.nextInt();
             } catch (InputMismatchException e) {
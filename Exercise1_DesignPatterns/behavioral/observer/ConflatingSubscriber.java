@@ -0,0 +1,93 @@
+package com.designpatterns.behavioral.observer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Observer that keeps only the latest price per symbol for a consumer that may be slower than the feed.
+ *
+ * <p>The producer side ({@link #update}) overwrites a per-symbol slot and marks it dirty; it never blocks and
+ * never queues, so a slow consumer cannot hold up the market or other traders. The consumer calls
+ * {@link #drain} at its own pace and receives each changed symbol once with its newest price. Memory is one
+ * price slot and one dirty bit per symbol in the {@link SymbolDictionary}.
+ *
+ * <p>A price that changes while it is being drained is delivered again on the next drain, so consumers may
+ * occasionally see the same latest price twice.
+ */
+class ConflatingSubscriber implements StockObserver, PrimitiveStockObserver {
+    private final SymbolDictionary symbols;
+    private final AtomicLongArray prices;
+    private final AtomicLongArray dirty;
+
+    ConflatingSubscriber(SymbolDictionary symbols) {
+        this.symbols = symbols;
+        this.prices = new AtomicLongArray(symbols.capacity());
+        this.dirty = new AtomicLongArray((symbols.capacity() + 63) >>> 6);
+        long noPrice = Double.doubleToRawLongBits(Double.NaN);
+        for (int i = 0; i < prices.length(); i++) {
+            prices.lazySet(i, noPrice);
+        }
+    }
+
+    @Override
+    public void update(String stockSymbol, double price) {
+        onTick(symbols.idOf(stockSymbol), price, 0L);
+    }
+
+    @Override
+    public void onTick(int id, double price, long epochNanos) {
+        prices.set(id, Double.doubleToRawLongBits(price));
+        int word = id >>> 6;
+        long bit = 1L << id;
+        long current;
+        do {
+            current = dirty.get(word);
+            if ((current & bit) != 0) {
+                return; // already pending; the consumer will read the new price
+            }
+        } while (!dirty.compareAndSet(word, current, current | bit));
+    }
+
+    @Override
+    public void endOfBatch() {
+        // nothing to flush: the consumer drains on its own schedule
+    }
+
+    /** Delivers every symbol that changed since the last drain to {@code sink}; returns how many were delivered. */
+    int drain(StockObserver sink) {
+        int delivered = 0;
+        for (int word = 0; word < dirty.length(); word++) {
+            if (dirty.get(word) == 0) {
+                continue;
+            }
+            long bits = dirty.getAndSet(word, 0);
+            while (bits != 0) {
+                int id = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                sink.update(symbols.name(id), Double.longBitsToDouble(prices.get(id)));
+                delivered++;
+            }
+        }
+        if (delivered > 0) {
+            sink.endOfBatch();
+        }
+        return delivered;
+    }
+
+    boolean hasChanges() {
+        for (int word = 0; word < dirty.length(); word++) {
+            if (dirty.get(word) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Latest price of a symbol, or {@code NaN} if none was received. */
+    double latest(String stockSymbol) {
+        int id = symbols.find(stockSymbol);
+        if (id < 0) {
+            return Double.NaN;
+        }
+        return Double.longBitsToDouble(prices.get(id));
+    }
+}
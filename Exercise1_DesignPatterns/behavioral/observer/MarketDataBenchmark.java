@@ -0,0 +1,111 @@
+package com.designpatterns.behavioral.observer;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Throughput benchmark for {@link MarketDataEngine}: one publisher thread writes ticks for many symbols while
+ * thousands of subscribers, each following a handful of symbols, receive them through the dispatchers.
+ * A second run adds a deliberately slow trader behind a {@link ConflatingSubscriber} to show that it does not
+ * slow the feed down.
+ *
+ * <p>Usage: {@code java -cp out com.designpatterns.behavioral.observer.MarketDataBenchmark [symbols] [subscribers] [symbolsPerSubscriber] [ticks] [dispatchers]}
+ */
+public class MarketDataBenchmark {
+
+    /** Observer that only counts and accumulates prices, so the benchmark measures the engine. */
+    static final class CountingObserver implements StockObserver {
+        long ticks;
+        double checksum;
+
+        @Override
+        public void update(String stockSymbol, double price) {
+            ticks++;
+            checksum += price;
+        }
+    }
+
+    public static void main(String[] args) {
+        int symbols = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int subscribers = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int perSubscriber = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        long ticks = args.length > 3 ? Long.parseLong(args[3]) : 20_000_000L;
+        int dispatchers = args.length > 4 ? Integer.parseInt(args[4]) : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+        String[] tickers = new String[symbols];
+        for (int i = 0; i < symbols; i++) {
+            tickers[i] = "SYM" + i;
+        }
+        Random random = new Random(7);
+        CountingObserver[] observers = new CountingObserver[subscribers];
+        try (MarketDataEngine engine = new MarketDataEngine(1 << 16, dispatchers)) {
+            int[] ids = new int[symbols];
+            for (int i = 0; i < symbols; i++) {
+                ids[i] = engine.symbolId(tickers[i]);
+            }
+            for (int i = 0; i < subscribers; i++) {
+                observers[i] = new CountingObserver();
+                for (int j = 0; j < perSubscriber; j++) {
+                    engine.subscribe(tickers[random.nextInt(symbols)], observers[i]);
+                }
+            }
+            engine.start();
+
+            long begin = System.nanoTime();
+            double price = 100.0;
+            for (long i = 0; i < ticks; i++) {
+                price += (i & 1) == 0 ? 0.01 : -0.01;
+                engine.publish(ids[(int) (i % symbols)], price, i);
+            }
+            engine.awaitDrained();
+            long elapsed = System.nanoTime() - begin;
+
+            double seconds = elapsed / 1e9;
+            System.out.printf("symbols=%,d subscribers=%,d dispatchers=%d%n", symbols, subscribers, dispatchers);
+            System.out.printf("ticks=%,d in %,d ms -> %,.0f ticks/s, %,.0f deliveries/s%n", engine.published(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), engine.published() / seconds, engine.delivered() / seconds);
+        }
+        conflationRun(tickers, ticks);
+    }
+
+    private static void conflationRun(String[] tickers, long ticks) {
+        try (MarketDataEngine engine = new MarketDataEngine(1 << 16, 1)) {
+            ConflatingSubscriber latest = new ConflatingSubscriber(engine.symbols());
+            engine.subscribeAllTicks(latest);
+            engine.start();
+            int[] ids = new int[tickers.length];
+            for (int i = 0; i < tickers.length; i++) {
+                ids[i] = engine.symbolId(tickers[i]);
+            }
+
+            CountingObserver slowTrader = new CountingObserver();
+            long[] drains = {0};
+            Thread consumer = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    latest.drain(slowTrader);
+                    drains[0]++;
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5)); // simulates an expensive update
+                }
+            }, "slow-trader");
+            consumer.start();
+
+            long begin = System.nanoTime();
+            for (long i = 0; i < ticks; i++) {
+                engine.publish(ids[(int) (i % ids.length)], 100.0 + (i & 63), i);
+            }
+            engine.awaitDrained();
+            long elapsed = System.nanoTime() - begin;
+            consumer.interrupt();
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            latest.drain(slowTrader);
+
+            System.out.printf("conflated: ticks=%,d in %,d ms -> %,.0f ticks/s; slow trader drained %,d times and saw %,d updates%n",
+                    ticks, TimeUnit.NANOSECONDS.toMillis(elapsed), ticks / (elapsed / 1e9), drains[0], slowTrader.ticks);
+        }
+    }
+}
@@ -0,0 +1,495 @@
+package com.designpatterns.behavioral.observer;
+
+import com.designpatterns.util.LoggerUtil;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Cache-line padded sequence counter shared between the tick writer and the dispatchers.
+ */
+class Sequence {
+    private static final AtomicLongFieldUpdater<Sequence> VALUE =
+            AtomicLongFieldUpdater.newUpdater(Sequence.class, "value");
+
+    long p1, p2, p3, p4, p5, p6, p7;
+    private volatile long value;
+    long q1, q2, q3, q4, q5, q6, q7;
+
+    Sequence(long initial) {
+        this.value = initial;
+    }
+
+    long get() {
+        return value;
+    }
+
+    /** Ordered store: cheaper than a volatile write, still publishes everything written before it. */
+    void setOrdered(long newValue) {
+        VALUE.lazySet(this, newValue);
+    }
+}
+
+/**
+ * Market-data fan-out engine: ticks are written by a single publisher into a lock-free ring buffer and
+ * delivered in batches by dispatcher threads to the observers subscribed to each symbol.
+ *
+ * <p>Ticks travel as {@code (symbolId, price, epochNanos)} primitives end to end and reach a
+ * {@link PrimitiveStockObserver} without allocation; {@link StockObserver}s are wrapped in a
+ * {@link StockObserverAdapter} that looks the interned symbol string up by id.
+ *
+ * <p>Every observer is owned by exactly one dispatcher, so its callbacks always run on the same thread and
+ * never concurrently. Dispatchers read the whole ring and skip the ticks none of their observers care about;
+ * the publisher only waits when the slowest dispatcher is a full ring behind. {@link #publish} must be called
+ * by one thread at a time.
+ *
+ * <p>An observer whose callback throws is unsubscribed from every symbol and the failure is logged; its
+ * dispatcher carries on with the remaining observers, so one faulty observer cannot stall the publisher.
+ */
+class MarketDataEngine implements AutoCloseable {
+    private static final int SPIN_TRIES = 100;
+    private static final long PARK_NANOS = 50_000L;
+    static final int DEFAULT_SYMBOL_CAPACITY = 1 << 16;
+
+    private final int mask;
+    private final int[] symbolIds;
+    private final double[] prices;
+    private final long[] timestamps;
+    private final Sequence cursor = new Sequence(-1);
+    private final Dispatcher[] dispatchers;
+    private final SymbolDictionary symbols;
+    private final Map<PrimitiveStockObserver, Dispatcher> owners = new IdentityHashMap<>();
+    private final Map<StockObserver, PrimitiveStockObserver> adapters = new IdentityHashMap<>();
+    private long cachedGate = -1;
+    private int nextDispatcher;
+    private volatile boolean running;
+
+    MarketDataEngine(int ringCapacity, int dispatcherCount) {
+        this(ringCapacity, dispatcherCount, new SymbolDictionary(DEFAULT_SYMBOL_CAPACITY));
+    }
+
+    MarketDataEngine(int ringCapacity, int dispatcherCount, SymbolDictionary symbols) {
+        if (Integer.bitCount(ringCapacity) != 1 || dispatcherCount < 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two and at least one dispatcher is required");
+        }
+        this.symbols = symbols;
+        this.mask = ringCapacity - 1;
+        this.symbolIds = new int[ringCapacity];
+        this.prices = new double[ringCapacity];
+        this.timestamps = new long[ringCapacity];
+        this.dispatchers = new Dispatcher[dispatcherCount];
+        for (int i = 0; i < dispatcherCount; i++) {
+            dispatchers[i] = new Dispatcher(i);
+        }
+    }
+
+    synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (Dispatcher dispatcher : dispatchers) {
+            dispatcher.thread.start();
+        }
+    }
+
+    /** Returns the dense id of a symbol, registering it on first use. */
+    int symbolId(String symbol) {
+        return symbols.idOf(symbol);
+    }
+
+    SymbolDictionary symbols() {
+        return symbols;
+    }
+
+    void subscribe(String symbol, StockObserver observer) {
+        int symbolId = symbolId(symbol);
+        synchronized (this) {
+            subscribeTicks(symbolId, adapterFor(observer));
+        }
+    }
+
+    /** Subscribes an observer to every symbol, including symbols registered later. */
+    synchronized void subscribeAll(StockObserver observer) {
+        subscribeAllTicks(adapterFor(observer));
+    }
+
+    void unsubscribe(String symbol, StockObserver observer) {
+        int symbolId = symbols.find(symbol);
+        if (symbolId >= 0) {
+            synchronized (this) {
+                PrimitiveStockObserver adapter = adapters.get(observer);
+                if (adapter != null) {
+                    unsubscribeTicks(symbolId, adapter);
+                }
+            }
+        }
+    }
+
+    /** Removes every subscription of an observer. */
+    synchronized void unsubscribeAll(StockObserver observer) {
+        PrimitiveStockObserver adapter = adapters.remove(observer);
+        if (adapter != null) {
+            unsubscribeAllTicks(adapter);
+        }
+    }
+
+    synchronized void subscribeTicks(int symbolId, PrimitiveStockObserver observer) {
+        if (symbolId < 0 || symbolId >= symbols.size()) {
+            throw new IllegalArgumentException("Unknown symbol id " + symbolId);
+        }
+        ownerOf(observer).subscribe(observer, symbolId);
+    }
+
+    synchronized void subscribeAllTicks(PrimitiveStockObserver observer) {
+        ownerOf(observer).subscribe(observer, -1);
+    }
+
+    synchronized void unsubscribeTicks(int symbolId, PrimitiveStockObserver observer) {
+        Dispatcher owner = owners.get(observer);
+        if (owner != null) {
+            owner.unsubscribe(observer, symbolId);
+        }
+    }
+
+    synchronized void unsubscribeAllTicks(PrimitiveStockObserver observer) {
+        Dispatcher owner = owners.remove(observer);
+        if (owner != null) {
+            owner.remove(observer);
+        }
+    }
+
+    private PrimitiveStockObserver adapterFor(StockObserver observer) {
+        PrimitiveStockObserver adapter = adapters.get(observer);
+        if (adapter == null) {
+            adapter = new StockObserverAdapter(symbols, observer);
+            adapters.put(observer, adapter);
+        }
+        return adapter;
+    }
+
+    /** Unsubscribes an observer whose callback threw; called by its dispatcher. */
+    private synchronized void evict(PrimitiveStockObserver observer, Throwable failure) {
+        unsubscribeAllTicks(observer);
+        adapters.values().remove(observer);
+        LoggerUtil.error("Unsubscribed market data observer " + observer + " after it failed: " + failure);
+    }
+
+    private Dispatcher ownerOf(PrimitiveStockObserver observer) {
+        Dispatcher owner = owners.get(observer);
+        if (owner == null) {
+            owner = dispatchers[nextDispatcher];
+            nextDispatcher = (nextDispatcher + 1) % dispatchers.length;
+            owners.put(observer, owner);
+        }
+        return owner;
+    }
+
+    void publish(String symbol, double price) {
+        publish(symbolId(symbol), price, System.currentTimeMillis() * 1_000_000L);
+    }
+
+    /**
+     * Writes a tick into the ring, waiting only if the slowest dispatcher is a full ring behind. This is the
+     * allocation-free path: no boxing, no strings.
+     */
+    void publish(int symbolId, double price, long epochNanos) {
+        long next = cursor.get() + 1;
+        long wrapPoint = next - symbolIds.length;
+        if (wrapPoint > cachedGate) {
+            cachedGate = awaitGate(wrapPoint);
+        }
+        int index = (int) next & mask;
+        symbolIds[index] = symbolId;
+        prices[index] = price;
+        timestamps[index] = epochNanos;
+        cursor.setOrdered(next);
+    }
+
+    private long awaitGate(long wrapPoint) {
+        int idle = 0;
+        long gate;
+        while (wrapPoint > (gate = minimumDispatched())) {
+            if (!running) {
+                throw new IllegalStateException("Market data engine is not running");
+            }
+            idle = backOff(idle);
+        }
+        return gate;
+    }
+
+    private long minimumDispatched() {
+        long minimum = Long.MAX_VALUE;
+        for (Dispatcher dispatcher : dispatchers) {
+            minimum = Math.min(minimum, dispatcher.sequence.get());
+        }
+        return minimum;
+    }
+
+    /** Ticks written so far. */
+    long published() {
+        return cursor.get() + 1;
+    }
+
+    /** Total observer callbacks delivered by all dispatchers. */
+    long delivered() {
+        long total = 0;
+        for (Dispatcher dispatcher : dispatchers) {
+            total += dispatcher.delivered;
+        }
+        return total;
+    }
+
+    /** Waits until every published tick has been dispatched. */
+    void awaitDrained() {
+        long target = cursor.get();
+        int idle = 0;
+        while (minimumDispatched() < target) {
+            idle = backOff(idle);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        awaitDrained();
+        running = false;
+        for (Dispatcher dispatcher : dispatchers) {
+            LockSupport.unpark(dispatcher.thread);
+            try {
+                dispatcher.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static int backOff(int idle) {
+        if (idle < SPIN_TRIES) {
+            return idle + 1;
+        }
+        if (idle < SPIN_TRIES * 2) {
+            Thread.yield();
+            return idle + 1;
+        }
+        LockSupport.parkNanos(PARK_NANOS);
+        return idle;
+    }
+
+    /** Immutable routing table of one dispatcher, replaced copy-on-write when subscriptions change. */
+    private static final class Routing {
+        static final Routing EMPTY = new Routing(new PrimitiveStockObserver[0], new int[0][], new int[0]);
+
+        final PrimitiveStockObserver[] members;
+        final int[][] topics;
+        final int[] wildcard;
+
+        Routing(PrimitiveStockObserver[] members, int[][] topics, int[] wildcard) {
+            this.members = members;
+            this.topics = topics;
+            this.wildcard = wildcard;
+        }
+    }
+
+    private final class Dispatcher implements Runnable {
+        final Sequence sequence = new Sequence(-1);
+        final Thread thread;
+        volatile Routing routing = Routing.EMPTY;
+        volatile long delivered;
+        private int[] batchMarks = new int[0];
+        private int[] touched = new int[0];
+        /**
+         * Batch in which each member's callback threw. A failed member is evicted before the next batch, so a mark
+         * only has to hold for its own batch, and a slot reused by a later subscriber starts clean.
+         */
+        private int[] failedIn = new int[0];
+        private int batch;
+
+        Dispatcher(int index) {
+            this.thread = new Thread(this, "market-data-dispatcher-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        // Subscription changes run under the engine lock.
+
+        void subscribe(PrimitiveStockObserver observer, int symbolId) {
+            Routing current = routing;
+            int member = indexOf(current.members, observer);
+            PrimitiveStockObserver[] members = current.members;
+            if (member < 0) {
+                member = indexOf(members, null); // reuse a slot freed by remove before growing
+                if (member < 0) {
+                    members = Arrays.copyOf(members, members.length + 1);
+                    member = members.length - 1;
+                } else {
+                    members = members.clone();
+                }
+                members[member] = observer;
+            }
+            if (symbolId < 0) {
+                routing = new Routing(members, current.topics, add(current.wildcard, member));
+                return;
+            }
+            int[][] topics = current.topics.length > symbolId ? current.topics.clone()
+                    : Arrays.copyOf(current.topics, symbolId + 1);
+            topics[symbolId] = add(topics[symbolId], member);
+            routing = new Routing(members, topics, current.wildcard);
+        }
+
+        void unsubscribe(PrimitiveStockObserver observer, int symbolId) {
+            Routing current = routing;
+            int member = indexOf(current.members, observer);
+            if (member < 0 || symbolId >= current.topics.length) {
+                return;
+            }
+            int[][] topics = current.topics.clone();
+            topics[symbolId] = without(topics[symbolId], member);
+            routing = new Routing(current.members, topics, current.wildcard);
+        }
+
+        void remove(PrimitiveStockObserver observer) {
+            Routing current = routing;
+            int member = indexOf(current.members, observer);
+            if (member < 0) {
+                return;
+            }
+            PrimitiveStockObserver[] members = current.members.clone();
+            members[member] = null; // the slot is free for the next subscriber
+            int[][] topics = current.topics.clone();
+            for (int i = 0; i < topics.length; i++) {
+                topics[i] = without(topics[i], member);
+            }
+            routing = new Routing(members, topics, without(current.wildcard, member));
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            int idle = 0;
+            while (true) {
+                long available = cursor.get();
+                if (available < next) {
+                    if (!running) {
+                        return;
+                    }
+                    idle = backOff(idle);
+                    continue;
+                }
+                idle = 0;
+                dispatch(next, available);
+                sequence.setOrdered(available);
+                next = available + 1;
+            }
+        }
+
+        /** Delivers ticks {@code [from, to]} and then signals end of batch to every observer that got one. */
+        private void dispatch(long from, long to) {
+            Routing current = routing;
+            int marks = current.members.length;
+            if (batchMarks.length < marks) {
+                batchMarks = Arrays.copyOf(batchMarks, marks);
+                touched = new int[marks];
+                failedIn = Arrays.copyOf(failedIn, marks);
+            }
+            int stamp = ++batch;
+            int touchedCount = 0;
+            long count = 0;
+            for (long seq = from; seq <= to; seq++) {
+                int index = (int) seq & mask;
+                int symbolId = symbolIds[index];
+                double price = prices[index];
+                long timestamp = timestamps[index];
+                int[] topic = symbolId < current.topics.length ? current.topics[symbolId] : null;
+                if (topic != null) {
+                    for (int member : topic) {
+                        deliver(current.members, member, symbolId, price, timestamp);
+                        if (batchMarks[member] != stamp) {
+                            batchMarks[member] = stamp;
+                            touched[touchedCount++] = member;
+                        }
+                    }
+                    count += topic.length;
+                }
+                for (int member : current.wildcard) {
+                    deliver(current.members, member, symbolId, price, timestamp);
+                    if (batchMarks[member] != stamp) {
+                        batchMarks[member] = stamp;
+                        touched[touchedCount++] = member;
+                    }
+                }
+                count += current.wildcard.length;
+            }
+            for (int i = 0; i < touchedCount; i++) {
+                int member = touched[i];
+                if (failedIn[member] != stamp) {
+                    try {
+                        current.members[member].endOfBatch();
+                    } catch (Throwable failure) {
+                        fail(current.members, member, failure);
+                    }
+                }
+            }
+            delivered += count;
+        }
+
+        private void deliver(PrimitiveStockObserver[] members, int member, int symbolId, double price, long timestamp) {
+            if (failedIn[member] == batch) {
+                return;
+            }
+            try {
+                members[member].onTick(symbolId, price, timestamp);
+            } catch (Throwable failure) {
+                fail(members, member, failure);
+            }
+        }
+
+        /** Stops delivering to a member for the rest of this batch and unsubscribes it for good. */
+        private void fail(PrimitiveStockObserver[] members, int member, Throwable failure) {
+            failedIn[member] = batch;
+            evict(members[member], failure);
+        }
+    }
+
+    private static int indexOf(PrimitiveStockObserver[] members, PrimitiveStockObserver observer) {
+        for (int i = 0; i < members.length; i++) {
+            if (members[i] == observer) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] add(int[] members, int member) {
+        if (members == null) {
+            return new int[]{member};
+        }
+        for (int existing : members) {
+            if (existing == member) {
+                return members;
+            }
+        }
+        int[] grown = Arrays.copyOf(members, members.length + 1);
+        grown[members.length] = member;
+        return grown;
+    }
+
+    private static int[] without(int[] members, int member) {
+        if (members == null) {
+            return null;
+        }
+        int[] kept = new int[members.length];
+        int count = 0;
+        for (int existing : members) {
+            if (existing != member) {
+                kept[count++] = existing;
+            }
+        }
+        return count == members.length ? members : Arrays.copyOf(kept, count);
+    }
+}
@@ -0,0 +1,13 @@
+package com.designpatterns.behavioral.observer;
+
+/**
+ * Allocation-free tick callback: the symbol is the dense id from a {@link SymbolDictionary} and the timestamp
+ * is in epoch nanoseconds. Implementations on the hot path should not box, concatenate or otherwise allocate.
+ */
+interface PrimitiveStockObserver {
+    void onTick(int symbolId, double price, long epochNanos);
+
+    /** Called after the last tick of a delivered batch. */
+    default void endOfBatch() {
+    }
+}
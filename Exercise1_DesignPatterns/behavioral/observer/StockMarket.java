@@ -0,0 +1,83 @@
+package com.designpatterns.behavioral.observer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Subject of the observer pattern. By default ticks are delivered synchronously on the caller's thread;
+ * when backed by a {@link MarketDataEngine} they are published to its ring buffer and fanned out by its
+ * dispatcher threads, and observers can subscribe to individual symbols.
+ */
+class StockMarket {
+    private final List<StockObserver> observers = new CopyOnWriteArrayList<>();
+    private final MarketDataEngine engine;
+
+    public StockMarket() {
+        this(null);
+    }
+
+    public StockMarket(MarketDataEngine engine) {
+        this.engine = engine;
+    }
+
+    public void addObserver(StockObserver observer) {
+        if (engine != null) {
+            engine.subscribeAll(observer);
+        } else {
+            observers.add(observer);
+        }
+    }
+
+    /** Subscribes an observer to a single symbol; requires an engine-backed market. */
+    public void addObserver(String stockSymbol, StockObserver observer) {
+        requireEngine().subscribe(stockSymbol, observer);
+    }
+
+    public void removeObserver(StockObserver observer) {
+        if (engine != null) {
+            engine.unsubscribeAll(observer);
+        } else {
+            observers.remove(observer);
+        }
+    }
+
+    public void removeObserver(String stockSymbol, StockObserver observer) {
+        requireEngine().unsubscribe(stockSymbol, observer);
+    }
+
+    public void setStockInfo(String stockSymbol, double price) {
+        if (engine != null) {
+            synchronized (this) { // the engine ring has a single writer
+                engine.publish(stockSymbol, price);
+            }
+        } else {
+            notifyObservers(stockSymbol, price);
+        }
+    }
+
+    /** Allocation-free publish for ticks already carrying an interned symbol id; requires an engine-backed market. */
+    public void setStockInfo(int symbolId, double price, long epochNanos) {
+        MarketDataEngine feed = requireEngine();
+        synchronized (this) {
+            feed.publish(symbolId, price, epochNanos);
+        }
+    }
+
+    /** Interned id of a symbol in the backing engine; requires an engine-backed market. */
+    public int symbolId(String stockSymbol) {
+        return requireEngine().symbolId(stockSymbol);
+    }
+
+    private void notifyObservers(String stockSymbol, double price) {
+        for (StockObserver observer : observers) {
+            observer.update(stockSymbol, price);
+        }
+    }
+
+    private MarketDataEngine requireEngine() {
+        if (engine == null) {
+            throw new UnsupportedOperationException("Per-symbol subscriptions need a MarketDataEngine");
+        }
+        return engine;
+    }
+}
@@ -1,38 +1,6 @@
 package com.designpatterns.behavioral.observer;
 
 import com.designpatterns.util.LoggerUtil;
-import java.util.ArrayList;
-import java.util.List;
-
-interface StockObserver {
-    void update(String stockSymbol, double price);
-}
-
-class StockMarket {
-    private List<StockObserver> observers = new ArrayList<>();
-    private String stockSymbol;
-    private double price;
-
-    public void addObserver(StockObserver observer) {
-        observers.add(observer);
-    }
-
-    public void removeObserver(StockObserver observer) {
-        observers.remove(observer);
-    }
-
-    public void setStockInfo(String stockSymbol, double price) {
-        this.stockSymbol = stockSymbol;
-        this.price = price;
-        notifyObservers();
-    }
-
-    private void notifyObservers() {
-        for (StockObserver observer : observers) {
-            observer.update(stockSymbol, price);
-        }
-    }
-}
 
 class StockTrader implements StockObserver {
     private String name;
@@ -58,5 +26,15 @@ public class StockMarketDemo {
 
         stockMarket.setStockInfo("AAPL", 150.50);
         stockMarket.setStockInfo("GOOGL", 2750.75);
+
+        // Engine-backed market: traders only receive the symbols they subscribed to.
+        try (MarketDataEngine engine = new MarketDataEngine(1024, 1)) {
+            engine.start();
+            StockMarket feed = new StockMarket(engine);
+            feed.addObserver("AAPL", trader1);
+            feed.addObserver("GOOGL", trader2);
+            feed.setStockInfo("AAPL", 151.25);
+            feed.setStockInfo("GOOGL", 2748.10);
+        }
     }
 }
\ No newline at end of file
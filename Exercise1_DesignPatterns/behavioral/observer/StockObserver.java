@@ -0,0 +1,9 @@
+package com.designpatterns.behavioral.observer;
+
+interface StockObserver {
+    void update(String stockSymbol, double price);
+
+    /** Called after the last tick of a delivered batch; observers can defer expensive work until here. */
+    default void endOfBatch() {
+    }
+}
@@ -0,0 +1,25 @@
+package com.designpatterns.behavioral.observer;
+
+/**
+ * Presents a {@link StockObserver} as a {@link PrimitiveStockObserver}, resolving ids back to the interned
+ * symbol strings, so existing traders keep working on the primitive tick path.
+ */
+class StockObserverAdapter implements PrimitiveStockObserver {
+    private final SymbolDictionary symbols;
+    private final StockObserver observer;
+
+    StockObserverAdapter(SymbolDictionary symbols, StockObserver observer) {
+        this.symbols = symbols;
+        this.observer = observer;
+    }
+
+    @Override
+    public void onTick(int symbolId, double price, long epochNanos) {
+        observer.update(symbols.name(symbolId), price);
+    }
+
+    @Override
+    public void endOfBatch() {
+        observer.endOfBatch();
+    }
+}
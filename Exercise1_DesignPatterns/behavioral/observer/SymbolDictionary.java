@@ -0,0 +1,76 @@
+package com.designpatterns.behavioral.observer;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns ticker symbols to dense int ids {@code 0..size()-1}, so per-symbol state can live in flat arrays
+ * indexed by id. Lookups are lock-free; registering a new symbol takes a lock. The name table doubles when full,
+ * up to the capacity, so registering n symbols copies O(n) references in total.
+ */
+class SymbolDictionary {
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final int capacity;
+    private volatile String[] names;
+    private volatile int size;
+
+    SymbolDictionary(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.names = new String[Math.min(capacity, 16)];
+    }
+
+    /** Returns the id of a symbol, registering it on first use. */
+    int idOf(String symbol) {
+        Integer id = ids.get(symbol);
+        return id != null ? id : register(symbol);
+    }
+
+    /** Returns the id of a registered symbol, or -1. */
+    int find(String symbol) {
+        Integer id = ids.get(symbol);
+        return id != null ? id : -1;
+    }
+
+    String name(int id) {
+        return names[id];
+    }
+
+    /** Copy of the id-to-name table; ids registered later are not included. */
+    String[] names() {
+        int count = size;
+        return Arrays.copyOf(names, count);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Upper bound on the number of symbols, used to size per-symbol arrays. */
+    int capacity() {
+        return capacity;
+    }
+
+    private synchronized int register(String symbol) {
+        Integer id = ids.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        int next = size;
+        if (next == capacity) {
+            throw new IllegalStateException("Symbol dictionary is full (" + capacity + " symbols)");
+        }
+        String[] table = names;
+        if (next == table.length) {
+            table = Arrays.copyOf(table, Math.min(capacity, table.length * 2));
+        }
+        table[next] = symbol;
+        names = table;
+        size = next + 1; // published before the id becomes visible
+        ids.put(symbol, next);
+        return next;
+    }
+}
@@ -0,0 +1,112 @@
+package com.designpatterns.behavioral.observer;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures heap allocation per tick on the primitive tick path, on both the publisher thread and the
+ * dispatcher thread, using the HotSpot per-thread allocation counters. After warm-up both must report
+ * 0 bytes per tick; the run exits with status 1 if either thread allocated in the measured window. Half of the symbols go to a {@link StockObserver} behind the adapter; since symbol
+ * strings are interned once, the String API adds no per-tick allocation either.
+ *
+ * <p>Usage: {@code java -cp out com.designpatterns.behavioral.observer.TickAllocationBenchmark [ticks]}
+ */
+public class TickAllocationBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /** Samples the allocation counter of the thread delivering its ticks when the measured window opens and closes. */
+    static final class MeasuringObserver implements PrimitiveStockObserver {
+        private final long windowStart;
+        private final long windowEnd;
+        long ticks;
+        double checksum;
+        long allocatedAtStart;
+        long allocatedAtEnd;
+
+        MeasuringObserver(long windowStart, long windowEnd) {
+            this.windowStart = windowStart;
+            this.windowEnd = windowEnd;
+        }
+
+        @Override
+        public void onTick(int symbolId, double price, long epochNanos) {
+            checksum += price + symbolId;
+            if (epochNanos == windowStart) {
+                allocatedAtStart = allocatedBytes();
+            } else if (epochNanos == windowEnd) {
+                allocatedAtEnd = allocatedBytes();
+            }
+            ticks++;
+        }
+    }
+
+    /** String-API observer with the same work, for comparison. */
+    static final class StringObserver implements StockObserver {
+        double checksum;
+
+        @Override
+        public void update(String stockSymbol, double price) {
+            checksum += price + stockSymbol.length();
+        }
+    }
+
+    public static void main(String[] args) {
+        long ticks = args.length > 0 ? Long.parseLong(args[0]) : 20_000_000L;
+        long warmup = (ticks / 2) & ~1L; // even ticks go to the primitive observer, which samples the window
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.out.println("Per-thread allocation counters are not supported by this JVM");
+            return;
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        long allocated;
+        try (MarketDataEngine engine = new MarketDataEngine(1 << 14, 1)) {
+            int symbolCount = 2_000;
+            int[] ids = new int[symbolCount];
+            for (int i = 0; i < symbolCount; i++) {
+                ids[i] = engine.symbolId("SYM" + i);
+            }
+            MeasuringObserver observer = new MeasuringObserver(warmup, (ticks - 1) & ~1L);
+            StringObserver stringObserver = new StringObserver();
+            for (int i = 0; i < symbolCount; i += 2) {
+                engine.subscribeTicks(ids[i], observer);
+                engine.subscribe("SYM" + (i + 1), stringObserver);
+            }
+            engine.start();
+
+            long publisherStart = 0;
+            for (long i = 0; i < ticks; i++) {
+                if (i == warmup) {
+                    publisherStart = allocatedBytes();
+                }
+                engine.publish(ids[(int) ((i * 2 + (i & 1)) % symbolCount)], 100.0 + (i & 255), i);
+            }
+            long publisherEnd = allocatedBytes();
+            engine.awaitDrained();
+
+            long measured = ticks - warmup;
+            System.out.printf("ticks measured=%,d (after %,d warm-up ticks)%n", measured, warmup);
+            System.out.printf("publisher: %,d bytes total, %.3f bytes/tick%n", publisherEnd - publisherStart,
+                    (publisherEnd - publisherStart) / (double) measured);
+            long dispatched = observer.allocatedAtEnd - observer.allocatedAtStart;
+            System.out.printf("dispatcher (primitive and String observers): %,d bytes total, %.3f bytes/tick%n",
+                    dispatched, dispatched / (double) measured);
+            System.out.printf("primitive observer ticks=%,d checksum=%.1f, String observer checksum=%.1f%n",
+                    observer.ticks, observer.checksum, stringObserver.checksum);
+            if (observer.allocatedAtEnd == 0) {
+                System.out.println("FAILED: the dispatcher never reached the end of the measured window");
+                System.exit(1);
+            }
+            allocated = (publisherEnd - publisherStart) + dispatched;
+        }
+        if (allocated != 0) {
+            System.out.printf("FAILED: the steady-state tick path allocated %,d bytes%n", allocated);
+            System.exit(1);
+        }
+        System.out.println("TickAllocationBenchmark: OK, no allocation after warm-up");
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
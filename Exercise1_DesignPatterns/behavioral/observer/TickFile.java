@@ -0,0 +1,161 @@
+package com.designpatterns.behavioral.observer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only, memory-mapped view of a binary tick file.
+ *
+ * <p>Layout (little endian): a 32-byte header {@code magic, version, recordBytes, symbolCount:int,
+ * recordCount, symbolTableOffset:long}, then {@code recordCount} records of {@code symbolId:int, price:double,
+ * epochNanos:long} in time order, then the symbol table ({@code count:int} followed by
+ * {@code length:short, UTF-8 bytes} per symbol, in id order). Records are mapped in regions so files larger
+ * than 2 GB can be read.
+ */
+class TickFile implements AutoCloseable {
+    static final int MAGIC = 0x5449434B; // "TICK"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int RECORD_BYTES = 4 + 8 + 8;
+    private static final int REGION_SHIFT = 26;
+    private static final long REGION_MASK = (1L << REGION_SHIFT) - 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] regions;
+    private final long recordCount;
+    private final String[] symbols;
+
+    private TickFile(FileChannel channel, MappedByteBuffer[] regions, long recordCount, String[] symbols) {
+        this.channel = channel;
+        this.regions = regions;
+        this.recordCount = recordCount;
+        this.symbols = symbols;
+    }
+
+    static TickFile open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != RECORD_BYTES) {
+                throw new IOException("Not a tick file (or not closed properly): " + file);
+            }
+            int symbolCount = header.getInt();
+            long recordCount = header.getLong();
+            long symbolTableOffset = header.getLong();
+
+            ByteBuffer table = ByteBuffer.allocate((int) (channel.size() - symbolTableOffset)).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, table, symbolTableOffset);
+            table.flip();
+            String[] symbols = new String[table.getInt()];
+            if (symbols.length != symbolCount) {
+                throw new IOException("Corrupt symbol table in " + file);
+            }
+            for (int i = 0; i < symbols.length; i++) {
+                byte[] bytes = new byte[table.getShort() & 0xFFFF];
+                table.get(bytes);
+                symbols[i] = new String(bytes, StandardCharsets.UTF_8).intern();
+            }
+
+            int regionCount = (int) ((recordCount + REGION_MASK) >>> REGION_SHIFT);
+            MappedByteBuffer[] regions = new MappedByteBuffer[regionCount];
+            for (int r = 0; r < regionCount; r++) {
+                long first = (long) r << REGION_SHIFT;
+                long count = Math.min(1L << REGION_SHIFT, recordCount - first);
+                regions[r] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * RECORD_BYTES, count * RECORD_BYTES);
+                regions[r].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new TickFile(channel, regions, recordCount, symbols);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    long recordCount() {
+        return recordCount;
+    }
+
+    /** Symbol names indexed by the ids stored in the records. */
+    String[] symbols() {
+        return symbols.clone();
+    }
+
+    int symbolId(long record) {
+        return regions[(int) (record >>> REGION_SHIFT)].getInt(offset(record));
+    }
+
+    double price(long record) {
+        return regions[(int) (record >>> REGION_SHIFT)].getDouble(offset(record) + 4);
+    }
+
+    long epochNanos(long record) {
+        return regions[(int) (record >>> REGION_SHIFT)].getLong(offset(record) + 12);
+    }
+
+    /** Index of the first record with {@code epochNanos >= time}, or {@link #recordCount()} if there is none. */
+    long lowerBound(long epochNanos) {
+        long low = 0;
+        long high = recordCount;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (epochNanos(mid) < epochNanos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Splits the records with {@code from <= epochNanos < to} into up to {@code parts} contiguous record ranges
+     * of equal time span, each returned as {@code {firstRecord, endRecord}}. Empty ranges are left out.
+     */
+    List<long[]> split(long fromNanos, long toNanos, int parts) {
+        if (parts < 1 || toNanos < fromNanos) {
+            throw new IllegalArgumentException("Need at least one part and a non-negative time range");
+        }
+        List<long[]> ranges = new ArrayList<>(parts);
+        long span = toNanos - fromNanos;
+        long start = lowerBound(fromNanos);
+        for (int i = 1; i <= parts; i++) {
+            long boundary = i == parts ? toNanos : fromNanos + (long) (span * (i / (double) parts));
+            long end = lowerBound(boundary);
+            if (end > start) {
+                ranges.add(new long[]{start, end});
+            }
+            start = end;
+        }
+        return ranges;
+    }
+
+    private static int offset(long record) {
+        return (int) (record & REGION_MASK) * RECORD_BYTES;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+        long at = position;
+        while (target.hasRemaining()) {
+            int read = channel.read(target, at);
+            if (read < 0) {
+                throw new IOException("Unexpected end of tick file");
+            }
+            at += read;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
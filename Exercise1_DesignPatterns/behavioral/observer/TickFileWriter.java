@@ -0,0 +1,85 @@
+package com.designpatterns.behavioral.observer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a {@link TickFile}: a header, fixed-size tick records in time order, and the symbol table at the end.
+ * The header is completed on {@link #close()}, so an unclosed file is rejected by the reader.
+ */
+class TickFileWriter implements AutoCloseable {
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+    private final SymbolDictionary symbols;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private long records;
+    private long lastEpochNanos = Long.MIN_VALUE;
+
+    TickFileWriter(Path file, SymbolDictionary symbols) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.symbols = symbols;
+        buffer.position(TickFile.HEADER_BYTES); // header is written on close
+    }
+
+    void write(String symbol, double price, long epochNanos) throws IOException {
+        write(symbols.idOf(symbol), price, epochNanos);
+    }
+
+    /** Appends a tick; timestamps must not go backwards so readers can binary-search by time. */
+    void write(int symbolId, double price, long epochNanos) throws IOException {
+        if (epochNanos < lastEpochNanos) {
+            throw new IllegalArgumentException("Ticks must be written in time order");
+        }
+        if (buffer.remaining() < TickFile.RECORD_BYTES) {
+            flush();
+        }
+        buffer.putInt(symbolId).putDouble(price).putLong(epochNanos);
+        lastEpochNanos = epochNanos;
+        records++;
+    }
+
+    long records() {
+        return records;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            long symbolTableOffset = TickFile.HEADER_BYTES + records * TickFile.RECORD_BYTES;
+            String[] names = symbols.names();
+            buffer.putInt(names.length);
+            for (String name : names) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < 2 + bytes.length) {
+                    flush();
+                }
+                buffer.putShort((short) bytes.length).put(bytes);
+            }
+            flush();
+            buffer.putInt(TickFile.MAGIC).putInt(TickFile.VERSION).putInt(TickFile.RECORD_BYTES).putInt(names.length)
+                    .putLong(records).putLong(symbolTableOffset).flip();
+            long at = 0;
+            while (buffer.hasRemaining()) {
+                at += channel.write(buffer, at);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
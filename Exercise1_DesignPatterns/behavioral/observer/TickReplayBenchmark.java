@@ -0,0 +1,103 @@
+package com.designpatterns.behavioral.observer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a synthetic trading day to a tick file and replays it three ways: as fast as possible through an
+ * engine-backed {@link StockMarket}, in parallel time slices into independent sinks, and paced at a multiple of
+ * real time.
+ *
+ * <p>Usage: {@code java -cp out com.designpatterns.behavioral.observer.TickReplayBenchmark [symbols] [ticks] [file]}
+ */
+public class TickReplayBenchmark {
+    private static final long SESSION_NANOS = TimeUnit.MINUTES.toNanos(390); // 09:30 - 16:00
+
+    /** Backtest sink that only accumulates, one per replay thread. */
+    static final class CountingSink implements PrimitiveStockObserver {
+        long ticks;
+        double checksum;
+
+        @Override
+        public void onTick(int symbolId, double price, long epochNanos) {
+            ticks++;
+            checksum += price;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int symbolCount = args.length > 0 ? Integer.parseInt(args[0]) : 3_000;
+        long ticks = args.length > 1 ? Long.parseLong(args[1]) : 20_000_000L;
+        Path path = args.length > 2 ? Paths.get(args[2]) : Files.createTempFile("ticks", ".bin");
+        boolean temporary = args.length <= 2;
+        try {
+            long begin = System.nanoTime();
+            long sessionStart = writeDay(path, symbolCount, ticks);
+            System.out.printf("wrote %,d ticks for %,d symbols (%,d MB) in %,d ms%n", ticks, symbolCount,
+                    Files.size(path) >> 20, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+
+            try (TickFile file = TickFile.open(path)) {
+                TickReplayer replayer = new TickReplayer(file);
+
+                try (MarketDataEngine engine = new MarketDataEngine(1 << 16, 1)) {
+                    StockMarket market = new StockMarket(engine);
+                    ConflatingSubscriber latest = new ConflatingSubscriber(engine.symbols());
+                    engine.subscribeAllTicks(latest);
+                    engine.start();
+                    begin = System.nanoTime();
+                    long replayed = replayer.replay(market, TickReplayer.AS_FAST_AS_POSSIBLE);
+                    engine.awaitDrained();
+                    report("full day through StockMarket", replayed, System.nanoTime() - begin);
+                }
+
+                int parts = Runtime.getRuntime().availableProcessors();
+                CountingSink[] sinks = new CountingSink[parts];
+                begin = System.nanoTime();
+                long replayed = replayer.replayParallel(sessionStart, sessionStart + SESSION_NANOS, parts,
+                        i -> sinks[i] = new CountingSink(), TickReplayer.AS_FAST_AS_POSSIBLE);
+                report("full day in " + parts + " parallel slices", replayed, System.nanoTime() - begin);
+
+                List<long[]> firstMinute = file.split(sessionStart, sessionStart + TimeUnit.MINUTES.toNanos(1), 1);
+                if (!firstMinute.isEmpty()) {
+                    begin = System.nanoTime();
+                    replayed = replayer.replay(firstMinute.get(0)[0], firstMinute.get(0)[1], new CountingSink(), 60);
+                    report("first minute at 60x real time", replayed, System.nanoTime() - begin);
+                }
+            }
+        } finally {
+            if (temporary) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /** Writes {@code ticks} random-walk ticks spread over one session and returns the session start. */
+    private static long writeDay(Path path, int symbolCount, long ticks) throws IOException {
+        long sessionStart = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        SymbolDictionary symbols = new SymbolDictionary(symbolCount);
+        double[] prices = new double[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            symbols.idOf("SYM" + i);
+            prices[i] = 10 + i % 500;
+        }
+        Random random = new Random(3);
+        try (TickFileWriter writer = new TickFileWriter(path, symbols)) {
+            for (long i = 0; i < ticks; i++) {
+                int symbol = random.nextInt(symbolCount);
+                prices[symbol] = Math.max(0.01, prices[symbol] + (random.nextInt(5) - 2) * 0.01);
+                writer.write(symbol, prices[symbol], sessionStart + (long) (SESSION_NANOS * (i / (double) ticks)));
+            }
+        }
+        return sessionStart;
+    }
+
+    private static void report(String label, long ticks, long elapsedNanos) {
+        System.out.printf("%s: %,d ticks in %,d ms -> %,.0f ticks/s%n", label, ticks,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), ticks / (elapsedNanos / 1e9));
+    }
+}
@@ -0,0 +1,92 @@
+package com.designpatterns.behavioral.observer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+/**
+ * Streams ticks from a {@link TickFile} into a {@link PrimitiveStockObserver} or an engine-backed
+ * {@link StockMarket}, either as fast as possible ({@code speed = 0}) or paced against the wall clock at
+ * {@code speed} times real time. Time ranges of a file can be replayed in parallel into independent sinks.
+ */
+class TickReplayer {
+    static final double AS_FAST_AS_POSSIBLE = 0;
+    private static final long SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final TickFile file;
+
+    TickReplayer(TickFile file) {
+        this.file = file;
+    }
+
+    /** Replays the whole file into the market, translating file symbol ids to the market's ids. */
+    long replay(StockMarket market, double speed) {
+        String[] names = file.symbols();
+        int[] remap = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            remap[i] = market.symbolId(names[i]);
+        }
+        return replay(0, file.recordCount(), (symbolId, price, epochNanos) ->
+                market.setStockInfo(remap[symbolId], price, epochNanos), speed);
+    }
+
+    /** Replays records {@code [first, end)} into {@code sink}; symbol ids are those of the file. Returns the tick count. */
+    long replay(long first, long end, PrimitiveStockObserver sink, double speed) {
+        if (first >= end) {
+            return 0;
+        }
+        long baseNanos = file.epochNanos(first);
+        long wallStart = System.nanoTime();
+        for (long record = first; record < end; record++) {
+            long epochNanos = file.epochNanos(record);
+            if (speed > 0) {
+                awaitDue(wallStart + (long) ((epochNanos - baseNanos) / speed));
+            }
+            sink.onTick(file.symbolId(record), file.price(record), epochNanos);
+        }
+        sink.endOfBatch();
+        return end - first;
+    }
+
+    /**
+     * Splits {@code [fromNanos, toNanos)} into {@code parts} time slices and replays each on its own thread into
+     * the sink created for it. Returns the total tick count.
+     */
+    long replayParallel(long fromNanos, long toNanos, int parts, IntFunction<PrimitiveStockObserver> sinks, double speed)
+            throws InterruptedException {
+        List<long[]> ranges = file.split(fromNanos, toNanos, parts);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, ranges.size()));
+        try {
+            List<Future<Long>> results = new ArrayList<>(ranges.size());
+            for (int i = 0; i < ranges.size(); i++) {
+                long[] range = ranges.get(i);
+                PrimitiveStockObserver sink = sinks.apply(i);
+                results.add(pool.submit(() -> replay(range[0], range[1], sink, speed)));
+            }
+            long total = 0;
+            for (Future<Long> result : results) {
+                total += result.get();
+            }
+            return total;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Replay failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void awaitDue(long dueNanos) {
+        long remaining;
+        while ((remaining = dueNanos - System.nanoTime()) > 0) {
+            if (remaining > SPIN_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_NANOS);
+            }
+        }
+    }
+}
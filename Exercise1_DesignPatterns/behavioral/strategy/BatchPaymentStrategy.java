@@ -0,0 +1,20 @@
+package com.designpatterns.behavioral.strategy;
+
+/**
+ * A payment strategy whose gateway can settle many payments in one call.
+ */
+interface BatchPaymentStrategy extends PaymentStrategy {
+    /**
+     * Settles {@code amounts[0..count)} in a single gateway call and returns one entry per payment: {@code null}
+     * if it was approved, otherwise the decline reason.
+     */
+    String[] payBatch(double[] amounts, int count);
+
+    @Override
+    default void pay(double amount) {
+        String declined = payBatch(new double[]{amount}, 1)[0];
+        if (declined != null) {
+            throw new IllegalStateException(declined);
+        }
+    }
+}
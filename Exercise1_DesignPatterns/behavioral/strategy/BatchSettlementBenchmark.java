@@ -0,0 +1,67 @@
+package com.designpatterns.behavioral.strategy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares one gateway call per payment with {@link BatchingPaymentStrategy} against a simulated gateway that
+ * has a fixed cost per call and a cap on concurrent calls.
+ *
+ * <p>Usage: {@code java -cp out com.designpatterns.behavioral.strategy.BatchSettlementBenchmark [payments] [batchSize] [latencyMillis] [gatewayConnections]}
+ */
+public class BatchSettlementBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int payments = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        long latencyMillis = args.length > 2 ? Long.parseLong(args[2]) : 20;
+        int connections = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        System.out.printf("payments=%,d gateway latency=%d ms, %d concurrent calls%n", payments, latencyMillis, connections);
+
+        SimulatedGatewayPayment single = new SimulatedGatewayPayment(latencyMillis, 0, TimeUnit.MILLISECONDS, 0.01, connections);
+        ExecutorService callers = Executors.newFixedThreadPool(connections * 4);
+        LongAdder declined = new LongAdder();
+        long begin = System.nanoTime();
+        CompletableFuture<?>[] results = new CompletableFuture<?>[payments];
+        for (int i = 0; i < payments; i++) {
+            double amount = 10 + i % 90;
+            results[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    single.pay(amount);
+                } catch (IllegalStateException e) {
+                    declined.increment();
+                }
+            }, callers);
+        }
+        CompletableFuture.allOf(results).join();
+        report("one call per payment", payments, System.nanoTime() - begin, single.calls(), declined.sum());
+        callers.shutdown();
+
+        SimulatedGatewayPayment gateway = new SimulatedGatewayPayment(latencyMillis, 0, TimeUnit.MILLISECONDS, 0.01, connections);
+        try (BatchingPaymentStrategy batching = new BatchingPaymentStrategy(gateway, batchSize, latencyMillis,
+                TimeUnit.MILLISECONDS, connections)) {
+            LongAdder batchDeclined = new LongAdder();
+            begin = System.nanoTime();
+            for (int i = 0; i < payments; i++) {
+                results[i] = batching.payAsync(10 + i % 90).exceptionally(error -> {
+                    batchDeclined.increment();
+                    return null;
+                });
+            }
+            batching.flush();
+            CompletableFuture.allOf(results).join();
+            report("batches of " + batchSize, payments, System.nanoTime() - begin, gateway.calls(), batchDeclined.sum());
+            System.out.printf("  batches=%,d (%,d full) mean size=%.1f largest=%d flush mean=%.1f ms max=%.1f ms%n",
+                    batching.batches(), batching.sizeTriggeredBatches(), batching.meanBatchSize(),
+                    batching.largestBatch(), batching.meanFlushMillis(), batching.slowestFlushMillis());
+        }
+    }
+
+    private static void report(String label, int payments, long elapsedNanos, long calls, long declined) {
+        System.out.printf("%s: %,.0f payments/s, %,d gateway calls, %,d declined%n", label,
+                payments / (elapsedNanos / 1e9), calls, declined);
+    }
+}
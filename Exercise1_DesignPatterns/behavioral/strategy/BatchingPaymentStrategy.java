@@ -0,0 +1,222 @@
+package com.designpatterns.behavioral.strategy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers payments for a {@link BatchPaymentStrategy} and settles them as one batch call once
+ * {@code maxBatchSize} payments are waiting or the oldest has waited {@code maxDelay}, whichever comes first.
+ * Each caller gets its own outcome from the batch response.
+ *
+ * <p>It is itself a {@link PaymentStrategy}, so it drops into {@link ShoppingCart} or {@link PaymentEngine}:
+ * {@link #pay(double)} blocks until the payment's batch is settled and throws if it was declined, while
+ * {@link #payAsync(double)} returns immediately. Batches are settled on a small pool of settlement threads,
+ * which also bounds the number of concurrent calls to the gateway.
+ */
+class BatchingPaymentStrategy implements PaymentStrategy, AutoCloseable {
+    private final BatchPaymentStrategy delegate;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final ScheduledThreadPoolExecutor flusher;
+    private final ExecutorService settlers;
+    private Batch current;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder payments = new LongAdder();
+    private final AtomicLong largestBatch = new AtomicLong();
+    private final LongAdder flushNanos = new LongAdder();
+    private final AtomicLong slowestFlushNanos = new AtomicLong();
+    private final LongAdder sizeTriggered = new LongAdder();
+
+    BatchingPaymentStrategy(BatchPaymentStrategy delegate, int maxBatchSize, long maxDelay, TimeUnit unit) {
+        this(delegate, maxBatchSize, maxDelay, unit, 4);
+    }
+
+    BatchingPaymentStrategy(BatchPaymentStrategy delegate, int maxBatchSize, long maxDelay, TimeUnit unit, int concurrentBatches) {
+        if (maxBatchSize < 1 || maxDelay <= 0 || concurrentBatches < 1) {
+            throw new IllegalArgumentException("Batch size, delay and concurrent batches must be positive");
+        }
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.flusher = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "batch-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.settlers = Executors.newFixedThreadPool(concurrentBatches, runnable -> {
+            Thread thread = new Thread(runnable, "batch-settler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.current = new Batch(maxBatchSize);
+    }
+
+    @Override
+    public void pay(double amount) {
+        try {
+            payAsync(amount).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for batch settlement", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        }
+    }
+
+    /** Queues a payment for the next batch; the future fails if the payment is declined. */
+    CompletableFuture<Void> payAsync(double amount) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        Batch full = null;
+        synchronized (this) {
+            Batch batch = current;
+            batch.add(amount, result);
+            if (batch.count == 1) {
+                flusher.schedule(() -> flushIfPending(batch), maxDelayNanos, TimeUnit.NANOSECONDS);
+            }
+            if (batch.count == maxBatchSize) {
+                full = batch;
+                current = new Batch(maxBatchSize);
+            }
+        }
+        if (full != null) {
+            sizeTriggered.increment();
+            dispatch(full);
+        }
+        return result;
+    }
+
+    /** Settles everything buffered so far without waiting for the thresholds. */
+    void flush() {
+        Batch batch;
+        synchronized (this) {
+            if (current.count == 0) {
+                return;
+            }
+            batch = current;
+            current = new Batch(maxBatchSize);
+        }
+        dispatch(batch);
+    }
+
+    private void flushIfPending(Batch batch) {
+        synchronized (this) {
+            if (current != batch) {
+                return; // already settled by size or an explicit flush
+            }
+            current = new Batch(maxBatchSize);
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch batch) {
+        settlers.execute(() -> settle(batch));
+    }
+
+    private void settle(Batch batch) {
+        long begin = System.nanoTime();
+        String[] declines = null;
+        Throwable failure = null;
+        try {
+            declines = delegate.payBatch(batch.amounts, batch.count);
+            if (declines == null || declines.length < batch.count) {
+                failure = new IllegalStateException("Batch gateway returned "
+                        + (declines == null ? "no" : String.valueOf(declines.length)) + " outcomes for "
+                        + batch.count + " payments");
+            }
+        } catch (Throwable e) {
+            failure = e;
+        }
+        long elapsed = System.nanoTime() - begin;
+        batches.increment();
+        payments.add(batch.count);
+        flushNanos.add(elapsed);
+        largestBatch.accumulateAndGet(batch.count, Math::max);
+        slowestFlushNanos.accumulateAndGet(elapsed, Math::max);
+
+        try {
+            for (int i = 0; i < batch.count; i++) {
+                if (failure != null) {
+                    batch.results[i].completeExceptionally(failure);
+                } else if (declines[i] == null) {
+                    batch.results[i].complete(null);
+                } else {
+                    batch.results[i].completeExceptionally(new IllegalStateException(declines[i]));
+                }
+            }
+        } finally {
+            // no caller may be left waiting on a batch that will never be settled again
+            for (int i = 0; i < batch.count; i++) {
+                batch.results[i].completeExceptionally(new IllegalStateException("Batch settlement did not complete", failure));
+            }
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+    }
+
+    long batches() {
+        return batches.sum();
+    }
+
+    double meanBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0 : payments.sum() / (double) count;
+    }
+
+    long largestBatch() {
+        return largestBatch.get();
+    }
+
+    /** Batches settled because they filled up, as opposed to reaching the delay. */
+    long sizeTriggeredBatches() {
+        return sizeTriggered.sum();
+    }
+
+    /** Mean duration of a batch call to the delegate. */
+    double meanFlushMillis() {
+        long count = batches.sum();
+        return count == 0 ? 0 : flushNanos.sum() / 1e6 / count;
+    }
+
+    double slowestFlushMillis() {
+        return slowestFlushNanos.get() / 1e6;
+    }
+
+    @Override
+    public void close() {
+        flush();
+        flusher.shutdownNow();
+        settlers.shutdown();
+        try {
+            settlers.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Batch {
+        final double[] amounts;
+        final CompletableFuture<Void>[] results;
+        int count;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Batch(int capacity) {
+            this.amounts = new double[capacity];
+            this.results = new CompletableFuture[capacity];
+        }
+
+        void add(double amount, CompletableFuture<Void> result) {
+            amounts[count] = amount;
+            results[count] = result;
+            count++;
+        }
+    }
+}
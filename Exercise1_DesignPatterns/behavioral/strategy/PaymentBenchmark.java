@@ -0,0 +1,63 @@
+package com.designpatterns.behavioral.strategy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives {@link PaymentEngine} with checkouts against two simulated gateways, one of them capped by a
+ * per-strategy concurrency limit, and reports throughput, outcomes and mean latency. Every tenth checkout
+ * is resubmitted with the same idempotency key to show that it is not charged twice.
+ *
+ * <p>Usage: {@code java -cp out com.designpatterns.behavioral.strategy.PaymentBenchmark [payments] [workers] [latencyMillis]}
+ */
+public class PaymentBenchmark {
+
+    /** Second gateway type, so it can be limited separately. */
+    static final class SlowGatewayPayment extends SimulatedGatewayPayment {
+        SlowGatewayPayment(long latency, TimeUnit unit) {
+            super(latency, latency, unit, 0.0);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int payments = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int workerThreads = args.length > 1 ? Integer.parseInt(args[1]) : 512;
+        long latencyMillis = args.length > 2 ? Long.parseLong(args[2]) : 20;
+
+        SimulatedGatewayPayment cards = new SimulatedGatewayPayment(latencyMillis, latencyMillis / 2, TimeUnit.MILLISECONDS, 0.01);
+        SlowGatewayPayment wallet = new SlowGatewayPayment(latencyMillis * 2, TimeUnit.MILLISECONDS);
+        AtomicLong latencyTotal = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(payments);
+
+        try (PaymentEngine engine = new PaymentEngine(workerThreads, payments, 2, TimeUnit.SECONDS)) {
+            engine.setConcurrencyLimit(SlowGatewayPayment.class, 64);
+            long begin = System.nanoTime();
+            for (int i = 0; i < payments; i++) {
+                PaymentStrategy strategy = i % 20 == 19 ? wallet : cards;
+                String key = "order-" + i;
+                CompletableFuture<PaymentReceipt> result = engine.submit(key, strategy, 10 + i % 90);
+                if (i % 10 == 0) {
+                    engine.submit(key, strategy, 10 + i % 90); // client retry, must not charge again
+                }
+                result.whenComplete((receipt, error) -> {
+                    if (receipt != null) {
+                        latencyTotal.addAndGet(receipt.getLatencyNanos());
+                    }
+                    done.countDown();
+                });
+            }
+            done.await();
+            long elapsed = System.nanoTime() - begin;
+
+            System.out.printf("payments=%,d workers=%d gateway latency=%d ms (wallet %d ms, limit 64)%n",
+                    payments, workerThreads, latencyMillis, latencyMillis * 2);
+            System.out.printf("throughput=%,.0f payments/s in %,d ms%n", payments / (elapsed / 1e9), TimeUnit.NANOSECONDS.toMillis(elapsed));
+            System.out.printf("succeeded=%,d failed=%,d timedOut=%,d rejected=%,d duplicates=%,d charged=%,d%n",
+                    engine.succeeded(), engine.failed(), engine.timedOut(), engine.rejected(), engine.duplicates(),
+                    cards.charged() + wallet.charged());
+            System.out.printf("mean latency=%.1f ms%n", latencyTotal.get() / 1e6 / Math.max(1, engine.succeeded()));
+        }
+    }
+}
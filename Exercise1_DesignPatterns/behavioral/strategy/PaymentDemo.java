@@ -2,11 +2,9 @@ package com.designpatterns.behavioral.strategy;
 
 import com.designpatterns.util.LoggerUtil;
 
-interface PaymentStrategy {
-    void pay(double amount);
-}
+import java.util.concurrent.TimeUnit;
 
-class CreditCardPayment implements PaymentStrategy {
+class CreditCardPayment implements BatchPaymentStrategy {
     private String cardNumber;
 
     public CreditCardPayment(String cardNumber) {
@@ -17,9 +15,23 @@ class CreditCardPayment implements PaymentStrategy {
     public void pay(double amount) {
         LoggerUtil.log("Paid $" + amount + " using Credit Card: " + cardNumber);
     }
+
+    @Override
+    public String[] payBatch(double[] amounts, int count) {
+        LoggerUtil.log("Settled " + count + " payments totalling $" + total(amounts, count) + " using Credit Card: " + cardNumber);
+        return new String[count];
+    }
+
+    static double total(double[] amounts, int count) {
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            total += amounts[i];
+        }
+        return total;
+    }
 }
 
-class PayPalPayment implements PaymentStrategy {
+class PayPalPayment implements BatchPaymentStrategy {
     private String email;
 
     public PayPalPayment(String email) {
@@ -30,17 +42,11 @@ class PayPalPayment implements PaymentStrategy {
     public void pay(double amount) {
         LoggerUtil.log("Paid $" + amount + " using PayPal account: " + email);
     }
-}
-
-class ShoppingCart {
-    private PaymentStrategy paymentStrategy;
-
-    public void setPaymentStrategy(PaymentStrategy paymentStrategy) {
-        this.paymentStrategy = paymentStrategy;
-    }
 
-    public void checkout(double amount) {
-        paymentStrategy.pay(amount);
+    @Override
+    public String[] payBatch(double[] amounts, int count) {
+        LoggerUtil.log("Settled " + count + " payments totalling $" + CreditCardPayment.total(amounts, count) + " using PayPal account: " + email);
+        return new String[count];
     }
 }
 
@@ -53,5 +59,12 @@ public class PaymentDemo {
 
         cart.setPaymentStrategy(new PayPalPayment("user@example.com"));
         cart.checkout(200.75);
+
+        // Batch settlement: both checkouts are settled in one gateway call.
+        try (BatchingPaymentStrategy batched = new BatchingPaymentStrategy(
+                new CreditCardPayment("1234-5678-9012-3456"), 2, 100, TimeUnit.MILLISECONDS)) {
+            batched.payAsync(25.00);
+            batched.payAsync(74.99).join();
+        }
     }
 }
\ No newline at end of file
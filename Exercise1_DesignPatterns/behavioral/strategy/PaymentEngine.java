@@ -0,0 +1,237 @@
+package com.designpatterns.behavioral.strategy;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent payment processing over {@link PaymentStrategy}.
+ *
+ * <p>Checkouts are admitted into a bounded queue and executed by a worker pool. Each strategy type can be given
+ * a concurrency limit; payments above the limit wait in that strategy's lane without holding a worker, so a
+ * slow gateway cannot starve the others. Results are {@link CompletableFuture}s that complete exceptionally
+ * with {@link RejectedExecutionException} when the queue is full, {@link TimeoutException} when the payment
+ * did not finish in time, or the strategy's own exception. Submissions with the same idempotency key return
+ * the same future for the retention period, so a retried checkout is never charged twice.
+ *
+ * <p>A payment that times out while still queued is not executed; one that is already running is allowed to
+ * finish, but its caller has been told it timed out.
+ */
+class PaymentEngine implements AutoCloseable {
+    private final ThreadPoolExecutor workers;
+    private final ScheduledThreadPoolExecutor timer;
+    private final int capacity;
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final long timeoutNanos;
+    private final long retentionNanos;
+    private final Map<Class<?>, Integer> limits = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Lane> lanes = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<PaymentReceipt>> byKey = new ConcurrentHashMap<>();
+    private final Queue<Completed> completed = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+
+    /**
+     * @param workerThreads threads executing payments; size this for the gateway latency (threads / latency = rate)
+     * @param queueCapacity maximum payments admitted but not yet finished
+     * @param timeout       per-payment deadline measured from submission
+     */
+    PaymentEngine(int workerThreads, int queueCapacity, long timeout, TimeUnit unit) {
+        this(workerThreads, queueCapacity, timeout, unit, TimeUnit.MINUTES.toNanos(10));
+    }
+
+    PaymentEngine(int workerThreads, int queueCapacity, long timeout, TimeUnit unit, long idempotencyRetentionNanos) {
+        if (workerThreads < 1 || queueCapacity < 1 || timeout <= 0) {
+            throw new IllegalArgumentException("Workers, queue capacity and timeout must be positive");
+        }
+        this.capacity = queueCapacity;
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.retentionNanos = idempotencyRetentionNanos;
+        // Workers only ever receive tasks that hold a lane permit, so the queue never exceeds the admitted count.
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads("payment-worker"));
+        this.timer = new ScheduledThreadPoolExecutor(1, daemonThreads("payment-timer"));
+        this.timer.setRemoveOnCancelPolicy(true); // deadlines of finished payments leave the timer queue at once
+        this.timer.scheduleWithFixedDelay(this::expireKeys, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /** Caps concurrent payments through strategies of the given type. */
+    void setConcurrencyLimit(Class<? extends PaymentStrategy> strategyType, int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("Concurrency limit must be positive");
+        }
+        if (lanes.containsKey(strategyType)) {
+            throw new IllegalStateException("Limit must be set before the first payment through " + strategyType.getSimpleName());
+        }
+        limits.put(strategyType, maxConcurrent);
+    }
+
+    CompletableFuture<PaymentReceipt> submit(String idempotencyKey, PaymentStrategy strategy, double amount) {
+        CompletableFuture<PaymentReceipt> result = new CompletableFuture<>();
+        CompletableFuture<PaymentReceipt> existing = byKey.putIfAbsent(idempotencyKey, result);
+        if (existing != null) {
+            duplicates.increment();
+            return existing;
+        }
+        if (admitted.incrementAndGet() > capacity) {
+            admitted.decrementAndGet();
+            byKey.remove(idempotencyKey, result); // a rejected checkout may be retried with the same key
+            rejected.increment();
+            result.completeExceptionally(new RejectedExecutionException("Payment queue is full"));
+            return result;
+        }
+
+        long submittedAt = System.nanoTime();
+        ScheduledFuture<?> deadline = timer.schedule(() -> {
+            if (result.completeExceptionally(new TimeoutException("Payment " + idempotencyKey + " timed out"))) {
+                timedOut.increment();
+            }
+        }, timeoutNanos, TimeUnit.NANOSECONDS);
+        result.whenComplete((receipt, error) -> {
+            deadline.cancel(false);
+            completed.add(new Completed(idempotencyKey, result, System.nanoTime()));
+        });
+
+        Runnable payment = () -> {
+            try {
+                if (result.isDone()) {
+                    return; // timed out while queued: do not charge
+                }
+                strategy.pay(amount);
+                if (result.complete(new PaymentReceipt(idempotencyKey, strategy.getClass().getSimpleName(), amount,
+                        System.nanoTime() - submittedAt))) {
+                    succeeded.increment();
+                }
+            } catch (RuntimeException e) {
+                if (result.completeExceptionally(e)) {
+                    failed.increment();
+                }
+            } finally {
+                admitted.decrementAndGet();
+            }
+        };
+        lanes.computeIfAbsent(strategy.getClass(), this::newLane).submit(payment);
+        return result;
+    }
+
+    long succeeded() {
+        return succeeded.sum();
+    }
+
+    long failed() {
+        return failed.sum();
+    }
+
+    long timedOut() {
+        return timedOut.sum();
+    }
+
+    long rejected() {
+        return rejected.sum();
+    }
+
+    long duplicates() {
+        return duplicates.sum();
+    }
+
+    /** Payments admitted and not yet finished. */
+    int inFlight() {
+        return admitted.get();
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+        try {
+            workers.awaitTermination(timeoutNanos * 2, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        timer.shutdownNow();
+    }
+
+    /** Forgets idempotency keys whose payments finished more than the retention period ago. */
+    private void expireKeys() {
+        long now = System.nanoTime();
+        Completed head;
+        while ((head = completed.peek()) != null && now - head.completedAt > retentionNanos) {
+            completed.poll();
+            byKey.remove(head.key, head.result);
+        }
+    }
+
+    private static final class Completed {
+        final String key;
+        final CompletableFuture<PaymentReceipt> result;
+        final long completedAt;
+
+        Completed(String key, CompletableFuture<PaymentReceipt> result, long completedAt) {
+            this.key = key;
+            this.result = result;
+            this.completedAt = completedAt;
+        }
+    }
+
+    private Lane newLane(Class<?> strategyType) {
+        return new Lane(limits.getOrDefault(strategyType, Integer.MAX_VALUE));
+    }
+
+    /** Per-strategy queue that hands payments to the workers while permits are available. */
+    private final class Lane {
+        private final Semaphore permits;
+        private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+
+        Lane(int limit) {
+            this.permits = new Semaphore(limit);
+        }
+
+        void submit(Runnable payment) {
+            pending.add(payment);
+            drain();
+        }
+
+        private void drain() {
+            while (!pending.isEmpty() && permits.tryAcquire()) {
+                Runnable next = pending.poll();
+                if (next == null) {
+                    permits.release();
+                    continue; // another thread took it; loop re-checks the queue
+                }
+                workers.execute(() -> {
+                    try {
+                        next.run();
+                    } finally {
+                        permits.release();
+                        drain();
+                    }
+                });
+            }
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
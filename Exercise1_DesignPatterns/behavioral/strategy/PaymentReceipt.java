@@ -0,0 +1,35 @@
+package com.designpatterns.behavioral.strategy;
+
+/**
+ * Result of a successful payment.
+ */
+final class PaymentReceipt {
+    private final String idempotencyKey;
+    private final String strategy;
+    private final double amount;
+    private final long latencyNanos;
+
+    PaymentReceipt(String idempotencyKey, String strategy, double amount, long latencyNanos) {
+        this.idempotencyKey = idempotencyKey;
+        this.strategy = strategy;
+        this.amount = amount;
+        this.latencyNanos = latencyNanos;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    /** Time from submission to completion, including queueing. */
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+}
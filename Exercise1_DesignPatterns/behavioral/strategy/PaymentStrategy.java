@@ -0,0 +1,5 @@
+package com.designpatterns.behavioral.strategy;
+
+interface PaymentStrategy {
+    void pay(double amount);
+}
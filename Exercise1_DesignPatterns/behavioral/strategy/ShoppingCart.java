@@ -0,0 +1,23 @@
+package com.designpatterns.behavioral.strategy;
+
+import java.util.concurrent.CompletableFuture;
+
+class ShoppingCart {
+    private volatile PaymentStrategy paymentStrategy;
+
+    public void setPaymentStrategy(PaymentStrategy paymentStrategy) {
+        this.paymentStrategy = paymentStrategy;
+    }
+
+    public void checkout(double amount) {
+        paymentStrategy.pay(amount);
+    }
+
+    /**
+     * Hands the checkout to a {@link PaymentEngine}. The strategy is captured at call time, so changing it
+     * afterwards does not affect payments already submitted.
+     */
+    public CompletableFuture<PaymentReceipt> checkout(PaymentEngine engine, String idempotencyKey, double amount) {
+        return engine.submit(idempotencyKey, paymentStrategy, amount);
+    }
+}
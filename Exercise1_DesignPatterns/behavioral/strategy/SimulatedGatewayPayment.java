@@ -0,0 +1,78 @@
+package com.designpatterns.behavioral.strategy;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stand-in for a remote payment gateway: every call blocks for a configurable latency (with jitter) and each
+ * payment fails with the given probability. A batch call costs the same latency as a single payment, like a
+ * gateway that charges per request. The gateway can also cap concurrent requests, as real gateways rate-limit
+ * per account. Used to benchmark {@link PaymentEngine} and {@link BatchingPaymentStrategy} locally.
+ */
+class SimulatedGatewayPayment implements BatchPaymentStrategy {
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final double failureRate;
+    private final LongAdder charged = new LongAdder();
+    private final LongAdder calls = new LongAdder();
+    private final Semaphore connections;
+
+    SimulatedGatewayPayment(long latency, long jitter, TimeUnit unit, double failureRate) {
+        this(latency, jitter, unit, failureRate, Integer.MAX_VALUE);
+    }
+
+    SimulatedGatewayPayment(long latency, long jitter, TimeUnit unit, double failureRate, int maxConcurrentCalls) {
+        this.connections = new Semaphore(maxConcurrentCalls);
+        this.latencyNanos = unit.toNanos(latency);
+        this.jitterNanos = unit.toNanos(jitter);
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public void pay(double amount) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        simulateCall(random);
+        if (random.nextDouble() < failureRate) {
+            throw new IllegalStateException("Gateway declined payment of " + amount);
+        }
+        charged.increment();
+    }
+
+    @Override
+    public String[] payBatch(double[] amounts, int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        simulateCall(random);
+        String[] declines = new String[count];
+        for (int i = 0; i < count; i++) {
+            if (random.nextDouble() < failureRate) {
+                declines[i] = "Gateway declined payment of " + amounts[i];
+            } else {
+                charged.increment();
+            }
+        }
+        return declines;
+    }
+
+    private void simulateCall(ThreadLocalRandom random) {
+        connections.acquireUninterruptibly();
+        try {
+            calls.increment();
+            LockSupport.parkNanos(latencyNanos + (jitterNanos > 0 ? random.nextLong(jitterNanos) : 0));
+        } finally {
+            connections.release();
+        }
+    }
+
+    /** Requests made to the gateway; each one is billed the same regardless of batch size. */
+    long calls() {
+        return calls.sum();
+    }
+
+    /** Payments the gateway actually accepted. */
+    long charged() {
+        return charged.sum();
+    }
+}
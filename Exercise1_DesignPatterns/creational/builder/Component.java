@@ -0,0 +1,49 @@
+package com.designpatterns.creational.builder;
+
+/**
+ * A part from a {@link ComputerCatalog}. Components are created by their catalog, numbered densely per type,
+ * and compared by identity.
+ *
+ * <p>{@code tier} ranks parts of a type by performance. {@code capacityGb} is the size of RAM and storage, the
+ * most memory a CPU supports, or the video memory of a GPU.
+ */
+final class Component {
+    private final ComponentType type;
+    private final int id;
+    private final String name;
+    private final int tier;
+    private final int capacityGb;
+
+    Component(ComponentType type, int id, String name, int tier, int capacityGb) {
+        this.type = type;
+        this.id = id;
+        this.name = name;
+        this.tier = tier;
+        this.capacityGb = capacityGb;
+    }
+
+    ComponentType getType() {
+        return type;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getTier() {
+        return tier;
+    }
+
+    int getCapacityGb() {
+        return capacityGb;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
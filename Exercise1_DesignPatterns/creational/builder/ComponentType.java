@@ -0,0 +1,5 @@
+package com.designpatterns.creational.builder;
+
+enum ComponentType {
+    CPU, RAM, STORAGE, GPU
+}
@@ -0,0 +1,92 @@
+package com.designpatterns.creational.builder;
+
+/**
+ * An immutable computer configuration. {@link ComputerBuilder#build()} validates the parts against a
+ * {@link ComputerCatalog} and returns the catalog's shared instance for that configuration, so identical
+ * configurations are one object and can be compared with {@code ==}.
+ */
+class Computer {
+    private final Component cpu;
+    private final Component ram;
+    private final Component storage;
+    private final Component gpu;
+    private String description;
+
+    Computer(Component cpu, Component ram, Component storage, Component gpu) {
+        this.cpu = cpu;
+        this.ram = ram;
+        this.storage = storage;
+        this.gpu = gpu;
+    }
+
+    Component getCpu() {
+        return cpu;
+    }
+
+    Component getRam() {
+        return ram;
+    }
+
+    /** The storage, or {@code null} if none was chosen. */
+    Component getStorage() {
+        return storage;
+    }
+
+    /** The GPU, or {@code null} if none was chosen. */
+    Component getGpu() {
+        return gpu;
+    }
+
+    @Override
+    public String toString() {
+        String result = description;
+        if (result == null) {
+            // racing threads build equal strings; either may be kept
+            result = "Computer{" +
+                    "cpu='" + cpu + '\'' +
+                    ", ram='" + ram + '\'' +
+                    ", storage='" + storage + '\'' +
+                    ", gpu='" + gpu + '\'' +
+                    '}';
+            description = result;
+        }
+        return result;
+    }
+
+    public static class ComputerBuilder {
+        private final ComputerCatalog catalog;
+        private String cpu;
+        private String ram;
+        private String storage;
+        private String gpu;
+
+        public ComputerBuilder(String cpu, String ram) {
+            this(ComputerCatalog.standard(), cpu, ram);
+        }
+
+        public ComputerBuilder(ComputerCatalog catalog, String cpu, String ram) {
+            this.catalog = catalog;
+            this.cpu = cpu;
+            this.ram = ram;
+        }
+
+        public ComputerBuilder setStorage(String storage) {
+            this.storage = storage;
+            return this;
+        }
+
+        public ComputerBuilder setGpu(String gpu) {
+            this.gpu = gpu;
+            return this;
+        }
+
+        /**
+         * Returns the shared computer for this configuration.
+         *
+         * @throws IllegalArgumentException if a part is not in the catalog or two parts are incompatible
+         */
+        public Computer build() {
+            return catalog.configure(cpu, ram, storage, gpu);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.designpatterns.creational.builder;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+/**
+ * The parts a computer can be configured from, the rules for combining them, and the shared instance of every
+ * configuration built so far.
+ *
+ * <p>Rules relate two component types. When the catalog is built, every rule is evaluated for every pair of
+ * parts once, and the result is kept in a matrix per pair of types that stores, for each combination, the
+ * reason it is incompatible or {@code null}. There is one matrix per unordered pair, indexed with the type of
+ * lower ordinal first, so rules given as (CPU, RAM) and as (RAM, CPU) land in the same matrix. Validating a
+ * configuration is then one array read per pair of chosen parts. Valid configurations are cached in a bounded {@link ConfigurationCache} keyed by the packed
+ * part ids, so repeated requests return the same immutable {@link Computer} without validating again.
+ */
+final class ComputerCatalog {
+    private static final int TYPES = ComponentType.values().length;
+
+    private final Map<ComponentType, Map<String, Component>> byName = new EnumMap<>(ComponentType.class);
+    private final int[] counts = new int[TYPES];
+    private final String[][] incompatibility = new String[TYPES * TYPES][];
+    private final ConfigurationCache cache;
+
+    private ComputerCatalog(ComputerCatalogBuilder builder) {
+        for (ComponentType type : ComponentType.values()) {
+            Map<String, Component> components = new HashMap<>();
+            for (Component component : builder.components.get(type)) {
+                components.put(component.getName(), component);
+            }
+            byName.put(type, components);
+            counts[type.ordinal()] = components.size();
+        }
+        for (Rule rule : builder.rules) {
+            boolean inOrder = rule.first.ordinal() < rule.second.ordinal();
+            ComponentType low = inOrder ? rule.first : rule.second;
+            ComponentType high = inOrder ? rule.second : rule.first;
+            int highCount = counts[high.ordinal()];
+            int pair = pairIndex(low, high);
+            if (incompatibility[pair] == null) {
+                incompatibility[pair] = new String[counts[low.ordinal()] * highCount];
+            }
+            for (Component a : builder.components.get(rule.first)) {
+                for (Component b : builder.components.get(rule.second)) {
+                    int cell = inOrder ? a.getId() * highCount + b.getId() : b.getId() * highCount + a.getId();
+                    if (incompatibility[pair][cell] == null && !rule.compatible.test(a, b)) {
+                        incompatibility[pair][cell] = a + " is incompatible with " + b + ": " + rule.reason;
+                    }
+                }
+            }
+        }
+        this.cache = new ConfigurationCache(builder.cacheCapacity, 16);
+    }
+
+    /** The default catalog, with the parts used in the demo and a few common rules. */
+    static ComputerCatalog standard() {
+        return Standard.CATALOG;
+    }
+
+    Component find(ComponentType type, String name) {
+        return byName.get(type).get(name);
+    }
+
+    /** The shared computer for these parts; {@code storage} and {@code gpu} may be {@code null}. */
+    Computer configure(String cpuName, String ramName, String storageName, String gpuName) {
+        Component cpu = require(ComponentType.CPU, cpuName);
+        Component ram = require(ComponentType.RAM, ramName);
+        Component storage = storageName == null ? null : require(ComponentType.STORAGE, storageName);
+        Component gpu = gpuName == null ? null : require(ComponentType.GPU, gpuName);
+
+        long key = ((long) cpu.getId() << 48) | ((long) ram.getId() << 32)
+                | ((long) (storage == null ? 0 : storage.getId() + 1) << 16) | (gpu == null ? 0 : gpu.getId() + 1);
+        Computer cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Component[] parts = {cpu, ram, storage, gpu};
+        for (int i = 0; i < parts.length; i++) {
+            for (int j = i + 1; j < parts.length; j++) {
+                if (parts[i] != null && parts[j] != null) {
+                    String reason = incompatibility(parts[i], parts[j]);
+                    if (reason != null) {
+                        throw new IllegalArgumentException(reason);
+                    }
+                }
+            }
+        }
+        return cache.putIfAbsent(key, new Computer(cpu, ram, storage, gpu));
+    }
+
+    int cachedConfigurations() {
+        return cache.size();
+    }
+
+    long cacheHits() {
+        return cache.hits();
+    }
+
+    long cacheMisses() {
+        return cache.misses();
+    }
+
+    private String incompatibility(Component a, Component b) {
+        if (a.getType().ordinal() > b.getType().ordinal()) {
+            Component swap = a;
+            a = b;
+            b = swap;
+        }
+        String[] matrix = incompatibility[pairIndex(a.getType(), b.getType())];
+        return matrix == null ? null : matrix[a.getId() * counts[b.getType().ordinal()] + b.getId()];
+    }
+
+    private Component require(ComponentType type, String name) {
+        Component component = name == null ? null : find(type, name);
+        if (component == null) {
+            throw new IllegalArgumentException("Unknown " + type + ": " + name);
+        }
+        return component;
+    }
+
+    private static int pairIndex(ComponentType first, ComponentType second) {
+        return first.ordinal() * TYPES + second.ordinal();
+    }
+
+    private static final class Rule {
+        final ComponentType first;
+        final ComponentType second;
+        final BiPredicate<Component, Component> compatible;
+        final String reason;
+
+        Rule(ComponentType first, ComponentType second, BiPredicate<Component, Component> compatible, String reason) {
+            this.first = first;
+            this.second = second;
+            this.compatible = compatible;
+            this.reason = reason;
+        }
+    }
+
+    private static final class Standard {
+        static final ComputerCatalog CATALOG = new ComputerCatalogBuilder()
+                .addComponent(ComponentType.CPU, "Intel i3", 1, 32)
+                .addComponent(ComponentType.CPU, "Intel i5", 2, 64)
+                .addComponent(ComponentType.CPU, "Intel i7", 3, 128)
+                .addComponent(ComponentType.CPU, "Intel i9", 4, 128)
+                .addComponent(ComponentType.CPU, "AMD Ryzen 5", 2, 64)
+                .addComponent(ComponentType.CPU, "AMD Ryzen 9", 4, 128)
+                .addComponent(ComponentType.RAM, "8GB", 1, 8)
+                .addComponent(ComponentType.RAM, "16GB", 2, 16)
+                .addComponent(ComponentType.RAM, "32GB", 3, 32)
+                .addComponent(ComponentType.RAM, "64GB", 4, 64)
+                .addComponent(ComponentType.STORAGE, "256GB SSD", 1, 256)
+                .addComponent(ComponentType.STORAGE, "512GB SSD", 2, 512)
+                .addComponent(ComponentType.STORAGE, "1TB NVMe SSD", 3, 1024)
+                .addComponent(ComponentType.STORAGE, "2TB HDD", 1, 2048)
+                .addComponent(ComponentType.GPU, "NVIDIA RTX 3060", 2, 12)
+                .addComponent(ComponentType.GPU, "NVIDIA RTX 3080", 4, 10)
+                .addComponent(ComponentType.GPU, "AMD RX 6800", 3, 16)
+                .addRule(ComponentType.CPU, ComponentType.RAM,
+                        (cpu, ram) -> ram.getCapacityGb() <= cpu.getCapacityGb(), "the CPU does not support that much memory")
+                .addRule(ComponentType.CPU, ComponentType.GPU,
+                        (cpu, gpu) -> gpu.getTier() <= cpu.getTier() + 1, "the CPU would bottleneck the GPU")
+                .addRule(ComponentType.RAM, ComponentType.GPU,
+                        (ram, gpu) -> gpu.getTier() < 3 || ram.getCapacityGb() >= 16, "high-end GPUs need at least 16GB of RAM")
+                .build();
+    }
+
+    public static class ComputerCatalogBuilder {
+        private final Map<ComponentType, List<Component>> components = new EnumMap<>(ComponentType.class);
+        private final List<Rule> rules = new ArrayList<>();
+        private int cacheCapacity = 4096;
+
+        public ComputerCatalogBuilder() {
+            for (ComponentType type : ComponentType.values()) {
+                components.put(type, new ArrayList<>());
+            }
+        }
+
+        public ComputerCatalogBuilder addComponent(ComponentType type, String name, int tier, int capacityGb) {
+            List<Component> ofType = components.get(type);
+            for (Component existing : ofType) {
+                if (existing.getName().equals(name)) {
+                    throw new IllegalArgumentException(type + " " + name + " is already in the catalog");
+                }
+            }
+            if (ofType.size() == 0xFFFE) {
+                throw new IllegalArgumentException("Too many " + type + " components");
+            }
+            ofType.add(new Component(type, ofType.size(), name, tier, capacityGb));
+            return this;
+        }
+
+        /** Adds a rule that every combination of a {@code first} and a {@code second} part must satisfy. */
+        public ComputerCatalogBuilder addRule(ComponentType first, ComponentType second,
+                                              BiPredicate<Component, Component> compatible, String reason) {
+            if (first == second) {
+                throw new IllegalArgumentException("A rule must relate two different component types");
+            }
+            rules.add(new Rule(first, second, compatible, reason));
+            return this;
+        }
+
+        /** Most configurations kept; less recently built ones are evicted first. */
+        public ComputerCatalogBuilder setCacheCapacity(int cacheCapacity) {
+            this.cacheCapacity = cacheCapacity;
+            return this;
+        }
+
+        public ComputerCatalog build() {
+            return new ComputerCatalog(this);
+        }
+    }
+}
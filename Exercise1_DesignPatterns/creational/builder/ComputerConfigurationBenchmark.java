@@ -0,0 +1,120 @@
+package com.designpatterns.creational.builder;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Builds the same few hundred configurations millions of times, once with a reproduction of the original
+ * String-based builder and once through {@link ComputerCatalog}, and reports build latency, bytes allocated
+ * per build, the heap retained when every built computer is kept, and the cost of {@code toString()}.
+ *
+ * <p>Usage: {@code java -cp out com.designpatterns.creational.builder.ComputerConfigurationBenchmark [builds]}
+ */
+public class ComputerConfigurationBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /** The computer as it was before the catalog: four strings, validated by nobody. */
+    static final class LegacyComputer {
+        private final String cpu;
+        private final String ram;
+        private final String storage;
+        private final String gpu;
+
+        LegacyComputer(String cpu, String ram, String storage, String gpu) {
+            this.cpu = cpu;
+            this.ram = ram;
+            this.storage = storage;
+            this.gpu = gpu;
+        }
+
+        @Override
+        public String toString() {
+            return "Computer{" +
+                    "cpu='" + cpu + '\'' +
+                    ", ram='" + ram + '\'' +
+                    ", storage='" + storage + '\'' +
+                    ", gpu='" + gpu + '\'' +
+                    '}';
+        }
+    }
+
+    public static void main(String[] args) {
+        int builds = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        ComputerCatalog catalog = ComputerCatalog.standard();
+        String[][] configurations = validConfigurations(catalog);
+        System.out.printf("%,d builds over %,d distinct valid configurations%n", builds, configurations.length);
+
+        for (int round = 0; round < 3; round++) {
+            run("legacy", builds, configurations, null, round == 2);
+            run("catalog", builds, configurations, catalog, round == 2);
+        }
+        System.out.printf("catalog cache: %,d configurations, %,d hits, %,d misses%n",
+                catalog.cachedConfigurations(), catalog.cacheHits(), catalog.cacheMisses());
+    }
+
+    private static void run(String label, int builds, String[][] configurations, ComputerCatalog catalog, boolean report) {
+        Object[] kept = new Object[builds];
+        long heapBefore = usedHeap();
+        long allocatedBefore = allocatedBytes();
+        long begin = System.nanoTime();
+        for (int i = 0; i < builds; i++) {
+            String[] c = configurations[(int) ((i * 2654435761L) % configurations.length)];
+            kept[i] = catalog == null
+                    ? new LegacyComputer(c[0], c[1], c[2], c[3])
+                    : new Computer.ComputerBuilder(catalog, c[0], c[1]).setStorage(c[2]).setGpu(c[3]).build();
+        }
+        long buildNanos = System.nanoTime() - begin;
+        long allocated = allocatedBytes() - allocatedBefore;
+        long retained = usedHeap() - heapBefore;
+
+        int described = Math.min(builds, 500_000);
+        long length = 0;
+        begin = System.nanoTime();
+        for (int i = 0; i < described; i++) {
+            length += kept[i].toString().length();
+        }
+        long describeNanos = System.nanoTime() - begin;
+
+        if (report) {
+            System.out.printf("%-8s build %6.1f ns, %6.1f bytes allocated/build, retained %7.2f MB, toString %6.1f ns (%d)%n",
+                    label, buildNanos / (double) builds, allocated / (double) builds, retained / 1e6,
+                    describeNanos / (double) described, length);
+        }
+    }
+
+    /** Every valid combination of the catalog's parts, with and without storage and GPU. */
+    private static String[][] validConfigurations(ComputerCatalog catalog) {
+        String[] cpus = {"Intel i3", "Intel i5", "Intel i7", "Intel i9", "AMD Ryzen 5", "AMD Ryzen 9"};
+        String[] rams = {"8GB", "16GB", "32GB", "64GB"};
+        String[] storages = {null, "256GB SSD", "512GB SSD", "1TB NVMe SSD", "2TB HDD"};
+        String[] gpus = {null, "NVIDIA RTX 3060", "NVIDIA RTX 3080", "AMD RX 6800"};
+        java.util.List<String[]> valid = new java.util.ArrayList<>();
+        for (String cpu : cpus) {
+            for (String ram : rams) {
+                for (String storage : storages) {
+                    for (String gpu : gpus) {
+                        try {
+                            catalog.configure(cpu, ram, storage, gpu);
+                            valid.add(new String[]{cpu, ram, storage, gpu});
+                        } catch (IllegalArgumentException e) {
+                            // incompatible: leave it out of the workload
+                        }
+                    }
+                }
+            }
+        }
+        return valid.toArray(new String[0][]);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,177 @@
+package com.designpatterns.creational.builder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, concurrent least-recently-used cache of built computers, keyed by their packed component ids.
+ *
+ * <p>Keys are spread over independently locked stripes, each a small hash table on the primitive key with its
+ * entries on a recency list, so a lookup neither boxes the key nor allocates, and concurrent lookups of
+ * different configurations rarely contend. Each stripe evicts its own least recently used entry, so eviction
+ * is LRU within a stripe rather than across the whole cache.
+ */
+class ConfigurationCache {
+    private final Stripe[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    ConfigurationCache(int capacity, int stripeCount) {
+        if (capacity < 1 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Capacity must be positive and the stripe count a power of two");
+        }
+        this.stripes = new Stripe[stripeCount];
+        int perStripe = Math.max(1, (capacity + stripeCount - 1) / stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    Computer get(long key) {
+        Stripe stripe = stripeFor(key);
+        Computer computer;
+        synchronized (stripe) {
+            computer = stripe.get(key);
+        }
+        if (computer != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return computer;
+    }
+
+    /** Caches {@code computer} unless another thread cached the same configuration first; returns the cached one. */
+    Computer putIfAbsent(long key, Computer computer) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Computer existing = stripe.putIfAbsent(key, computer);
+            return existing != null ? existing : computer;
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    private Stripe stripeFor(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h >>> 40) & (stripes.length - 1)];
+    }
+
+    /** Chained hash table whose entries also form a doubly linked list from most to least recently used. */
+    private static final class Stripe {
+        private final int capacity;
+        private final Entry[] table;
+        private final Entry head = new Entry(0, null); // sentinel: head.next is the most recently used
+        private int size;
+
+        Stripe(int capacity) {
+            this.capacity = capacity;
+            this.table = new Entry[Integer.highestOneBit(Math.max(1, capacity * 2 - 1)) << 1];
+            head.before = head;
+            head.after = head;
+        }
+
+        Computer get(long key) {
+            Entry entry = find(key);
+            if (entry == null) {
+                return null;
+            }
+            if (head.after != entry) {
+                unlink(entry);
+                linkFirst(entry);
+            }
+            return entry.value;
+        }
+
+        Computer putIfAbsent(long key, Computer value) {
+            Entry existing = find(key);
+            if (existing != null) {
+                return existing.value;
+            }
+            if (size == capacity) {
+                Entry eldest = head.before;
+                unlink(eldest);
+                removeFromBucket(eldest);
+                size--;
+            }
+            Entry entry = new Entry(key, value);
+            int bucket = bucket(key);
+            entry.next = table[bucket];
+            table[bucket] = entry;
+            linkFirst(entry);
+            size++;
+            return null;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private Entry find(long key) {
+            for (Entry entry = table[bucket(key)]; entry != null; entry = entry.next) {
+                if (entry.key == key) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        private void removeFromBucket(Entry entry) {
+            int bucket = bucket(entry.key);
+            if (table[bucket] == entry) {
+                table[bucket] = entry.next;
+                return;
+            }
+            Entry previous = table[bucket];
+            while (previous.next != entry) {
+                previous = previous.next;
+            }
+            previous.next = entry.next;
+        }
+
+        private void linkFirst(Entry entry) {
+            entry.before = head;
+            entry.after = head.after;
+            head.after.before = entry;
+            head.after = entry;
+        }
+
+        private static void unlink(Entry entry) {
+            entry.before.after = entry.after;
+            entry.after.before = entry.before;
+        }
+
+        private int bucket(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 16) & (table.length - 1);
+        }
+    }
+
+    private static final class Entry {
+        final long key;
+        final Computer value;
+        Entry next;
+        Entry before;
+        Entry after;
+
+        Entry(long key, Computer value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.designpatterns.creational.factory;
+
+import java.util.Collections;
+import java.util.List;
+
+/** Outcome of one order batch: how many vehicles passed inspection, and why the others did not. */
+final class BatchResult {
+    private final int ordered;
+    private final int passed;
+    private final List<String> failures;
+    private final long elapsedNanos;
+
+    BatchResult(int ordered, int passed, List<String> failures, long elapsedNanos) {
+        this.ordered = ordered;
+        this.passed = passed;
+        this.failures = Collections.unmodifiableList(failures);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    int getOrdered() {
+        return ordered;
+    }
+
+    int getPassed() {
+        return passed;
+    }
+
+    /** One message per vehicle that was not created, failed manufacturing or failed inspection. */
+    List<String> getFailures() {
+        return failures;
+    }
+
+    long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d ordered, %d passed, %d failed in %.1f ms", ordered, passed, failures.size(),
+                elapsedNanos / 1e6);
+    }
+}
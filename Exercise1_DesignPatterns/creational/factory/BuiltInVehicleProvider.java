@@ -0,0 +1,16 @@
+package com.designpatterns.creational.factory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** The vehicle types that ship with the factory. */
+public class BuiltInVehicleProvider implements VehicleProvider {
+    @Override
+    public Map<String, Class<? extends Vehicle>> vehicleTypes() {
+        Map<String, Class<? extends Vehicle>> types = new LinkedHashMap<>();
+        types.put("car", Car.class);
+        types.put("motorcycle", Motorcycle.class);
+        types.put("truck", Truck.class);
+        return types;
+    }
+}
@@ -0,0 +1,10 @@
+package com.designpatterns.creational.factory;
+
+import com.designpatterns.util.LoggerUtil;
+
+class Car implements StatelessVehicle {
+    @Override
+    public void manufacture() {
+        LoggerUtil.log("Manufacturing a car");
+    }
+}
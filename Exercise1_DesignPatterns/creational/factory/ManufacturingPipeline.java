@@ -0,0 +1,293 @@
+package com.designpatterns.creational.factory;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Builds vehicle orders in three stages: create (through a {@link VehicleFactory}), manufacture and inspect.
+ *
+ * <p>Each stage has its own bounded queue and worker threads. A worker that finishes an item hands it to the
+ * next stage's queue and waits if that queue is full, so a slow stage backs up the stages before it instead of
+ * letting work pile up without bound. {@link #submit} blocks the same way when the create queue is full. Every
+ * stage can be given a simulated per-vehicle cost, spent busy on the worker, to study where the pipeline
+ * saturates.
+ *
+ * <p>{@link #stats()} reports per-stage throughput, utilisation and queue depth; queue depths are sampled every
+ * few milliseconds. The stage with utilisation near 100% and a full queue in front of it is the bottleneck, and
+ * giving it more workers raises throughput until another stage takes its place or the cores run out.
+ */
+class ManufacturingPipeline implements AutoCloseable {
+    private static final long SAMPLE_MILLIS = 5;
+
+    private final VehicleFactory factory;
+    private final double defectRate;
+    private final Map<PipelineStage, Stage> stages = new EnumMap<>(PipelineStage.class);
+    private final List<Thread> threads = new ArrayList<>();
+    private final ScheduledThreadPoolExecutor sampler;
+    private final long startedAt = System.nanoTime();
+    private volatile boolean running = true;
+
+    private ManufacturingPipeline(ManufacturingPipelineBuilder builder) {
+        this.factory = builder.factory;
+        this.defectRate = builder.defectRate;
+        Stage next = null;
+        PipelineStage[] order = PipelineStage.values();
+        for (int i = order.length - 1; i >= 0; i--) {
+            StageSettings settings = builder.settings.get(order[i]);
+            next = new Stage(order[i], settings, next);
+            stages.put(order[i], next);
+        }
+        for (Stage stage : stages.values()) {
+            for (int w = 0; w < stage.workers; w++) {
+                Thread thread = new Thread(stage::work, "pipeline-" + stage.name.name().toLowerCase() + "-" + w);
+                thread.setDaemon(true);
+                threads.add(thread);
+                thread.start();
+            }
+        }
+        this.sampler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "pipeline-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sampler.scheduleAtFixedRate(this::sampleQueues, SAMPLE_MILLIS, SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Feeds a batch of vehicle types into the pipeline, blocking while the create queue is full. The future
+     * completes when every vehicle of the batch has passed or failed.
+     */
+    CompletableFuture<BatchResult> submit(List<String> vehicleTypes) throws InterruptedException {
+        if (!running) {
+            throw new IllegalStateException("Pipeline is closed");
+        }
+        Batch batch = new Batch(vehicleTypes.size());
+        if (vehicleTypes.isEmpty()) {
+            batch.result.complete(new BatchResult(0, 0, new ArrayList<>(), 0));
+        }
+        Stage first = stages.get(PipelineStage.CREATE);
+        for (String type : vehicleTypes) {
+            first.queue.put(new WorkItem(type, batch));
+        }
+        return batch.result;
+    }
+
+    List<StageStats> stats() {
+        double elapsed = (System.nanoTime() - startedAt) / 1e9;
+        List<StageStats> result = new ArrayList<>();
+        for (Stage stage : stages.values()) {
+            long processed = stage.processed.sum();
+            long samples = stage.samples.get();
+            result.add(new StageStats(stage.name, stage.workers, processed, processed / elapsed,
+                    stage.busyNanos.sum() / (elapsed * 1e9 * stage.workers),
+                    processed == 0 ? 0 : stage.busyNanos.sum() / 1e3 / processed,
+                    stage.queue.size(), samples == 0 ? 0 : stage.depthSum.get() / (double) samples,
+                    stage.peakDepth.get(), stage.capacity));
+        }
+        return result;
+    }
+
+    /** Stops the workers; vehicles still queued are abandoned and their batches never complete. */
+    @Override
+    public void close() {
+        running = false;
+        sampler.shutdownNow();
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void sampleQueues() {
+        for (Stage stage : stages.values()) {
+            int depth = stage.queue.size();
+            stage.samples.incrementAndGet();
+            stage.depthSum.addAndGet(depth);
+            stage.peakDepth.accumulateAndGet(depth, Math::max);
+        }
+    }
+
+    /** Runs one stage's step on an item; returns a failure message, or {@code null} on success. */
+    private String process(PipelineStage stage, WorkItem item) {
+        try {
+            switch (stage) {
+                case CREATE:
+                    item.vehicle = factory.createVehicle(item.vehicleType);
+                    return null;
+                case MANUFACTURE:
+                    item.vehicle.manufacture();
+                    return null;
+                default:
+                    return defectRate > 0 && ThreadLocalRandom.current().nextDouble() < defectRate
+                            ? item.vehicleType + " failed inspection" : null;
+            }
+        } catch (RuntimeException e) {
+            return item.vehicleType + ": " + e.getMessage();
+        }
+    }
+
+    private final class Stage {
+        final PipelineStage name;
+        final BlockingQueue<WorkItem> queue;
+        final int capacity;
+        final int workers;
+        final long costNanos;
+        final Stage next;
+        final LongAdder processed = new LongAdder();
+        final LongAdder busyNanos = new LongAdder();
+        final AtomicLong samples = new AtomicLong();
+        final AtomicLong depthSum = new AtomicLong();
+        final AtomicInteger peakDepth = new AtomicInteger();
+
+        Stage(PipelineStage name, StageSettings settings, Stage next) {
+            this.name = name;
+            this.capacity = settings.queueCapacity;
+            this.queue = new ArrayBlockingQueue<>(settings.queueCapacity);
+            this.workers = settings.workers;
+            this.costNanos = settings.costNanos;
+            this.next = next;
+        }
+
+        void work() {
+            try {
+                while (running) {
+                    WorkItem item = queue.take();
+                    long begin = System.nanoTime();
+                    String failure = process(name, item);
+                    if (costNanos > 0) {
+                        spin(begin + costNanos);
+                    }
+                    busyNanos.add(System.nanoTime() - begin);
+                    processed.increment();
+                    if (failure != null) {
+                        item.batch.finish(false, failure);
+                    } else if (next != null) {
+                        next.queue.put(item); // blocks while the next stage is behind
+                    } else {
+                        item.batch.finish(true, null);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // closing
+            }
+        }
+    }
+
+    /** Busy-waits until {@code deadline}, standing in for CPU-bound work. */
+    private static void spin(long deadline) {
+        while (System.nanoTime() < deadline) {
+            // keep the core busy; Java 8 has no Thread.onSpinWait
+        }
+    }
+
+    private static final class WorkItem {
+        final String vehicleType;
+        final Batch batch;
+        Vehicle vehicle;
+
+        WorkItem(String vehicleType, Batch batch) {
+            this.vehicleType = vehicleType;
+            this.batch = batch;
+        }
+    }
+
+    private static final class Batch {
+        final int size;
+        final long startedAt = System.nanoTime();
+        final AtomicInteger remaining;
+        final AtomicInteger passed = new AtomicInteger();
+        final List<String> failures = new ArrayList<>();
+        final CompletableFuture<BatchResult> result = new CompletableFuture<>();
+
+        Batch(int size) {
+            this.size = size;
+            this.remaining = new AtomicInteger(size);
+        }
+
+        void finish(boolean ok, String failure) {
+            if (ok) {
+                passed.incrementAndGet();
+            } else {
+                synchronized (failures) {
+                    failures.add(failure);
+                }
+            }
+            if (remaining.decrementAndGet() == 0) {
+                List<String> failed;
+                synchronized (failures) {
+                    failed = new ArrayList<>(failures);
+                }
+                result.complete(new BatchResult(size, passed.get(), failed, System.nanoTime() - startedAt));
+            }
+        }
+    }
+
+    private static final class StageSettings {
+        int workers = 1;
+        int queueCapacity = 1024;
+        long costNanos;
+    }
+
+    public static class ManufacturingPipelineBuilder {
+        private final VehicleFactory factory;
+        private final Map<PipelineStage, StageSettings> settings = new EnumMap<>(PipelineStage.class);
+        private double defectRate;
+
+        public ManufacturingPipelineBuilder(VehicleFactory factory) {
+            this.factory = factory;
+            for (PipelineStage stage : PipelineStage.values()) {
+                settings.put(stage, new StageSettings());
+            }
+        }
+
+        public ManufacturingPipelineBuilder setWorkers(PipelineStage stage, int workers) {
+            if (workers < 1) {
+                throw new IllegalArgumentException("A stage needs at least one worker");
+            }
+            settings.get(stage).workers = workers;
+            return this;
+        }
+
+        public ManufacturingPipelineBuilder setQueueCapacity(PipelineStage stage, int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("Queue capacity must be positive");
+            }
+            settings.get(stage).queueCapacity = capacity;
+            return this;
+        }
+
+        /** Simulated CPU time each vehicle spends in {@code stage}, on top of the real work. */
+        public ManufacturingPipelineBuilder setSimulatedCost(PipelineStage stage, long cost, TimeUnit unit) {
+            settings.get(stage).costNanos = unit.toNanos(cost);
+            return this;
+        }
+
+        /** Fraction of vehicles that fail inspection. */
+        public ManufacturingPipelineBuilder setDefectRate(double defectRate) {
+            this.defectRate = defectRate;
+            return this;
+        }
+
+        public ManufacturingPipeline build() {
+            return new ManufacturingPipeline(this);
+        }
+    }
+}
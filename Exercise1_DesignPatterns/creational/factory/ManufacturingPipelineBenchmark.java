@@ -0,0 +1,80 @@
+package com.designpatterns.creational.factory;
+
+import com.designpatterns.util.LogLevel;
+import com.designpatterns.util.LoggerUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the same order batch through a single-threaded loop and through {@link ManufacturingPipeline} set up three
+ * ways: one worker per stage with balanced costs, an inspection stage four times as expensive (the bottleneck),
+ * and that bottleneck given more workers. For each it prints vehicles per second and the per-stage statistics.
+ * Per-vehicle log lines are switched off so that logging does not dominate.
+ *
+ * <p>Usage: {@code java -cp out com.designpatterns.creational.factory.ManufacturingPipelineBenchmark [vehicles] [costMicros] [inspectWorkers]}
+ */
+public class ManufacturingPipelineBenchmark {
+    public static void main(String[] args) throws Exception {
+        int vehicles = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long costMicros = args.length > 1 ? Long.parseLong(args[1]) : 5;
+        int inspectWorkers = args.length > 2 ? Integer.parseInt(args[2])
+                : Math.max(2, Runtime.getRuntime().availableProcessors() - 2);
+        LoggerUtil.setLevel(LogLevel.WARNING);
+
+        VehicleFactory factory = new VehicleFactory();
+        String[] types = {"car", "Motorcycle", "TRUCK"};
+        List<String> order = new ArrayList<>(vehicles);
+        for (int i = 0; i < vehicles; i++) {
+            order.add(types[i % types.length]);
+        }
+
+        long start = System.nanoTime();
+        for (String type : order) {
+            Vehicle vehicle = factory.createVehicle(type);
+            spinMicros(costMicros);
+            vehicle.manufacture();
+            spinMicros(costMicros);
+            spinMicros(costMicros); // inspection
+        }
+        report("sequential, balanced", vehicles, System.nanoTime() - start, null);
+
+        run("pipeline, balanced", factory, order, costMicros, costMicros, 1);
+        run("pipeline, inspect 4x", factory, order, costMicros, costMicros * 4, 1);
+        run("pipeline, inspect 4x, " + inspectWorkers + " inspectors", factory, order, costMicros, costMicros * 4, inspectWorkers);
+        LoggerUtil.setLevel(LogLevel.DEBUG);
+    }
+
+    private static void run(String name, VehicleFactory factory, List<String> order, long costMicros,
+                            long inspectMicros, int inspectWorkers) throws Exception {
+        try (ManufacturingPipeline pipeline = new ManufacturingPipeline.ManufacturingPipelineBuilder(factory)
+                .setSimulatedCost(PipelineStage.CREATE, costMicros, TimeUnit.MICROSECONDS)
+                .setSimulatedCost(PipelineStage.MANUFACTURE, costMicros, TimeUnit.MICROSECONDS)
+                .setSimulatedCost(PipelineStage.INSPECT, inspectMicros, TimeUnit.MICROSECONDS)
+                .setWorkers(PipelineStage.INSPECT, inspectWorkers)
+                .setDefectRate(0.001)
+                .build()) {
+            long start = System.nanoTime();
+            BatchResult result = pipeline.submit(order).get();
+            report(name, result.getPassed() + result.getFailures().size(), System.nanoTime() - start, pipeline.stats());
+            System.out.println("  " + result);
+        }
+    }
+
+    private static void report(String name, int vehicles, long elapsedNanos, List<StageStats> stats) {
+        System.out.printf("%-38s %,10.0f vehicles/s%n", name, vehicles * 1e9 / elapsedNanos);
+        if (stats != null) {
+            for (StageStats stage : stats) {
+                System.out.println("  " + stage);
+            }
+        }
+    }
+
+    private static void spinMicros(long micros) {
+        long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(micros);
+        while (System.nanoTime() < deadline) {
+            // simulated work
+        }
+    }
+}
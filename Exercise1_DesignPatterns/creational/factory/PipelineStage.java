@@ -0,0 +1,6 @@
+package com.designpatterns.creational.factory;
+
+/** Stages of the {@link ManufacturingPipeline}, in the order a vehicle passes through them. */
+enum PipelineStage {
+    CREATE, MANUFACTURE, INSPECT
+}
@@ -0,0 +1,77 @@
+package com.designpatterns.creational.factory;
+
+/** Throughput, utilisation and queue depth of one pipeline stage since the pipeline started. */
+final class StageStats {
+    private final PipelineStage stage;
+    private final int workers;
+    private final long processed;
+    private final double throughputPerSecond;
+    private final double utilisation;
+    private final double meanServiceMicros;
+    private final int queueDepth;
+    private final double meanQueueDepth;
+    private final int peakQueueDepth;
+    private final int queueCapacity;
+
+    StageStats(PipelineStage stage, int workers, long processed, double throughputPerSecond, double utilisation,
+               double meanServiceMicros, int queueDepth, double meanQueueDepth, int peakQueueDepth, int queueCapacity) {
+        this.stage = stage;
+        this.workers = workers;
+        this.processed = processed;
+        this.throughputPerSecond = throughputPerSecond;
+        this.utilisation = utilisation;
+        this.meanServiceMicros = meanServiceMicros;
+        this.queueDepth = queueDepth;
+        this.meanQueueDepth = meanQueueDepth;
+        this.peakQueueDepth = peakQueueDepth;
+        this.queueCapacity = queueCapacity;
+    }
+
+    PipelineStage getStage() {
+        return stage;
+    }
+
+    int getWorkers() {
+        return workers;
+    }
+
+    long getProcessed() {
+        return processed;
+    }
+
+    double getThroughputPerSecond() {
+        return throughputPerSecond;
+    }
+
+    /** Share of the stage's worker time spent processing; close to 1 marks the bottleneck. */
+    double getUtilisation() {
+        return utilisation;
+    }
+
+    double getMeanServiceMicros() {
+        return meanServiceMicros;
+    }
+
+    int getQueueDepth() {
+        return queueDepth;
+    }
+
+    double getMeanQueueDepth() {
+        return meanQueueDepth;
+    }
+
+    int getPeakQueueDepth() {
+        return peakQueueDepth;
+    }
+
+    int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-11s workers=%2d processed=%,10d %,11.0f/s busy=%5.1f%% service=%8.1f us queue=%5d/%d (mean %.1f, peak %d)",
+                stage, workers, processed, throughputPerSecond, utilisation * 100, meanServiceMicros,
+                queueDepth, queueCapacity, meanQueueDepth, peakQueueDepth);
+    }
+}
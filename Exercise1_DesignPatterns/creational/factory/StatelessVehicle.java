@@ -0,0 +1,9 @@
+package com.designpatterns.creational.factory;
+
+/**
+ * Marks a vehicle type that holds no per-instance state, so one instance can safely be handed to every caller.
+ * A {@link VehicleRegistry} built with shared stateless vehicles returns such a prototype instead of
+ * constructing a new object per request.
+ */
+public interface StatelessVehicle extends Vehicle {
+}
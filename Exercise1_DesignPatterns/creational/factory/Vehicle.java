@@ -0,0 +1,6 @@
+package com.designpatterns.creational.factory;
+
+/** A manufacturable vehicle. Public so that {@link VehicleProvider} plugins can contribute their own types. */
+public interface Vehicle {
+    void manufacture();
+}
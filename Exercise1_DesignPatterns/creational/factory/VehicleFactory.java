@@ -0,0 +1,23 @@
+package com.designpatterns.creational.factory;
+
+class VehicleFactory {
+    private final VehicleRegistry registry;
+
+    /** Factory over the built-in types and every {@link VehicleProvider} found on the class path. */
+    public VehicleFactory() {
+        this(DefaultRegistry.INSTANCE);
+    }
+
+    public VehicleFactory(VehicleRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Vehicle createVehicle(String vehicleType) {
+        return registry.create(vehicleType);
+    }
+
+    /** Discovers providers once, on first use, rather than per factory. */
+    private static final class DefaultRegistry {
+        static final VehicleRegistry INSTANCE = VehicleRegistry.discover();
+    }
+}
@@ -2,45 +2,8 @@ package com.designpatterns.creational.factory;
 
 import com.designpatterns.util.LoggerUtil;
 
-interface Vehicle {
-    void manufacture();
-}
-
-class Car implements Vehicle {
-    @Override
-    public void manufacture() {
-        LoggerUtil.log("Manufacturing a car");
-    }
-}
-
-class Motorcycle implements Vehicle {
-    @Override
-    public void manufacture() {
-        LoggerUtil.log("Manufacturing a motorcycle");
-    }
-}
-
-class Truck implements Vehicle {
-    @Override
-    public void manufacture() {
-        LoggerUtil.log("Manufacturing a truck");
-    }
-}
-
-class VehicleFactory {
-    public Vehicle createVehicle(String vehicleType) {
-        switch (vehicleType.toLowerCase()) {
-            case "car":
-                return new Car();
-            case "motorcycle":
-                return new Motorcycle();
-            case "truck":
-                return new Truck();
-            default:
-                throw new IllegalArgumentException("Unknown vehicle type: " + vehicleType);
-        }
-    }
-}
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
 
 public class VehicleManufacturingDemo {
     public static void main(String[] args) {
@@ -54,5 +17,17 @@ public class VehicleManufacturingDemo {
 
         Vehicle truck = factory.createVehicle("truck");
         truck.manufacture();
+
+        try (ManufacturingPipeline pipeline = new ManufacturingPipeline.ManufacturingPipelineBuilder(factory).build()) {
+            BatchResult result = pipeline.submit(Arrays.asList("car", "truck", "hovercraft", "motorcycle")).get();
+            LoggerUtil.info("Batch: " + result);
+            for (String failure : result.getFailures()) {
+                LoggerUtil.warning(failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LoggerUtil.error("Batch failed: " + e.getCause().getMessage());
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.designpatterns.creational.factory;
+
+import java.util.Map;
+
+/**
+ * Contributes vehicle types to a {@link VehicleRegistry}. Implementations outside this project are found with
+ * {@link java.util.ServiceLoader}: put the implementation's class name in
+ * {@code META-INF/services/com.designpatterns.creational.factory.VehicleProvider} on the class path. An
+ * implementation needs a public no-argument constructor, and so does every vehicle class it returns.
+ */
+public interface VehicleProvider {
+    /** Vehicle classes by type name; names are matched case-insensitively and must be unique across providers. */
+    Map<String, Class<? extends Vehicle>> vehicleTypes();
+}
@@ -0,0 +1,305 @@
+package com.designpatterns.creational.factory;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Immutable table of vehicle types, built from {@link VehicleProvider}s.
+ *
+ * <p>Names are looked up case-insensitively through a minimal-collision perfect hash computed when the registry is
+ * built (hash and displace): each name hashes to a bucket, and each bucket stores the displacement that sends
+ * its names to free slots. A lookup hashes the requested name once, folding case as it goes, reads one
+ * displacement and one slot, and compares the name in that slot; it never allocates. Case folding is
+ * locale-independent, unlike {@link String#toLowerCase()}.
+ *
+ * <p>Constructors are looked up as {@link MethodHandle}s at build time and bound into suppliers. If the registry shares stateless vehicles,
+ * types implementing {@link StatelessVehicle} are constructed once and that prototype is returned on every
+ * request.
+ */
+final class VehicleRegistry {
+    private static final char[] ASCII_FOLD = new char[128];
+
+    static {
+        for (char c = 0; c < ASCII_FOLD.length; c++) {
+            ASCII_FOLD[c] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+    }
+
+    private final String[] keys;
+    private final Supplier<Vehicle>[] constructors;
+    private final Vehicle[] prototypes;
+    private final int[] displacements;
+    private final int slotMask;
+    private final int bucketMask;
+    private final List<String> names;
+
+    private VehicleRegistry(VehicleRegistryBuilder builder) {
+        Map<String, Class<? extends Vehicle>> types = builder.types;
+        int count = types.size();
+        this.names = Collections.unmodifiableList(new ArrayList<>(builder.displayNames.values()));
+        String[] folded = types.keySet().toArray(new String[0]);
+        long[] hashes = new long[count];
+        for (int i = 0; i < count; i++) {
+            hashes[i] = hash(folded[i]);
+        }
+
+        int slots = Integer.highestOneBit(Math.max(1, count) * 2 - 1) << 1; // power of two, at least 2 * count
+        int buckets = Math.max(1, Integer.highestOneBit(Math.max(1, count / 4)));
+        int[] placement;
+        int[] chosen;
+        while (true) {
+            chosen = new int[buckets];
+            placement = place(hashes, buckets - 1, slots - 1, chosen);
+            if (placement != null) {
+                break;
+            }
+            slots <<= 1; // no displacement fitted some bucket; retry with a sparser table
+        }
+        this.slotMask = slots - 1;
+        this.bucketMask = buckets - 1;
+        this.displacements = chosen;
+        this.keys = new String[slots];
+        this.constructors = newSupplierArray(slots);
+        this.prototypes = new Vehicle[slots];
+
+        Map<Class<? extends Vehicle>, Supplier<Vehicle>> bound = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            Class<? extends Vehicle> type = types.get(folded[i]);
+            Supplier<Vehicle> constructor = bound.computeIfAbsent(type, VehicleRegistry::bindConstructor);
+            int slot = placement[i];
+            keys[slot] = folded[i];
+            constructors[slot] = constructor;
+            if (builder.shareStatelessVehicles && StatelessVehicle.class.isAssignableFrom(type)) {
+                prototypes[slot] = constructor.get();
+            }
+        }
+    }
+
+    /** Registry of the built-in types plus every {@link VehicleProvider} that {@link ServiceLoader} finds. */
+    static VehicleRegistry discover() {
+        return new VehicleRegistryBuilder()
+                .addProvider(new BuiltInVehicleProvider())
+                .addDiscoveredProviders()
+                .build();
+    }
+
+    /** Creates a vehicle of the named type; the name is matched ignoring case. */
+    Vehicle create(String vehicleType) {
+        int slot = find(vehicleType);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Unknown vehicle type: " + vehicleType);
+        }
+        Vehicle prototype = prototypes[slot];
+        return prototype != null ? prototype : constructors[slot].get();
+    }
+
+    boolean contains(String vehicleType) {
+        return find(vehicleType) >= 0;
+    }
+
+    /** Registered type names as their providers spelled them, in registration order. */
+    List<String> types() {
+        return names;
+    }
+
+    int size() {
+        return names.size();
+    }
+
+    private int find(String name) {
+        long hash = hash(name);
+        int slot = slot(hash, displacements[bucket(hash, bucketMask)], slotMask);
+        String key = keys[slot];
+        if (key == null || key.length() != name.length()) {
+            return -1;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != fold(name.charAt(i))) {
+                return -1;
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Binds the no-argument constructor of {@code type} into a {@link Supplier} through
+     * {@link LambdaMetafactory}, so calls through it are as cheap as a constructor reference; invoking a
+     * method handle kept in a non-constant field would not be inlined.
+     */
+    @SuppressWarnings("unchecked")
+    private static Supplier<Vehicle> bindConstructor(Class<? extends Vehicle> type) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+            return (Supplier<Vehicle>) LambdaMetafactory.metafactory(lookup, "get",
+                    MethodType.methodType(Supplier.class), MethodType.methodType(Object.class), constructor,
+                    MethodType.methodType(type)).getTarget().invokeExact();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Vehicle type " + type.getName() + " needs an accessible no-argument constructor", e);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not bind the constructor of " + type.getName(), e);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Supplier<Vehicle>[] newSupplierArray(int size) {
+        return new Supplier[size];
+    }
+
+    /**
+     * Assigns every bucket a displacement under which its names land on distinct free slots, largest buckets
+     * first. Returns each name's slot, or {@code null} if some bucket found no displacement.
+     */
+    private static int[] place(long[] hashes, int bucketMask, int slotMask, int[] displacements) {
+        List<List<Integer>> buckets = new ArrayList<>();
+        for (int b = 0; b <= bucketMask; b++) {
+            buckets.add(new ArrayList<>());
+        }
+        for (int i = 0; i < hashes.length; i++) {
+            buckets.get(bucket(hashes[i], bucketMask)).add(i);
+        }
+        Integer[] order = new Integer[buckets.size()];
+        for (int b = 0; b < order.length; b++) {
+            order[b] = b;
+        }
+        Arrays.sort(order, (a, b) -> buckets.get(b).size() - buckets.get(a).size());
+
+        boolean[] taken = new boolean[slotMask + 1];
+        int[] placement = new int[hashes.length];
+        int[] trial = new int[hashes.length];
+        for (int b : order) {
+            List<Integer> members = buckets.get(b);
+            if (members.isEmpty()) {
+                break;
+            }
+            boolean placed = false;
+            for (int d = 0; d < (1 << 16) && !placed; d++) {
+                placed = true;
+                int filled = 0;
+                for (int member : members) {
+                    int slot = slot(hashes[member], d, slotMask);
+                    if (taken[slot]) {
+                        placed = false;
+                        break;
+                    }
+                    taken[slot] = true; // also rejects two members of this bucket on one slot
+                    trial[filled++] = slot;
+                }
+                if (!placed) {
+                    for (int i = 0; i < filled; i++) {
+                        taken[trial[i]] = false;
+                    }
+                } else {
+                    displacements[b] = d;
+                    for (int i = 0; i < members.size(); i++) {
+                        placement[members.get(i)] = trial[i];
+                    }
+                }
+            }
+            if (!placed) {
+                return null;
+            }
+        }
+        return placement;
+    }
+
+    private static int bucket(long hash, int bucketMask) {
+        return (int) hash & bucketMask;
+    }
+
+    private static int slot(long hash, int displacement, int slotMask) {
+        int h = (int) (hash >>> 32) ^ (displacement * 0x9E3779B9);
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h & slotMask;
+    }
+
+    /** 64-bit FNV-1a over the case-folded characters, finished with a MurmurHash3 mix. */
+    private static long hash(String name) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            h = (h ^ fold(name.charAt(i))) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static char fold(char c) {
+        // table lookup rather than a range test: mixed-case input would make that branch unpredictable
+        return c < ASCII_FOLD.length ? ASCII_FOLD[c] : Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static String fold(String name) {
+        char[] chars = name.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    public static class VehicleRegistryBuilder {
+        private final Map<String, Class<? extends Vehicle>> types = new LinkedHashMap<>();
+        private final Map<String, String> displayNames = new LinkedHashMap<>();
+        private final Set<Class<?>> providers = new HashSet<>();
+        private boolean shareStatelessVehicles;
+
+        public VehicleRegistryBuilder register(String name, Class<? extends Vehicle> type) {
+            if (name == null || name.isEmpty() || type == null) {
+                throw new IllegalArgumentException("Vehicle type needs a name and a class");
+            }
+            String key = fold(name);
+            if (types.containsKey(key)) {
+                throw new IllegalArgumentException("Vehicle type " + name + " is already registered as "
+                        + displayNames.get(key));
+            }
+            types.put(key, type);
+            displayNames.put(key, name);
+            return this;
+        }
+
+        /** Registers every type of {@code provider}; a second provider of the same class is ignored. */
+        public VehicleRegistryBuilder addProvider(VehicleProvider provider) {
+            if (providers.add(provider.getClass())) {
+                for (Map.Entry<String, Class<? extends Vehicle>> type : provider.vehicleTypes().entrySet()) {
+                    register(type.getKey(), type.getValue());
+                }
+            }
+            return this;
+        }
+
+        /** Adds the providers listed in {@code META-INF/services} on the context class path. */
+        public VehicleRegistryBuilder addDiscoveredProviders() {
+            for (VehicleProvider provider : ServiceLoader.load(VehicleProvider.class)) {
+                addProvider(provider);
+            }
+            return this;
+        }
+
+        /** Hands out one shared instance of each {@link StatelessVehicle} type instead of constructing per request. */
+        public VehicleRegistryBuilder setShareStatelessVehicles(boolean shareStatelessVehicles) {
+            this.shareStatelessVehicles = shareStatelessVehicles;
+            return this;
+        }
+
+        public VehicleRegistry build() {
+            return new VehicleRegistry(this);
+        }
+    }
+}
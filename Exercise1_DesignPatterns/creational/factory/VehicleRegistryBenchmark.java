@@ -0,0 +1,149 @@
+package com.designpatterns.creational.factory;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares vehicle creation through {@link VehicleRegistry} with the string {@code switch} that
+ * {@code VehicleFactory} used before, for the three built-in types and for a catalog of 1,200 types. Requested
+ * names come with random capitalisation, as they would from user input.
+ *
+ * <p>A Java string switch compiles to a {@code hashCode} lookup followed by {@code equals}, so for the large
+ * catalog the old approach is modelled as {@code toLowerCase()} plus a {@link HashMap} of constructors; writing
+ * out 1,200 case labels would behave the same.
+ *
+ * <p>Usage: {@code java -cp out com.designpatterns.creational.factory.VehicleRegistryBenchmark [types] [lookups]}
+ */
+public class VehicleRegistryBenchmark {
+    /** Contributes a large generated catalog, the way a {@link java.util.ServiceLoader} plugin would. */
+    public static class CatalogProvider implements VehicleProvider {
+        private final int size;
+
+        public CatalogProvider() {
+            this(1_200);
+        }
+
+        CatalogProvider(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public Map<String, Class<? extends Vehicle>> vehicleTypes() {
+            Map<String, Class<? extends Vehicle>> types = new LinkedHashMap<>();
+            String[] families = {"sedan", "scooter", "hauler"};
+            for (int i = 0; i < size; i++) {
+                int family = i % 3;
+                types.put(families[family] + "-" + i,
+                        family == 0 ? Car.class : family == 1 ? Motorcycle.class : Truck.class);
+            }
+            return types;
+        }
+    }
+
+    /** The factory as it was before the registry. */
+    static Vehicle switchFactory(String vehicleType) {
+        switch (vehicleType.toLowerCase()) {
+            case "car":
+                return new Car();
+            case "motorcycle":
+                return new Motorcycle();
+            case "truck":
+                return new Truck();
+            default:
+                throw new IllegalArgumentException("Unknown vehicle type: " + vehicleType);
+        }
+    }
+
+    private interface Factory {
+        Vehicle create(String type);
+    }
+
+    public static void main(String[] args) {
+        int types = args.length > 0 ? Integer.parseInt(args[0]) : 1_200;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+        Random random = new Random(5);
+
+        VehicleRegistry builtIns = new VehicleRegistry.VehicleRegistryBuilder()
+                .addProvider(new BuiltInVehicleProvider()).build();
+        VehicleRegistry sharedBuiltIns = new VehicleRegistry.VehicleRegistryBuilder()
+                .addProvider(new BuiltInVehicleProvider()).setShareStatelessVehicles(true).build();
+        String[] builtInRequests = requests(builtIns, lookups, random);
+        System.out.println("3 built-in types:");
+        compare(builtInRequests, VehicleRegistryBenchmark::switchFactory, builtIns, sharedBuiltIns);
+
+        CatalogProvider catalog = new CatalogProvider(types);
+        Map<String, Supplier<Vehicle>> byLowerCaseName = new HashMap<>();
+        for (Map.Entry<String, Class<? extends Vehicle>> type : catalog.vehicleTypes().entrySet()) {
+            Class<? extends Vehicle> vehicleClass = type.getValue();
+            byLowerCaseName.put(type.getKey(), vehicleClass == Car.class ? Car::new
+                    : vehicleClass == Motorcycle.class ? Motorcycle::new : Truck::new);
+        }
+        long buildStart = System.nanoTime();
+        VehicleRegistry large = new VehicleRegistry.VehicleRegistryBuilder().addProvider(catalog).build();
+        long buildNanos = System.nanoTime() - buildStart;
+        VehicleRegistry sharedLarge = new VehicleRegistry.VehicleRegistryBuilder()
+                .addProvider(catalog).setShareStatelessVehicles(true).build();
+        System.out.printf("%,d catalog types (perfect hash built in %.1f ms):%n", large.size(), buildNanos / 1e6);
+        compare(requests(large, lookups, random), type -> {
+            Supplier<Vehicle> constructor = byLowerCaseName.get(type.toLowerCase());
+            if (constructor == null) {
+                throw new IllegalArgumentException("Unknown vehicle type: " + type);
+            }
+            return constructor.get();
+        }, large, sharedLarge);
+    }
+
+    private static void compare(String[] requests, Factory switchFactory, VehicleRegistry registry, VehicleRegistry shared) {
+        for (String request : requests) {
+            if (switchFactory.create(request).getClass() != registry.create(request).getClass()) {
+                throw new IllegalStateException("Registry and switch disagree on " + request);
+            }
+        }
+        for (int round = 0; round < 5; round++) {
+            boolean last = round == 4;
+            double switchRate = run(requests, switchFactory);
+            double registryRate = run(requests, registry::create);
+            double sharedRate = run(requests, shared::create);
+            if (last) {
+                System.out.printf("  switch %,14.0f/s   registry %,14.0f/s   registry, shared stateless %,14.0f/s%n",
+                        switchRate, registryRate, sharedRate);
+            }
+        }
+    }
+
+    private static double run(String[] requests, Factory factory) {
+        long start = System.nanoTime();
+        int checksum = 0;
+        for (String request : requests) {
+            checksum += factory.create(request).hashCode() & 1;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (checksum == -1) {
+            System.out.println(); // keeps the results observable
+        }
+        return requests.length * 1e9 / elapsed;
+    }
+
+    /** Random registered names with random capitalisation, built up front so the runs only measure creation. */
+    private static String[] requests(VehicleRegistry registry, int count, Random random) {
+        String[] names = registry.types().toArray(new String[0]);
+        String[] distinct = new String[Math.min(count, 4_096)];
+        for (int i = 0; i < distinct.length; i++) {
+            char[] chars = names[random.nextInt(names.length)].toCharArray();
+            for (int c = 0; c < chars.length; c++) {
+                if (random.nextInt(4) == 0) {
+                    chars[c] = Character.toUpperCase(chars[c]);
+                }
+            }
+            distinct[i] = new String(chars);
+        }
+        String[] requests = new String[count];
+        for (int i = 0; i < count; i++) {
+            requests[i] = distinct[random.nextInt(distinct.length)];
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,66 @@
+package com.designpatterns.structural.adapter;
+
+/**
+ * Concurrency limit that follows the backend's latency (additive increase, multiplicative decrease). A call
+ * that finishes within the target latency raises the limit by {@code 1/limit}, so it grows by about one per
+ * round of calls. A slow or failed call cuts it by {@code backoffRatio}, at most once per target-latency
+ * interval so that one burst of slow calls does not collapse it to the minimum. The limit stays within
+ * {@code [min, max]}.
+ */
+class AdaptiveConcurrencyLimit {
+    private final int min;
+    private final int max;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+
+    private double limit;
+    private int inFlight;
+    private long lastDecrease;
+
+    AdaptiveConcurrencyLimit(int min, int max, int initial, long targetLatencyNanos, double backoffRatio) {
+        if (min < 1 || max < min || initial < min || initial > max || backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Invalid concurrency limit settings");
+        }
+        this.min = min;
+        this.max = max;
+        this.limit = initial;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.backoffRatio = backoffRatio;
+        this.lastDecrease = System.nanoTime() - targetLatencyNanos;
+    }
+
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /** Releases a permit and adjusts the limit from the call's latency and outcome. */
+    synchronized void release(long latencyNanos, boolean succeeded) {
+        inFlight--;
+        long now = System.nanoTime();
+        if (!succeeded || latencyNanos > targetLatencyNanos) {
+            if (now - lastDecrease >= targetLatencyNanos) {
+                limit = Math.max(min, limit * backoffRatio);
+                lastDecrease = now;
+            }
+        } else if (inFlight + 1 >= (int) limit / 2) {
+            limit = Math.min(max, limit + 1 / limit); // only grow while the limit is actually being used
+        }
+    }
+
+    /** Releases a permit that was acquired but not used for a call, leaving the limit unchanged. */
+    synchronized void releaseUnused() {
+        inFlight--;
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+}
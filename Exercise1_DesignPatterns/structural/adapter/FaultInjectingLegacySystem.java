@@ -0,0 +1,92 @@
+package com.designpatterns.structural.adapter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for a legacy payment backend whose behaviour can be changed while it is in use: base
+ * latency with jitter, a fraction of very slow calls, and a failure rate. Thread-safe, so one instance can
+ * serve every connection of a {@link LegacyConnectionPool} and the counters cover the whole backend.
+ */
+class FaultInjectingLegacySystem extends LegacyPaymentSystem {
+    private volatile long latencyNanos;
+    private volatile long jitterNanos;
+    private volatile double slowFraction;
+    private volatile long slowLatencyNanos;
+    private volatile double failureRate;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder payments = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peakActive = new AtomicInteger();
+
+    FaultInjectingLegacySystem(long latency, long jitter, TimeUnit unit) {
+        setLatency(latency, jitter, unit);
+    }
+
+    void setLatency(long latency, long jitter, TimeUnit unit) {
+        this.latencyNanos = unit.toNanos(latency);
+        this.jitterNanos = unit.toNanos(jitter);
+    }
+
+    /** Makes {@code fraction} of the calls take {@code latency} instead of the base latency. */
+    void setSlowCalls(double fraction, long latency, TimeUnit unit) {
+        this.slowLatencyNanos = unit.toNanos(latency);
+        this.slowFraction = fraction;
+    }
+
+    /** Makes {@code rate} of the calls fail after their latency, without charging. */
+    void setFailureRate(double rate) {
+        this.failureRate = rate;
+    }
+
+    /** Removes slow calls and failures, keeping the base latency. */
+    void heal() {
+        this.slowFraction = 0;
+        this.failureRate = 0;
+    }
+
+    @Override
+    public void makePayment(CharSequence amount) {
+        calls.increment();
+        int now = active.incrementAndGet();
+        peakActive.accumulateAndGet(now, Math::max);
+        try {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long delay = random.nextDouble() < slowFraction
+                    ? slowLatencyNanos
+                    : latencyNanos + (jitterNanos > 0 ? random.nextLong(jitterNanos) : 0);
+            TimeUnit.NANOSECONDS.sleep(delay);
+            if (random.nextDouble() < failureRate) {
+                failures.increment();
+                throw new IllegalStateException("Legacy backend error");
+            }
+            payments.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Legacy call interrupted", e);
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    long calls() {
+        return calls.sum();
+    }
+
+    /** Calls that succeeded, i.e. charges made. */
+    long payments() {
+        return payments.sum();
+    }
+
+    long failures() {
+        return failures.sum();
+    }
+
+    int peakConcurrentCalls() {
+        return peakActive.get();
+    }
+}
@@ -0,0 +1,43 @@
+package com.designpatterns.structural.adapter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Fixed set of {@link LegacyPaymentSystem} connections. The legacy client is not thread-safe, so each
+ * connection is used by one caller at a time between {@link #borrow} and {@link #release}.
+ */
+class LegacyConnectionPool {
+    private final BlockingQueue<LegacyPaymentSystem> idle;
+    private final int size;
+
+    LegacyConnectionPool(int size, Supplier<? extends LegacyPaymentSystem> connections) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        this.size = size;
+        this.idle = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            idle.add(connections.get());
+        }
+    }
+
+    /** Waits up to {@code timeoutNanos} for an idle connection; returns {@code null} if none became free. */
+    LegacyPaymentSystem borrow(long timeoutNanos) throws InterruptedException {
+        return idle.poll(timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void release(LegacyPaymentSystem connection) {
+        idle.add(connection);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int idle() {
+        return idle.size();
+    }
+}
@@ -0,0 +1,36 @@
+package com.designpatterns.structural.adapter;
+
+import java.util.Currency;
+
+class LegacyPaymentAdapter implements ModernPaymentGateway {
+    private static final int LEGACY_FRACTION_DIGITS = 2;
+    /** The legacy system books every amount in dollars. */
+    static final Currency LEGACY_CURRENCY = Currency.getInstance("USD");
+    private static final ThreadLocal<MoneyFormatter.AmountBuffer> BUFFERS =
+            ThreadLocal.withInitial(MoneyFormatter.AmountBuffer::new);
+
+    private LegacyPaymentSystem legacySystem;
+
+    public LegacyPaymentAdapter(LegacyPaymentSystem legacySystem) {
+        this.legacySystem = legacySystem;
+    }
+
+    @Override
+    public void processPayment(double amount) {
+        long cents = Money.toMinorUnits(amount, LEGACY_FRACTION_DIGITS);
+        legacySystem.makePayment(MoneyFormatter.format(cents, LEGACY_FRACTION_DIGITS, BUFFERS.get()));
+    }
+
+    @Override
+    public void processPayment(Money amount) {
+        legacySystem.makePayment(MoneyFormatter.format(legacyCents(amount), LEGACY_FRACTION_DIGITS, BUFFERS.get()));
+    }
+
+    /** Cents of an amount the legacy system can book; any other currency is rejected rather than relabelled. */
+    static long legacyCents(Money amount) {
+        if (!LEGACY_CURRENCY.equals(amount.getCurrency())) {
+            throw new IllegalArgumentException("Legacy system only accepts " + LEGACY_CURRENCY + " amounts: " + amount);
+        }
+        return amount.getMinorUnits();
+    }
+}
@@ -0,0 +1,10 @@
+package com.designpatterns.structural.adapter;
+
+import com.designpatterns.util.LoggerUtil;
+
+class LegacyPaymentSystem {
+    /** Takes the amount as text; callers may reuse the sequence after the call returns. */
+    public void makePayment(CharSequence amount) {
+        LoggerUtil.log("Legacy system processing payment of $" + amount);
+    }
+}
@@ -0,0 +1,10 @@
+package com.designpatterns.structural.adapter;
+
+interface ModernPaymentGateway {
+    void processPayment(double amount);
+
+    /** Fixed-point variant; gateways that can should override it to avoid the {@code double} round trip. */
+    default void processPayment(Money amount) {
+        processPayment(amount.toDouble());
+    }
+}
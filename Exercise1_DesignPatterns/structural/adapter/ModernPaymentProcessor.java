@@ -0,0 +1,17 @@
+package com.designpatterns.structural.adapter;
+
+class ModernPaymentProcessor {
+    private ModernPaymentGateway paymentGateway;
+
+    public ModernPaymentProcessor(ModernPaymentGateway paymentGateway) {
+        this.paymentGateway = paymentGateway;
+    }
+
+    public void processPayment(double amount) {
+        paymentGateway.processPayment(amount);
+    }
+
+    public void processPayment(Money amount) {
+        paymentGateway.processPayment(amount);
+    }
+}
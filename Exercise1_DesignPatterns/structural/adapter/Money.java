@@ -0,0 +1,145 @@
+package com.designpatterns.structural.adapter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+/**
+ * Fixed-point amount of money: a whole number of minor units (cents, pence, ...) in a currency, so amounts add up
+ * exactly instead of accumulating binary floating-point error.
+ */
+final class Money implements Comparable<Money> {
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000};
+
+    private final long minorUnits;
+    private final Currency currency;
+
+    private Money(long minorUnits, Currency currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+    static Money ofMinor(long minorUnits, Currency currency) {
+        if (currency == null) {
+            throw new IllegalArgumentException("Currency is required");
+        }
+        return new Money(minorUnits, currency);
+    }
+
+    /** Exact conversion; fails if {@code amount} has more decimals than the currency allows. */
+    static Money of(BigDecimal amount, Currency currency) {
+        return ofMinor(amount.movePointRight(fractionDigits(currency)).longValueExact(), currency);
+    }
+
+    /** Converts a {@code double} the way {@code String.format("%.2f")} rounds it: half up on its shortest decimal form. */
+    static Money fromDouble(double amount, Currency currency) {
+        return ofMinor(toMinorUnits(amount, fractionDigits(currency)), currency);
+    }
+
+    /**
+     * Rounds {@code amount} to {@code fractionDigits} decimals, half up on the shortest decimal representation of the
+     * double (as {@link Double#toString} and {@code String.format} do), without allocating below 2^33 minor units.
+     */
+    static long toMinorUnits(double amount, int fractionDigits) {
+        if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+            throw new IllegalArgumentException("Not a finite amount: " + amount);
+        }
+        long scale = POWERS_OF_TEN[fractionDigits];
+        double scaled = amount * scale;
+        if (Math.abs(scaled) >= 0x1p33) { // beyond this a double has too few fraction bits for the tie check
+            return BigDecimal.valueOf(amount).setScale(fractionDigits, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        }
+        double floor = Math.floor(scaled);
+        double fraction = scaled - floor;
+        if (Math.abs(fraction - 0.5) > 1e-6) {
+            return (long) (fraction > 0.5 ? floor + 1 : floor);
+        }
+        // Near a tie, e.g. 1.005 * 100 = 100.49999999999999. Division is correctly rounded, so tie is exactly the
+        // double that the decimal "floor + 0.5" minor units parses to; amount prints as that tie iff it equals it.
+        double tie = (2 * floor + 1) / (2 * scale);
+        if (amount == tie) {
+            return (long) (amount > 0 ? floor + 1 : floor); // half up: away from zero
+        }
+        return (long) (amount > tie ? floor + 1 : floor);
+    }
+
+    static int fractionDigits(Currency currency) {
+        int digits = currency.getDefaultFractionDigits();
+        return digits < 0 ? 0 : digits; // pseudo-currencies such as XAU have no minor unit
+    }
+
+    long getMinorUnits() {
+        return minorUnits;
+    }
+
+    Currency getCurrency() {
+        return currency;
+    }
+
+    int getFractionDigits() {
+        return fractionDigits(currency);
+    }
+
+    Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    Money times(long quantity) {
+        return new Money(Math.multiplyExact(minorUnits, quantity), currency);
+    }
+
+    boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, getFractionDigits());
+    }
+
+    /** Nearest {@code double}; only for display or legacy APIs, never for arithmetic. */
+    double toDouble() {
+        return minorUnits / (double) POWERS_OF_TEN[getFractionDigits()];
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " vs " + other.currency);
+        }
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money)) {
+            return false;
+        }
+        Money other = (Money) o;
+        return minorUnits == other.minorUnits && currency.equals(other.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minorUnits) + currency.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        MoneyFormatter.AmountBuffer buffer = new MoneyFormatter.AmountBuffer();
+        MoneyFormatter.format(minorUnits, getFractionDigits(), buffer);
+        return buffer + " " + currency.getCurrencyCode();
+    }
+}
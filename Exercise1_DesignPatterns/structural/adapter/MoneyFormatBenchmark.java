@@ -0,0 +1,73 @@
+package com.designpatterns.structural.adapter;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares the old {@code String.format("%.2f")} amount path of the adapter with {@link Money} and
+ * {@link MoneyFormatter}, reporting throughput and bytes allocated per amount on the calling thread.
+ * That both paths produce the same text is checked by {@link MoneyFormatterTest}.
+ *
+ * <p>Usage: {@code java -cp out com.designpatterns.structural.adapter.MoneyFormatBenchmark [amounts] [rounds]}
+ */
+public class MoneyFormatBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        int amounts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        MoneyFormatter.AmountBuffer buffer = new MoneyFormatter.AmountBuffer();
+        double[] values = randomAmounts(amounts, new Random(7));
+        long sink = 0;
+        for (int round = 0; round < rounds; round++) {
+            boolean last = round == rounds - 1;
+            sink += run("String.format", values, last, () -> {
+                long sum = 0;
+                for (double value : values) {
+                    sum += String.format(Locale.ROOT, "%.2f", value).length();
+                }
+                return sum;
+            });
+            sink += run("Money+MoneyFormatter", values, last, () -> {
+                long sum = 0;
+                for (double value : values) {
+                    sum += MoneyFormatter.format(Money.toMinorUnits(value, 2), 2, buffer).length();
+                }
+                return sum;
+            });
+        }
+        System.out.println("checksum=" + sink);
+    }
+
+    private interface Pass {
+        long run();
+    }
+
+    private static long run(String name, double[] values, boolean report, Pass pass) {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long result = pass.run();
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        if (report) {
+            System.out.printf("%-22s %,12.0f amounts/s  %8.1f ns/amount  %8.1f bytes/amount%n", name,
+                    values.length * 1e9 / elapsed, elapsed / (double) values.length, allocated / (double) values.length);
+        }
+        return result;
+    }
+
+    private static double[] randomAmounts(int count, Random random) {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = random.nextInt(10_000_000) / 100.0 + (random.nextBoolean() ? 0.005 : 0.0);
+        }
+        return values;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,85 @@
+package com.designpatterns.structural.adapter;
+
+/**
+ * Formats fixed-point amounts as plain decimals ({@code -1234.50}) into a reusable buffer without allocating,
+ * for the legacy path that used {@code String.format("%.2f", amount)}. Output always uses {@code '.'} as the
+ * decimal separator and no grouping, independent of the default locale.
+ */
+final class MoneyFormatter {
+    private MoneyFormatter() {
+    }
+
+    /** Reusable character buffer; valid until the next format into it. */
+    static final class AmountBuffer implements CharSequence {
+        // sign + 19 digits of a long + separator
+        private final char[] chars = new char[21];
+        private int start;
+
+        @Override
+        public int length() {
+            return chars.length - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length()) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of " + length());
+            }
+            return chars[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return toString().substring(from, to);
+        }
+
+        /** Copies the formatted amount into {@code target} and returns the number of chars written. */
+        int copyTo(char[] target, int offset) {
+            int length = length();
+            System.arraycopy(chars, start, target, offset, length);
+            return length;
+        }
+
+        boolean contentEquals(CharSequence other) {
+            if (other.length() != length()) {
+                return false;
+            }
+            for (int i = 0; i < length(); i++) {
+                if (other.charAt(i) != chars[start + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, start, length());
+        }
+    }
+
+    /** Writes {@code minorUnits} with {@code fractionDigits} decimals into {@code out}, right-aligned and without allocating. */
+    static AmountBuffer format(long minorUnits, int fractionDigits, AmountBuffer out) {
+        char[] chars = out.chars;
+        int position = chars.length;
+        boolean negative = minorUnits < 0;
+        // work with the negative value so Long.MIN_VALUE needs no special case
+        long remaining = negative ? minorUnits : -minorUnits;
+        for (int i = 0; i < fractionDigits; i++) {
+            chars[--position] = (char) ('0' - remaining % 10);
+            remaining /= 10;
+        }
+        if (fractionDigits > 0) {
+            chars[--position] = '.';
+        }
+        do {
+            chars[--position] = (char) ('0' - remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        if (negative) {
+            chars[--position] = '-';
+        }
+        out.start = position;
+        return out;
+    }
+}
@@ -0,0 +1,55 @@
+package com.designpatterns.structural.adapter;
+
+import java.util.Currency;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Plain Java test runner (no JUnit) for {@link Money} and {@link MoneyFormatter}: rounding edge cases, random
+ * cents, random half-cent ties and random doubles must format exactly as {@code String.format("%.2f")} did.
+ * Usage: java -cp out com.designpatterns.structural.adapter.MoneyFormatterTest
+ */
+public class MoneyFormatterTest {
+    private static final double[] EDGE_CASES = {
+            0.0, 0.004, 0.005, 0.006, 0.015, 0.125, 0.135, 1.005, 1.015, 1.045, 2.675, 8.345, 100.50, 1_000_000.005,
+            -0.006, -0.015, -1.005, -2.675, -100.50, 99_999_999.995, 12_345_678_901.235, 1e15 + 0.25, -9.5e15
+    };
+
+    public static void main(String[] args) {
+        MoneyFormatter.AmountBuffer buffer = new MoneyFormatter.AmountBuffer();
+        for (double value : EDGE_CASES) {
+            expectSame(value, buffer);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 1_000_000; i++) {
+            long cents = random.nextInt(100_000_000) - 50_000_000;
+            expectSame(cents / 100.0, buffer);
+            expectSame((cents * 10 + 5) / 1000.0, buffer); // x.xx5 ties round half up, away from zero
+            expectSame(random.nextDouble() * 1e6, buffer);
+        }
+
+        expectText(MoneyFormatter.format(Long.MIN_VALUE, 2, buffer), "-92233720368547758.08");
+        expectText(MoneyFormatter.format(Long.MAX_VALUE, 2, buffer), "92233720368547758.07");
+        expectText(MoneyFormatter.format(-5, 2, buffer), "-0.05");
+        expectText(MoneyFormatter.format(7, 0, buffer), "7");
+        expectText(MoneyFormatter.format(-12_345, 3, buffer), "-12.345");
+        Currency usd = Currency.getInstance("USD");
+        expectText(Money.ofMinor(1050, usd).plus(Money.ofMinor(5, usd)).toString(), "10.55 USD");
+        expectText(Money.ofMinor(500, Currency.getInstance("JPY")).toString(), "500 JPY");
+        System.out.println("MoneyFormatterTest: OK");
+    }
+
+    private static void expectSame(double value, MoneyFormatter.AmountBuffer buffer) {
+        String expected = String.format(Locale.ROOT, "%.2f", value);
+        if (expected.equals("-0.00")) {
+            expected = "0.00"; // Money has no negative zero
+        }
+        expectText(MoneyFormatter.format(Money.toMinorUnits(value, 2), 2, buffer), expected);
+    }
+
+    private static void expectText(CharSequence actual, String expected) {
+        if (!expected.contentEquals(actual)) {
+            throw new AssertionError("Expected " + expected + " but formatted " + actual);
+        }
+    }
+}
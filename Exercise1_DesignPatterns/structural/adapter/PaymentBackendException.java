@@ -0,0 +1,28 @@
+package com.designpatterns.structural.adapter;
+
+/** Thrown by {@link ResilientLegacyPaymentAdapter} when a payment could not be handed to the legacy backend. */
+class PaymentBackendException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    enum Reason {
+        /** The circuit breaker is open; the backend was not called. */
+        CIRCUIT_OPEN,
+        /** The concurrency limit was reached; the backend was not called. */
+        OVERLOADED,
+        /** No attempt finished before the deadline; the payment may still complete in the backend. */
+        TIMEOUT,
+        /** Every attempt failed. */
+        FAILED
+    }
+
+    private final Reason reason;
+
+    PaymentBackendException(Reason reason, String message, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+    }
+
+    Reason getReason() {
+        return reason;
+    }
+}
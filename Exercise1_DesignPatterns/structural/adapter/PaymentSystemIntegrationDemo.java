@@ -1,42 +1,6 @@
 package com.designpatterns.structural.adapter;
 
-import com.designpatterns.util.LoggerUtil;
-
-interface ModernPaymentGateway {
-    void processPayment(double amount);
-}
-
-class LegacyPaymentSystem {
-    public void makePayment(String amount) {
-        LoggerUtil.log("Legacy system processing payment of $" + amount);
-    }
-}
-
-class LegacyPaymentAdapter implements ModernPaymentGateway {
-    private LegacyPaymentSystem legacySystem;
-
-    public LegacyPaymentAdapter(LegacyPaymentSystem legacySystem) {
-        this.legacySystem = legacySystem;
-    }
-
-    @Override
-    public void processPayment(double amount) {
-        String formattedAmount = String.format("%.2f", amount);
-        legacySystem.makePayment(formattedAmount);
-    }
-}
-
-class ModernPaymentProcessor {
-    private ModernPaymentGateway paymentGateway;
-
-    public ModernPaymentProcessor(ModernPaymentGateway paymentGateway) {
-        this.paymentGateway = paymentGateway;
-    }
-
-    public void processPayment(double amount) {
-        paymentGateway.processPayment(amount);
-    }
-}
+import java.util.Currency;
 
 public class PaymentSystemIntegrationDemo {
     public static void main(String[] args) {
@@ -45,5 +9,13 @@ public class PaymentSystemIntegrationDemo {
         ModernPaymentProcessor processor = new ModernPaymentProcessor(adapter);
 
         processor.processPayment(100.50);
+        processor.processPayment(Money.ofMinor(4999, Currency.getInstance("USD")));
+
+        try (ResilientLegacyPaymentAdapter resilient =
+                     new ResilientLegacyPaymentAdapter.ResilientAdapterBuilder(LegacyPaymentSystem::new)
+                             .setPoolSize(4)
+                             .build()) {
+            new ModernPaymentProcessor(resilient).processPayment(75.25);
+        }
     }
 }
\ No newline at end of file
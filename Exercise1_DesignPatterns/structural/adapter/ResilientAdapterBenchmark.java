@@ -0,0 +1,137 @@
+package com.designpatterns.structural.adapter;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives the inline {@link LegacyPaymentAdapter} and the {@link ResilientLegacyPaymentAdapter} with the same
+ * client load against a {@link FaultInjectingLegacySystem} that goes through four phases: healthy, a slow tail
+ * (a share of calls take seconds), an outage (most calls fail), and recovery. For each phase it prints caller
+ * latency percentiles and outcomes. The resilient adapter should keep p99 near the hedge delay during the slow
+ * tail and refuse calls quickly while the circuit is open.
+ *
+ * <p>Usage: {@code java -cp out com.designpatterns.structural.adapter.ResilientAdapterBenchmark [clients] [phaseSeconds]}
+ */
+public class ResilientAdapterBenchmark {
+    private static final String[] PHASES = {"healthy", "slow tail", "outage", "recovered"};
+
+    public static void main(String[] args) throws InterruptedException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int phaseSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        FaultInjectingLegacySystem inlineBackend = newBackend();
+        System.out.println("== inline LegacyPaymentAdapter ==");
+        run(new LegacyPaymentAdapter(inlineBackend), inlineBackend, clients, phaseSeconds, null);
+
+        FaultInjectingLegacySystem backend = newBackend();
+        try (ResilientLegacyPaymentAdapter resilient = new ResilientLegacyPaymentAdapter.ResilientAdapterBuilder(() -> backend)
+                .setPoolSize(64)
+                .setTimeout(250, TimeUnit.MILLISECONDS)
+                .setTargetLatency(50, TimeUnit.MILLISECONDS)
+                .setSlowCallThreshold(100, TimeUnit.MILLISECONDS)
+                .setMaxAttempts(2)
+                .setHedgeAfter(30, TimeUnit.MILLISECONDS)
+                .setCircuitBreaker(50, 0.5, 1, TimeUnit.SECONDS, 3)
+                .build()) {
+            System.out.println("== ResilientLegacyPaymentAdapter ==");
+            run(resilient, backend, clients, phaseSeconds, resilient);
+            System.out.printf("retries=%,d hedges=%,d circuit openings=%d, backend peak concurrency=%d%n",
+                    resilient.retries(), resilient.hedges(), resilient.circuitOpenings(), backend.peakConcurrentCalls());
+        }
+    }
+
+    private static FaultInjectingLegacySystem newBackend() {
+        return new FaultInjectingLegacySystem(5, 5, TimeUnit.MILLISECONDS);
+    }
+
+    private static void run(ModernPaymentGateway gateway, FaultInjectingLegacySystem backend, int clients,
+                            int phaseSeconds, ResilientLegacyPaymentAdapter resilient) throws InterruptedException {
+        ModernPaymentProcessor processor = new ModernPaymentProcessor(gateway);
+        for (int phase = 0; phase < PHASES.length; phase++) {
+            backend.heal();
+            if (phase == 1) {
+                backend.setSlowCalls(0.05, 3, TimeUnit.SECONDS);
+            } else if (phase == 2) {
+                backend.setFailureRate(0.9);
+            }
+            PhaseResult result = runPhase(processor, clients, TimeUnit.SECONDS.toNanos(phaseSeconds));
+            System.out.printf("%-10s calls=%,7d ok=%,7d failed=%,6d rejected=%,7d  p50=%7.1f p99=%7.1f max=%7.1f ms%s%n",
+                    PHASES[phase], result.latencies.length, result.ok.sum(), result.failed.sum(), result.rejected.sum(),
+                    percentileMillis(result.latencies, 0.50), percentileMillis(result.latencies, 0.99),
+                    percentileMillis(result.latencies, 1.0),
+                    resilient == null ? "" : "  circuit=" + resilient.circuitState() + " limit=" + resilient.concurrencyLimit());
+        }
+    }
+
+    private static final class PhaseResult {
+        final LongAdder ok = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        long[] latencies = new long[0];
+
+        synchronized void add(long[] samples, int count) {
+            long[] merged = Arrays.copyOf(latencies, latencies.length + count);
+            System.arraycopy(samples, 0, merged, latencies.length, count);
+            latencies = merged;
+        }
+    }
+
+    private static PhaseResult runPhase(ModernPaymentProcessor processor, int clients, long durationNanos)
+            throws InterruptedException {
+        PhaseResult result = new PhaseResult();
+        long end = System.nanoTime() + durationNanos;
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int c = 0; c < clients; c++) {
+            Thread client = new Thread(() -> {
+                long[] samples = new long[1 << 12];
+                int count = 0;
+                while (System.nanoTime() < end) {
+                    long start = System.nanoTime();
+                    try {
+                        processor.processPayment(19.99);
+                        result.ok.increment();
+                    } catch (PaymentBackendException e) {
+                        if (e.getReason() == PaymentBackendException.Reason.CIRCUIT_OPEN
+                                || e.getReason() == PaymentBackendException.Reason.OVERLOADED) {
+                            result.rejected.increment();
+                            pause(); // a refused client backs off briefly instead of spinning
+                        } else {
+                            result.failed.increment();
+                        }
+                    } catch (IllegalStateException e) {
+                        result.failed.increment();
+                    }
+                    if (count == samples.length) {
+                        samples = Arrays.copyOf(samples, count * 2);
+                    }
+                    samples[count++] = System.nanoTime() - start;
+                }
+                result.add(samples, count);
+                done.countDown();
+            }, "client-" + c);
+            client.setDaemon(true);
+            client.start();
+        }
+        done.await();
+        Arrays.sort(result.latencies);
+        return result;
+    }
+
+    private static void pause() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
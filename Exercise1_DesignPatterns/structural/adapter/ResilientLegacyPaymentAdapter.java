@@ -0,0 +1,368 @@
+package com.designpatterns.structural.adapter;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Adapter to the legacy payment system that keeps its callers responsive when the backend degrades.
+ *
+ * <p>Calls go to a {@link LegacyConnectionPool} from a worker pool of the same size. The caller waits at most
+ * the configured timeout and then gets a {@link PaymentBackendException}. Every adapter owns its own
+ * connections and workers, so separate adapters (for example one per payment channel) act as bulkheads: a
+ * stuck backend behind one cannot exhaust the threads of another. Inside an adapter:
+ * <ul>
+ *   <li>an {@link AdaptiveConcurrencyLimit} shrinks the number of concurrent calls when latency rises, and
+ *       callers beyond it are refused at once instead of queueing;</li>
+ *   <li>a {@link CircuitBreaker} stops calling a backend that keeps failing or timing out, and probes it
+ *       again after a cool-down;</li>
+ *   <li>if an attempt fails, or is still running after the hedge delay, another attempt is started on a
+ *       different connection, up to {@code maxAttempts}, and the first success wins.</li>
+ * </ul>
+ * Attempts still running when the payment is decided are interrupted, which frees their connection if the
+ * legacy client honours interrupts.
+ *
+ * <p>Extra attempts mean the backend may see the same payment twice, so enable retries and hedging only for a
+ * backend that tolerates that (it deduplicates payments, or a failed call is known not to have charged). Both
+ * are off by default. A payment that timed out may still complete in the backend afterwards.
+ */
+class ResilientLegacyPaymentAdapter implements ModernPaymentGateway, AutoCloseable {
+    private static final int LEGACY_FRACTION_DIGITS = 2;
+    private static final ThreadLocal<MoneyFormatter.AmountBuffer> BUFFERS =
+            ThreadLocal.withInitial(MoneyFormatter.AmountBuffer::new);
+
+    private final LegacyConnectionPool pool;
+    private final ThreadPoolExecutor workers;
+    private final CircuitBreaker breaker;
+    private final AdaptiveConcurrencyLimit limit;
+    private final long timeoutNanos;
+    private final long slowCallNanos;
+    private final long hedgeAfterNanos;
+    private final int maxAttempts;
+
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder rejectedOpen = new LongAdder();
+    private final LongAdder rejectedOverloaded = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+
+    private ResilientLegacyPaymentAdapter(ResilientAdapterBuilder builder) {
+        this.pool = new LegacyConnectionPool(builder.poolSize, builder.connections);
+        this.workers = new ThreadPoolExecutor(builder.poolSize, builder.poolSize, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads());
+        this.breaker = new CircuitBreaker(builder.windowSize, Math.max(1, builder.windowSize / 2),
+                builder.failureRateThreshold, builder.openNanos, builder.probes);
+        // Permits are held until an attempt really finishes, so the limit also caps connections in use.
+        this.limit = new AdaptiveConcurrencyLimit(1, builder.poolSize, builder.poolSize, builder.targetLatencyNanos, 0.9);
+        this.timeoutNanos = builder.timeoutNanos;
+        this.slowCallNanos = builder.slowCallNanos;
+        this.hedgeAfterNanos = builder.hedgeAfterNanos;
+        this.maxAttempts = builder.maxAttempts;
+    }
+
+    @Override
+    public void processPayment(double amount) {
+        pay(Money.toMinorUnits(amount, LEGACY_FRACTION_DIGITS));
+    }
+
+    @Override
+    public void processPayment(Money amount) {
+        pay(LegacyPaymentAdapter.legacyCents(amount));
+    }
+
+    private void pay(long cents) {
+        if (!breaker.tryAcquire()) {
+            rejectedOpen.increment();
+            throw new PaymentBackendException(PaymentBackendException.Reason.CIRCUIT_OPEN,
+                    "Legacy payment backend is unavailable", null);
+        }
+        long start = System.nanoTime();
+        Payment payment = new Payment(cents, start + timeoutNanos);
+        if (!launch(payment)) {
+            breaker.onIgnored();
+            rejectedOverloaded.increment();
+            throw new PaymentBackendException(PaymentBackendException.Reason.OVERLOADED,
+                    "Legacy payment backend is at its concurrency limit of " + limit.limit(), null);
+        }
+        try {
+            await(payment);
+        } finally {
+            payment.cancelAttempts();
+        }
+        if (System.nanoTime() - start > slowCallNanos) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess();
+        }
+        succeeded.increment();
+    }
+
+    private void await(Payment payment) {
+        try {
+            if (hedgeAfterNanos > 0 && hedgeAfterNanos < timeoutNanos) {
+                try {
+                    payment.result.get(hedgeAfterNanos, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    if (launch(payment)) {
+                        hedges.increment();
+                    }
+                }
+            }
+            payment.result.get(payment.deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            payment.result.cancel(false); // attempts not yet started will not call the backend
+            breaker.onFailure();
+            timedOut.increment();
+            throw new PaymentBackendException(PaymentBackendException.Reason.TIMEOUT,
+                    "Legacy payment backend did not answer within " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms", e);
+        } catch (ExecutionException e) {
+            breaker.onFailure();
+            failed.increment();
+            throw new PaymentBackendException(PaymentBackendException.Reason.FAILED,
+                    "Legacy payment failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            breaker.onIgnored();
+            throw new PaymentBackendException(PaymentBackendException.Reason.TIMEOUT, "Interrupted while paying", e);
+        }
+    }
+
+    /** Starts another attempt of {@code payment} if it has attempts left and the concurrency limit allows. */
+    private boolean launch(Payment payment) {
+        int launched;
+        do {
+            launched = payment.launched.get();
+            if (launched >= maxAttempts) {
+                return false;
+            }
+        } while (!payment.launched.compareAndSet(launched, launched + 1));
+        if (!limit.tryAcquire()) {
+            payment.launched.decrementAndGet();
+            return false;
+        }
+        payment.outstanding.incrementAndGet();
+        workers.execute(() -> attempt(payment));
+        return true;
+    }
+
+    private void attempt(Payment payment) {
+        if (payment.result.isDone()) {
+            // another attempt already won, or the caller gave up: do not charge
+            limit.releaseUnused();
+            payment.outstanding.decrementAndGet();
+            return;
+        }
+        long started = System.nanoTime();
+        boolean paid = false;
+        Exception error = null;
+        LegacyPaymentSystem connection = null;
+        RunningCall call = new RunningCall();
+        payment.running.add(call);
+        try {
+            connection = pool.borrow(payment.deadline - started);
+            if (connection == null) {
+                throw new IllegalStateException("No legacy connection became free in time");
+            }
+            connection.makePayment(MoneyFormatter.format(payment.cents, LEGACY_FRACTION_DIGITS, BUFFERS.get()));
+            paid = true;
+        } catch (RuntimeException | InterruptedException e) {
+            error = e;
+        } finally {
+            call.finish();
+            payment.running.remove(call);
+            if (connection != null) {
+                pool.release(connection);
+            }
+            limit.release(System.nanoTime() - started, paid);
+        }
+        if (paid) {
+            payment.result.complete(null);
+        } else if (!payment.result.isDone() && System.nanoTime() < payment.deadline && launch(payment)) {
+            retries.increment();
+        }
+        if (payment.outstanding.decrementAndGet() == 0 && !paid) {
+            payment.result.completeExceptionally(error); // no other attempt can still succeed
+        }
+    }
+
+    long succeeded() {
+        return succeeded.sum();
+    }
+
+    long failed() {
+        return failed.sum();
+    }
+
+    long timedOut() {
+        return timedOut.sum();
+    }
+
+    long rejectedOpen() {
+        return rejectedOpen.sum();
+    }
+
+    long rejectedOverloaded() {
+        return rejectedOverloaded.sum();
+    }
+
+    long retries() {
+        return retries.sum();
+    }
+
+    long hedges() {
+        return hedges.sum();
+    }
+
+    CircuitBreaker.State circuitState() {
+        return breaker.state();
+    }
+
+    long circuitOpenings() {
+        return breaker.timesOpened();
+    }
+
+    int concurrencyLimit() {
+        return limit.limit();
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow(); // interrupts calls stuck in the backend
+    }
+
+    private static final class Payment {
+        final long cents;
+        final long deadline;
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        final AtomicInteger launched = new AtomicInteger();
+        final AtomicInteger outstanding = new AtomicInteger();
+        final Queue<RunningCall> running = new ConcurrentLinkedQueue<>();
+
+        Payment(long cents, long deadline) {
+            this.cents = cents;
+            this.deadline = deadline;
+        }
+
+        /** Interrupts attempts still in the backend once the result is decided; later attempts see it and skip. */
+        void cancelAttempts() {
+            for (RunningCall call : running) {
+                call.interrupt();
+            }
+        }
+    }
+
+    /** A backend call in progress on a worker thread, which may be interrupted until it finishes. */
+    private static final class RunningCall {
+        private Thread runner = Thread.currentThread();
+
+        synchronized void interrupt() {
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+
+        /** Ends the call; an interrupt that raced with it is cleared so it cannot reach the worker's next task. */
+        synchronized void finish() {
+            runner = null;
+            Thread.interrupted();
+        }
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "legacy-payment-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static class ResilientAdapterBuilder {
+        private final Supplier<? extends LegacyPaymentSystem> connections;
+        private int poolSize = 16;
+        private long timeoutNanos = TimeUnit.SECONDS.toNanos(2);
+        private long slowCallNanos = TimeUnit.SECONDS.toNanos(1);
+        private long targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(200);
+        private int maxAttempts = 1;
+        private long hedgeAfterNanos;
+        private int windowSize = 50;
+        private double failureRateThreshold = 0.5;
+        private long openNanos = TimeUnit.SECONDS.toNanos(5);
+        private int probes = 3;
+
+        /** @param connections opens a new connection to the legacy system; called {@code poolSize} times */
+        public ResilientAdapterBuilder(Supplier<? extends LegacyPaymentSystem> connections) {
+            this.connections = connections;
+        }
+
+        /** Connections, worker threads and the upper bound of the concurrency limit. */
+        public ResilientAdapterBuilder setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+            return this;
+        }
+
+        /** Longest a caller waits for a payment, across all its attempts. */
+        public ResilientAdapterBuilder setTimeout(long timeout, TimeUnit unit) {
+            this.timeoutNanos = unit.toNanos(timeout);
+            return this;
+        }
+
+        /** Successful payments slower than this count as failures for the circuit breaker. */
+        public ResilientAdapterBuilder setSlowCallThreshold(long threshold, TimeUnit unit) {
+            this.slowCallNanos = unit.toNanos(threshold);
+            return this;
+        }
+
+        /** Latency above which the concurrency limit backs off. */
+        public ResilientAdapterBuilder setTargetLatency(long latency, TimeUnit unit) {
+            this.targetLatencyNanos = unit.toNanos(latency);
+            return this;
+        }
+
+        /** Attempts per payment including the first; above 1, a failed attempt is retried on another connection. */
+        public ResilientAdapterBuilder setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /** Starts a second attempt when the first has not finished after this delay; 0 disables hedging. */
+        public ResilientAdapterBuilder setHedgeAfter(long delay, TimeUnit unit) {
+            this.hedgeAfterNanos = unit.toNanos(delay);
+            return this;
+        }
+
+        /**
+         * Opens the circuit when at least {@code failureRateThreshold} of the last {@code windowSize} calls failed,
+         * keeps it open for {@code openTime}, then closes it after {@code probes} successful trial calls.
+         */
+        public ResilientAdapterBuilder setCircuitBreaker(int windowSize, double failureRateThreshold, long openTime,
+                                                         TimeUnit unit, int probes) {
+            this.windowSize = windowSize;
+            this.failureRateThreshold = failureRateThreshold;
+            this.openNanos = unit.toNanos(openTime);
+            this.probes = probes;
+            return this;
+        }
+
+        public ResilientLegacyPaymentAdapter build() {
+            if (timeoutNanos <= 0 || maxAttempts < 1) {
+                throw new IllegalArgumentException("Timeout and attempts must be positive");
+            }
+            if (hedgeAfterNanos > 0 && maxAttempts < 2) {
+                throw new IllegalArgumentException("Hedging needs at least two attempts");
+            }
+            return new ResilientLegacyPaymentAdapter(this);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.designpatterns.structural.decorator;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+/** Result of pricing one batch: every line, priced against one catalog version, and their exact total. */
+final class BatchQuote {
+    private final long batchId;
+    private final long catalogVersion;
+    private final List<PricedOrder> lines;
+    private final BigDecimal total;
+
+    BatchQuote(long batchId, long catalogVersion, List<PricedOrder> lines, BigDecimal total) {
+        this.batchId = batchId;
+        this.catalogVersion = catalogVersion;
+        this.lines = Collections.unmodifiableList(lines);
+        this.total = total;
+    }
+
+    long getBatchId() {
+        return batchId;
+    }
+
+    long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    List<PricedOrder> getLines() {
+        return lines;
+    }
+
+    BigDecimal getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,11 @@
+package com.designpatterns.structural.decorator;
+
+interface Coffee {
+    String getDescription();
+    double getCost();
+
+    /** Flattened form of this coffee; coffees that are not decorators are treated as an opaque base. */
+    default Recipe getRecipe() {
+        return Recipe.base(getDescription(), getCost());
+    }
+}
@@ -0,0 +1,30 @@
+package com.designpatterns.structural.decorator;
+
+/**
+ * Adds one {@link Ingredient} to a coffee. The decorated chain is flattened into a {@link Recipe} when the
+ * decorator is created, so cost and description are answered from the recipe instead of walking the chain.
+ */
+abstract class CoffeeDecorator implements Coffee {
+    protected Coffee decoratedCoffee;
+    private final Recipe recipe;
+
+    public CoffeeDecorator(Coffee coffee, Ingredient ingredient) {
+        this.decoratedCoffee = coffee;
+        this.recipe = coffee.getRecipe().with(ingredient);
+    }
+
+    @Override
+    public String getDescription() {
+        return recipe.getDescription();
+    }
+
+    @Override
+    public double getCost() {
+        return recipe.getCost();
+    }
+
+    @Override
+    public Recipe getRecipe() {
+        return recipe;
+    }
+}
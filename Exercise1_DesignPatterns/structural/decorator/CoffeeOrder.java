@@ -0,0 +1,33 @@
+package com.designpatterns.structural.decorator;
+
+/** A line of an incoming order: a drink and how many of it. */
+final class CoffeeOrder {
+    private final String orderId;
+    private final Recipe recipe;
+    private final int quantity;
+
+    CoffeeOrder(String orderId, Coffee coffee, int quantity) {
+        this(orderId, coffee.getRecipe(), quantity);
+    }
+
+    CoffeeOrder(String orderId, Recipe recipe, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        this.orderId = orderId;
+        this.recipe = recipe;
+        this.quantity = quantity;
+    }
+
+    String getOrderId() {
+        return orderId;
+    }
+
+    Recipe getRecipe() {
+        return recipe;
+    }
+
+    int getQuantity() {
+        return quantity;
+    }
+}
@@ -0,0 +1,181 @@
+package com.designpatterns.structural.decorator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives {@link CoffeeOrderEngine} with a cafe-like order mix (mostly milk coffees, some with syrups and extra
+ * shots, mostly single cups) from several producer threads, while another thread reloads the price catalog
+ * from a file every few milliseconds. It checks that the engine's exact revenue equals the sum of the priced
+ * lines, shows how far a {@code double} sum of the same lines drifts, and then prices one large batch with
+ * {@link CoffeeOrderEngine#priceBatch} at increasing parallelism.
+ *
+ * <p>Usage: {@code java -cp out com.designpatterns.structural.decorator.CoffeeOrderBenchmark [orders] [producers] [parallelism]}
+ */
+public class CoffeeOrderBenchmark {
+    private static final Ingredient EXTRA_SHOT = Ingredient.define("Extra Shot", 0.7, false);
+    private static final Ingredient VANILLA = Ingredient.define("Vanilla Syrup", 0.6, true);
+    private static final Ingredient CINNAMON = Ingredient.define("Cinnamon", 0.3, true);
+
+    public static void main(String[] args) throws Exception {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int producers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        Recipe[] menu = menu();
+        int[] weights = {20, 30, 20, 10, 8, 5, 5, 2};
+        PriceCatalog catalog = PriceCatalog.defaults();
+        Path prices = Files.createTempFile("coffee-prices", ".properties");
+        try {
+            writePrices(prices, "0.70");
+            catalog.reload(prices);
+            runSubmitted(catalog, prices, menu, weights, orders, producers, parallelism);
+            runBatches(catalog, menu, weights, Math.min(orders, 1_000_000), parallelism);
+        } finally {
+            Files.deleteIfExists(prices);
+        }
+    }
+
+    private static Recipe[] menu() {
+        Recipe simple = new SimpleCoffee().getRecipe();
+        Recipe milk = simple.with(Ingredient.MILK);
+        return new Recipe[]{
+                simple,
+                milk,
+                milk.with(Ingredient.SUGAR),
+                milk.with(EXTRA_SHOT),
+                milk.with(VANILLA),
+                milk.with(Ingredient.SUGAR).with(CINNAMON),
+                milk.with(EXTRA_SHOT).with(EXTRA_SHOT).with(VANILLA),
+                simple.with(EXTRA_SHOT).with(EXTRA_SHOT).with(EXTRA_SHOT).with(Ingredient.SUGAR)
+        };
+    }
+
+    private static CoffeeOrder randomOrder(Random random, Recipe[] menu, int[] weights, long id) {
+        int pick = random.nextInt(100);
+        int item = 0;
+        while (pick >= weights[item]) {
+            pick -= weights[item++];
+        }
+        int roll = random.nextInt(100);
+        int quantity = roll < 80 ? 1 : roll < 95 ? 2 : 3 + random.nextInt(4);
+        return new CoffeeOrder("order-" + id, menu[item], quantity);
+    }
+
+    private static void writePrices(Path file, String extraShot) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("base.Simple\\ Coffee=1.00");
+        lines.add("ingredient.Milk=0.50");
+        lines.add("ingredient.Sugar=0.20");
+        lines.add("ingredient.Extra\\ Shot=" + extraShot);
+        lines.add("ingredient.Vanilla\\ Syrup=0.60");
+        lines.add("ingredient.Cinnamon=0.30");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    private static void runSubmitted(PriceCatalog catalog, Path prices, Recipe[] menu, int[] weights, int orders,
+                                     int producers, int parallelism) throws Exception {
+        LongAdder lineCents = new LongAdder();
+        DoubleAdder lineDoubles = new DoubleAdder();
+        CountDownLatch priced = new CountDownLatch(orders);
+        Thread reloader = new Thread(() -> {
+            boolean toggle = false;
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    writePrices(prices, toggle ? "0.70" : "0.75");
+                    catalog.reload(prices);
+                    toggle = !toggle;
+                    TimeUnit.MILLISECONDS.sleep(5);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }, "catalog-reloader");
+        reloader.setDaemon(true);
+
+        long versionBefore = catalog.snapshot().version();
+        long start;
+        try (CoffeeOrderEngine engine = new CoffeeOrderEngine(catalog, 512, 2, TimeUnit.MILLISECONDS, parallelism)) {
+            reloader.start();
+            start = System.nanoTime();
+            Thread[] threads = new Thread[producers];
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                threads[p] = new Thread(() -> {
+                    Random random = new Random(producer);
+                    for (long i = producer; i < orders; i += producers) {
+                        engine.submit(randomOrder(random, menu, weights, i)).whenComplete((line, error) -> {
+                            if (line != null) {
+                                BigDecimal total = line.getLineTotal();
+                                lineCents.add(total.movePointRight(2).longValueExact());
+                                lineDoubles.add(total.doubleValue());
+                            }
+                            priced.countDown();
+                        });
+                    }
+                }, "producer-" + p);
+                threads[p].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            engine.flush();
+            priced.await();
+            long elapsed = System.nanoTime() - start;
+            reloader.interrupt();
+
+            System.out.printf("submitted: %,d orders in %.2f s = %,.0f orders/s (%,.0f per hour), %,d batches of %.1f on average%n",
+                    engine.orders(), elapsed / 1e9, engine.orders() * 1e9 / elapsed, engine.orders() * 3.6e12 / elapsed,
+                    engine.batches(), engine.meanBatchSize());
+            System.out.printf("catalog reloads during run: %,d, recipe cache hits %,d / misses %,d%n",
+                    catalog.snapshot().version() - versionBefore, catalog.cacheHits(), catalog.cacheMisses());
+            BigDecimal exact = engine.revenue();
+            BigDecimal fromLines = BigDecimal.valueOf(lineCents.sum(), 2);
+            if (exact.compareTo(fromLines) != 0) {
+                throw new IllegalStateException("Revenue " + exact + " differs from the priced lines " + fromLines);
+            }
+            System.out.printf("revenue exact=%s, same lines summed as double=%s (off by %s)%n", exact.toPlainString(),
+                    BigDecimal.valueOf(lineDoubles.sum()).toPlainString(),
+                    BigDecimal.valueOf(lineDoubles.sum()).subtract(exact).toPlainString());
+        }
+    }
+
+    private static void runBatches(PriceCatalog catalog, Recipe[] menu, int[] weights, int size, int maxParallelism) {
+        Random random = new Random(99);
+        List<CoffeeOrder> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            batch.add(randomOrder(random, menu, weights, i));
+        }
+        BigDecimal expected = null;
+        for (int parallelism = 1; parallelism <= maxParallelism; parallelism *= 2) {
+            try (CoffeeOrderEngine engine = new CoffeeOrderEngine(catalog, 512, 2, TimeUnit.MILLISECONDS, parallelism)) {
+                long best = Long.MAX_VALUE;
+                BatchQuote quote = null;
+                for (int round = 0; round < 5; round++) {
+                    long start = System.nanoTime();
+                    quote = engine.priceBatch(batch);
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                if (expected == null) {
+                    expected = quote.getTotal();
+                } else if (expected.compareTo(quote.getTotal()) != 0) {
+                    throw new IllegalStateException("Batch total changed with parallelism " + parallelism);
+                }
+                System.out.printf("priceBatch of %,d orders, parallelism %2d: %7.1f ms (%,.0f orders/s), total %s%n",
+                        size, parallelism, best / 1e6, size * 1e9 / best, quote.getTotal().toPlainString());
+            }
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.designpatterns.structural.decorator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prices coffee orders in batches against a {@link PriceCatalog}.
+ *
+ * <p>{@link #submit} buffers orders from any number of threads and cuts a batch once {@code maxBatchSize} orders
+ * are waiting or the oldest has waited {@code maxDelay}. {@link #priceBatch} prices a list of orders at once.
+ * Either way, a batch is priced against a single catalog snapshot and split into chunks that are priced in
+ * parallel on a fork/join pool. Recipe prices come from the snapshot's cache, and the batch total is summed as
+ * exact decimals.
+ *
+ * <p>A submitted order that cannot be priced, e.g. because the catalog has no price for one of its ingredients,
+ * fails only its own future; the rest of its batch is priced and totalled as usual. {@link #priceBatch} has no
+ * per-order results and fails as a whole.
+ */
+class CoffeeOrderEngine implements AutoCloseable {
+    private static final int CHUNK_SIZE = 256;
+
+    private final PriceCatalog catalog;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final ForkJoinPool pricers;
+    private final ScheduledThreadPoolExecutor flusher;
+    private final AtomicLong batchIds = new AtomicLong();
+    private Pending current;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder orders = new LongAdder();
+    private final AtomicReference<BigDecimal> revenue = new AtomicReference<>(BigDecimal.ZERO);
+
+    CoffeeOrderEngine(PriceCatalog catalog, int maxBatchSize, long maxDelay, TimeUnit unit, int parallelism) {
+        if (maxBatchSize < 1 || maxDelay <= 0 || parallelism < 1) {
+            throw new IllegalArgumentException("Batch size, delay and parallelism must be positive");
+        }
+        this.catalog = catalog;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.pricers = new ForkJoinPool(parallelism);
+        this.flusher = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "order-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.current = new Pending(maxBatchSize);
+    }
+
+    /** Queues an order for the next batch; the future completes once its batch is priced. */
+    CompletableFuture<PricedOrder> submit(CoffeeOrder order) {
+        CompletableFuture<PricedOrder> result = new CompletableFuture<>();
+        Pending full = null;
+        synchronized (this) {
+            Pending pending = current;
+            pending.add(order, result);
+            if (pending.count == 1) {
+                flusher.schedule(() -> flushIfPending(pending), maxDelayNanos, TimeUnit.NANOSECONDS);
+            }
+            if (pending.count == maxBatchSize) {
+                full = pending;
+                current = new Pending(maxBatchSize);
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return result;
+    }
+
+    /** Prices {@code orders} as one batch on the calling thread and the pricing pool. */
+    BatchQuote priceBatch(List<CoffeeOrder> orders) {
+        CoffeeOrder[] lines = orders.toArray(new CoffeeOrder[0]);
+        return price(lines, lines.length, new PricedOrder[lines.length], null);
+    }
+
+    /** Prices everything buffered so far without waiting for the thresholds. */
+    void flush() {
+        Pending pending;
+        synchronized (this) {
+            if (current.count == 0) {
+                return;
+            }
+            pending = current;
+            current = new Pending(maxBatchSize);
+        }
+        dispatch(pending);
+    }
+
+    private void flushIfPending(Pending pending) {
+        synchronized (this) {
+            if (current != pending) {
+                return; // already dispatched by size or an explicit flush
+            }
+            current = new Pending(maxBatchSize);
+        }
+        dispatch(pending);
+    }
+
+    private void dispatch(Pending pending) {
+        pricers.execute(() -> {
+            PricedOrder[] priced = new PricedOrder[pending.count];
+            RuntimeException[] failures = new RuntimeException[pending.count];
+            try {
+                price(pending.orders, pending.count, priced, failures);
+            } catch (RuntimeException e) {
+                for (int i = 0; i < pending.count; i++) {
+                    pending.results[i].completeExceptionally(e);
+                }
+                return;
+            }
+            for (int i = 0; i < pending.count; i++) {
+                if (failures[i] != null) {
+                    pending.results[i].completeExceptionally(failures[i]);
+                } else {
+                    pending.results[i].complete(priced[i]);
+                }
+            }
+        });
+    }
+
+    /**
+     * Prices {@code count} lines into {@code priced}. If {@code failures} is null the first unpriceable line fails
+     * the batch; otherwise its exception is stored at the line's index and the line is left out of the quote.
+     */
+    private BatchQuote price(CoffeeOrder[] lines, int count, PricedOrder[] priced, RuntimeException[] failures) {
+        PriceCatalog.Snapshot snapshot = catalog.snapshot();
+        long batchId = batchIds.incrementAndGet();
+        ChunkTask task = new ChunkTask(snapshot, batchId, lines, priced, failures, 0, count);
+        BigDecimal total = ForkJoinTask.getPool() == pricers ? task.invoke() : pricers.invoke(task);
+
+        List<PricedOrder> quoted = Arrays.asList(priced);
+        if (failures != null) {
+            quoted = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                if (priced[i] != null) {
+                    quoted.add(priced[i]);
+                }
+            }
+        }
+        batches.increment();
+        orders.add(quoted.size());
+        revenue.accumulateAndGet(total, BigDecimal::add);
+        return new BatchQuote(batchId, snapshot.version(), quoted, total);
+    }
+
+    long batches() {
+        return batches.sum();
+    }
+
+    long orders() {
+        return orders.sum();
+    }
+
+    double meanBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0 : orders.sum() / (double) count;
+    }
+
+    /** Exact sum of every batch total priced so far. */
+    BigDecimal revenue() {
+        return revenue.get();
+    }
+
+    @Override
+    public void close() {
+        flush();
+        flusher.shutdownNow();
+        pricers.shutdown();
+        try {
+            pricers.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Prices a range of a batch, splitting it in halves until a range fits in one chunk; returns the range total. */
+    private static final class ChunkTask extends RecursiveTask<BigDecimal> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient PriceCatalog.Snapshot snapshot;
+        private final long batchId;
+        private final CoffeeOrder[] lines;
+        private final PricedOrder[] priced;
+        private final RuntimeException[] failures;
+        private final int from;
+        private final int to;
+
+        ChunkTask(PriceCatalog.Snapshot snapshot, long batchId, CoffeeOrder[] lines, PricedOrder[] priced,
+                  RuntimeException[] failures, int from, int to) {
+            this.snapshot = snapshot;
+            this.batchId = batchId;
+            this.lines = lines;
+            this.priced = priced;
+            this.failures = failures;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected BigDecimal compute() {
+            if (to - from > CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                ChunkTask left = new ChunkTask(snapshot, batchId, lines, priced, failures, from, middle);
+                left.fork();
+                BigDecimal right = new ChunkTask(snapshot, batchId, lines, priced, failures, middle, to).compute();
+                return left.join().add(right);
+            }
+            BigDecimal total = BigDecimal.ZERO;
+            for (int i = from; i < to; i++) {
+                CoffeeOrder order = lines[i];
+                PricedOrder line;
+                try {
+                    line = new PricedOrder(order, snapshot.price(order.getRecipe()), batchId, snapshot.version());
+                } catch (RuntimeException e) {
+                    if (failures == null) {
+                        throw e;
+                    }
+                    failures[i] = e;
+                    continue;
+                }
+                priced[i] = line;
+                total = total.add(line.getLineTotal());
+            }
+            return total;
+        }
+    }
+
+    private static final class Pending {
+        final CoffeeOrder[] orders;
+        final CompletableFuture<PricedOrder>[] results;
+        int count;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Pending(int capacity) {
+            this.orders = new CoffeeOrder[capacity];
+            this.results = new CompletableFuture[capacity];
+        }
+
+        void add(CoffeeOrder order, CompletableFuture<PricedOrder> result) {
+            orders[count] = order;
+            results[count] = result;
+            count++;
+        }
+    }
+}
@@ -2,78 +2,8 @@ package com.designpatterns.structural.decorator;
 
 import com.designpatterns.util.LoggerUtil;
 
-interface Coffee {
-    String getDescription();
-    double getCost();
-}
-
-class SimpleCoffee implements Coffee {
-    @Override
-    public String getDescription() {
-        return "Simple Coffee";
-    }
-
-    @Override
-    public double getCost() {
-        return 1.0;
-    }
-}
-
-abstract class CoffeeDecorator implements Coffee {
-    protected Coffee decoratedCoffee;
-
-    public CoffeeDecorator(Coffee coffee) {
-        this.decoratedCoffee = coffee;
-    }
-
-    @Override
-    public String getDescription() {
-        return decoratedCoffee.getDescription();
-    }
-
-    @Override
-    public double getCost() {
-        return decoratedCoffee.getCost();
-    }
-}
-
-class MilkDecorator extends CoffeeDecorator {
-    public MilkDecorator(Coffee coffee) {
-        super(coffee);
-        if (coffee.getDescription().contains("Milk")) {
-            throw new IllegalArgumentException("Coffee already contains milk.");
-        }
-    }
-
-    @Override
-    public String getDescription() {
-        return super.getDescription() + ", Milk";
-    }
-
-    @Override
-    public double getCost() {
-        return super.getCost() + 0.5;
-    }
-}
-
-class SugarDecorator extends CoffeeDecorator {
-    public SugarDecorator(Coffee coffee) {
-        super(coffee);
-        if (coffee.getDescription().contains("Sugar")) {
-            throw new IllegalArgumentException("Coffee already contains sugar.");
-        }
-    }
-
-    @Override
-    public String getDescription() {
-        return super.getDescription() + ", Sugar";
-    }
-
-    @Override
-    public double getCost() {
-        return super.getCost() + 0.2;
-    }
-}
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 public class CoffeeOrderingDemo {
     public static void main(String[] args) {
@@ -86,6 +16,17 @@ public class CoffeeOrderingDemo {
 
             Coffee sweetMilkCoffee = new SugarDecorator(new MilkDecorator(new SimpleCoffee()));
             LoggerUtil.info("Cost: $" + sweetMilkCoffee.getCost() + ", Description: " + sweetMilkCoffee.getDescription());
+
+            try (CoffeeOrderEngine engine = new CoffeeOrderEngine(PriceCatalog.defaults(), 64, 5, TimeUnit.MILLISECONDS, 2)) {
+                BatchQuote quote = engine.priceBatch(Arrays.asList(
+                        new CoffeeOrder("A-1", simpleCoffee, 2),
+                        new CoffeeOrder("A-2", milkCoffee, 1),
+                        new CoffeeOrder("A-3", sweetMilkCoffee, 3)));
+                for (PricedOrder line : quote.getLines()) {
+                    LoggerUtil.info("Order " + line + " = $" + line.getLineTotal());
+                }
+                LoggerUtil.info("Batch total: $" + quote.getTotal());
+            }
         } catch (IllegalArgumentException e) {
             LoggerUtil.error("Error: " + e.getMessage());
         }
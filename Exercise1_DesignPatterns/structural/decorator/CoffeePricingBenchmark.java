@@ -0,0 +1,124 @@
+package com.designpatterns.structural.decorator;
+
+/**
+ * Builds and prices drinks of increasing depth three ways: the original recursive decorators (reproduced below),
+ * the flattening {@link CoffeeDecorator}s, and {@link Recipe}s built directly. Each drink is a simple coffee with
+ * milk, sugar and {@code depth - 2} extra shots, so the recursive decorators pay for the chain walk and the
+ * string concatenation at every level.
+ *
+ * <p>Usage: {@code java -cp out com.designpatterns.structural.decorator.CoffeePricingBenchmark [drinks] [maxDepth]}
+ */
+public class CoffeePricingBenchmark {
+    private static final Ingredient EXTRA_SHOT = Ingredient.define("Extra Shot", 0.7, false);
+
+    /** The decorator as it was before flattening: every call walks the chain, and each level checks for duplicates. */
+    static final class RecursiveDecorator implements Coffee {
+        private final Coffee decorated;
+        private final Ingredient ingredient;
+
+        RecursiveDecorator(Coffee decorated, Ingredient ingredient) {
+            if (ingredient.isUnique() && decorated.getDescription().contains(ingredient.getName())) {
+                throw new IllegalArgumentException("Coffee already contains " + ingredient.getName().toLowerCase() + ".");
+            }
+            this.decorated = decorated;
+            this.ingredient = ingredient;
+        }
+
+        @Override
+        public String getDescription() {
+            return decorated.getDescription() + ", " + ingredient.getName();
+        }
+
+        @Override
+        public double getCost() {
+            return decorated.getCost() + ingredient.getCost();
+        }
+    }
+
+    /** The flattening decorator for the repeatable ingredient, alongside {@link MilkDecorator} and {@link SugarDecorator}. */
+    static final class ExtraShotDecorator extends CoffeeDecorator {
+        ExtraShotDecorator(Coffee coffee) {
+            super(coffee, EXTRA_SHOT);
+        }
+    }
+
+    private interface Build {
+        Coffee drink(int depth);
+    }
+
+    public static void main(String[] args) {
+        int drinks = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int maxDepth = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+
+        Build recursive = depth -> {
+            Coffee coffee = new RecursiveDecorator(new RecursiveDecorator(new SimpleCoffee(), Ingredient.MILK), Ingredient.SUGAR);
+            for (int i = 2; i < depth; i++) {
+                coffee = new RecursiveDecorator(coffee, EXTRA_SHOT);
+            }
+            return coffee;
+        };
+        Build flattened = depth -> {
+            Coffee coffee = new SugarDecorator(new MilkDecorator(new SimpleCoffee()));
+            for (int i = 2; i < depth; i++) {
+                coffee = new ExtraShotDecorator(coffee);
+            }
+            return coffee;
+        };
+        Recipe base = new SimpleCoffee().getRecipe();
+        Build recipes = depth -> {
+            Recipe recipe = base.with(Ingredient.MILK).with(Ingredient.SUGAR);
+            for (int i = 2; i < depth; i++) {
+                recipe = recipe.with(EXTRA_SHOT);
+            }
+            Recipe result = recipe;
+            return new Coffee() {
+                @Override
+                public String getDescription() {
+                    return result.getDescription();
+                }
+
+                @Override
+                public double getCost() {
+                    return result.getCost();
+                }
+            };
+        };
+
+        for (int depth = 2; depth <= maxDepth; depth *= 4) {
+            Coffee a = recursive.drink(depth);
+            Coffee b = flattened.drink(depth);
+            if (a.getCost() != b.getCost() || !a.getDescription().equals(b.getDescription())) {
+                throw new IllegalStateException("Flattened drink differs from the decorator chain at depth " + depth);
+            }
+            // the recursive chain is quadratic; fewer drinks keep deep runs short
+            int count = Math.max(100, (int) Math.min(drinks, drinks * 16L / ((long) depth * depth)));
+            for (int round = 0; round < 3; round++) {
+                boolean last = round == 2;
+                double recursiveRate = run(recursive, depth, count);
+                double flattenedRate = run(flattened, depth, count);
+                double recipeRate = run(recipes, depth, drinks);
+                if (last) {
+                    System.out.printf("depth %4d: recursive %,12.0f drinks/s   flattened %,12.0f drinks/s   recipe %,12.0f drinks/s%n",
+                            depth, recursiveRate, flattenedRate, recipeRate);
+                }
+            }
+        }
+    }
+
+    /** Builds {@code count} drinks and reads cost and description of each twice; returns drinks per second. */
+    private static double run(Build build, int depth, int count) {
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Coffee coffee = build.drink(depth);
+            for (int read = 0; read < 2; read++) {
+                checksum += (long) coffee.getCost() + coffee.getDescription().length();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (checksum == 42) {
+            System.out.println(); // keeps the reads observable
+        }
+        return count * 1e9 / elapsed;
+    }
+}
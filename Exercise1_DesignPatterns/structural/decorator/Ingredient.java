@@ -0,0 +1,79 @@
+package com.designpatterns.structural.decorator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An add-in a {@link Recipe} can contain. Ingredients are defined once and numbered densely, so a recipe can
+ * record them as small ids and check for duplicates with a bit test. A unique ingredient may appear in a
+ * recipe at most once; other ingredients (an extra shot, say) may be repeated.
+ */
+final class Ingredient {
+    private static final List<Ingredient> DEFINED = new ArrayList<>();
+
+    static final Ingredient MILK = define("Milk", 0.5, true);
+    static final Ingredient SUGAR = define("Sugar", 0.2, true);
+
+    private final int id;
+    private final String name;
+    private final double cost;
+    private final boolean unique;
+
+    private Ingredient(int id, String name, double cost, boolean unique) {
+        this.id = id;
+        this.name = name;
+        this.cost = cost;
+        this.unique = unique;
+    }
+
+    /** Defines an ingredient, or returns the existing one with the same name and settings. */
+    static synchronized Ingredient define(String name, double cost, boolean unique) {
+        for (Ingredient existing : DEFINED) {
+            if (existing.name.equals(name)) {
+                if (existing.cost != cost || existing.unique != unique) {
+                    throw new IllegalArgumentException("Ingredient " + name + " is already defined differently");
+                }
+                return existing;
+            }
+        }
+        Ingredient ingredient = new Ingredient(DEFINED.size(), name, cost, unique);
+        DEFINED.add(ingredient);
+        return ingredient;
+    }
+
+    /** The ingredient defined under {@code name}, or {@code null}. */
+    static synchronized Ingredient named(String name) {
+        for (Ingredient existing : DEFINED) {
+            if (existing.name.equals(name)) {
+                return existing;
+            }
+        }
+        return null;
+    }
+
+    /** Ingredients defined so far, in id order. */
+    static synchronized List<Ingredient> all() {
+        return new ArrayList<>(DEFINED);
+    }
+
+    int getId() {
+        return id;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    double getCost() {
+        return cost;
+    }
+
+    boolean isUnique() {
+        return unique;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,7 @@
+package com.designpatterns.structural.decorator;
+
+class MilkDecorator extends CoffeeDecorator {
+    public MilkDecorator(Coffee coffee) {
+        super(coffee, Ingredient.MILK);
+    }
+}
@@ -0,0 +1,186 @@
+package com.designpatterns.structural.decorator;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Current prices of base coffees and ingredients, as exact decimals with two fraction digits.
+ *
+ * <p>Prices live in an immutable {@link Snapshot} that is replaced as a whole on every change, so readers take
+ * the current snapshot with one volatile read and never lock, and a batch priced against one snapshot is
+ * consistent even if prices change meanwhile. Each snapshot caches the price of every recipe it has priced;
+ * a new snapshot starts with an empty cache, so a price change can never be served from a stale entry.
+ *
+ * <p>A catalog can be reloaded from a properties file with {@code base.<description>=<price>} and
+ * {@code ingredient.<name>=<price>} entries, with spaces in keys escaped: {@code base.Simple\ Coffee=1.00}.
+ */
+class PriceCatalog {
+    private static final int MAX_CACHED_RECIPES = 100_000;
+    private static final int PRICE_SCALE = 2;
+
+    private volatile Snapshot current;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    PriceCatalog(Map<String, BigDecimal> basePrices, Map<Ingredient, BigDecimal> ingredientPrices) {
+        this.current = new Snapshot(1, basePrices, ingredientPrices);
+    }
+
+    /** Catalog seeded with the list prices of {@link SimpleCoffee} and every ingredient defined so far. */
+    static PriceCatalog defaults() {
+        Map<String, BigDecimal> bases = new HashMap<>();
+        Recipe simple = new SimpleCoffee().getRecipe();
+        bases.put(simple.getBaseDescription(), requirePrice(BigDecimal.valueOf(simple.getCost())));
+        Map<Ingredient, BigDecimal> ingredients = new HashMap<>();
+        for (Ingredient ingredient : Ingredient.all()) {
+            ingredients.put(ingredient, requirePrice(BigDecimal.valueOf(ingredient.getCost())));
+        }
+        return new PriceCatalog(bases, ingredients);
+    }
+
+    Snapshot snapshot() {
+        return current;
+    }
+
+    synchronized void setBasePrice(String baseDescription, BigDecimal price) {
+        Map<String, BigDecimal> bases = new HashMap<>(current.basePrices);
+        bases.put(baseDescription, requirePrice(price));
+        current = new Snapshot(current.version + 1, bases, current.ingredientPrices());
+    }
+
+    synchronized void setIngredientPrice(Ingredient ingredient, BigDecimal price) {
+        Map<Ingredient, BigDecimal> ingredients = current.ingredientPrices();
+        ingredients.put(ingredient, requirePrice(price));
+        current = new Snapshot(current.version + 1, current.basePrices, ingredients);
+    }
+
+    /** Replaces every price with the contents of a properties file; on any error the current prices stay. */
+    synchronized void reload(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        Map<String, BigDecimal> bases = new HashMap<>();
+        Map<Ingredient, BigDecimal> ingredients = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            BigDecimal price;
+            try {
+                price = requirePrice(new BigDecimal(properties.getProperty(key).trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid price for " + key + " in " + file, e);
+            }
+            if (key.startsWith("base.")) {
+                bases.put(key.substring("base.".length()), price);
+            } else if (key.startsWith("ingredient.")) {
+                String name = key.substring("ingredient.".length());
+                Ingredient ingredient = Ingredient.named(name);
+                if (ingredient == null) {
+                    throw new IllegalArgumentException("Unknown ingredient " + name + " in " + file);
+                }
+                ingredients.put(ingredient, price);
+            } else {
+                throw new IllegalArgumentException("Unexpected key " + key + " in " + file);
+            }
+        }
+        current = new Snapshot(current.version + 1, bases, ingredients);
+    }
+
+    long cacheHits() {
+        return cacheHits.sum();
+    }
+
+    long cacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    /** The price with exactly two decimals, so totals print as money ("$2.00", not "$2.0"). */
+    private static BigDecimal requirePrice(BigDecimal price) {
+        if (price == null || price.signum() < 0) {
+            throw new IllegalArgumentException("Price must not be negative: " + price);
+        }
+        try {
+            return price.setScale(PRICE_SCALE);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Price must not have more than " + PRICE_SCALE + " decimals: " + price, e);
+        }
+    }
+
+    /** One immutable version of the catalog. */
+    final class Snapshot {
+        private final long version;
+        private final Map<String, BigDecimal> basePrices;
+        private final BigDecimal[] ingredientPrices;
+        private final Map<Recipe, BigDecimal> recipePrices = new ConcurrentHashMap<>();
+
+        private Snapshot(long version, Map<String, BigDecimal> basePrices, Map<Ingredient, BigDecimal> ingredientPrices) {
+            this.version = version;
+            this.basePrices = Collections.unmodifiableMap(new HashMap<>(basePrices));
+            int size = 0;
+            for (Ingredient ingredient : ingredientPrices.keySet()) {
+                size = Math.max(size, ingredient.getId() + 1);
+            }
+            this.ingredientPrices = new BigDecimal[size];
+            for (Map.Entry<Ingredient, BigDecimal> entry : ingredientPrices.entrySet()) {
+                this.ingredientPrices[entry.getKey().getId()] = entry.getValue();
+            }
+        }
+
+        long version() {
+            return version;
+        }
+
+        /** Unit price of a recipe: its base plus each of its ingredients. */
+        BigDecimal price(Recipe recipe) {
+            BigDecimal cached = recipePrices.get(recipe);
+            if (cached != null) {
+                cacheHits.increment();
+                return cached;
+            }
+            cacheMisses.increment();
+            BigDecimal price = basePrices.get(recipe.getBaseDescription());
+            if (price == null) {
+                throw new IllegalArgumentException("No price for " + recipe.getBaseDescription());
+            }
+            for (int i = 0; i < recipe.size(); i++) {
+                Ingredient ingredient = recipe.ingredientAt(i);
+                BigDecimal ingredientPrice = ingredient.getId() < ingredientPrices.length
+                        ? ingredientPrices[ingredient.getId()] : null;
+                if (ingredientPrice == null) {
+                    throw new IllegalArgumentException("No price for " + ingredient.getName());
+                }
+                price = price.add(ingredientPrice);
+            }
+            if (recipePrices.size() < MAX_CACHED_RECIPES) {
+                recipePrices.put(recipe, price);
+            }
+            return price;
+        }
+
+        private Map<Ingredient, BigDecimal> ingredientPrices() {
+            Map<Ingredient, BigDecimal> copy = new HashMap<>();
+            for (Ingredient ingredient : Ingredient.all()) {
+                if (ingredient.getId() < ingredientPrices.length && ingredientPrices[ingredient.getId()] != null) {
+                    copy.put(ingredient, ingredientPrices[ingredient.getId()]);
+                }
+            }
+            return copy;
+        }
+
+        @Override
+        public String toString() {
+            return "PriceCatalog.Snapshot{version=" + version + ", bases=" + basePrices
+                    + ", ingredients=" + Arrays.toString(ingredientPrices) + "}";
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.designpatterns.structural.decorator;
+
+import java.math.BigDecimal;
+
+/** An order priced as part of a batch, against the catalog version the whole batch used. */
+final class PricedOrder {
+    private final CoffeeOrder order;
+    private final BigDecimal unitPrice;
+    private final long batchId;
+    private final long catalogVersion;
+
+    PricedOrder(CoffeeOrder order, BigDecimal unitPrice, long batchId, long catalogVersion) {
+        this.order = order;
+        this.unitPrice = unitPrice;
+        this.batchId = batchId;
+        this.catalogVersion = catalogVersion;
+    }
+
+    CoffeeOrder getOrder() {
+        return order;
+    }
+
+    BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+
+    BigDecimal getLineTotal() {
+        return unitPrice.multiply(BigDecimal.valueOf(order.getQuantity()));
+    }
+
+    long getBatchId() {
+        return batchId;
+    }
+
+    long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    @Override
+    public String toString() {
+        return order.getOrderId() + ": " + order.getQuantity() + " x " + order.getRecipe() + " @ " + unitPrice;
+    }
+}
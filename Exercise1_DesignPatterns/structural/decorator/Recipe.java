@@ -0,0 +1,129 @@
+package com.designpatterns.structural.decorator;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable, flattened form of a decorated coffee: a base plus an ordered list of ingredient ids, with the
+ * cost summed once at creation and the description built on first use.
+ *
+ * <p>Recipes are interned: every recipe keeps the recipes made by adding one more ingredient to it, so the same
+ * base and the same ingredients in the same order always give the same instance, and adding an ingredient
+ * that was added before costs one map lookup. Unique ingredients are tracked in a bitmask, so the duplicate
+ * check does not depend on the number of ingredients.
+ *
+ * <p>Interned recipes are never freed, so interning is bounded: at most {@value #MAX_INTERNED_BASES} base
+ * descriptions are interned, and only unique ingredients extend an interned recipe, so each base has at most one
+ * interned recipe per ordering of distinct unique ingredients. Anything else, such as a repeated extra shot or a
+ * base seen after the table is full, gives an equivalent recipe that is not interned and is collected once unused.
+ */
+final class Recipe {
+    static final int MAX_INTERNED_BASES = 1024;
+    private static final Map<String, Recipe> BASES = new ConcurrentHashMap<>();
+
+    private final String baseDescription;
+    private final Ingredient[] ingredients;
+    private final long[] uniqueMask;
+    private final double cost;
+    /** Interned extensions by one unique ingredient; {@code null} if this recipe is not interned. */
+    private final Map<Ingredient, Recipe> extended;
+    private volatile String description;
+
+    private Recipe(String baseDescription, Ingredient[] ingredients, long[] uniqueMask, double cost, boolean interned) {
+        this.baseDescription = baseDescription;
+        this.ingredients = ingredients;
+        this.uniqueMask = uniqueMask;
+        this.cost = cost;
+        this.extended = interned ? new ConcurrentHashMap<>() : null;
+    }
+
+    /** The interned recipe of a plain coffee with no ingredients. */
+    static Recipe base(String description, double cost) {
+        Recipe recipe = BASES.get(description);
+        if (recipe == null && BASES.size() < MAX_INTERNED_BASES) {
+            recipe = BASES.computeIfAbsent(description, d -> new Recipe(d, new Ingredient[0], new long[0], cost, true));
+        }
+        // a base with the same description but another price, or one past the bound, is valid, just not interned
+        return recipe != null && recipe.cost == cost ? recipe
+                : new Recipe(description, new Ingredient[0], new long[0], cost, false);
+    }
+
+    /** This recipe with {@code ingredient} added last. */
+    Recipe with(Ingredient ingredient) {
+        boolean intern = extended != null && ingredient.isUnique();
+        Recipe next = intern ? extended.get(ingredient) : null;
+        if (next != null) {
+            return next;
+        }
+        if (ingredient.isUnique() && contains(ingredient)) {
+            throw new IllegalArgumentException("Coffee already contains " + ingredient.getName().toLowerCase() + ".");
+        }
+        return intern ? extended.computeIfAbsent(ingredient, i -> extend(i, true)) : extend(ingredient, false);
+    }
+
+
+    boolean contains(Ingredient ingredient) {
+        if (ingredient.isUnique()) {
+            int word = ingredient.getId() >>> 6;
+            return word < uniqueMask.length && (uniqueMask[word] & (1L << ingredient.getId())) != 0;
+        }
+        for (Ingredient present : ingredients) {
+            if (present == ingredient) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    double getCost() {
+        return cost;
+    }
+
+    String getBaseDescription() {
+        return baseDescription;
+    }
+
+    int size() {
+        return ingredients.length;
+    }
+
+    Ingredient ingredientAt(int index) {
+        return ingredients[index];
+    }
+
+    String getDescription() {
+        String result = description;
+        if (result == null) {
+            int length = baseDescription.length();
+            for (Ingredient ingredient : ingredients) {
+                length += 2 + ingredient.getName().length();
+            }
+            StringBuilder builder = new StringBuilder(length).append(baseDescription);
+            for (Ingredient ingredient : ingredients) {
+                builder.append(", ").append(ingredient.getName());
+            }
+            result = builder.toString();
+            description = result; // racing threads build equal strings; either may be kept
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return getDescription();
+    }
+
+    private Recipe extend(Ingredient ingredient, boolean interned) {
+        Ingredient[] longer = Arrays.copyOf(ingredients, ingredients.length + 1);
+        longer[ingredients.length] = ingredient;
+        long[] mask = uniqueMask;
+        if (ingredient.isUnique()) {
+            int word = ingredient.getId() >>> 6;
+            mask = Arrays.copyOf(uniqueMask, Math.max(uniqueMask.length, word + 1));
+            mask[word] |= 1L << ingredient.getId();
+        }
+        // same summation order as the decorator chain: base first, then each ingredient in turn
+        return new Recipe(baseDescription, longer, mask, cost + ingredient.getCost(), interned);
+    }
+}
@@ -0,0 +1,20 @@
+package com.designpatterns.structural.decorator;
+
+class SimpleCoffee implements Coffee {
+    private static final Recipe RECIPE = Recipe.base("Simple Coffee", 1.0);
+
+    @Override
+    public String getDescription() {
+        return RECIPE.getDescription();
+    }
+
+    @Override
+    public double getCost() {
+        return RECIPE.getCost();
+    }
+
+    @Override
+    public Recipe getRecipe() {
+        return RECIPE;
+    }
+}
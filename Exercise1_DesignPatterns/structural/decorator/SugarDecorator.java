@@ -0,0 +1,7 @@
+package com.designpatterns.structural.decorator;
+
+class SugarDecorator extends CoffeeDecorator {
+    public SugarDecorator(Coffee coffee) {
+        super(coffee, Ingredient.SUGAR);
+    }
+}
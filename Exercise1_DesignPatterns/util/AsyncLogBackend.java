@@ -0,0 +1,229 @@
+package com.designpatterns.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous backend. Callers only claim a slot in a preallocated ring, store the level, the time and the
+ * message reference in it, and publish it; nothing is formatted and nothing is allocated on the calling
+ * thread. A single writer thread drains the ring in batches, renders each line into a reusable buffer and
+ * writes it to an NIO channel, one write per batch rather than per message.
+ *
+ * <p>Claiming is a single atomic increment, so any number of threads can log concurrently. Slots are published
+ * in claim order through a per-slot sequence, and the writer consumes them strictly in that order. If the ring
+ * is full, callers wait for the writer rather than dropping messages; {@link #waits()} counts how often that
+ * happened. The timestamp prefix is rendered once per second and reused for every line in that second.
+ *
+ * <p>A line that fails to render is dropped and counted in {@link #failedWrites()}; the writer carries on. Should
+ * the writer thread die anyway, callers stop waiting for it instead of spinning.
+ */
+class AsyncLogBackend implements LogBackend, AutoCloseable {
+    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int mask;
+    private final LogLevel[] levels;
+    private final long[] times;
+    private final String[] messages;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    private volatile long written;
+    private volatile boolean running = true;
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder failedWrites = new LongAdder();
+
+    private final Output out;
+    private final Output err;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Thread writer;
+
+    // writer-thread state
+    private long prefixSecond = Long.MIN_VALUE;
+    private char[] prefix = new char[0];
+    private char[] chars = new char[256];
+    private CharBuffer charView = CharBuffer.wrap(chars);
+
+    AsyncLogBackend(WritableByteChannel out, WritableByteChannel err, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.mask = capacity - 1;
+        this.levels = new LogLevel[capacity];
+        this.times = new long[capacity];
+        this.messages = new String[capacity];
+        this.published = new AtomicLongArray(capacity);
+        this.out = new Output(out);
+        this.err = err == out ? this.out : new Output(err);
+        this.writer = new Thread(this::drainLoop, "async-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void write(LogLevel level, String message) {
+        long sequence = claimed.getAndIncrement();
+        while (sequence - consumed >= levels.length) {
+            if (!writer.isAlive()) {
+                return; // nobody will ever free the slot
+            }
+            waits.increment(); // ring full: wait for the writer to free this slot
+            LockSupport.parkNanos(10_000);
+        }
+        int slot = (int) sequence & mask;
+        levels[slot] = level;
+        times[slot] = System.currentTimeMillis();
+        messages[slot] = message;
+        published.lazySet(slot, sequence + 1); // release: the fields above are visible once this is
+    }
+
+    @Override
+    public void flush() {
+        long target = claimed.get();
+        while (written < target && running && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(50_000);
+        }
+    }
+
+    /** Times a caller found the ring full and had to wait. */
+    long waits() {
+        return waits.sum();
+    }
+
+    /** Batches that could not be written and lines that could not be rendered. */
+    long failedWrites() {
+        return failedWrites.sum();
+    }
+
+    /** Writes out everything logged so far and stops the writer thread. */
+    @Override
+    public void close() {
+        flush();
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        long next = 0;
+        while (running || next < claimed.get()) {
+            long start = next;
+            while (published.get((int) next & mask) == next + 1) {
+                int slot = (int) next & mask;
+                String message = messages[slot];
+                messages[slot] = null; // let the message be collected before the slot is reused
+                try {
+                    render(levels[slot] == LogLevel.ERROR ? err : out, levels[slot], times[slot], message);
+                } catch (Throwable e) {
+                    failedWrites.increment(); // a bad line must not stop the writer
+                }
+                next++;
+                if (next - start >= levels.length / 2) {
+                    consumed = next; // release half the ring early under sustained load
+                    start = next;
+                }
+            }
+            consumed = next;
+            if (out.pending() || err.pending()) {
+                out.drain();
+                err.drain();
+                written = next;
+            } else if (written != next) {
+                written = next;
+            } else {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+        out.drain();
+        err.drain();
+        written = next;
+    }
+
+    private void render(Output output, LogLevel level, long millis, String line) {
+        String message = String.valueOf(line); // "null", as the console backend prints it
+        long second = Math.floorDiv(millis, 1000L);
+        if (second != prefixSecond) {
+            prefix = ("[" + LocalDateTime.ofInstant(Instant.ofEpochSecond(second), zone).format(formatter) + "] ").toCharArray();
+            prefixSecond = second;
+        }
+        String tag = level.name();
+        int length = prefix.length + tag.length() + 3 + message.length() + 1;
+        if (length > chars.length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+            charView = CharBuffer.wrap(chars);
+        }
+        int position = prefix.length;
+        System.arraycopy(prefix, 0, chars, 0, position);
+        chars[position++] = '[';
+        tag.getChars(0, tag.length(), chars, position);
+        position += tag.length();
+        chars[position++] = ']';
+        chars[position++] = ' ';
+        message.getChars(0, message.length(), chars, position);
+        position += message.length();
+        chars[position++] = '\n';
+        charView.clear().limit(position);
+        output.append(charView);
+    }
+
+    /** A channel with its reusable byte buffer and encoder; used only by the writer thread. */
+    private final class Output {
+        private final WritableByteChannel channel;
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(64 * 1024);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void append(CharBuffer line) {
+            encoder.reset();
+            while (true) {
+                CoderResult result = encoder.encode(line, bytes, true);
+                if (result.isOverflow()) {
+                    drain();
+                } else {
+                    break;
+                }
+            }
+        }
+
+        boolean pending() {
+            return bytes.position() > 0;
+        }
+
+        void drain() {
+            bytes.flip();
+            try {
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            } catch (IOException e) {
+                failedWrites.increment(); // nowhere left to report it; drop the batch
+            }
+            bytes.clear();
+        }
+    }
+}
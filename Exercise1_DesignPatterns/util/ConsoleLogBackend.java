@@ -0,0 +1,55 @@
+package com.designpatterns.util;
+
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Synchronous backend: formats and prints each message on the calling thread, to standard error for
+ * {@link LogLevel#ERROR} and standard output otherwise, and passes it on to {@code java.util.logging}.
+ */
+class ConsoleLogBackend implements LogBackend {
+    private static final Logger logger = Logger.getLogger(LoggerUtil.class.getName());
+    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final PrintStream out;
+    private final PrintStream err;
+    private final boolean forwardToJul;
+
+    ConsoleLogBackend(PrintStream out, PrintStream err, boolean forwardToJul) {
+        this.out = out;
+        this.err = err;
+        this.forwardToJul = forwardToJul;
+    }
+
+    @Override
+    public void write(LogLevel level, String message) {
+        String timestamp = LocalDateTime.now().format(formatter);
+        String formattedMessage = String.format("[%s] [%s] %s", timestamp, level, message);
+        (level == LogLevel.ERROR ? err : out).println(formattedMessage);
+        if (forwardToJul) {
+            logger.log(julLevel(level), message);
+        }
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+        err.flush();
+    }
+
+    private static Level julLevel(LogLevel level) {
+        switch (level) {
+            case DEBUG:
+                return Level.FINE;
+            case WARNING:
+                return Level.WARNING;
+            case ERROR:
+                return Level.SEVERE;
+            default:
+                return Level.INFO;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.designpatterns.util;
+
+/** Destination of the messages {@link LoggerUtil} has decided to log. */
+interface LogBackend {
+    void write(LogLevel level, String message);
+
+    /** Returns once every message written so far has reached its output. */
+    void flush();
+}
@@ -0,0 +1,6 @@
+package com.designpatterns.util;
+
+/** Severity of a log message, from least to most severe. */
+public enum LogLevel {
+    DEBUG, INFO, WARNING, ERROR
+}
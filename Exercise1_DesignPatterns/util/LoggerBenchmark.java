@@ -0,0 +1,104 @@
+package com.designpatterns.util;
+
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures the latency a caller sees per log call, and the bytes it allocates, with the synchronous
+ * {@link ConsoleLogBackend} and the {@link AsyncLogBackend} as 1, 2, 4, ... threads log concurrently. Both
+ * write to a temporary file rather than the terminal. The synchronous backend is measured without its
+ * {@code java.util.logging} forwarding, so it is, if anything, favoured.
+ *
+ * <p>Usage: {@code java -cp out com.designpatterns.util.LoggerBenchmark [messagesPerThread] [maxThreads]}
+ */
+public class LoggerBenchmark {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int perThread = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        String[] messages = new String[1024];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = "Trader " + (i % 37) + " notified: AAPL price is now " + (150 + i * 0.25);
+        }
+
+        Path file = Files.createTempFile("logger-benchmark", ".log");
+        try {
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                try (PrintStream stream = new PrintStream(new FileOutputStream(file.toFile()), true, "UTF-8")) {
+                    report("sync ", threads, run(new ConsoleLogBackend(stream, stream, false), threads, perThread, messages));
+                }
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                    AsyncLogBackend async = new AsyncLogBackend(channel, channel, 1 << 14);
+                    long[] latencies = run(async, threads, perThread, messages);
+                    async.close();
+                    report("async", threads, latencies);
+                    System.out.printf("       ring-full waits=%,d, file size %,d bytes%n", async.waits(), channel.size());
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /** Returns every call's latency, sorted, with the mean bytes allocated per call appended as the last element. */
+    private static long[] run(LogBackend backend, int threads, int perThread, String[] messages) throws InterruptedException {
+        long[][] samples = new long[threads][perThread];
+        long[] allocated = new long[threads];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers[t] = new Thread(() -> {
+                long[] mine = samples[id];
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                int warmup = perThread / 4;
+                long allocatedBefore = 0;
+                for (int i = 0; i < perThread; i++) {
+                    if (i == warmup) {
+                        allocatedBefore = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+                    }
+                    long begin = System.nanoTime();
+                    backend.write(LogLevel.INFO, messages[i & 1023]);
+                    mine[i] = System.nanoTime() - begin;
+                }
+                allocated[id] = (THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore)
+                        / (perThread - warmup);
+            }, "logging-thread-" + t);
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        backend.flush();
+        long[] all = new long[threads * perThread + 1];
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(samples[t], 0, all, t * perThread, perThread);
+        }
+        Arrays.sort(all, 0, all.length - 1);
+        all[all.length - 1] = Arrays.stream(allocated).sum() / threads;
+        return all;
+    }
+
+    private static void report(String name, int threads, long[] latencies) {
+        int count = latencies.length - 1;
+        System.out.printf("%s threads=%d  p50=%,7d ns  p99=%,8d ns  p99.9=%,9d ns  max=%,11d ns  %,d bytes/call%n",
+                name, threads, latencies[count / 2], latencies[(int) (count * 0.99)], latencies[(int) (count * 0.999)],
+                latencies[count - 1], latencies[count]);
+    }
+
+}
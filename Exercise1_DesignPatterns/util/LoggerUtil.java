@@ -1,47 +1,73 @@
 package com.designpatterns.util;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 
 /**
  * Utility class for logging with different levels and proper formatting.
  * Implements gold standard logging mechanism with timestamp and level information.
+ *
+ * <p>Messages below the current level are discarded before anything is formatted. By default the rest go to an
+ * {@link AsyncLogBackend}, so a caller only hands the message to a background writer; call {@link #flush()}
+ * before anything that must appear after the logged lines, such as waiting for console input. Run with
+ * {@code -Ddesignpatterns.log.mode=sync} to format and print on the calling thread and also log through
+ * {@code java.util.logging}, and with {@code -Ddesignpatterns.log.level=INFO} (or another {@link LogLevel}) to
+ * change the initial level.
  */
 public class LoggerUtil {
-    private static final Logger logger = Logger.getLogger(LoggerUtil.class.getName());
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final LogBackend backend = createBackend();
+    private static volatile LogLevel level =
+            LogLevel.valueOf(System.getProperty("designpatterns.log.level", LogLevel.DEBUG.name()));
 
     public static void log(String message) {
         info(message);
     }
 
     public static void info(String message) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        String formattedMessage = String.format("[%s] [INFO] %s", timestamp, message);
-        System.out.println(formattedMessage);
-        logger.info(message);
+        write(LogLevel.INFO, message);
     }
 
     public static void warning(String message) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        String formattedMessage = String.format("[%s] [WARNING] %s", timestamp, message);
-        System.out.println(formattedMessage);
-        logger.warning(message);
+        write(LogLevel.WARNING, message);
     }
 
     public static void error(String message) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        String formattedMessage = String.format("[%s] [ERROR] %s", timestamp, message);
-        System.err.println(formattedMessage);
-        logger.severe(message);
+        write(LogLevel.ERROR, message);
     }
 
     public static void debug(String message) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        String formattedMessage = String.format("[%s] [DEBUG] %s", timestamp, message);
-        System.out.println(formattedMessage);
-        logger.log(Level.FINE, message);
+        write(LogLevel.DEBUG, message);
     }
-}
\ No newline at end of file
+
+    /** Lets callers skip building a message that would be discarded. */
+    public static boolean isEnabled(LogLevel messageLevel) {
+        return messageLevel.compareTo(level) >= 0;
+    }
+
+    public static void setLevel(LogLevel newLevel) {
+        level = newLevel;
+    }
+
+    /** Waits until every message logged so far has been written. */
+    public static void flush() {
+        backend.flush();
+    }
+
+    private static void write(LogLevel messageLevel, String message) {
+        if (isEnabled(messageLevel)) {
+            backend.write(messageLevel, message);
+        }
+    }
+
+    private static LogBackend createBackend() {
+        if ("sync".equals(System.getProperty("designpatterns.log.mode"))) {
+            return new ConsoleLogBackend(System.out, System.err, true);
+        }
+        // flush anything written to System.out first, so earlier output is not overtaken
+        System.out.flush();
+        AsyncLogBackend async = new AsyncLogBackend(new FileOutputStream(FileDescriptor.out).getChannel(),
+                new FileOutputStream(FileDescriptor.err).getChannel(), 1 << 14);
+        Runtime.getRuntime().addShutdownHook(new Thread(async::close, "async-log-shutdown"));
+        return async;
+    }
+}
@@ -1,44 +1,138 @@
 package com.smarthome.core;
 
-import com.smarthome.core.devices.Door;
-import com.smarthome.core.devices.Light;
-import com.smarthome.core.devices.Thermostat;
+import com.smarthome.core.devices.DoorPlugin;
+import com.smarthome.core.devices.LightPlugin;
+import com.smarthome.core.devices.ThermostatPlugin;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
- * Factory for creating devices using the DeviceType enum.
+ * Factory for creating devices through {@link DevicePlugin}s.
+ *
+ * <p>The built-in types are looked up by {@link DeviceType}; plugin types, discovered with {@link ServiceLoader}
+ * or {@link #register registered}, by name. Devices can be built from a textual state, which the plugin parses,
+ * from a state code, or in bulk from arrays of ids and state codes. The last two never parse text, and a bulk
+ * build resolves the plugin once and leaves the loop to it.
  */
 public class DeviceFactory {
+    private static final Logger logger = Logger.getLogger(DeviceFactory.class.getName());
+    private static final DevicePlugin[] BUILT_IN = new DevicePlugin[DeviceType.values().length];
+    private static volatile Map<String, DevicePlugin> byName;
+
+    static {
+        BUILT_IN[DeviceType.LIGHT.ordinal()] = new LightPlugin();
+        BUILT_IN[DeviceType.THERMOSTAT.ordinal()] = new ThermostatPlugin();
+        BUILT_IN[DeviceType.DOOR.ordinal()] = new DoorPlugin();
+        Map<String, DevicePlugin> plugins = new HashMap<>();
+        for (DevicePlugin plugin : BUILT_IN) {
+            plugins.put(key(plugin.typeName()), plugin);
+        }
+        try {
+            for (DevicePlugin plugin : ServiceLoader.load(DevicePlugin.class)) {
+                if (plugins.putIfAbsent(key(plugin.typeName()), plugin) != null) {
+                    logger.warning("Ignoring device plugin " + plugin.getClass().getName() + ": type '"
+                            + plugin.typeName() + "' is already provided");
+                }
+            }
+        } catch (ServiceConfigurationError e) {
+            logger.log(Level.WARNING, "Failed to load device plugins", e);
+        }
+        byName = plugins;
+    }
+
     public static Device buildDevice(int id, DeviceType type, String statusOrValue) throws IllegalArgumentException {
-        if (id <= 0) {
-            throw new IllegalArgumentException("Device id must be positive");
+        DevicePlugin plugin = plugin(type);
+        checkId(id);
+        return plugin.create(id, plugin.parseState(statusOrValue));
+    }
+
+    /** Builds a device of a built-in or plugin type from a textual state. */
+    public static Device buildDeviceByName(int id, String typeName, String state) throws IllegalArgumentException {
+        DevicePlugin plugin = plugin(typeName);
+        checkId(id);
+        return plugin.create(id, plugin.parseState(state));
+    }
+
+    /** Builds a device from a state code, without parsing; see {@link DevicePlugin} for the built-in codes. */
+    public static Device buildDevice(int id, DeviceType type, int state) throws IllegalArgumentException {
+        DevicePlugin plugin = plugin(type);
+        checkId(id);
+        return plugin.create(id, state);
+    }
+
+    /** Builds one device per id with the state code at the same index. */
+    public static Device[] buildDevices(DeviceType type, int[] ids, int[] states) throws IllegalArgumentException {
+        return buildAll(plugin(type), ids, states);
+    }
+
+    /** Builds one device of a built-in or plugin type per id with the state code at the same index. */
+    public static Device[] buildDevicesByName(String typeName, int[] ids, int[] states) throws IllegalArgumentException {
+        return buildAll(plugin(typeName), ids, states);
+    }
+
+    /**
+     * Adds a device type at runtime.
+     *
+     * @throws IllegalArgumentException if a plugin for the same type name is already present
+     */
+    public static synchronized void register(DevicePlugin plugin) {
+        String key = key(plugin.typeName());
+        if (byName.containsKey(key)) {
+            throw new IllegalArgumentException("Device type '" + plugin.typeName() + "' is already registered");
+        }
+        Map<String, DevicePlugin> plugins = new HashMap<>(byName);
+        plugins.put(key, plugin);
+        byName = plugins;
+    }
+
+    /** Lower-case names of every type that can be built. */
+    public static Set<String> typeNames() {
+        return Collections.unmodifiableSet(byName.keySet());
+    }
+
+    public static DevicePlugin plugin(String typeName) {
+        if (typeName == null) {
+            throw new IllegalArgumentException("Device type must not be null");
         }
+        DevicePlugin plugin = byName.get(key(typeName));
+        if (plugin == null) {
+            throw new IllegalArgumentException("Unsupported device type - " + typeName);
+        }
+        return plugin;
+    }
+
+    public static DevicePlugin plugin(DeviceType type) {
         if (type == null) {
             throw new IllegalArgumentException("DeviceType must not be null");
         }
-        switch (type) {
-            case LIGHT -> {
-                String status = (statusOrValue == null || statusOrValue.isBlank()) ? "off" : statusOrValue.toLowerCase();
-                if (!status.equals("on") && !status.equals("off")) {
-                    throw new IllegalArgumentException("Invalid light status. Use 'on' or 'off'");
-                }
-                return new Light(id, status);
-            }
-            case THERMOSTAT -> {
-                try {
-                    int temp = Integer.parseInt(statusOrValue);
-                    return new Thermostat(id, temp);
-                } catch (NumberFormatException e) {
-                    throw new IllegalArgumentException("Thermostat temperature must be an integer", e);
-                }
-            }
-            case DOOR -> {
-                String status = (statusOrValue == null || statusOrValue.isBlank()) ? "locked" : statusOrValue.toLowerCase();
-                if (!status.equals("locked") && !status.equals("unlocked")) {
-                    throw new IllegalArgumentException("Invalid door status. Use 'locked' or 'unlocked'");
-                }
-                return new Door(id, status);
-            }
-            default -> throw new IllegalArgumentException("Unsupported device type - " + type);
+        return BUILT_IN[type.ordinal()];
+    }
+
+    private static Device[] buildAll(DevicePlugin plugin, int[] ids, int[] states) {
+        if (ids.length != states.length) {
+            throw new IllegalArgumentException("Expected one state per id, got " + ids.length + " ids and " + states.length + " states");
         }
+        for (int id : ids) {
+            checkId(id);
+        }
+        return plugin.createAll(ids, states);
+    }
+
+    private static void checkId(int id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Device id must be positive");
+        }
+    }
+
+    private static String key(String typeName) {
+        return typeName.toLowerCase(Locale.ROOT);
     }
-} 
\ No newline at end of file
+}
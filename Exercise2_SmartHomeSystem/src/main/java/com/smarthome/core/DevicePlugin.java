@@ -0,0 +1,47 @@
+package com.smarthome.core;
+
+/**
+ * A device type that {@link DeviceFactory} can build.
+ *
+ * <p>Light, thermostat and door are built in. Further types are discovered with {@link java.util.ServiceLoader}
+ * by listing the implementation in {@code META-INF/services/com.smarthome.core.DevicePlugin} on the classpath, or
+ * registered with {@link DeviceFactory#register(DevicePlugin)}; neither requires a change to {@link DeviceType}.
+ *
+ * <p>A device's initial state is an int code defined by its plugin. For the built-in types it matches the
+ * {@link com.smarthome.core.state.DeviceStateArena} record: 1 for a light that is on or a door that is unlocked,
+ * 0 otherwise, and the temperature for a thermostat. Provisioning with codes never parses text; only
+ * {@link #parseState(String)} does, for devices built from user input.
+ */
+public interface DevicePlugin {
+
+    /** Name of the device type, matched case-insensitively, e.g. {@code "light"}. */
+    String typeName();
+
+    /**
+     * Converts a textual state such as {@code "on"} to its state code; null or blank means the default state.
+     *
+     * @throws IllegalArgumentException if the text is not a valid state
+     */
+    int parseState(String text);
+
+    /**
+     * Builds a device. The id has already been checked to be positive.
+     *
+     * @throws IllegalArgumentException if the state code is not valid for this type
+     */
+    Device create(int id, int state);
+
+    /**
+     * Builds one device per id, with the state at the same index. Plugins may override this with a tighter loop;
+     * the ids have already been checked.
+     *
+     * @throws IllegalArgumentException if a state code is not valid for this type
+     */
+    default Device[] createAll(int[] ids, int[] states) {
+        Device[] devices = new Device[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            devices[i] = create(ids[i], states[i]);
+        }
+        return devices;
+    }
+}
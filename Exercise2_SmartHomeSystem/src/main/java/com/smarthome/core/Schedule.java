@@ -21,11 +21,34 @@ public class Schedule {
     private final Device device;
     private final String time; // HH:mm
     private final String action; // turnOn | turnOff | setTemperature? (future)
+    private final Performer performer;
+
+    /** Carries out a schedule's action on its device. */
+    @FunctionalInterface
+    public interface Performer {
+        void perform(Device device, String action) throws UnsupportedActionException;
+    }
 
     public Schedule(Device device, String time, String action) {
+        this(device, time, action, Schedule::switchDevice);
+    }
+
+    /**
+     * @param afterExecute callback run after the action changed the device, e.g. so the hub can refresh triggers
+     */
+    public Schedule(Device device, String time, String action, Runnable afterExecute) {
+        this(device, time, action, switchThen(Objects.requireNonNull(afterExecute, "afterExecute")));
+    }
+
+    /**
+     * @param performer carries out the action instead of the schedule calling the device, e.g. so the hub can apply
+     *                  it as one of its own commands
+     */
+    public Schedule(Device device, String time, String action, Performer performer) {
         this.device = Objects.requireNonNull(device, "device");
         this.time = Objects.requireNonNull(time, "time");
         this.action = Objects.requireNonNull(action, "action");
+        this.performer = Objects.requireNonNull(performer, "performer");
     }
 
     public void schedule() throws UnsupportedActionException {
@@ -40,12 +63,24 @@ public class Schedule {
     }
 
     public void execute() throws UnsupportedActionException {
+        if (!"turnOn".equalsIgnoreCase(action) && !"turnOff".equalsIgnoreCase(action)) {
+            throw new UnsupportedActionException("Unsupported Action - " + action);
+        }
+        performer.perform(device, action);
+    }
+
+    private static Performer switchThen(Runnable afterExecute) {
+        return (device, action) -> {
+            switchDevice(device, action);
+            afterExecute.run();
+        };
+    }
+
+    private static void switchDevice(Device device, String action) {
         if ("turnOn".equalsIgnoreCase(action)) {
             device.turnOn();
-        } else if ("turnOff".equalsIgnoreCase(action)) {
-            device.turnOff();
         } else {
-            throw new UnsupportedActionException("Unsupported Action - " + action);
+            device.turnOff();
         }
     }
 
@@ -2,26 +2,46 @@ package com.smarthome.core;
 
 import com.smarthome.core.devices.Door;
 import com.smarthome.core.devices.Light;
-import com.smarthome.core.devices.Thermostat;
+import com.smarthome.core.devices.ThermostatDevice;
+import com.smarthome.core.events.EventKind;
+import com.smarthome.core.events.EventLog;
 import com.smarthome.core.exceptions.InvalidTriggerException;
 import com.smarthome.core.exceptions.UnsupportedActionException;
+import com.smarthome.core.history.SensorHistoryStore;
+import com.smarthome.core.triggers.TriggerBackend;
+import com.smarthome.core.triggers.TriggerCompiler;
+import com.smarthome.core.triggers.TriggerEngine;
 
+import java.time.LocalTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * SmartHomeHub is the central orchestrator of the smart home system.
  * It is a thread-safe singleton and the Subject for observer notifications.
+ *
+ * <p>Commands take no hub-wide lock: devices are held in a concurrent map, observers in a copy-on-write list, and
+ * a {@link StatefulDevice} changes state by compare-and-set. Observers are notified in registration order; a large
+ * fleet should be added with {@link #addDevices} so the list is copied once rather than once per device. The trigger engine is only told about a command
+ * that actually changed a device.
+ *
+ * <p>With an {@link EventLog} attached, every change of a {@link StatefulDevice} made through the hub is also
+ * appended to the log. The change and its append happen under the device's monitor, so each device's events are
+ * logged in the order they were applied; commands for different devices still run in parallel.
  */
 public class SmartHomeHub implements Subject {
     private static volatile SmartHomeHub instance;
     private static final Logger logger = Logger.getLogger(SmartHomeHub.class.getName());
 
     private final Map<Integer, Device> idToDevice = new ConcurrentHashMap<>();
-    private final List<Trigger> triggers = Collections.synchronizedList(new ArrayList<>());
-    private final List<DeviceObserver> observers = Collections.synchronizedList(new ArrayList<>());
+    private final List<DeviceObserver> observers = new CopyOnWriteArrayList<>();
+    private final TriggerCompiler triggerCompiler = new TriggerCompiler();
+    private volatile TriggerEngine triggerEngine = TriggerBackend.LINEAR.create(idToDevice, triggerCompiler);
+    private volatile SensorHistoryStore history;
+    private volatile EventLog eventLog;
 
     private SmartHomeHub() {
     }
@@ -42,13 +62,39 @@ public class SmartHomeHub implements Subject {
             throw new IllegalArgumentException("device must not be null");
         }
         idToDevice.put(device.getId(), device);
+        logPresence(device, EventKind.ADDED);
         registerObserver(device);
+        triggerEngine.deviceAdded(device);
+    }
+
+    /** Adds every device in one step: they are registered as observers with a single copy of the observer list. */
+    public void addDevices(Collection<? extends Device> devices) {
+        for (Device device : devices) {
+            if (device == null) {
+                throw new IllegalArgumentException("device must not be null");
+            }
+        }
+        for (Device device : devices) {
+            idToDevice.put(device.getId(), device);
+            logPresence(device, EventKind.ADDED);
+        }
+        observers.addAll(devices);
+        for (Device device : devices) {
+            triggerEngine.deviceAdded(device);
+        }
     }
 
     public void removeDevice(Device device) {
         if (device == null) return;
-        idToDevice.remove(device.getId());
+        if (idToDevice.remove(device.getId()) != null) {
+            logPresence(device, EventKind.REMOVED);
+        }
         unregisterObserver(device);
+        triggerEngine.deviceRemoved(device);
+    }
+
+    public Device getDevice(int id) {
+        return idToDevice.get(id);
     }
 
     public void turnOn(int id) throws UnsupportedActionException {
@@ -57,7 +103,9 @@ public class SmartHomeHub implements Subject {
             logger.log(Level.WARNING, "Device not found with id - " + id);
             throw new UnsupportedActionException("Device not found with id - " + id);
         }
-        device.turnOn();
+        if (device instanceof StatefulDevice stateful ? change(stateful, EventKind.TURNED_ON, 1) : turnOnUntracked(device)) {
+            triggerEngine.deviceChanged(device);
+        }
         notifyObservers(capitalize(device.deviceType()) + " " + id + " is on.");
     }
 
@@ -67,19 +115,79 @@ public class SmartHomeHub implements Subject {
             logger.log(Level.WARNING, "Device not found with id - " + id);
             throw new UnsupportedActionException("Device not found with id - " + id);
         }
-        device.turnOff();
+        if (device instanceof StatefulDevice stateful ? change(stateful, EventKind.TURNED_OFF, 0) : turnOffUntracked(device)) {
+            triggerEngine.deviceChanged(device);
+        }
         notifyObservers(capitalize(device.deviceType()) + " " + id + " is off.");
     }
 
-    public void setSchedule(int deviceId, String time, String action) throws UnsupportedActionException {
-        Device device = idToDevice.get(deviceId);
-        if (device == null) {
-            logger.log(Level.WARNING, "Device with ID " + deviceId + " not found.");
-            throw new UnsupportedActionException("Device with ID " + deviceId + " not found.");
+    public void setTemperature(int id, int temperature) throws UnsupportedActionException {
+        Device device = idToDevice.get(id);
+        if (!(device instanceof ThermostatDevice thermostat)) {
+            logger.log(Level.WARNING, "Thermostat not found with id - " + id);
+            throw new UnsupportedActionException("Thermostat not found with id - " + id);
         }
+        boolean changed = change(thermostat, EventKind.TEMPERATURE_SET, temperature);
+        SensorHistoryStore store = history;
+        if (store != null) {
+            store.record(id, System.currentTimeMillis(), temperature);
+        }
+        if (changed) {
+            triggerEngine.deviceChanged(device);
+        }
+        notifyObservers("Thermostat " + id + " is set to " + temperature + " degrees.");
+    }
+
+    /**
+     * Records every temperature set through the hub into the given store; pass null to stop recording.
+     */
+    public void attachHistory(SensorHistoryStore history) {
+        this.history = history;
+    }
+
+    public SensorHistoryStore getHistory() {
+        return history;
+    }
+
+    /**
+     * Appends every state change made through the hub, schedules included, to the given log; pass null to stop.
+     * Devices already registered are logged as added with their current state.
+     */
+    public void attachEventLog(EventLog eventLog) {
+        this.eventLog = eventLog;
+        for (Device device : idToDevice.values()) {
+            logPresence(device, EventKind.ADDED);
+        }
+    }
+
+    public EventLog getEventLog() {
+        return eventLog;
+    }
+
+    /**
+     * Re-reads a device's state into the trigger engine after it was changed without going through the hub,
+     * e.g. via a {@link DeviceProxy} or a direct setter.
+     */
+    public void refreshDevice(int id) {
+        Device device = idToDevice.get(id);
+        if (device != null) {
+            triggerEngine.deviceChanged(device);
+        }
+    }
+
+    public void setSchedule(int deviceId, String time, String action) throws UnsupportedActionException {
+        Device device = scheduledDevice(deviceId);
         String normalized = normalizeAction(action);
         logger.info("Scheduled Task - [device: " + device.deviceType() + ", time: " + time + ", command: " + normalized + "]");
-        new Schedule(device, time, normalized).schedule();
+        new Schedule(device, time, normalized, this::performScheduled).schedule();
+    }
+
+    /**
+     * A schedule whose action is carried out through the hub, so it is logged and refreshes the triggers like any
+     * other command. It is not registered; {@link Schedule#execute()} runs it immediately.
+     */
+    public Schedule createSchedule(int deviceId, String time, String action) throws UnsupportedActionException {
+        return new Schedule(scheduledDevice(deviceId), time, normalizeAction(action), this::performScheduled);
     }
 
     public void addTrigger(String condition, String action) throws InvalidTriggerException, UnsupportedActionException {
@@ -94,7 +202,10 @@ public class SmartHomeHub implements Subject {
             }
             Device device = idToDevice.get(id);
             if (device != null) {
-                triggers.add(new Trigger(condition, actionType, id));
+                Trigger trigger = new Trigger(triggerCompiler.compile(condition), actionType, id);
+                synchronized (this) { // not lost to an engine that setTriggerBackend is replacing
+                    triggerEngine.addTrigger(trigger);
+                }
             } else {
                 throw new UnsupportedActionException("Device with ID " + id + " not found.");
             }
@@ -107,20 +218,27 @@ public class SmartHomeHub implements Subject {
         // No-op: schedules are self-scheduled when created
     }
 
+    /**
+     * Switches the trigger backend, moving the registered triggers to the new engine. Triggers are added under the
+     * same lock, so none is added to the old engine after its triggers were copied. {@link TriggerBackend#RETE}
+     * keeps match state between passes, so each change only re-checks the conditions it can affect.
+     */
+    public synchronized void setTriggerBackend(TriggerBackend backend) {
+        TriggerEngine replacement = backend.create(idToDevice, triggerCompiler);
+        for (Trigger trigger : triggerEngine.triggers()) {
+            replacement.addTrigger(trigger);
+        }
+        triggerEngine = replacement;
+    }
+
     public void checkTriggers() throws UnsupportedActionException {
-        synchronized (idToDevice) {
-            for (Device device : idToDevice.values()) {
-                synchronized (triggers) {
-                    for (Trigger trigger : triggers) {
-                        if (trigger.isTriggered(device)) {
-                            String action = trigger.getAction();
-                            int id = trigger.getId();
-                            logger.info("Trigger - [condition: " + trigger.getCondition() + ", action: " + action + "(" + id + ")] ");
-                            executeAction(action, id);
-                        }
-                    }
-                }
-            }
+        List<Trigger> fired = triggerEngine.evaluate(LocalTime.now());
+        // Actions run after evaluation so every condition in a pass sees the same device state
+        for (Trigger trigger : fired) {
+            String action = trigger.getAction();
+            int id = trigger.getId();
+            logger.info("Trigger - [condition: " + trigger.getCondition() + ", action: " + action + "(" + id + ")] ");
+            executeAction(action, id);
         }
     }
 
@@ -169,6 +287,78 @@ public class SmartHomeHub implements Subject {
         }
     }
 
+    /**
+     * Applies a turn-on, turn-off or temperature change and, with a log attached, appends it. Returns whether the
+     * device changed.
+     */
+    private boolean change(StatefulDevice device, EventKind kind, int value) {
+        EventLog log = eventLog;
+        if (log == null) {
+            return apply(device, kind, value);
+        }
+        synchronized (device) {
+            if (!apply(device, kind, value)) {
+                return false;
+            }
+            log.append(device.getId(), kind, value);
+            return true;
+        }
+    }
+
+    private static boolean apply(StatefulDevice device, EventKind kind, int value) {
+        return switch (kind) {
+            case TURNED_ON -> device.tryTurnOn();
+            case TURNED_OFF -> device.tryTurnOff();
+            default -> device.setState(value);
+        };
+    }
+
+    private void logPresence(Device device, EventKind kind) {
+        EventLog log = eventLog;
+        if (log != null && device instanceof StatefulDevice stateful) {
+            synchronized (device) {
+                log.append(device.getId(), kind, stateful.state());
+            }
+        }
+    }
+
+    /**
+     * Carries out a scheduled turn-on or turn-off like a hub command: the change is applied and logged together,
+     * and only a real change is logged and refreshes the triggers.
+     */
+    private void performScheduled(Device device, String action) {
+        boolean on = "turnOn".equalsIgnoreCase(action);
+        boolean changed;
+        if (device instanceof StatefulDevice stateful) {
+            changed = change(stateful, on ? EventKind.TURNED_ON : EventKind.TURNED_OFF, on ? 1 : 0);
+        } else {
+            changed = on ? turnOnUntracked(device) : turnOffUntracked(device);
+        }
+        if (changed) {
+            triggerEngine.deviceChanged(device);
+        }
+    }
+
+    private Device scheduledDevice(int deviceId) throws UnsupportedActionException {
+        Device device = idToDevice.get(deviceId);
+        if (device == null) {
+            logger.log(Level.WARNING, "Device with ID " + deviceId + " not found.");
+            throw new UnsupportedActionException("Device with ID " + deviceId + " not found.");
+        }
+        return device;
+    }
+
+    /** Turns on a device that does not report whether its state changed; assumes it did. */
+    private static boolean turnOnUntracked(Device device) {
+        device.turnOn();
+        return true;
+    }
+
+    private static boolean turnOffUntracked(Device device) {
+        device.turnOff();
+        return true;
+    }
+
     private static String capitalize(String s) {
         if (s == null || s.isEmpty()) return s;
         return Character.toUpperCase(s.charAt(0)) + s.substring(1);
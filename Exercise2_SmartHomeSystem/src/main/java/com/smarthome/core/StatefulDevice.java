@@ -0,0 +1,73 @@
+package com.smarthome.core;
+
+/**
+ * A device whose state is one int value, kept together with a version number in a single atomically updated
+ * word. The value is 1 or 0 for a light that is on or off and a door that is unlocked or locked, and the
+ * temperature for a thermostat.
+ *
+ * <p>Every change is a compare-and-set on the word and increments the version. Commands arriving concurrently from
+ * the hub, schedules and proxies therefore never lose updates, and a reader always sees a value together with the
+ * version it was written under. An optimistic reader keeps the {@link #stateWord()} it based a decision on and
+ * applies the decision with {@link #compareAndSetState(long, int)}, which fails if anything changed in between.
+ */
+public interface StatefulDevice extends Device {
+
+    /** Current value and version, packed as {@code version << 32 | value}. */
+    long stateWord();
+
+    /** Sets the value and increments the version, if the state word is still {@code expectedWord}. */
+    boolean compareAndSetState(long expectedWord, int value);
+
+    /** Switches on or unlocks; true if this call changed the state, false if it already was on or has no such state. */
+    boolean tryTurnOn();
+
+    /** Switches off or locks; true if this call changed the state. */
+    boolean tryTurnOff();
+
+    default int state() {
+        return value(stateWord());
+    }
+
+    default long version() {
+        return version(stateWord());
+    }
+
+    /** Changes the value to {@code value} if it is currently {@code expected}. */
+    default boolean transition(int expected, int value) {
+        while (true) {
+            long word = stateWord();
+            if (value(word) != expected) {
+                return false;
+            }
+            if (compareAndSetState(word, value)) {
+                return true;
+            }
+        }
+    }
+
+    /** Sets the value; returns false, and keeps the version, if the device already had it. */
+    default boolean setState(int value) {
+        while (true) {
+            long word = stateWord();
+            if (value(word) == value) {
+                return false;
+            }
+            if (compareAndSetState(word, value)) {
+                return true;
+            }
+        }
+    }
+
+    static int value(long word) {
+        return (int) word;
+    }
+
+    static long version(long word) {
+        return word >>> 32;
+    }
+
+    /** The word following {@code word} when its value is replaced by {@code value}. */
+    static long next(long word, int value) {
+        return (word & 0xFFFFFFFF00000000L) + (1L << 32) | (value & 0xFFFFFFFFL);
+    }
+}
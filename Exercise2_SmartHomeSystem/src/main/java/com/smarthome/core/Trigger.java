@@ -1,50 +1,77 @@
 package com.smarthome.core;
 
-import com.smarthome.core.devices.Thermostat;
+import com.smarthome.core.exceptions.InvalidTriggerException;
+import com.smarthome.core.triggers.CompiledCondition;
+import com.smarthome.core.triggers.EvaluationContext;
+import com.smarthome.core.triggers.Expr;
+import com.smarthome.core.triggers.TriggerCompiler;
+
+import java.time.LocalTime;
+import java.util.function.IntFunction;
 
 /**
  * Represents a trigger condition and action pair, e.g. "temperature > 70" and "turnOff(1)".
+ * Conditions may combine comparisons with &&, || and !, reference specific devices ("door.3 == unlocked")
+ * and restrict the time of day ("time between 22:00 and 06:00"); see {@link com.smarthome.core.triggers.ExpressionParser}.
  */
 public class Trigger {
     private final String condition;
+    private final CompiledCondition compiled;
     private final String action;
     private final int id;
 
+    /** Compiles the condition on its own; prefer a shared compiler when creating many triggers. */
     public Trigger(String condition, String action, int id) {
+        this(condition, action, id, new TriggerCompiler());
+    }
+
+    /** Compiles the condition with {@code compiler}, sharing sub-conditions with its other triggers. */
+    public Trigger(String condition, String action, int id, TriggerCompiler compiler) {
+        this(condition, compileOrNull(compiler, condition), action, id);
+    }
+
+    public Trigger(CompiledCondition condition, String action, int id) {
+        this(condition.source(), condition, action, id);
+    }
+
+    private Trigger(String condition, CompiledCondition compiled, String action, int id) {
         this.condition = condition;
+        this.compiled = compiled;
         this.action = action;
         this.id = id;
     }
 
-    public boolean isTriggered(Device device) {
-        if (condition == null || condition.isBlank()) {
-            return false;
-        }
-        String[] arr = condition.trim().split(" ");
-        if (arr.length != 3) {
-            return false;
-        }
-        String property = arr[0];
-        String operator = arr[1];
-        int value;
+    private static CompiledCondition compileOrNull(TriggerCompiler compiler, String condition) {
         try {
-            value = Integer.parseInt(arr[2]);
-        } catch (NumberFormatException ex) {
-            return false;
+            return compiler.compile(condition);
+        } catch (InvalidTriggerException e) {
+            return null; // an unparseable condition never fires
         }
+    }
 
-        if (device instanceof Thermostat && "temperature".equalsIgnoreCase(property)) {
-            int deviceTemperature = ((Thermostat) device).getTemperature();
-            return switch (operator) {
-                case ">" -> deviceTemperature > value;
-                case "<" -> deviceTemperature < value;
-                case ">=" -> deviceTemperature >= value;
-                case "<=" -> deviceTemperature <= value;
-                case "==" -> deviceTemperature == value;
-                default -> false;
-            };
-        }
-        return false;
+    /** Evaluates the condition against {@code device} alone; references to other devices never match. */
+    public boolean isTriggered(Device device) {
+        return isTriggered(device, id -> null);
+    }
+
+    /** Evaluates the condition against {@code device}, resolving references to other devices through {@code devices}. */
+    public boolean isTriggered(Device device, IntFunction<Device> devices) {
+        return compiled != null && compiled.test(new EvaluationContext(devices, LocalTime.now(), 0).at(device));
+    }
+
+    /** Evaluates the condition within a shared pass; the context's current device is the candidate. */
+    public boolean isTriggered(EvaluationContext context) {
+        return compiled != null && compiled.test(context);
+    }
+
+    /** True when the condition reads the candidate device and must be checked against every device. */
+    public boolean isDeviceRelative() {
+        return compiled != null && compiled.deviceRelative();
+    }
+
+    /** Parsed condition, or null when the condition could not be parsed. */
+    public Expr getExpression() {
+        return compiled == null ? null : compiled.expression();
     }
 
     public String getAction() {
@@ -58,4 +85,4 @@ public class Trigger {
     public int getId() {
         return id;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,50 @@
+package com.smarthome.core.devices;
+
+import com.smarthome.core.StatefulDevice;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Keeps a {@link StatefulDevice}'s state word in a volatile field updated through a {@link VarHandle}.
+ */
+public abstract class AbstractStatefulDevice implements StatefulDevice {
+    private static final VarHandle WORD;
+
+    static {
+        try {
+            WORD = MethodHandles.lookup().findVarHandle(AbstractStatefulDevice.class, "word", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int id;
+    @SuppressWarnings("unused") // accessed through WORD
+    private volatile long word;
+
+    protected AbstractStatefulDevice(int id, int initialValue) {
+        this.id = id;
+        this.word = initialValue & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public long stateWord() {
+        return (long) WORD.getVolatile(this);
+    }
+
+    @Override
+    public boolean compareAndSetState(long expectedWord, int value) {
+        return WORD.compareAndSet(this, expectedWord, StatefulDevice.next(expectedWord, value));
+    }
+
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public void update(String message) {
+        // no-op
+    }
+}
@@ -0,0 +1,51 @@
+package com.smarthome.core.devices;
+
+import com.smarthome.core.DeviceType;
+import com.smarthome.core.StatefulDevice;
+
+/**
+ * Door lock behaviour over a state word, whatever holds it: the state is 1 when unlocked and 0 when locked.
+ * {@link Door} keeps the word in the object; {@link com.smarthome.core.state.ArenaDoor} keeps it in an off-heap record.
+ */
+public interface DoorDevice extends StatefulDevice {
+
+    @Override
+    default void turnOn() {
+        tryTurnOn();
+    }
+
+    @Override
+    default void turnOff() {
+        tryTurnOff();
+    }
+
+    /** Unlocks the door; true if it was locked. */
+    @Override
+    default boolean tryTurnOn() {
+        return transition(0, 1);
+    }
+
+    /** Locks the door; true if it was unlocked. */
+    @Override
+    default boolean tryTurnOff() {
+        return transition(1, 0);
+    }
+
+    default String getStatus() {
+        return state() == 1 ? "unlocked" : "locked";
+    }
+
+    default void setStatus(String status) {
+        setState("unlocked".equalsIgnoreCase(status) ? 1 : 0);
+    }
+
+    @Override
+    default String deviceType() {
+        return DeviceType.DOOR.name().toLowerCase();
+    }
+
+    @Override
+    default String statusSummary() {
+        return "Door " + getId() + " is " + (state() == 1 ? "Unlocked." : "Locked.");
+    }
+}
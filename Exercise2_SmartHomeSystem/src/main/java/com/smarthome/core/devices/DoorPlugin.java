@@ -0,0 +1,47 @@
+package com.smarthome.core.devices;
+
+import com.smarthome.core.Device;
+import com.smarthome.core.DevicePlugin;
+
+/**
+ * Builds {@link Door}s; state 1 is unlocked and 0 is locked.
+ */
+public class DoorPlugin implements DevicePlugin {
+
+    @Override
+    public String typeName() {
+        return "door";
+    }
+
+    @Override
+    public int parseState(String text) {
+        if (text == null || text.isBlank() || text.equalsIgnoreCase("locked")) {
+            return 0;
+        }
+        if (text.equalsIgnoreCase("unlocked")) {
+            return 1;
+        }
+        throw new IllegalArgumentException("Invalid door status. Use 'locked' or 'unlocked'");
+    }
+
+    @Override
+    public Device create(int id, int state) {
+        return new Door(id, locked(state));
+    }
+
+    @Override
+    public Device[] createAll(int[] ids, int[] states) {
+        Door[] doors = new Door[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            doors[i] = new Door(ids[i], locked(states[i]));
+        }
+        return doors;
+    }
+
+    private static boolean locked(int state) {
+        if (state != 0 && state != 1) {
+            throw new IllegalArgumentException("Invalid door state " + state + ". Use 0 (locked) or 1 (unlocked)");
+        }
+        return state == 0;
+    }
+}
@@ -0,0 +1,51 @@
+package com.smarthome.core.devices;
+
+import com.smarthome.core.DeviceType;
+import com.smarthome.core.StatefulDevice;
+
+/**
+ * Light behaviour over a state word, whatever holds it: the state is 1 when on and 0 when off. {@link Light} keeps
+ * the word in the object; {@link com.smarthome.core.state.ArenaLight} keeps it in an off-heap record.
+ */
+public interface LightDevice extends StatefulDevice {
+
+    @Override
+    default void turnOn() {
+        tryTurnOn();
+    }
+
+    @Override
+    default void turnOff() {
+        tryTurnOff();
+    }
+
+    /** Switches the light on; true if it was off. */
+    @Override
+    default boolean tryTurnOn() {
+        return transition(0, 1);
+    }
+
+    /** Switches the light off; true if it was on. */
+    @Override
+    default boolean tryTurnOff() {
+        return transition(1, 0);
+    }
+
+    default String getStatus() {
+        return state() == 1 ? "on" : "off";
+    }
+
+    default void setStatus(String status) {
+        setState("on".equalsIgnoreCase(status) ? 1 : 0);
+    }
+
+    @Override
+    default String deviceType() {
+        return DeviceType.LIGHT.name().toLowerCase();
+    }
+
+    @Override
+    default String statusSummary() {
+        return "Light " + getId() + " is " + (state() == 1 ? "On." : "Off.");
+    }
+}
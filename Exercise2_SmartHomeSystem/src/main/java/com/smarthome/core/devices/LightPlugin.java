@@ -0,0 +1,47 @@
+package com.smarthome.core.devices;
+
+import com.smarthome.core.Device;
+import com.smarthome.core.DevicePlugin;
+
+/**
+ * Builds {@link Light}s; state 1 is on and 0 is off.
+ */
+public class LightPlugin implements DevicePlugin {
+
+    @Override
+    public String typeName() {
+        return "light";
+    }
+
+    @Override
+    public int parseState(String text) {
+        if (text == null || text.isBlank() || text.equalsIgnoreCase("off")) {
+            return 0;
+        }
+        if (text.equalsIgnoreCase("on")) {
+            return 1;
+        }
+        throw new IllegalArgumentException("Invalid light status. Use 'on' or 'off'");
+    }
+
+    @Override
+    public Device create(int id, int state) {
+        return new Light(id, on(state));
+    }
+
+    @Override
+    public Device[] createAll(int[] ids, int[] states) {
+        Light[] lights = new Light[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            lights[i] = new Light(ids[i], on(states[i]));
+        }
+        return lights;
+    }
+
+    private static boolean on(int state) {
+        if (state != 0 && state != 1) {
+            throw new IllegalArgumentException("Invalid light state " + state + ". Use 1 (on) or 0 (off)");
+        }
+        return state == 1;
+    }
+}
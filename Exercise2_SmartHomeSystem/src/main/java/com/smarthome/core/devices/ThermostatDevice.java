@@ -0,0 +1,54 @@
+package com.smarthome.core.devices;
+
+import com.smarthome.core.DeviceType;
+import com.smarthome.core.StatefulDevice;
+
+/**
+ * Thermostat behaviour over a state word, whatever holds it: the state is the set temperature. {@link Thermostat}
+ * keeps the word in the object; {@link com.smarthome.core.state.ArenaThermostat} keeps it in an off-heap record.
+ */
+public interface ThermostatDevice extends StatefulDevice {
+
+    @Override
+    default void turnOn() {
+        // no special on/off state; could be extended
+    }
+
+    @Override
+    default void turnOff() {
+        // no special on/off state; could be extended
+    }
+
+    @Override
+    default boolean tryTurnOn() {
+        return false;
+    }
+
+    @Override
+    default boolean tryTurnOff() {
+        return false;
+    }
+
+    default int getTemperature() {
+        return state();
+    }
+
+    default void setTemperature(int temperature) {
+        setState(temperature);
+    }
+
+    /** Sets the temperature if it is currently {@code expected}. */
+    default boolean compareAndSetTemperature(int expected, int temperature) {
+        return transition(expected, temperature);
+    }
+
+    @Override
+    default String deviceType() {
+        return DeviceType.THERMOSTAT.name().toLowerCase();
+    }
+
+    @Override
+    default String statusSummary() {
+        return "Thermostat is set to " + getTemperature() + " degrees.";
+    }
+}
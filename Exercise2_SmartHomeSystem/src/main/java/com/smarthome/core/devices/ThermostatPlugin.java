@@ -0,0 +1,38 @@
+package com.smarthome.core.devices;
+
+import com.smarthome.core.Device;
+import com.smarthome.core.DevicePlugin;
+
+/**
+ * Builds {@link Thermostat}s; the state is the initial temperature.
+ */
+public class ThermostatPlugin implements DevicePlugin {
+
+    @Override
+    public String typeName() {
+        return "thermostat";
+    }
+
+    @Override
+    public int parseState(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Thermostat temperature must be an integer", e);
+        }
+    }
+
+    @Override
+    public Device create(int id, int state) {
+        return new Thermostat(id, state);
+    }
+
+    @Override
+    public Device[] createAll(int[] ids, int[] states) {
+        Thermostat[] thermostats = new Thermostat[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            thermostats[i] = new Thermostat(ids[i], states[i]);
+        }
+        return thermostats;
+    }
+}
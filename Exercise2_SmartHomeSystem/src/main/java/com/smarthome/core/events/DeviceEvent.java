@@ -0,0 +1,10 @@
+package com.smarthome.core.events;
+
+/**
+ * One immutable entry of the {@link EventLog}.
+ *
+ * @param sequence position in the log, starting at 0
+ * @param value    the device's state after the event
+ */
+public record DeviceEvent(long sequence, long timestampMillis, int deviceId, EventKind kind, int value) {
+}
@@ -0,0 +1,9 @@
+package com.smarthome.core.events;
+
+/**
+ * Receives events from a log scan without allocating an object per event.
+ */
+@FunctionalInterface
+public interface EventConsumer {
+    void accept(long sequence, long timestampMillis, int deviceId, EventKind kind, int value);
+}
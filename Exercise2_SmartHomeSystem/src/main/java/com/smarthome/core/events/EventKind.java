@@ -0,0 +1,24 @@
+package com.smarthome.core.events;
+
+/**
+ * What happened to a device. The value stored with each event is the device's state afterwards: 1 or 0 for
+ * on/off (or unlocked/locked), the temperature for a thermostat.
+ */
+public enum EventKind {
+    ADDED,
+    TURNED_ON,
+    TURNED_OFF,
+    TEMPERATURE_SET,
+    REMOVED;
+
+    private static final EventKind[] BY_CODE = values();
+
+    /** Code stored in the log; 0 marks an unwritten record. */
+    int code() {
+        return ordinal() + 1;
+    }
+
+    static EventKind fromCode(int code) {
+        return code >= 1 && code <= BY_CODE.length ? BY_CODE[code - 1] : null;
+    }
+}
@@ -0,0 +1,643 @@
+package com.smarthome.core.events;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only log of device state changes, kept in memory-mapped segment files, for answering "what was the state
+ * of device N at time T".
+ *
+ * <p>Each event is a fixed {@value #RECORD_BYTES}-byte record {@code [timestamp:long][deviceId:int][value:int]
+ * [kind:int][check:int][previous:long]}, so an event's position follows from its sequence number. Timestamps never
+ * decrease along the log; an older one is clamped to the latest. {@code previous} is the sequence number of the
+ * same device's preceding event, so each device's history is a chain on disk and the heap only holds the newest
+ * sequence number per device.
+ *
+ * <p>Every {@code checkpointInterval} events a checkpoint file captures, for every device seen so far, its last
+ * event before that point. A checkpoint is built on a background thread from the previous one and the devices that
+ * changed in between, and is read through a memory mapping. Rebuilding the whole home at a point in time replays
+ * at most one interval of events after the nearest checkpoint, and a single-device lookup walks its chain back
+ * from the next checkpoint, so it visits at most that device's events of one interval.
+ *
+ * <p>Appends are serialized. Queries take no lock: records are written before they are published, and published
+ * records never change. Opening a directory that already holds a log replays it to rebuild the per-device heads,
+ * drops a torn record at the tail, reuses the checkpoints that are still valid and builds the missing ones.
+ */
+public final class EventLog implements AutoCloseable {
+    public static final int RECORD_BYTES = 32;
+    public static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 16_384;
+    private static final int CHECK_SEED = 0x45564E54; // "EVNT"
+    private static final int CHECKPOINT_MAGIC = 0x45564350; // "EVCP"
+    private static final int CHECKPOINT_HEADER_BYTES = 16;
+    private static final int CHECKPOINT_ENTRY_BYTES = 20;
+    private static final long NO_EVENT = -1;
+    private static final Logger logger = Logger.getLogger(EventLog.class.getName());
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final int checkpointInterval;
+    private final Map<Integer, DeviceIndex> devices = new ConcurrentHashMap<>();
+    private final ExecutorService checkpointer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "event-log-checkpointer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private volatile Checkpoint[] checkpoints = {Checkpoint.EMPTY};
+    private volatile long size;
+    private long lastTimestamp = Long.MIN_VALUE;
+    private boolean closed;
+
+    /** Log in {@code directory} with default segment size and checkpoint interval. */
+    public EventLog(Path directory) {
+        this(directory, DEFAULT_SEGMENT_RECORDS, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    public EventLog(Path directory, int segmentRecords, int checkpointInterval) {
+        if (segmentRecords < 1 || segmentRecords > Integer.MAX_VALUE / RECORD_BYTES || checkpointInterval < 1) {
+            throw new IllegalArgumentException("Invalid event log sizing");
+        }
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.checkpointInterval = checkpointInterval;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create event log directory " + directory, e);
+        }
+        recover();
+    }
+
+    /** Appends an event stamped with the current time and returns its sequence number. */
+    public long append(int deviceId, EventKind kind, int value) {
+        return append(System.currentTimeMillis(), deviceId, kind, value);
+    }
+
+    public long append(long timestampMillis, int deviceId, EventKind kind, int value) {
+        long sequence = write(timestampMillis, deviceId, kind, value);
+        if ((sequence + 1) % checkpointInterval == 0) {
+            try {
+                checkpointer.execute(() -> checkpointQuietly(sequence + 1));
+            } catch (RejectedExecutionException e) {
+                // closed in the meantime; the checkpoint is built when the log is reopened
+            }
+        }
+        return sequence;
+    }
+
+    /** Number of events in the log. */
+    public long size() {
+        return size;
+    }
+
+    public DeviceEvent event(long sequence) {
+        Objects.checkIndex(sequence, size);
+        return read(sequence);
+    }
+
+    /** The device's last event at or before {@code atMillis}, or null if it has none. */
+    public DeviceEvent lastEvent(int deviceId, long atMillis) {
+        long sequence = lastBefore(deviceId, firstAfter(atMillis));
+        return sequence == NO_EVENT ? null : read(sequence);
+    }
+
+    /** The device's state at {@code atMillis}; empty if it had no event yet or had been removed. */
+    public OptionalInt stateAt(int deviceId, long atMillis) {
+        DeviceEvent event = lastEvent(deviceId, atMillis);
+        return event == null || event.kind() == EventKind.REMOVED ? OptionalInt.empty() : OptionalInt.of(event.value());
+    }
+
+    /** Streams the device's events with {@code from <= timestamp <= to} in log order. */
+    public void events(int deviceId, long fromMillis, long toMillis, EventConsumer consumer) {
+        long[] found = new long[16];
+        int count = 0;
+        for (long sequence = lastBefore(deviceId, firstAfter(toMillis));
+             sequence != NO_EVENT && timestamp(sequence) >= fromMillis; sequence = previous(sequence)) {
+            if (count == found.length) {
+                found = Arrays.copyOf(found, count * 2);
+            }
+            found[count++] = sequence;
+        }
+        while (count > 0) {
+            emit(found[--count], consumer);
+        }
+    }
+
+    /** Streams the events with sequence numbers in {@code [from, to)}, clamped to the log. */
+    public void replay(long fromSequence, long toSequence, EventConsumer consumer) {
+        long end = Math.min(toSequence, size);
+        for (long sequence = Math.max(0, fromSequence); sequence < end; sequence++) {
+            emit(sequence, consumer);
+        }
+    }
+
+    /**
+     * State of every device present at {@code atMillis}, by device id. Starts from the last checkpoint before that
+     * point and replays the events after it.
+     */
+    public Map<Integer, Integer> snapshotAt(long atMillis) {
+        long end = firstAfter(atMillis);
+        Checkpoint start = checkpointAtOrBefore(end);
+        Map<Integer, Integer> states = new HashMap<>(start.count * 2);
+        for (int i = 0; i < start.count; i++) {
+            if (start.kind(i) != EventKind.REMOVED.code()) {
+                states.put(start.deviceId(i), start.value(i));
+            }
+        }
+        replay(start.sequence, end, (sequence, timestamp, deviceId, kind, value) -> {
+            if (kind == EventKind.REMOVED) {
+                states.remove(deviceId);
+            } else {
+                states.put(deviceId, value);
+            }
+        });
+        return Collections.unmodifiableMap(states);
+    }
+
+    public int segmentCount() {
+        return segments.length;
+    }
+
+    /** Checkpoints built so far; the one for the latest interval may still be in progress. */
+    public int checkpointCount() {
+        return checkpoints.length - 1;
+    }
+
+    /** Waits for the checkpoints in progress and forces the segments to disk. */
+    public void force() {
+        try {
+            checkpointer.submit(() -> { }).get();
+        } catch (RejectedExecutionException e) {
+            // closed: close() already waited for the checkpointer
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        forceSegments();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        checkpointer.shutdown();
+        try {
+            checkpointer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        forceSegments();
+    }
+
+    private synchronized void forceSegments() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    /** Writes a record, links it to the device's previous event and publishes it. */
+    private synchronized long write(long timestampMillis, int deviceId, EventKind kind, int value) {
+        Objects.requireNonNull(kind, "kind");
+        if (closed) {
+            throw new IllegalStateException("Event log is closed");
+        }
+        long sequence = size;
+        int segment = (int) (sequence / segmentRecords);
+        if (segment == segments.length) {
+            MappedByteBuffer[] grown = Arrays.copyOf(segments, segment + 1);
+            grown[segment] = map(segment);
+            segments = grown;
+        }
+        DeviceIndex index = devices.computeIfAbsent(deviceId, id -> new DeviceIndex());
+        long previous = index.newest;
+        long timestamp = Math.max(timestampMillis, lastTimestamp);
+        int offset = offset(sequence);
+        segments[segment].putLong(offset, timestamp)
+                .putInt(offset + 8, deviceId)
+                .putInt(offset + 12, value)
+                .putInt(offset + 16, kind.code())
+                .putInt(offset + 20, check(timestamp, deviceId, value, kind.code(), previous))
+                .putLong(offset + 24, previous);
+        index.newest = sequence;
+        lastTimestamp = timestamp;
+        size = sequence + 1;
+        return sequence;
+    }
+
+    /** The device's last event before sequence number {@code end}, or {@link #NO_EVENT}. */
+    private long lastBefore(int deviceId, long end) {
+        DeviceIndex index = devices.get(deviceId);
+        if (index == null) {
+            return NO_EVENT;
+        }
+        long sequence = index.newest;
+        if (sequence >= end) {
+            Checkpoint next = checkpointAtOrAfter(end);
+            if (next != null) {
+                int entry = next.find(deviceId);
+                if (entry < 0) {
+                    return NO_EVENT; // no event before the checkpoint, so none before end either
+                }
+                sequence = Math.min(sequence, next.sequence(entry));
+            }
+            while (sequence >= end) {
+                sequence = previous(sequence);
+            }
+        }
+        return sequence;
+    }
+
+    private void checkpointQuietly(long boundary) {
+        try {
+            checkpoint(boundary);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Cannot write event log checkpoint at event " + boundary, e);
+        }
+    }
+
+    /**
+     * Writes the checkpoint for the first {@code boundary} events: the latest checkpoint merged with the last event
+     * of every device that changed after it. Runs on the checkpointer thread, or during recovery.
+     */
+    private void checkpoint(long boundary) {
+        Checkpoint base = checkpoints[checkpoints.length - 1];
+        Map<Integer, Long> changed = new HashMap<>();
+        for (long sequence = base.sequence; sequence < boundary; sequence++) {
+            changed.put(segment(sequence).getInt(offset(sequence) + 8), sequence);
+        }
+        int[] ids = new int[changed.size()];
+        int n = 0;
+        for (int id : changed.keySet()) {
+            ids[n++] = id;
+        }
+        Arrays.sort(ids);
+
+        Path file = checkpointFile((int) (boundary / checkpointInterval));
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.position(CHECKPOINT_HEADER_BYTES);
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < base.count || j < ids.length) {
+                if (buffer.remaining() < CHECKPOINT_ENTRY_BYTES) {
+                    drain(channel, buffer);
+                }
+                if (j < ids.length && (i == base.count || ids[j] <= base.deviceId(i))) {
+                    if (i < base.count && base.deviceId(i) == ids[j]) {
+                        i++; // superseded by the newer event
+                    }
+                    long sequence = changed.get(ids[j++]);
+                    MappedByteBuffer segment = segment(sequence);
+                    int offset = offset(sequence);
+                    buffer.putInt(segment.getInt(offset + 8)).putInt(segment.getInt(offset + 16))
+                            .putInt(segment.getInt(offset + 12)).putLong(sequence);
+                } else {
+                    buffer.putInt(base.deviceId(i)).putInt(base.kind(i)).putInt(base.value(i)).putLong(base.sequence(i));
+                    i++;
+                }
+                count++;
+            }
+            drain(channel, buffer);
+            buffer.putLong(boundary).putInt(count).putInt(CHECKPOINT_MAGIC).flip();
+            channel.write(buffer, 0);
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write event log checkpoint " + file, e);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write event log checkpoint " + file, e);
+        }
+        Checkpoint checkpoint = openCheckpoint(file, boundary);
+        if (checkpoint == null) {
+            throw new IllegalStateException("Event log checkpoint " + file + " did not read back");
+        }
+        Checkpoint[] grown = Arrays.copyOf(checkpoints, checkpoints.length + 1);
+        grown[grown.length - 1] = checkpoint;
+        checkpoints = grown;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /** Maps a checkpoint file, or returns null if it is not a complete checkpoint for {@code boundary}. */
+    private static Checkpoint openCheckpoint(Path file, long boundary) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long bytes = channel.size();
+            if (bytes < CHECKPOINT_HEADER_BYTES) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int count = buffer.getInt(8);
+            if (buffer.getLong(0) != boundary || buffer.getInt(12) != CHECKPOINT_MAGIC || count < 0
+                    || bytes != CHECKPOINT_HEADER_BYTES + (long) count * CHECKPOINT_ENTRY_BYTES) {
+                return null;
+            }
+            return new Checkpoint(boundary, count, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map event log checkpoint " + file, e);
+        }
+    }
+
+    private Checkpoint checkpointAtOrBefore(long sequence) {
+        Checkpoint[] all = checkpoints;
+        int low = 0;
+        int high = all.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (all[mid].sequence <= sequence) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return all[low];
+    }
+
+    /** The first checkpoint at or after {@code sequence}, or null if none has been built yet. */
+    private Checkpoint checkpointAtOrAfter(long sequence) {
+        Checkpoint[] all = checkpoints;
+        int low = 0;
+        int high = all.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (all[mid].sequence < sequence) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low == all.length ? null : all[low];
+    }
+
+    /** Sequence number of the first event after {@code atMillis}, or the log size if there is none. */
+    private long firstAfter(long atMillis) {
+        long low = 0;
+        long high = size;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (timestamp(mid) <= atMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void emit(long sequence, EventConsumer consumer) {
+        MappedByteBuffer segment = segment(sequence);
+        int offset = offset(sequence);
+        consumer.accept(sequence, segment.getLong(offset), segment.getInt(offset + 8),
+                EventKind.fromCode(segment.getInt(offset + 16)), segment.getInt(offset + 12));
+    }
+
+    private DeviceEvent read(long sequence) {
+        MappedByteBuffer segment = segment(sequence);
+        int offset = offset(sequence);
+        return new DeviceEvent(sequence, segment.getLong(offset), segment.getInt(offset + 8),
+                EventKind.fromCode(segment.getInt(offset + 16)), segment.getInt(offset + 12));
+    }
+
+    private long timestamp(long sequence) {
+        return segment(sequence).getLong(offset(sequence));
+    }
+
+    private long previous(long sequence) {
+        return segment(sequence).getLong(offset(sequence) + 24);
+    }
+
+    private MappedByteBuffer segment(long sequence) {
+        return segments[(int) (sequence / segmentRecords)];
+    }
+
+    private int offset(long sequence) {
+        return (int) (sequence % segmentRecords) * RECORD_BYTES;
+    }
+
+    /**
+     * Replays the segment files already in the directory, stopping at the first record that is not intact, then
+     * reopens the checkpoints that still match the log and builds the missing ones.
+     */
+    private synchronized void recover() {
+        replay:
+        for (int segment = 0; Files.exists(file(segment)); segment++) {
+            MappedByteBuffer buffer = map(segment);
+            MappedByteBuffer[] grown = Arrays.copyOf(segments, segment + 1);
+            grown[segment] = buffer;
+            segments = grown;
+            for (int record = 0; record < segmentRecords; record++) {
+                int offset = record * RECORD_BYTES;
+                long timestamp = buffer.getLong(offset);
+                int deviceId = buffer.getInt(offset + 8);
+                int value = buffer.getInt(offset + 12);
+                int code = buffer.getInt(offset + 16);
+                long previous = buffer.getLong(offset + 24);
+                DeviceIndex index = devices.get(deviceId);
+                if (EventKind.fromCode(code) == null
+                        || buffer.getInt(offset + 20) != check(timestamp, deviceId, value, code, previous)
+                        || previous != (index == null ? NO_EVENT : index.newest)) {
+                    truncate(segment, record);
+                    break replay;
+                }
+                devices.computeIfAbsent(deviceId, id -> new DeviceIndex()).newest = size;
+                lastTimestamp = timestamp;
+                size++;
+            }
+        }
+
+        int valid = 0;
+        for (long boundary = checkpointInterval; boundary <= size; boundary += checkpointInterval) {
+            Path file = checkpointFile(valid + 1);
+            Checkpoint checkpoint = Files.exists(file) ? openCheckpoint(file, boundary) : null;
+            if (checkpoint == null) {
+                break;
+            }
+            Checkpoint[] grown = Arrays.copyOf(checkpoints, checkpoints.length + 1);
+            grown[grown.length - 1] = checkpoint;
+            checkpoints = grown;
+            valid++;
+        }
+        deleteCheckpointsAfter(valid);
+        for (long boundary = (long) (valid + 1) * checkpointInterval; boundary <= size; boundary += checkpointInterval) {
+            checkpoint(boundary);
+        }
+    }
+
+    /** Clears the torn tail from {@code record} on and deletes any later segment files. */
+    private void truncate(int segment, int record) {
+        MappedByteBuffer buffer = segments[segment];
+        for (int offset = record * RECORD_BYTES; offset < segmentRecords * RECORD_BYTES; offset += RECORD_BYTES) {
+            if (buffer.getInt(offset + 16) != 0) {
+                buffer.putLong(offset, 0).putLong(offset + 8, 0).putLong(offset + 16, 0).putLong(offset + 24, 0);
+            }
+        }
+        try {
+            for (int later = segment + 1; Files.deleteIfExists(file(later)); later++) {
+                // keep deleting
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot truncate event log in " + directory, e);
+        }
+    }
+
+    /** Deletes checkpoint files past the first {@code valid} ones, and leftovers of interrupted writes. */
+    private void deleteCheckpointsAfter(int valid) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "checkpoint-*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                int dot = name.indexOf('.');
+                int index;
+                try {
+                    index = Integer.parseInt(name.substring("checkpoint-".length(), dot < 0 ? name.length() : dot));
+                } catch (NumberFormatException e) {
+                    continue; // not one of ours
+                }
+                if (index > valid || name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot clean up event log checkpoints in " + directory, e);
+        }
+    }
+
+    private MappedByteBuffer map(int segment) {
+        Path file = file(segment);
+        long bytes = (long) segmentRecords * RECORD_BYTES;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long existing = channel.size();
+            if (existing != 0 && existing != bytes) {
+                throw new IllegalArgumentException("Event log segment " + file + " has " + existing
+                        + " bytes; expected " + bytes + " for " + segmentRecords + " records");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map event log segment " + file, e);
+        }
+    }
+
+    private Path file(int segment) {
+        return directory.resolve(String.format("events-%06d.log", segment));
+    }
+
+    private Path checkpointFile(int index) {
+        return directory.resolve(String.format("checkpoint-%06d.idx", index));
+    }
+
+    private static int check(long timestamp, int deviceId, int value, int code, long previous) {
+        int h = CHECK_SEED;
+        h = 31 * h + Long.hashCode(timestamp);
+        h = 31 * h + deviceId;
+        h = 31 * h + value;
+        h = 31 * h + code;
+        return 31 * h + Long.hashCode(previous);
+    }
+
+    /**
+     * Last event before {@code sequence} of every device seen by then, sorted by device id, in a mapped file of
+     * {@code [sequence:long][count:int][magic:int]} followed by {@code [deviceId:int][kind:int][value:int]
+     * [sequence:long]} entries.
+     */
+    private static final class Checkpoint {
+        static final Checkpoint EMPTY = new Checkpoint(0, 0, ByteBuffer.allocate(CHECKPOINT_HEADER_BYTES));
+
+        final long sequence;
+        final int count;
+        private final ByteBuffer entries;
+
+        Checkpoint(long sequence, int count, ByteBuffer entries) {
+            this.sequence = sequence;
+            this.count = count;
+            this.entries = entries;
+        }
+
+        int deviceId(int entry) {
+            return entries.getInt(position(entry));
+        }
+
+        int kind(int entry) {
+            return entries.getInt(position(entry) + 4);
+        }
+
+        int value(int entry) {
+            return entries.getInt(position(entry) + 8);
+        }
+
+        long sequence(int entry) {
+            return entries.getLong(position(entry) + 12);
+        }
+
+        /** Entry of the device, or -1 if it had no event before this checkpoint. */
+        int find(int deviceId) {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int id = deviceId(mid);
+                if (id < deviceId) {
+                    low = mid + 1;
+                } else if (id > deviceId) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        private static int position(int entry) {
+            return CHECKPOINT_HEADER_BYTES + entry * CHECKPOINT_ENTRY_BYTES;
+        }
+    }
+
+    /**
+     * Newest event of one device; older ones are reached through the records' {@code previous} links. Only the
+     * appending thread writes it, after the record it points to.
+     */
+    private static final class DeviceIndex {
+        volatile long newest = NO_EVENT;
+    }
+}
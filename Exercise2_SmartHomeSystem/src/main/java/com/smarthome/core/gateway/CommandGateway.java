@@ -0,0 +1,473 @@
+package com.smarthome.core.gateway;
+
+import com.smarthome.core.Device;
+import com.smarthome.core.DeviceFactory;
+import com.smarthome.core.DeviceObserver;
+import com.smarthome.core.DeviceType;
+import com.smarthome.core.SmartHomeHub;
+import com.smarthome.core.StatefulDevice;
+import com.smarthome.core.exceptions.InvalidTriggerException;
+import com.smarthome.core.exceptions.UnsupportedActionException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Non-blocking network front end for {@link SmartHomeHub}, speaking {@link GatewayProtocol} over TCP or a Unix
+ * domain socket.
+ *
+ * <p>Connections are spread over a few reactor threads, each with its own {@link Selector}. A reactor reads
+ * whatever a connection has sent, executes every complete request in it in order, appends the responses to the
+ * connection's output buffer and writes them back with one write. Clients can therefore pipeline requests and
+ * receive their responses in batches. While a connection's responses cannot be written, the reactor stops reading
+ * from it, so a client that does not read cannot make the gateway buffer without bound.
+ *
+ * <p>A {@code SUBSCRIBE} request registers the connection as a hub observer. Notifications are queued per
+ * connection and written by its reactor, at most one buffer at a time: while earlier output is still unwritten,
+ * events stay queued. A subscriber more than {@value #MAX_PENDING_EVENTS} events behind therefore loses the newest
+ * ones, which are counted in {@link #droppedEvents()}, instead of growing its output buffer.
+ *
+ * <p>Usage: {@code java -cp out com.smarthome.core.gateway.CommandGateway tcp://127.0.0.1:7070 lights=1000}
+ */
+public final class CommandGateway implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(CommandGateway.class.getName());
+    static final int MAX_PENDING_EVENTS = 10_000;
+    private static final int BUFFER_BYTES = GatewayProtocol.MAX_FRAME_BYTES;
+
+    private final SmartHomeHub hub;
+    private final ServerSocketChannel server;
+    private final SocketAddress address;
+    private final Reactor[] reactors;
+    private final AtomicInteger nextReactor = new AtomicInteger();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder droppedEvents = new LongAdder();
+    private final AtomicInteger peakBufferBytes = new AtomicInteger();
+    private final AtomicInteger connections = new AtomicInteger();
+    private volatile boolean running = true;
+
+    /**
+     * Binds to {@code address}; an {@link InetSocketAddress} with port 0 picks a free port, see {@link #address()}.
+     */
+    public CommandGateway(SmartHomeHub hub, SocketAddress address, int reactorThreads) throws IOException {
+        if (reactorThreads < 1) {
+            throw new IllegalArgumentException("reactorThreads must be positive");
+        }
+        this.hub = hub;
+        if (address instanceof UnixDomainSocketAddress unix) {
+            Files.deleteIfExists(unix.getPath());
+            this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            this.server = ServerSocketChannel.open();
+            server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        }
+        server.bind(address, 1024);
+        server.configureBlocking(false);
+        this.address = server.getLocalAddress();
+        this.reactors = new Reactor[reactorThreads];
+        for (int i = 0; i < reactorThreads; i++) {
+            reactors[i] = new Reactor(i);
+        }
+        server.register(reactors[0].selector, SelectionKey.OP_ACCEPT);
+        for (Reactor reactor : reactors) {
+            reactor.thread.start();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.out.println("Usage: CommandGateway tcp://host:port|unix:/path [lights=N] [reactors=N]");
+            return;
+        }
+        int lights = 1_000;
+        int reactorThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("lights=")) {
+                lights = Integer.parseInt(args[i].substring("lights=".length()));
+            } else if (args[i].startsWith("reactors=")) {
+                reactorThreads = Integer.parseInt(args[i].substring("reactors=".length()));
+            }
+        }
+        SmartHomeHub hub = SmartHomeHub.getInstance();
+        provisionLights(hub, lights);
+        CommandGateway gateway = new CommandGateway(hub, GatewayProtocol.parseAddress(args[0]), reactorThreads);
+        System.out.println("Gateway listening on " + gateway.address() + " with " + lights + " lights");
+        Runtime.getRuntime().addShutdownHook(new Thread(gateway::close));
+        Thread.currentThread().join();
+    }
+
+    /** Adds lights with ids 1..count, all off, to the hub. */
+    static void provisionLights(SmartHomeHub hub, int count) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i + 1;
+        }
+        hub.addDevices(Arrays.asList(DeviceFactory.buildDevices(DeviceType.LIGHT, ids, new int[count])));
+    }
+
+    /** The bound address, with the actual port if port 0 was requested. */
+    public SocketAddress address() {
+        return address;
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    public int connections() {
+        return connections.get();
+    }
+
+    public long droppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    /** Largest output buffer any connection has needed so far. */
+    int peakBufferBytes() {
+        return peakBufferBytes.get();
+    }
+
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Reactor reactor : reactors) {
+            reactor.selector.wakeup();
+        }
+        for (Reactor reactor : reactors) {
+            try {
+                reactor.thread.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            server.close();
+            if (address instanceof UnixDomainSocketAddress unix) {
+                Files.deleteIfExists(unix.getPath());
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to close gateway socket", e);
+        }
+    }
+
+    private final class Reactor implements Runnable {
+        final Selector selector;
+        final Thread thread;
+        final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+        final Queue<Connection> withEvents = new ConcurrentLinkedQueue<>();
+
+        Reactor(int index) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, "gateway-reactor-" + index);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    registerAccepted();
+                    drainEvents();
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            Connection connection = (Connection) key.attachment();
+                            try {
+                                if (key.isWritable()) {
+                                    connection.flush();
+                                    connection.writeEvents(); // resumes events held back by the pending output
+                                }
+                                if (key.isValid() && key.isReadable()) {
+                                    connection.read();
+                                }
+                            } catch (IOException | RuntimeException e) {
+                                connection.close();
+                            }
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (running) {
+                    logger.log(Level.SEVERE, "Gateway reactor failed", e);
+                }
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    if (key.attachment() instanceof Connection connection) {
+                        connection.close();
+                    }
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    // already shutting down
+                }
+            }
+        }
+
+        private void accept() throws IOException {
+            SocketChannel channel;
+            while ((channel = server.accept()) != null) {
+                Reactor target = reactors[Math.floorMod(nextReactor.getAndIncrement(), reactors.length)];
+                target.accepted.add(channel);
+                if (target != this) {
+                    target.selector.wakeup();
+                }
+            }
+            registerAccepted();
+        }
+
+        private void registerAccepted() throws IOException {
+            SocketChannel channel;
+            while ((channel = accepted.poll()) != null) {
+                channel.configureBlocking(false);
+                if (channel.getRemoteAddress() instanceof InetSocketAddress) {
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+                Connection connection = new Connection(this, channel);
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                connections.incrementAndGet();
+            }
+        }
+
+        private void drainEvents() {
+            Connection connection;
+            while ((connection = withEvents.poll()) != null) {
+                connection.scheduled.set(false);
+                try {
+                    connection.writeEvents();
+                } catch (IOException | RuntimeException e) {
+                    connection.close();
+                }
+            }
+        }
+    }
+
+    private final class Connection implements DeviceObserver {
+        private final Reactor reactor;
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocate(BUFFER_BYTES);
+        private ByteBuffer out = ByteBuffer.allocate(BUFFER_BYTES);
+        private final Queue<String> events = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingEvents = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private SelectionKey key;
+        private int subscriptionId;
+        private boolean subscribed;
+        private boolean closed;
+
+        Connection(Reactor reactor, SocketChannel channel) {
+            this.reactor = reactor;
+            this.channel = channel;
+        }
+
+        /** Executes every complete request received so far, then writes all their responses at once. */
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            in.flip();
+            while (in.remaining() >= 4) {
+                int length = in.getInt(in.position());
+                if (length < GatewayProtocol.HEADER_BYTES - 4 || length > GatewayProtocol.MAX_FRAME_BYTES - 4) {
+                    throw new IOException("Invalid frame length " + length);
+                }
+                if (in.remaining() < 4 + length) {
+                    break;
+                }
+                int frameEnd = in.position() + 4 + length;
+                in.position(in.position() + 4);
+                byte code = in.get();
+                int requestId = in.getInt();
+                ByteBuffer payload = in.slice(in.position(), frameEnd - in.position());
+                in.position(frameEnd);
+                execute(code, requestId, payload);
+                requests.increment();
+            }
+            in.compact();
+            flush();
+        }
+
+        private void execute(byte code, int requestId, ByteBuffer payload) {
+            try {
+                switch (code) {
+                    case GatewayProtocol.TURN_ON -> {
+                        hub.turnOn(payload.getInt());
+                        respond(GatewayProtocol.OK, requestId);
+                    }
+                    case GatewayProtocol.TURN_OFF -> {
+                        hub.turnOff(payload.getInt());
+                        respond(GatewayProtocol.OK, requestId);
+                    }
+                    case GatewayProtocol.SET_TEMPERATURE -> {
+                        int id = payload.getInt();
+                        hub.setTemperature(id, payload.getInt());
+                        respond(GatewayProtocol.OK, requestId);
+                    }
+                    case GatewayProtocol.SET_SCHEDULE -> {
+                        int id = payload.getInt();
+                        String time = GatewayProtocol.getString(payload);
+                        hub.setSchedule(id, time, GatewayProtocol.getString(payload));
+                        respond(GatewayProtocol.OK, requestId);
+                    }
+                    case GatewayProtocol.ADD_TRIGGER -> {
+                        String condition = GatewayProtocol.getString(payload);
+                        hub.addTrigger(condition, GatewayProtocol.getString(payload));
+                        respond(GatewayProtocol.OK, requestId);
+                    }
+                    case GatewayProtocol.STATUS -> status(requestId, payload.getInt());
+                    case GatewayProtocol.SUBSCRIBE -> {
+                        subscribe(requestId);
+                        respond(GatewayProtocol.OK, requestId);
+                    }
+                    default -> respond(GatewayProtocol.ERROR, requestId, "Unsupported operation " + code);
+                }
+            } catch (UnsupportedActionException | InvalidTriggerException | IllegalArgumentException e) {
+                respond(GatewayProtocol.ERROR, requestId, String.valueOf(e.getMessage()));
+            } catch (BufferUnderflowException e) {
+                respond(GatewayProtocol.ERROR, requestId, "Malformed request");
+            }
+        }
+
+        private void status(int requestId, int deviceId) {
+            Device device = hub.getDevice(deviceId);
+            if (device == null) {
+                respond(GatewayProtocol.ERROR, requestId, "Device not found with id - " + deviceId);
+                return;
+            }
+            long word = device instanceof StatefulDevice stateful ? stateful.stateWord() : GatewayProtocol.NO_STATE_WORD;
+            String summary = device.statusSummary();
+            ByteBuffer buffer = reserve(GatewayProtocol.HEADER_BYTES + 8 + GatewayProtocol.maxStringBytes(summary));
+            int start = buffer.position();
+            buffer.putInt(0).put(GatewayProtocol.OK).putInt(requestId).putLong(word);
+            GatewayProtocol.putString(buffer, summary);
+            buffer.putInt(start, buffer.position() - start - 4);
+        }
+
+        private void subscribe(int requestId) {
+            if (!subscribed) {
+                subscribed = true;
+                subscriptionId = requestId;
+                hub.registerObserver(this);
+            }
+        }
+
+        /** Called by the hub on whichever thread changed a device. */
+        @Override
+        public void update(String message) {
+            if (pendingEvents.incrementAndGet() > MAX_PENDING_EVENTS) {
+                pendingEvents.decrementAndGet();
+                droppedEvents.increment();
+                return;
+            }
+            events.add(message);
+            if (scheduled.compareAndSet(false, true)) {
+                reactor.withEvents.add(this);
+                reactor.selector.wakeup(); // also when called on the reactor itself, so its next select returns
+            }
+        }
+
+        /**
+         * Moves queued events into the output buffer, about one buffer per write. Nothing is moved while earlier
+         * output is unwritten; the events wait in the queue, bounded by {@value #MAX_PENDING_EVENTS}, and are
+         * picked up again once the socket is writable.
+         */
+        void writeEvents() throws IOException {
+            while (!closed && out.position() == 0 && !events.isEmpty()) {
+                String message;
+                while (out.position() < BUFFER_BYTES && (message = events.poll()) != null) {
+                    pendingEvents.decrementAndGet();
+                    respond(GatewayProtocol.EVENT, subscriptionId, message);
+                }
+                flush();
+            }
+        }
+
+        private void respond(byte status, int requestId) {
+            reserve(GatewayProtocol.HEADER_BYTES).putInt(GatewayProtocol.HEADER_BYTES - 4).put(status).putInt(requestId);
+        }
+
+        private void respond(byte status, int requestId, String message) {
+            ByteBuffer buffer = reserve(GatewayProtocol.HEADER_BYTES + GatewayProtocol.maxStringBytes(message));
+            int start = buffer.position();
+            buffer.putInt(0).put(status).putInt(requestId);
+            GatewayProtocol.putString(buffer, message);
+            buffer.putInt(start, buffer.position() - start - 4);
+        }
+
+        private ByteBuffer reserve(int bytes) {
+            if (out.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+                out.flip();
+                grown.put(out);
+                out = grown;
+            }
+            return out;
+        }
+
+        /**
+         * Writes buffered responses. Whatever the socket does not take waits for the next writable event, and
+         * reading from this connection pauses until it has been written.
+         */
+        void flush() throws IOException {
+            if (closed) {
+                return;
+            }
+            out.flip();
+            if (out.hasRemaining()) {
+                channel.write(out);
+            }
+            boolean pending = out.hasRemaining();
+            peakBufferBytes.accumulateAndGet(out.capacity(), Math::max);
+            out.compact();
+            if (!pending && out.capacity() > BUFFER_BYTES) {
+                out = ByteBuffer.allocate(BUFFER_BYTES); // give back the space a large batch needed
+            }
+            key.interestOps(pending ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (subscribed) {
+                hub.unregisterObserver(this);
+            }
+            connections.decrementAndGet();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // the connection is gone either way
+            }
+        }
+    }
+}
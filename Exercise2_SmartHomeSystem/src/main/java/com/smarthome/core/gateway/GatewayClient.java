@@ -0,0 +1,184 @@
+package com.smarthome.core.gateway;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Blocking client for {@link CommandGateway}. Not thread-safe; use one client per thread.
+ *
+ * <p>Request methods only queue the request and return its id. {@link #flush()} sends everything queued in one
+ * write and {@link #read()} returns the next response, so a caller can pipeline as many requests as it likes
+ * before reading. {@link #call} does both for a single request. The gateway stops reading from a connection
+ * whose responses are not being read, so keep the requests in flight within what the socket buffers hold, a few
+ * hundred small commands, before reading their responses.
+ */
+public final class GatewayClient implements AutoCloseable {
+    private final SocketChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocate(GatewayProtocol.MAX_FRAME_BYTES);
+    private final ByteBuffer in = ByteBuffer.allocate(GatewayProtocol.MAX_FRAME_BYTES);
+    private int nextRequestId = 1;
+    private int frameStart;
+
+    /** One frame received from the gateway. */
+    public record Response(byte status, int requestId, long stateWord, String message) {
+        public boolean ok() {
+            return status == GatewayProtocol.OK;
+        }
+    }
+
+    private GatewayClient(SocketChannel channel) {
+        this.channel = channel;
+        in.flip();
+    }
+
+    public static GatewayClient connect(SocketAddress address) throws IOException {
+        SocketChannel channel = address instanceof UnixDomainSocketAddress
+                ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                : SocketChannel.open();
+        try {
+            channel.connect(address);
+            if (address instanceof InetSocketAddress) {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new GatewayClient(channel);
+    }
+
+    public int turnOn(int deviceId) throws IOException {
+        request(GatewayProtocol.TURN_ON, 4).putInt(deviceId);
+        return lastRequestId();
+    }
+
+    public int turnOff(int deviceId) throws IOException {
+        request(GatewayProtocol.TURN_OFF, 4).putInt(deviceId);
+        return lastRequestId();
+    }
+
+    public int setTemperature(int deviceId, int temperature) throws IOException {
+        request(GatewayProtocol.SET_TEMPERATURE, 8).putInt(deviceId).putInt(temperature);
+        return lastRequestId();
+    }
+
+    public int setSchedule(int deviceId, String time, String action) throws IOException {
+        ByteBuffer buffer = request(GatewayProtocol.SET_SCHEDULE,
+                4 + GatewayProtocol.maxStringBytes(time) + GatewayProtocol.maxStringBytes(action));
+        buffer.putInt(deviceId);
+        GatewayProtocol.putString(buffer, time);
+        GatewayProtocol.putString(buffer, action);
+        return finish();
+    }
+
+    public int addTrigger(String condition, String action) throws IOException {
+        ByteBuffer buffer = request(GatewayProtocol.ADD_TRIGGER,
+                GatewayProtocol.maxStringBytes(condition) + GatewayProtocol.maxStringBytes(action));
+        GatewayProtocol.putString(buffer, condition);
+        GatewayProtocol.putString(buffer, action);
+        return finish();
+    }
+
+    public int status(int deviceId) throws IOException {
+        request(GatewayProtocol.STATUS, 4).putInt(deviceId);
+        return lastRequestId();
+    }
+
+    /** Asks for every hub notification; they arrive as {@link GatewayProtocol#EVENT} responses. */
+    public int subscribe() throws IOException {
+        request(GatewayProtocol.SUBSCRIBE, 0);
+        return lastRequestId();
+    }
+
+    /** Sends the queued request and returns its response, skipping any events received before it. */
+    public Response call(int requestId) throws IOException {
+        flush();
+        while (true) {
+            Response response = read();
+            if (response.requestId() == requestId && response.status() != GatewayProtocol.EVENT) {
+                return response;
+            }
+        }
+    }
+
+    /** Sends every queued request. */
+    public void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    /** Blocks for the next response or event. */
+    public Response read() throws IOException {
+        fill(4);
+        int length = in.getInt(in.position());
+        if (length < GatewayProtocol.HEADER_BYTES - 4 || length > GatewayProtocol.MAX_FRAME_BYTES - 4) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        fill(4 + length);
+        int end = in.position() + 4 + length;
+        in.position(in.position() + 4);
+        byte status = in.get();
+        int requestId = in.getInt();
+        long word = GatewayProtocol.NO_STATE_WORD;
+        String message = null;
+        if (in.position() < end) {
+            if (status == GatewayProtocol.OK) {
+                word = in.getLong();
+            }
+            message = GatewayProtocol.getString(in);
+        }
+        in.position(end);
+        return new Response(status, requestId, word, message);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /** Starts a frame, flushing first if it would not fit. The length is filled in by {@link #finish()}. */
+    private ByteBuffer request(byte code, int payloadBytes) throws IOException {
+        if (out.remaining() < GatewayProtocol.HEADER_BYTES + payloadBytes) {
+            flush();
+            if (out.remaining() < GatewayProtocol.HEADER_BYTES + payloadBytes) {
+                throw new IllegalArgumentException("Request too large for the gateway protocol");
+            }
+        }
+        frameStart = out.position();
+        return out.putInt(GatewayProtocol.HEADER_BYTES - 4 + payloadBytes).put(code).putInt(nextRequestId++);
+    }
+
+    /** Rewrites the length of a frame with variable-size strings. */
+    private int finish() {
+        out.putInt(frameStart, out.position() - frameStart - 4);
+        return lastRequestId();
+    }
+
+    private int lastRequestId() {
+        return nextRequestId - 1;
+    }
+
+    /** Reads until at least {@code bytes} bytes are buffered. */
+    private void fill(int bytes) throws IOException {
+        if (in.remaining() >= bytes) {
+            return;
+        }
+        in.compact();
+        while (in.position() < bytes) {
+            if (channel.read(in) < 0) {
+                throw new EOFException("Gateway closed the connection");
+            }
+        }
+        in.flip();
+    }
+}
@@ -0,0 +1,180 @@
+package com.smarthome.core.gateway;
+
+import com.smarthome.core.SmartHomeHub;
+import com.smarthome.core.loadgen.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Drives a {@link CommandGateway} from many concurrent connections and reports sustained requests per second and
+ * latency percentiles.
+ *
+ * <p>Each client thread owns one connection and keeps {@code pipeline} requests in flight: it writes a batch of
+ * on/off commands (and one status query in ten) with one write, then reads the batch's responses. Every
+ * request's latency runs from the moment its batch was written to the moment its response was read. Without an
+ * {@code address}, a gateway with {@code devices} lights is started in this process, on loopback TCP or, with
+ * {@code transport=unix}, on a Unix domain socket.
+ *
+ * <p>Usage: {@code java -cp out com.smarthome.core.gateway.GatewayLoadClient clients=64 pipeline=16 duration=10}
+ * <br>Other keys: {@code address} ({@code tcp://host:port} or {@code unix:/path}), {@code transport},
+ * {@code devices}, {@code reactors}, {@code warmup}.
+ */
+public final class GatewayLoadClient {
+    private final SocketAddress address;
+    private final int clients;
+    private final int pipeline;
+    private final int devices;
+    private final LongAdder errors = new LongAdder();
+    private volatile boolean running = true;
+    private volatile boolean measuring;
+
+    public GatewayLoadClient(SocketAddress address, int clients, int pipeline, int devices) {
+        if (clients < 1 || pipeline < 1 || devices < 1) {
+            throw new IllegalArgumentException("clients, pipeline and devices must be positive");
+        }
+        this.address = address;
+        this.clients = clients;
+        this.pipeline = pipeline;
+        this.devices = devices;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value argument, got - " + arg);
+            }
+            values.put(arg.substring(0, eq).trim(), arg.substring(eq + 1).trim());
+        }
+        int clients = Integer.parseInt(values.getOrDefault("clients", "32"));
+        int pipeline = Integer.parseInt(values.getOrDefault("pipeline", "16"));
+        int devices = Integer.parseInt(values.getOrDefault("devices", "10000"));
+        long duration = Long.parseLong(values.getOrDefault("duration", "10"));
+        long warmup = Long.parseLong(values.getOrDefault("warmup", "2"));
+        int reactors = Integer.parseInt(values.getOrDefault("reactors",
+                String.valueOf(Math.max(1, Runtime.getRuntime().availableProcessors() / 2))));
+        Logger.getLogger(SmartHomeHub.class.getName()).setLevel(Level.WARNING);
+
+        CommandGateway embedded = null;
+        SocketAddress address;
+        if (values.containsKey("address")) {
+            address = GatewayProtocol.parseAddress(values.get("address"));
+        } else {
+            SmartHomeHub hub = SmartHomeHub.getInstance();
+            CommandGateway.provisionLights(hub, devices);
+            SocketAddress bind = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+            if ("unix".equalsIgnoreCase(values.get("transport"))) {
+                Path directory = Files.createTempDirectory("smarthome-gateway");
+                directory.toFile().deleteOnExit();
+                bind = UnixDomainSocketAddress.of(directory.resolve("hub.sock"));
+            }
+            embedded = new CommandGateway(hub, bind, reactors);
+            address = embedded.address();
+        }
+        System.out.printf("Gateway load - address=%s clients=%d pipeline=%d devices=%d duration=%ds%n",
+                address, clients, pipeline, devices, duration);
+        try {
+            new GatewayLoadClient(address, clients, pipeline, devices).run(warmup, duration);
+        } finally {
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    public void run(long warmupSeconds, long durationSeconds) throws InterruptedException, IOException {
+        Client[] workers = new Client[clients];
+        Thread[] threads = new Thread[clients];
+        for (int i = 0; i < clients; i++) {
+            workers[i] = new Client(GatewayClient.connect(address), new SplittableRandom(42 + i));
+            threads[i] = new Thread(workers[i], "gateway-client-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        errors.reset();
+        measuring = true;
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(durationSeconds);
+        measuring = false;
+        long elapsed = System.nanoTime() - start;
+        running = false;
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+
+        LatencyHistogram merged = new LatencyHistogram();
+        for (Client worker : workers) {
+            merged.add(worker.histogram);
+        }
+        double seconds = elapsed / 1e9;
+        System.out.println("=== Gateway load summary ===");
+        System.out.printf("requests=%,d errors=%,d throughput=%,.0f requests/s over %d connections%n",
+                merged.count(), errors.sum(), merged.count() / seconds, clients);
+        System.out.printf("latency (us): mean=%.1f p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                merged.mean() / 1e3, merged.percentile(50) / 1e3, merged.percentile(90) / 1e3,
+                merged.percentile(99) / 1e3, merged.percentile(99.9) / 1e3, merged.max() / 1e3);
+    }
+
+    private final class Client implements Runnable {
+        private final GatewayClient client;
+        private final SplittableRandom random;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        Client(GatewayClient client, SplittableRandom random) {
+            this.client = client;
+            this.random = random;
+        }
+
+        @Override
+        public void run() {
+            try (client) {
+                while (running) {
+                    for (int i = 0; i < pipeline; i++) {
+                        int id = 1 + random.nextInt(devices);
+                        int roll = random.nextInt(10);
+                        if (roll == 0) {
+                            client.status(id);
+                        } else if (roll % 2 == 0) {
+                            client.turnOn(id);
+                        } else {
+                            client.turnOff(id);
+                        }
+                    }
+                    long sent = System.nanoTime();
+                    client.flush();
+                    boolean record = measuring;
+                    for (int i = 0; i < pipeline; i++) {
+                        GatewayClient.Response response = client.read();
+                        if (record) {
+                            histogram.record(System.nanoTime() - sent);
+                            if (!response.ok()) {
+                                errors.increment();
+                            }
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                if (running) {
+                    errors.increment();
+                    System.out.println("Client failed - " + e.getMessage());
+                }
+            }
+        }
+    }
+}
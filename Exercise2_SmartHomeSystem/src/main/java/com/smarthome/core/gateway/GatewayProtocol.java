@@ -0,0 +1,93 @@
+package com.smarthome.core.gateway;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Binary protocol spoken between {@link CommandGateway} and {@link GatewayClient}.
+ *
+ * <p>Every frame is {@code [length:int][code:byte][requestId:int][payload]}, big-endian, where {@code length}
+ * counts the bytes after itself. Strings are {@code [byteLength:short][UTF-8 bytes]}. A client may send any number
+ * of requests before reading responses; they are executed and answered in order, each response carrying the
+ * request id it answers.
+ *
+ * <pre>
+ * request            payload                        response payload
+ * TURN_ON            deviceId:int                   -
+ * TURN_OFF           deviceId:int                   -
+ * SET_TEMPERATURE    deviceId:int, value:int        -
+ * SET_SCHEDULE       deviceId:int, time, action     -
+ * ADD_TRIGGER        condition, action              -
+ * STATUS             deviceId:int                   stateWord:long, summary
+ * SUBSCRIBE          -                              -, then one EVENT frame per hub notification
+ * </pre>
+ *
+ * An {@link #ERROR} response carries a message instead. {@link #EVENT} frames carry the notification text and
+ * the id of the {@code SUBSCRIBE} request; they may arrive between other responses.
+ */
+public final class GatewayProtocol {
+    public static final byte TURN_ON = 1;
+    public static final byte TURN_OFF = 2;
+    public static final byte SET_TEMPERATURE = 3;
+    public static final byte SET_SCHEDULE = 4;
+    public static final byte ADD_TRIGGER = 5;
+    public static final byte STATUS = 6;
+    public static final byte SUBSCRIBE = 7;
+
+    public static final byte OK = 0;
+    public static final byte ERROR = 1;
+    public static final byte EVENT = 2;
+
+    /** Bytes before the payload: length, code and request id. */
+    public static final int HEADER_BYTES = 9;
+    /** Largest frame accepted, including the header; a larger one closes the connection. */
+    public static final int MAX_FRAME_BYTES = 64 * 1024;
+    /** State word sent in a STATUS response for a device that does not track its state. */
+    public static final long NO_STATE_WORD = -1L;
+
+    private GatewayProtocol() {
+    }
+
+    /**
+     * Parses {@code tcp://host:port} or {@code unix:/path/to/socket}.
+     */
+    public static SocketAddress parseAddress(String address) {
+        if (address.startsWith("unix:")) {
+            return UnixDomainSocketAddress.of(Path.of(address.substring("unix:".length())));
+        }
+        String hostPort = address.startsWith("tcp://") ? address.substring("tcp://".length()) : address;
+        int colon = hostPort.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Expected tcp://host:port or unix:/path, got - " + address);
+        }
+        return new InetSocketAddress(hostPort.substring(0, colon), Integer.parseInt(hostPort.substring(colon + 1)));
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("String too long for the gateway protocol");
+        }
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /** Encoded size of a string, at most three bytes per char. */
+    static int maxStringBytes(String value) {
+        return 2 + value.length() * 3;
+    }
+}
@@ -0,0 +1,193 @@
+package com.smarthome.core.history;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Gorilla-style compression for (timestamp, value) samples: timestamps as delta-of-delta with variable
+ * length prefixes, values as the XOR against the previous value storing only the meaningful bits.
+ * Regular readings (fixed interval, slowly changing temperature) cost a couple of bits each.
+ */
+final class GorillaCodec {
+    /** Upper bound on the bits a single sample can take, used to decide when a block is full. */
+    static final int MAX_SAMPLE_BITS = 4 + 64 + 2 + 5 + 6 + 64;
+
+    private GorillaCodec() {
+    }
+
+    /** Appends samples to a block; encoder state is kept between appends. */
+    static final class Encoder {
+        private ByteBuffer block;
+        private int bitPosition;
+        private int count;
+        private long previousTimestamp;
+        private long previousDelta;
+        private long previousBits;
+        private int previousLeading;
+        private int previousTrailing;
+
+        void reset(ByteBuffer block) {
+            this.block = block;
+            this.bitPosition = 0;
+            this.count = 0;
+        }
+
+        boolean hasRoomForSample() {
+            return block.capacity() * 8 - bitPosition >= MAX_SAMPLE_BITS;
+        }
+
+        int count() {
+            return count;
+        }
+
+        int bitLength() {
+            return bitPosition;
+        }
+
+        void append(long timestamp, double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            if (count == 0) {
+                writeBits(timestamp, 64);
+                writeBits(bits, 64);
+                previousDelta = 0;
+                previousLeading = -1;
+            } else {
+                long delta = timestamp - previousTimestamp;
+                writeDeltaOfDelta(delta - previousDelta);
+                previousDelta = delta;
+                writeValue(bits ^ previousBits);
+            }
+            previousTimestamp = timestamp;
+            previousBits = bits;
+            count++;
+        }
+
+        private void writeDeltaOfDelta(long dod) {
+            if (dod == 0) {
+                writeBits(0, 1);
+            } else if (dod >= -63 && dod <= 64) {
+                writeBits(0b10, 2);
+                writeBits(dod + 63, 7);
+            } else if (dod >= -255 && dod <= 256) {
+                writeBits(0b110, 3);
+                writeBits(dod + 255, 9);
+            } else if (dod >= -2047 && dod <= 2048) {
+                writeBits(0b1110, 4);
+                writeBits(dod + 2047, 12);
+            } else {
+                writeBits(0b1111, 4);
+                writeBits(dod, 64);
+            }
+        }
+
+        private void writeValue(long xor) {
+            if (xor == 0) {
+                writeBits(0, 1);
+                return;
+            }
+            int leading = Math.min(31, Long.numberOfLeadingZeros(xor));
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                writeBits(0b10, 2);
+                writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int meaningful = 64 - leading - trailing;
+                writeBits(0b11, 2);
+                writeBits(leading, 5);
+                writeBits(meaningful - 1, 6);
+                writeBits(xor >>> trailing, meaningful);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+
+        private void writeBits(long value, int bitCount) {
+            int remaining = bitCount;
+            while (remaining > 0) {
+                int byteIndex = bitPosition >>> 3;
+                int bitOffset = bitPosition & 7;
+                int free = 8 - bitOffset;
+                int take = Math.min(free, remaining);
+                int bits = (int) ((value >>> (remaining - take)) & ((1L << take) - 1));
+                int current = bitOffset == 0 ? 0 : block.get(byteIndex);
+                block.put(byteIndex, (byte) (current | (bits << (free - take))));
+                bitPosition += take;
+                remaining -= take;
+            }
+        }
+    }
+
+    /** Decodes {@code count} samples from a block and passes those within [from, to] to the consumer. */
+    static void decode(ByteBuffer block, int count, long fromMillis, long toMillis, SampleConsumer consumer) {
+        BitReader in = new BitReader(block);
+        long timestamp = 0;
+        long delta = 0;
+        long bits = 0;
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0) {
+                timestamp = in.read(64);
+                bits = in.read(64);
+            } else {
+                delta += readDeltaOfDelta(in);
+                timestamp += delta;
+                if (in.read(1) == 1) {
+                    if (in.read(1) == 1) {
+                        leading = (int) in.read(5);
+                        int meaningful = (int) in.read(6) + 1;
+                        trailing = 64 - leading - meaningful;
+                    }
+                    int meaningful = 64 - leading - trailing;
+                    bits ^= in.read(meaningful) << trailing;
+                }
+            }
+            if (timestamp > toMillis) {
+                return; // samples are appended in time order
+            }
+            if (timestamp >= fromMillis) {
+                consumer.accept(timestamp, Double.longBitsToDouble(bits));
+            }
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader in) {
+        if (in.read(1) == 0) {
+            return 0;
+        }
+        if (in.read(1) == 0) {
+            return in.read(7) - 63;
+        }
+        if (in.read(1) == 0) {
+            return in.read(9) - 255;
+        }
+        if (in.read(1) == 0) {
+            return in.read(12) - 2047;
+        }
+        return in.read(64);
+    }
+
+    private static final class BitReader {
+        private final ByteBuffer block;
+        private int bitPosition;
+
+        BitReader(ByteBuffer block) {
+            this.block = block;
+        }
+
+        long read(int bitCount) {
+            long value = 0;
+            int remaining = bitCount;
+            while (remaining > 0) {
+                int bitOffset = bitPosition & 7;
+                int available = 8 - bitOffset;
+                int take = Math.min(available, remaining);
+                int current = block.get(bitPosition >>> 3) & 0xFF;
+                int bits = (current >>> (available - take)) & ((1 << take) - 1);
+                value = (value << take) | bits;
+                bitPosition += take;
+                remaining -= take;
+            }
+            return value;
+        }
+    }
+}
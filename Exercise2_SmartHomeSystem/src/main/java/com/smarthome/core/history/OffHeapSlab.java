@@ -0,0 +1,35 @@
+package com.smarthome.core.history;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Bump allocator that carves fixed regions out of large direct buffers, so per-device storage lives
+ * outside the Java heap without one {@code Cleaner}-tracked buffer per device. Regions are never freed.
+ */
+final class OffHeapSlab {
+    private final int chunkSize;
+    private ByteBuffer chunk;
+    private long allocatedBytes;
+
+    OffHeapSlab(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    synchronized ByteBuffer allocate(int size) {
+        if (size > chunkSize) {
+            throw new IllegalArgumentException("Region of " + size + " bytes exceeds slab chunk size " + chunkSize);
+        }
+        if (chunk == null || chunk.remaining() < size) {
+            chunk = ByteBuffer.allocateDirect(chunkSize).order(ByteOrder.LITTLE_ENDIAN);
+            allocatedBytes += chunkSize;
+        }
+        ByteBuffer region = chunk.slice(chunk.position(), size).order(ByteOrder.LITTLE_ENDIAN);
+        chunk.position(chunk.position() + size);
+        return region;
+    }
+
+    synchronized long allocatedBytes() {
+        return allocatedBytes;
+    }
+}
@@ -0,0 +1,19 @@
+package com.smarthome.core.history;
+
+/**
+ * Rollup resolutions kept for every series.
+ */
+public enum Resolution {
+    MINUTE(60_000L),
+    HOUR(3_600_000L);
+
+    private final long widthMillis;
+
+    Resolution(long widthMillis) {
+        this.widthMillis = widthMillis;
+    }
+
+    public long widthMillis() {
+        return widthMillis;
+    }
+}
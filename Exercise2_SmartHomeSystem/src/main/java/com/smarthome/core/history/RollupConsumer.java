@@ -0,0 +1,9 @@
+package com.smarthome.core.history;
+
+/**
+ * Receives downsampled buckets from a rollup query without boxing.
+ */
+@FunctionalInterface
+public interface RollupConsumer {
+    void accept(long bucketStartMillis, double min, double max, double average, long count);
+}
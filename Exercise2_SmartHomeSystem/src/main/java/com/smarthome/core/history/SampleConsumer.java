@@ -0,0 +1,9 @@
+package com.smarthome.core.history;
+
+/**
+ * Receives raw samples from a range query without boxing.
+ */
+@FunctionalInterface
+public interface SampleConsumer {
+    void accept(long timestampMillis, double value);
+}
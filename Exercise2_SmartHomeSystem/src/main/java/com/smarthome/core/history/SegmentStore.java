@@ -0,0 +1,172 @@
+package com.smarthome.core.history;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only, memory-mapped segment files holding compressed blocks that aged out of the in-memory rings.
+ * Each record is {@code [deviceId:int][count:int][firstTs:long][lastTs:long][byteLength:int][previous:long][bytes]},
+ * where {@code previous} is the address of the same device's preceding block. A device's spilled blocks therefore
+ * form a chain on disk and the heap only holds the address of the newest one.
+ *
+ * <p>Segment files already in the directory are reopened, not overwritten: their records are scanned once to find
+ * each device's newest block and the end of the data, and new blocks are appended after it.
+ */
+final class SegmentStore implements AutoCloseable {
+    static final int RECORD_HEADER_BYTES = 4 + 4 + 8 + 8 + 4 + 8;
+    static final long NO_BLOCK = -1;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    /** Newest block address and total sample count of every device found when reopening, by device id. */
+    private final Map<Integer, long[]> recovered = new HashMap<>();
+    private MappedByteBuffer current;
+
+    SegmentStore(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create history directory " + directory, e);
+        }
+        recover();
+    }
+
+    /**
+     * Writes a block and returns its address ({@code segment index << 32 | offset of the payload}).
+     *
+     * @param previous address of the device's preceding block, or {@link #NO_BLOCK}
+     */
+    synchronized long append(int deviceId, int count, long firstTimestamp, long lastTimestamp, long previous,
+                             ByteBuffer block, int byteLength) {
+        int recordSize = RECORD_HEADER_BYTES + byteLength;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("Block of " + byteLength + " bytes does not fit a segment");
+        }
+        if (current == null || current.remaining() < recordSize) {
+            current = map(segments.size());
+            segments.add(current);
+        }
+        current.putInt(deviceId).putInt(count).putLong(firstTimestamp).putLong(lastTimestamp).putInt(byteLength)
+                .putLong(previous);
+        long address = ((long) (segments.size() - 1) << 32) | current.position();
+        current.put(current.position(), block, 0, byteLength);
+        current.position(current.position() + byteLength);
+        return address;
+    }
+
+    /** Read-only view of the payload of a block previously written with {@link #append}. */
+    synchronized ByteBuffer block(long address) {
+        return segment(address).slice((int) address, header(address, 24)).asReadOnlyBuffer();
+    }
+
+    synchronized int count(long address) {
+        return header(address, 4);
+    }
+
+    synchronized long firstTimestamp(long address) {
+        return segment(address).getLong(headerOffset(address) + 8);
+    }
+
+    synchronized long lastTimestamp(long address) {
+        return segment(address).getLong(headerOffset(address) + 16);
+    }
+
+    synchronized long previous(long address) {
+        return segment(address).getLong(headerOffset(address) + 28);
+    }
+
+    /** Newest block of a device found when the directory was reopened, or {@link #NO_BLOCK}. */
+    synchronized long recoveredBlock(int deviceId) {
+        long[] entry = recovered.get(deviceId);
+        return entry == null ? NO_BLOCK : entry[0];
+    }
+
+    /** Number of samples in the blocks of a device found when the directory was reopened. */
+    synchronized long recoveredSamples(int deviceId) {
+        long[] entry = recovered.get(deviceId);
+        return entry == null ? 0 : entry[1];
+    }
+
+    synchronized Iterable<Integer> recoveredDevices() {
+        return new ArrayList<>(recovered.keySet());
+    }
+
+    synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    private MappedByteBuffer segment(long address) {
+        return segments.get((int) (address >>> 32));
+    }
+
+    private int headerOffset(long address) {
+        return (int) address - RECORD_HEADER_BYTES;
+    }
+
+    private int header(long address, int field) {
+        return segment(address).getInt(headerOffset(address) + field);
+    }
+
+    /** Maps the existing segment files and finds where each one's records end; a record without samples ends it. */
+    private void recover() {
+        for (int index = 0; Files.exists(file(index)); index++) {
+            MappedByteBuffer segment = map(index);
+            segments.add(segment);
+            int position = 0;
+            while (segmentSize - position >= RECORD_HEADER_BYTES && segment.getInt(position + 4) > 0) {
+                int byteLength = segment.getInt(position + 24);
+                if (byteLength < 0 || byteLength > segmentSize - position - RECORD_HEADER_BYTES) {
+                    break;
+                }
+                long[] entry = recovered.computeIfAbsent(segment.getInt(position), id -> new long[]{NO_BLOCK, 0});
+                entry[0] = ((long) index << 32) | (position + RECORD_HEADER_BYTES);
+                entry[1] += segment.getInt(position + 4);
+                position += RECORD_HEADER_BYTES + byteLength;
+            }
+            segment.position(position);
+            current = segment;
+        }
+    }
+
+    private MappedByteBuffer map(int index) {
+        Path file = file(index);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long existing = channel.size();
+            if (existing != 0 && existing != segmentSize) {
+                throw new IllegalArgumentException("History segment " + file + " has " + existing
+                        + " bytes; expected " + segmentSize);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map history segment " + file, e);
+        }
+    }
+
+    private Path file(int index) {
+        return directory.resolve(String.format("segment-%06d.dat", index));
+    }
+
+    @Override
+    public synchronized void close() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.smarthome.core.history;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Embedded time-series store for device readings such as thermostat temperatures.
+ *
+ * <p>Every device gets a ring of Gorilla-compressed blocks and 1m/1h rollup rings, all allocated off-heap,
+ * so heap usage stays constant per device no matter how many readings are ingested. When a ring wraps, the
+ * oldest block is appended to memory-mapped segment files (if a directory was given) and stays queryable;
+ * otherwise it is dropped. Samples for one device are expected in time order; older timestamps are clamped.
+ *
+ * <p>Closing a store with a directory also writes the in-memory blocks to the segment files. Opening a store on a
+ * directory that already holds segments continues from them: their samples stay queryable and new samples are
+ * appended. Rollups are not persisted, so they only cover samples recorded since the store was opened.
+ */
+public final class SensorHistoryStore implements AutoCloseable {
+    public static final int DEFAULT_BLOCK_BYTES = 1024;
+    public static final int DEFAULT_BLOCKS_PER_DEVICE = 4;
+    public static final int DEFAULT_MINUTE_BUCKETS = 120;
+    public static final int DEFAULT_HOUR_BUCKETS = 48;
+    private static final int SLAB_CHUNK_BYTES = 16 << 20;
+    private static final int SEGMENT_BYTES = 64 << 20;
+
+    private final Map<Integer, SeriesBuffer> series = new ConcurrentHashMap<>();
+    private final OffHeapSlab slab = new OffHeapSlab(SLAB_CHUNK_BYTES);
+    private final SegmentStore segments;
+    private final int blockBytes;
+    private final int blocksPerDevice;
+    private final int minuteBuckets;
+    private final int hourBuckets;
+
+    /** In-memory store with default sizing; blocks that age out of the ring are dropped. */
+    public SensorHistoryStore() {
+        this(null);
+    }
+
+    /** Store with default sizing that spills aged-out blocks to segment files in {@code segmentDirectory}. */
+    public SensorHistoryStore(Path segmentDirectory) {
+        this(segmentDirectory, DEFAULT_BLOCK_BYTES, DEFAULT_BLOCKS_PER_DEVICE, DEFAULT_MINUTE_BUCKETS, DEFAULT_HOUR_BUCKETS);
+    }
+
+    public SensorHistoryStore(Path segmentDirectory, int blockBytes, int blocksPerDevice, int minuteBuckets, int hourBuckets) {
+        if (blockBytes * 8 < 2 * GorillaCodec.MAX_SAMPLE_BITS || blocksPerDevice < 2 || minuteBuckets < 1 || hourBuckets < 1) {
+            throw new IllegalArgumentException("Invalid history sizing");
+        }
+        this.segments = segmentDirectory == null ? null : new SegmentStore(segmentDirectory, SEGMENT_BYTES);
+        this.blockBytes = blockBytes;
+        this.blocksPerDevice = blocksPerDevice;
+        this.minuteBuckets = minuteBuckets;
+        this.hourBuckets = hourBuckets;
+        if (segments != null) {
+            for (int deviceId : segments.recoveredDevices()) {
+                series.put(deviceId, newSeries(deviceId));
+            }
+        }
+    }
+
+    public void record(int deviceId, long timestampMillis, double value) {
+        SeriesBuffer buffer = series.get(deviceId);
+        if (buffer == null) {
+            buffer = series.computeIfAbsent(deviceId, this::newSeries);
+        }
+        buffer.record(timestampMillis, value);
+    }
+
+    /** Streams raw samples of a device with {@code from <= timestamp <= to} in time order. */
+    public void range(int deviceId, long fromMillis, long toMillis, SampleConsumer consumer) {
+        SeriesBuffer buffer = series.get(deviceId);
+        if (buffer != null) {
+            buffer.range(fromMillis, toMillis, consumer);
+        }
+    }
+
+    /** Streams the downsampled buckets of a device that start within [from, to] and are still retained. */
+    public void rollups(int deviceId, Resolution resolution, long fromMillis, long toMillis, RollupConsumer consumer) {
+        SeriesBuffer buffer = series.get(deviceId);
+        if (buffer != null) {
+            buffer.rollups(resolution, fromMillis, toMillis, consumer);
+        }
+    }
+
+    public long sampleCount(int deviceId) {
+        SeriesBuffer buffer = series.get(deviceId);
+        return buffer == null ? 0 : buffer.sampleCount();
+    }
+
+    public int deviceCount() {
+        return series.size();
+    }
+
+    /** Bytes reserved outside the Java heap for in-memory blocks and rollups. */
+    public long offHeapBytes() {
+        return slab.allocatedBytes();
+    }
+
+    private SeriesBuffer newSeries(int deviceId) {
+        ByteBuffer[] blocks = new ByteBuffer[blocksPerDevice];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = slab.allocate(blockBytes);
+        }
+        return new SeriesBuffer(deviceId, blocks,
+                slab.allocate(minuteBuckets * SeriesBuffer.ROLLUP_BYTES),
+                slab.allocate(hourBuckets * SeriesBuffer.ROLLUP_BYTES),
+                segments);
+    }
+
+    @Override
+    public void close() {
+        if (segments != null) {
+            for (SeriesBuffer buffer : series.values()) {
+                buffer.flush();
+            }
+            segments.close();
+        }
+    }
+}
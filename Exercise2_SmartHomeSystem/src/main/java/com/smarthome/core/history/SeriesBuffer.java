@@ -0,0 +1,175 @@
+package com.smarthome.core.history;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * History of one device: a ring of compressed off-heap blocks, spilled to the {@link SegmentStore} when the
+ * ring wraps, plus off-heap 1m/1h rollup rings. The heap only holds small per-block headers and the address of
+ * the newest spilled block; older spilled blocks are reached through the chain kept in the segment files, so heap
+ * usage does not grow with history. All methods are guarded by the instance lock.
+ */
+final class SeriesBuffer {
+    /** Rollup bucket layout: bucketStart:long, min:double, max:double, sum:double, count:long. */
+    static final int ROLLUP_BYTES = 40;
+
+    private final int deviceId;
+    private final ByteBuffer[] blocks;
+    private final int[] blockCounts;
+    private final int[] blockBits;
+    private final long[] blockFirst;
+    private final long[] blockLast;
+    private final ByteBuffer minuteRollups;
+    private final ByteBuffer hourRollups;
+    private final SegmentStore segments;
+    private final GorillaCodec.Encoder encoder = new GorillaCodec.Encoder();
+
+    private int head;
+    private int sealed;
+    private long lastTimestamp = Long.MIN_VALUE;
+    private long sampleCount;
+
+    private long newestSpilled = SegmentStore.NO_BLOCK;
+
+    SeriesBuffer(int deviceId, ByteBuffer[] blocks, ByteBuffer minuteRollups, ByteBuffer hourRollups, SegmentStore segments) {
+        this.deviceId = deviceId;
+        this.blocks = blocks;
+        this.blockCounts = new int[blocks.length];
+        this.blockBits = new int[blocks.length];
+        this.blockFirst = new long[blocks.length];
+        this.blockLast = new long[blocks.length];
+        this.minuteRollups = minuteRollups;
+        this.hourRollups = hourRollups;
+        this.segments = segments;
+        encoder.reset(blocks[0]);
+        if (segments != null) {
+            newestSpilled = segments.recoveredBlock(deviceId);
+            sampleCount = segments.recoveredSamples(deviceId);
+            if (newestSpilled != SegmentStore.NO_BLOCK) {
+                lastTimestamp = segments.lastTimestamp(newestSpilled);
+            }
+        }
+    }
+
+    synchronized void record(long timestamp, double value) {
+        long ts = Math.max(timestamp, lastTimestamp); // keep blocks ordered for range scans
+        if (!encoder.hasRoomForSample()) {
+            rotate();
+        }
+        if (encoder.count() == 0) {
+            blockFirst[head] = ts;
+        }
+        encoder.append(ts, value);
+        blockCounts[head] = encoder.count();
+        blockBits[head] = encoder.bitLength();
+        blockLast[head] = ts;
+        lastTimestamp = ts;
+        sampleCount++;
+        roll(minuteRollups, Resolution.MINUTE.widthMillis(), ts, value);
+        roll(hourRollups, Resolution.HOUR.widthMillis(), ts, value);
+    }
+
+    private void rotate() {
+        head = (head + 1) % blocks.length;
+        if (sealed == blocks.length - 1) {
+            spill(head); // the oldest block is about to be overwritten
+        } else {
+            sealed++;
+        }
+        blockCounts[head] = 0;
+        blockBits[head] = 0;
+        encoder.reset(blocks[head]);
+    }
+
+    private void spill(int slot) {
+        if (segments == null) {
+            return; // memory-only store: the oldest block is dropped
+        }
+        int bytes = (blockBits[slot] + 7) >>> 3;
+        newestSpilled = segments.append(deviceId, blockCounts[slot], blockFirst[slot], blockLast[slot], newestSpilled,
+                blocks[slot], bytes);
+    }
+
+    /** Writes every in-memory block to the segment files, oldest first, and empties the ring. */
+    synchronized void flush() {
+        if (segments == null) {
+            return;
+        }
+        for (int i = sealed; i >= 0; i--) {
+            int slot = Math.floorMod(head - i, blocks.length);
+            if (blockCounts[slot] > 0) {
+                spill(slot);
+            }
+        }
+        Arrays.fill(blockCounts, 0);
+        Arrays.fill(blockBits, 0);
+        sealed = 0;
+        encoder.reset(blocks[head]);
+    }
+
+    synchronized void range(long fromMillis, long toMillis, SampleConsumer consumer) {
+        // the chain runs newest to oldest; collect the overlapping blocks, then decode them in time order
+        long[] matching = new long[8];
+        int matches = 0;
+        for (long address = newestSpilled; address != SegmentStore.NO_BLOCK && segments.lastTimestamp(address) >= fromMillis;
+             address = segments.previous(address)) {
+            if (segments.firstTimestamp(address) <= toMillis) {
+                if (matches == matching.length) {
+                    matching = Arrays.copyOf(matching, matches * 2);
+                }
+                matching[matches++] = address;
+            }
+        }
+        for (int i = matches - 1; i >= 0; i--) {
+            GorillaCodec.decode(segments.block(matching[i]), segments.count(matching[i]), fromMillis, toMillis, consumer);
+        }
+        for (int i = sealed; i >= 0; i--) {
+            int slot = Math.floorMod(head - i, blocks.length);
+            if (blockCounts[slot] > 0 && blockLast[slot] >= fromMillis && blockFirst[slot] <= toMillis) {
+                GorillaCodec.decode(blocks[slot], blockCounts[slot], fromMillis, toMillis, consumer);
+            }
+        }
+    }
+
+    synchronized void rollups(Resolution resolution, long fromMillis, long toMillis, RollupConsumer consumer) {
+        ByteBuffer ring = resolution == Resolution.MINUTE ? minuteRollups : hourRollups;
+        int slots = ring.capacity() / ROLLUP_BYTES;
+        long width = resolution.widthMillis();
+        if (sampleCount == 0) {
+            return;
+        }
+        long newestBucket = Math.floorDiv(lastTimestamp, width);
+        long firstBucket = Math.max(Math.floorDiv(fromMillis, width), newestBucket - slots + 1);
+        long lastBucket = Math.min(Math.floorDiv(toMillis, width), newestBucket);
+        for (long bucket = firstBucket; bucket <= lastBucket; bucket++) {
+            int offset = (int) Math.floorMod(bucket, (long) slots) * ROLLUP_BYTES;
+            long count = ring.getLong(offset + 32);
+            if (count > 0 && ring.getLong(offset) == bucket * width) {
+                consumer.accept(bucket * width, ring.getDouble(offset + 8), ring.getDouble(offset + 16),
+                        ring.getDouble(offset + 24) / count, count);
+            }
+        }
+    }
+
+    synchronized long sampleCount() {
+        return sampleCount;
+    }
+
+    private static void roll(ByteBuffer ring, long width, long timestamp, double value) {
+        int slots = ring.capacity() / ROLLUP_BYTES;
+        long bucketStart = Math.floorDiv(timestamp, width) * width;
+        int offset = (int) Math.floorMod(Math.floorDiv(timestamp, width), (long) slots) * ROLLUP_BYTES;
+        if (ring.getLong(offset) != bucketStart || ring.getLong(offset + 32) == 0) {
+            ring.putLong(offset, bucketStart);
+            ring.putDouble(offset + 8, value);
+            ring.putDouble(offset + 16, value);
+            ring.putDouble(offset + 24, value);
+            ring.putLong(offset + 32, 1);
+            return;
+        }
+        ring.putDouble(offset + 8, Math.min(ring.getDouble(offset + 8), value));
+        ring.putDouble(offset + 16, Math.max(ring.getDouble(offset + 16), value));
+        ring.putDouble(offset + 24, ring.getDouble(offset + 24) + value);
+        ring.putLong(offset + 32, ring.getLong(offset + 32) + 1);
+    }
+}
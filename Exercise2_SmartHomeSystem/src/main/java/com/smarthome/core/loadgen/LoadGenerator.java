@@ -0,0 +1,356 @@
+package com.smarthome.core.loadgen;
+
+import com.smarthome.core.Device;
+import com.smarthome.core.DeviceFactory;
+import com.smarthome.core.DeviceType;
+import com.smarthome.core.SmartHomeHub;
+import com.smarthome.core.exceptions.InvalidTriggerException;
+import com.smarthome.core.exceptions.UnsupportedActionException;
+import com.smarthome.core.state.DeviceStateArena;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Soak-test harness that provisions a device fleet through {@link DeviceFactory}, registers it with
+ * {@link SmartHomeHub} and drives a weighted mix of commands, temperature updates, schedule firings and
+ * trigger evaluation from several threads at a fixed target rate.
+ *
+ * <p>Each worker issues operations on a fixed timetable and measures latency from the <em>intended</em>
+ * start time rather than the actual one, so stalls in the hub show up in the percentiles instead of
+ * silently lowering the offered load (coordinated-omission correction).
+ *
+ * <p>Usage: {@code java -cp out com.smarthome.core.loadgen.LoadGenerator lights=1000000 rate=50000 duration=300}
+ */
+public final class LoadGenerator {
+    private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final LoadProfile profile;
+    private final SmartHomeHub hub = SmartHomeHub.getInstance();
+    private final int[] switchIds;
+    private final int[] thermostatIds;
+    private final LongAdder completedOps = new LongAdder();
+    private final LongAdder failedOps = new LongAdder();
+    private final GcMonitor gcMonitor = new GcMonitor();
+    private volatile boolean running = true;
+    private volatile boolean measuring;
+
+    public LoadGenerator(LoadProfile profile) {
+        this.profile = profile;
+        this.switchIds = new int[profile.lights() + profile.doors()];
+        this.thermostatIds = new int[profile.thermostats()];
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadProfile profile = LoadProfile.fromArgs(args);
+        if (profile.quiet()) {
+            Logger.getLogger(SmartHomeHub.class.getName()).setLevel(Level.WARNING);
+        }
+        System.out.println("Load profile - " + profile);
+        new LoadGenerator(profile).run();
+        System.exit(0);
+    }
+
+    public void run() throws InterruptedException, InvalidTriggerException, UnsupportedActionException {
+        provisionFleet();
+        gcMonitor.install();
+
+        Worker[] workers = new Worker[profile.threads()];
+        Thread[] threads = new Thread[workers.length];
+        double perThreadRate = profile.targetRate() / (double) workers.length;
+        long intervalNanos = profile.targetRate() == 0 ? 0 : Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / perThreadRate));
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(new SplittableRandom(profile.seed() + i), intervalNanos);
+            threads[i] = new Thread(workers[i], "loadgen-worker-" + i);
+            threads[i].setDaemon(true);
+        }
+        for (Thread t : threads) {
+            t.start();
+        }
+
+        if (profile.warmupSeconds() > 0) {
+            System.out.println("Warming up for " + profile.warmupSeconds() + "s ...");
+            TimeUnit.SECONDS.sleep(profile.warmupSeconds());
+        }
+        completedOps.reset();
+        failedOps.reset();
+        gcMonitor.reset();
+        AllocationSampler allocation = new AllocationSampler(threads);
+        measuring = true;
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(profile.durationSeconds());
+        long reportNanos = TimeUnit.SECONDS.toNanos(profile.reportSeconds());
+        long lastReport = start;
+        long lastOps = 0;
+        long startAllocated = allocation.totalAllocatedBytes();
+        long lastAllocated = startAllocated;
+        long lastGcCount = 0;
+        long lastGcTime = 0;
+        while (System.nanoTime() < end) {
+            long sleepNanos = Math.min(reportNanos, end - System.nanoTime());
+            if (sleepNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            }
+            long now = System.nanoTime();
+            long ops = completedOps.sum();
+            long allocated = allocation.totalAllocatedBytes();
+            double seconds = (now - lastReport) / 1e9;
+            System.out.printf("[%6.1fs] throughput=%,.0f ops/s, alloc=%,.1f MB/s, gc=%d pauses / %d ms%n",
+                    (now - start) / 1e9, (ops - lastOps) / seconds, (allocated - lastAllocated) / seconds / (1 << 20),
+                    gcMonitor.count() - lastGcCount, gcMonitor.totalMillis() - lastGcTime);
+            lastReport = now;
+            lastOps = ops;
+            lastAllocated = allocated;
+            lastGcCount = gcMonitor.count();
+            lastGcTime = gcMonitor.totalMillis();
+        }
+        measuring = false;
+        long elapsed = System.nanoTime() - start;
+        long allocatedBytes = allocation.totalAllocatedBytes() - startAllocated;
+        running = false;
+        for (Thread t : threads) {
+            t.join(TimeUnit.SECONDS.toMillis(5));
+        }
+
+        LatencyHistogram merged = new LatencyHistogram();
+        for (Worker worker : workers) {
+            merged.add(worker.histogram);
+        }
+        printSummary(merged, elapsed, allocatedBytes);
+    }
+
+    private void provisionFleet() throws InvalidTriggerException, UnsupportedActionException {
+        long begin = System.nanoTime();
+        hub.setTriggerBackend(profile.backend());
+        DeviceStateArena arena = profile.arenaStorage() ? new DeviceStateArena() : null;
+        int firstDoor = 1 + profile.lights();
+        int firstThermostat = firstDoor + profile.doors();
+        Device[] lights = build(arena, DeviceType.LIGHT, 1, profile.lights(), 0);
+        Device[] doors = build(arena, DeviceType.DOOR, firstDoor, profile.doors(), 0);
+        Device[] thermostats = build(arena, DeviceType.THERMOSTAT, firstThermostat, profile.thermostats(), 70);
+        Device[] switchDevices = new Device[switchIds.length];
+        System.arraycopy(lights, 0, switchDevices, 0, lights.length);
+        System.arraycopy(doors, 0, switchDevices, lights.length, doors.length);
+        hub.addDevices(Arrays.asList(switchDevices));
+        hub.addDevices(Arrays.asList(thermostats));
+        for (int s = 0; s < switchDevices.length; s++) {
+            switchIds[s] = switchDevices[s].getId();
+        }
+        for (int i = 0; i < thermostats.length; i++) {
+            thermostatIds[i] = thermostats[i].getId();
+        }
+        if (switchIds.length > 0) {
+            SplittableRandom random = new SplittableRandom(profile.seed());
+            for (int i = 0; i < profile.triggers(); i++) {
+                int target = switchIds[random.nextInt(switchIds.length)];
+                hub.addTrigger("temperature > " + (72 + random.nextInt(10)), "turnOff(" + target + ")");
+            }
+        }
+        System.out.printf("Provisioned %,d devices and %,d triggers in %,d ms%n", profile.fleetSize(),
+                switchIds.length > 0 ? profile.triggers() : 0, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+    }
+
+    /**
+     * Builds {@code count} devices with consecutive ids, all in the same initial state: in the arena when one is
+     * given, otherwise in one bulk call to the factory with no parsing.
+     */
+    private static Device[] build(DeviceStateArena arena, DeviceType type, int firstId, int count, int state) {
+        if (arena == null) {
+            int[] ids = new int[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = firstId + i;
+            }
+            int[] states = new int[count];
+            Arrays.fill(states, state);
+            return DeviceFactory.buildDevices(type, ids, states);
+        }
+        Device[] devices = new Device[count];
+        switch (type) {
+            case LIGHT -> {
+                for (int i = 0; i < count; i++) {
+                    devices[i] = arena.light(firstId + i, state == 1);
+                }
+            }
+            case DOOR -> {
+                for (int i = 0; i < count; i++) {
+                    devices[i] = arena.door(firstId + i, state == 0);
+                }
+            }
+            case THERMOSTAT -> {
+                for (int i = 0; i < count; i++) {
+                    devices[i] = arena.thermostat(firstId + i, state);
+                }
+            }
+        }
+        return devices;
+    }
+
+    private void printSummary(LatencyHistogram histogram, long elapsedNanos, long allocatedBytes) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.println("=== Load summary ===");
+        System.out.printf("operations=%,d errors=%,d throughput=%,.0f ops/s (target %s)%n", histogram.count(), failedOps.sum(),
+                histogram.count() / seconds, profile.targetRate() == 0 ? "unthrottled" : String.format("%,d ops/s", profile.targetRate()));
+        System.out.printf("latency (us, corrected for coordinated omission): mean=%.1f p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f p99.99=%.1f max=%.1f%n",
+                histogram.mean() / 1e3, histogram.percentile(50) / 1e3, histogram.percentile(90) / 1e3,
+                histogram.percentile(99) / 1e3, histogram.percentile(99.9) / 1e3, histogram.percentile(99.99) / 1e3,
+                histogram.max() / 1e3);
+        System.out.printf("gc: pauses=%d total=%d ms max=%d ms; allocation=%,.1f MB/s on worker threads%n",
+                gcMonitor.count(), gcMonitor.totalMillis(), gcMonitor.maxMillis(), allocatedBytes / seconds / (1 << 20));
+    }
+
+    private final class Worker implements Runnable {
+        private final SplittableRandom random;
+        private final long intervalNanos;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        Worker(SplittableRandom random, long intervalNanos) {
+            this.random = random;
+            this.intervalNanos = intervalNanos;
+        }
+
+        @Override
+        public void run() {
+            long intendedStart = System.nanoTime();
+            while (running) {
+                if (intervalNanos > 0) {
+                    awaitTime(intendedStart);
+                } else {
+                    intendedStart = System.nanoTime();
+                }
+                boolean record = measuring;
+                try {
+                    executeOne();
+                    if (record) {
+                        histogram.record(System.nanoTime() - intendedStart);
+                        completedOps.increment();
+                    }
+                } catch (UnsupportedActionException | RuntimeException e) {
+                    if (record) {
+                        failedOps.increment(); // kept out of the throughput and the latency percentiles
+                    }
+                }
+                intendedStart += intervalNanos;
+            }
+        }
+
+        private void executeOne() throws UnsupportedActionException {
+            int pick = random.nextInt(profile.totalWeight());
+            if ((pick -= profile.commandWeight()) < 0) {
+                if (switchIds.length == 0) return;
+                int id = switchIds[random.nextInt(switchIds.length)];
+                if (random.nextBoolean()) {
+                    hub.turnOn(id);
+                } else {
+                    hub.turnOff(id);
+                }
+            } else if ((pick -= profile.temperatureWeight()) < 0) {
+                if (thermostatIds.length == 0) return;
+                hub.setTemperature(thermostatIds[random.nextInt(thermostatIds.length)], 60 + random.nextInt(25));
+            } else if ((pick -= profile.scheduleWeight()) < 0) {
+                if (switchIds.length == 0) return;
+                hub.createSchedule(switchIds[random.nextInt(switchIds.length)], "00:00",
+                        random.nextBoolean() ? "turnOn" : "turnOff").execute();
+            } else {
+                hub.checkTriggers();
+            }
+        }
+
+        private void awaitTime(long deadline) {
+            long remaining;
+            while (running && (remaining = deadline - System.nanoTime()) > 0) {
+                if (remaining > SPIN_THRESHOLD_NANOS) {
+                    LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+        }
+    }
+
+    /** Collects individual GC pause durations through the platform GC notifications. */
+    private static final class GcMonitor {
+        private static final String GC_NOTIFICATION = "com.sun.management.gc.notification";
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private volatile long maxMillis;
+
+        void install() {
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (gc instanceof NotificationEmitter emitter) {
+                    emitter.addNotificationListener((notification, handback) -> {
+                        if (!GC_NOTIFICATION.equals(notification.getType())) {
+                            return;
+                        }
+                        CompositeData info = (CompositeData) notification.getUserData();
+                        String cause = String.valueOf(info.get("gcCause"));
+                        CompositeData gcInfo = (CompositeData) info.get("gcInfo");
+                        if ("No GC".equals(cause) || gcInfo == null) {
+                            return;
+                        }
+                        long duration = (Long) gcInfo.get("duration");
+                        count.increment();
+                        totalMillis.add(duration);
+                        if (duration > maxMillis) {
+                            maxMillis = duration;
+                        }
+                    }, null, null);
+                }
+            }
+        }
+
+        void reset() {
+            count.reset();
+            totalMillis.reset();
+            maxMillis = 0;
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        long totalMillis() {
+            return totalMillis.sum();
+        }
+
+        long maxMillis() {
+            return maxMillis;
+        }
+    }
+
+    /** Sums the bytes allocated by the worker threads, when the JVM exposes per-thread allocation counters. */
+    private static final class AllocationSampler {
+        private final long[] threadIds;
+        private final com.sun.management.ThreadMXBean threadBean;
+
+        AllocationSampler(Thread[] threads) {
+            this.threadBean = ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                    && bean.isThreadAllocatedMemorySupported() ? bean : null;
+            this.threadIds = threadBean == null ? new long[0] : Arrays.stream(threads).mapToLong(Thread::getId).toArray();
+            if (threadBean != null && !threadBean.isThreadAllocatedMemoryEnabled()) {
+                threadBean.setThreadAllocatedMemoryEnabled(true);
+            }
+        }
+
+        long totalAllocatedBytes() {
+            if (threadBean == null) {
+                return 0;
+            }
+            long total = 0;
+            for (long bytes : threadBean.getThreadAllocatedBytes(threadIds)) {
+                total += Math.max(0, bytes);
+            }
+            return total;
+        }
+    }
+}
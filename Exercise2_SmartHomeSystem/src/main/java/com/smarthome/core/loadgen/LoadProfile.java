@@ -0,0 +1,203 @@
+package com.smarthome.core.loadgen;
+
+import com.smarthome.core.triggers.TriggerBackend;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable description of a load run: fleet size, worker threads, target rate and operation mix.
+ * Parsed from {@code key=value} command line arguments, e.g. {@code lights=1000000 rate=50000 duration=300}.
+ */
+public final class LoadProfile {
+    private final int lights;
+    private final int doors;
+    private final int thermostats;
+    private final int triggers;
+    private final TriggerBackend backend;
+    private final boolean arenaStorage;
+    private final int threads;
+    private final long targetRate;
+    private final long durationSeconds;
+    private final long warmupSeconds;
+    private final long reportSeconds;
+    private final int commandWeight;
+    private final int temperatureWeight;
+    private final int scheduleWeight;
+    private final int triggerWeight;
+    private final long seed;
+    private final boolean quiet;
+
+    private LoadProfile(Map<String, String> values) {
+        this.lights = intValue(values, "lights", 10_000);
+        this.doors = intValue(values, "doors", 2_000);
+        this.thermostats = intValue(values, "thermostats", 1_000);
+        this.triggers = intValue(values, "triggers", 10);
+        this.backend = backendValue(values.getOrDefault("backend", "linear"));
+        this.arenaStorage = storageValue(values.getOrDefault("storage", "heap"));
+        this.threads = intValue(values, "threads", Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        this.targetRate = longValue(values, "rate", 20_000);
+        this.durationSeconds = longValue(values, "duration", 30);
+        this.warmupSeconds = longValue(values, "warmup", 5);
+        this.reportSeconds = longValue(values, "report", 5);
+        this.commandWeight = intValue(values, "mix.command", 70);
+        this.temperatureWeight = intValue(values, "mix.temperature", 25);
+        this.scheduleWeight = intValue(values, "mix.schedule", 4);
+        this.triggerWeight = intValue(values, "mix.trigger", 1);
+        this.seed = longValue(values, "seed", 42L);
+        this.quiet = Boolean.parseBoolean(values.getOrDefault("quiet", "true"));
+
+        if (lights < 0 || doors < 0 || thermostats < 0 || lights + doors + thermostats == 0) {
+            throw new IllegalArgumentException("Fleet must contain at least one device");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        if (targetRate < 0 || durationSeconds <= 0 || warmupSeconds < 0 || reportSeconds <= 0) {
+            throw new IllegalArgumentException("rate, duration, warmup and report must not be negative");
+        }
+        if (commandWeight < 0 || temperatureWeight < 0 || scheduleWeight < 0 || triggerWeight < 0 || totalWeight() == 0) {
+            throw new IllegalArgumentException("Operation mix weights must be non-negative and not all zero");
+        }
+    }
+
+    public static LoadProfile fromArgs(String... args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String arg : args) {
+            String a = arg.startsWith("--") ? arg.substring(2) : arg;
+            int eq = a.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value argument, got - " + arg);
+            }
+            values.put(a.substring(0, eq).trim(), a.substring(eq + 1).trim());
+        }
+        return new LoadProfile(values);
+    }
+
+    private static boolean storageValue(String raw) {
+        if ("arena".equalsIgnoreCase(raw)) {
+            return true;
+        }
+        if ("heap".equalsIgnoreCase(raw)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Unknown device storage - " + raw);
+    }
+
+    private static TriggerBackend backendValue(String raw) {
+        for (TriggerBackend backend : TriggerBackend.values()) {
+            if (backend.name().equalsIgnoreCase(raw)) {
+                return backend;
+            }
+        }
+        throw new IllegalArgumentException("Unknown trigger backend - " + raw);
+    }
+
+    private static int intValue(Map<String, String> values, String key, int defaultValue) {
+        long value = longValue(values, key, defaultValue);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Value for " + key + " is out of range - " + value);
+        }
+        return (int) value;
+    }
+
+    private static long longValue(Map<String, String> values, String key, long defaultValue) {
+        String raw = values.get(key);
+        if (raw == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(raw.replace("_", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + key + " - " + raw, e);
+        }
+    }
+
+    public int lights() {
+        return lights;
+    }
+
+    public int doors() {
+        return doors;
+    }
+
+    public int thermostats() {
+        return thermostats;
+    }
+
+    public int fleetSize() {
+        return lights + doors + thermostats;
+    }
+
+    public int triggers() {
+        return triggers;
+    }
+
+    public TriggerBackend backend() {
+        return backend;
+    }
+
+    /** Whether device state is kept in an off-heap {@code DeviceStateArena} instead of heap objects. */
+    public boolean arenaStorage() {
+        return arenaStorage;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    /** Target operations per second across all threads; 0 means run unthrottled. */
+    public long targetRate() {
+        return targetRate;
+    }
+
+    public long durationSeconds() {
+        return durationSeconds;
+    }
+
+    public long warmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public long reportSeconds() {
+        return reportSeconds;
+    }
+
+    public int commandWeight() {
+        return commandWeight;
+    }
+
+    public int temperatureWeight() {
+        return temperatureWeight;
+    }
+
+    public int scheduleWeight() {
+        return scheduleWeight;
+    }
+
+    public int triggerWeight() {
+        return triggerWeight;
+    }
+
+    public int totalWeight() {
+        return commandWeight + temperatureWeight + scheduleWeight + triggerWeight;
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    /** Whether hub INFO logging is silenced for the duration of the run. */
+    public boolean quiet() {
+        return quiet;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadProfile[lights=" + lights + ", doors=" + doors + ", thermostats=" + thermostats
+                + ", storage=" + (arenaStorage ? "arena" : "heap")
+                + ", triggers=" + triggers + " (" + backend.name().toLowerCase() + "), threads=" + threads + ", rate=" + (targetRate == 0 ? "unthrottled" : targetRate + "/s")
+                + ", duration=" + durationSeconds + "s, warmup=" + warmupSeconds + "s, mix=" + commandWeight + "/"
+                + temperatureWeight + "/" + scheduleWeight + "/" + triggerWeight + "]";
+    }
+}
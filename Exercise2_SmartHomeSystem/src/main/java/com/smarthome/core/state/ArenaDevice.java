@@ -0,0 +1,41 @@
+package com.smarthome.core.state;
+
+import com.smarthome.core.StatefulDevice;
+
+/**
+ * Handle onto one {@link DeviceStateArena} record. It holds only the arena and the slot: the id and the state word
+ * are read from the record, and state changes are compare-and-set there.
+ */
+public abstract class ArenaDevice implements StatefulDevice {
+    private final DeviceStateArena arena;
+    private final int slot;
+
+    ArenaDevice(DeviceStateArena arena, int slot) {
+        this.arena = arena;
+        this.slot = slot;
+    }
+
+    @Override
+    public int getId() {
+        return arena.id(slot);
+    }
+
+    @Override
+    public long stateWord() {
+        return arena.stateWord(slot);
+    }
+
+    @Override
+    public boolean compareAndSetState(long expectedWord, int value) {
+        return arena.compareAndSetStateWord(slot, expectedWord, value);
+    }
+
+    @Override
+    public void update(String message) {
+        // no-op
+    }
+
+    public int slot() {
+        return slot;
+    }
+}
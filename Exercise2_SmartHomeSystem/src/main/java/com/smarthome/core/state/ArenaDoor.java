@@ -0,0 +1,14 @@
+package com.smarthome.core.state;
+
+import com.smarthome.core.devices.DoorDevice;
+
+/**
+ * Door whose lock state lives in a {@link DeviceStateArena} record (1 = unlocked, 0 = locked).
+ * The handle holds only its arena and slot.
+ */
+public class ArenaDoor extends ArenaDevice implements DoorDevice {
+
+    ArenaDoor(DeviceStateArena arena, int slot) {
+        super(arena, slot);
+    }
+}
@@ -0,0 +1,14 @@
+package com.smarthome.core.state;
+
+import com.smarthome.core.devices.LightDevice;
+
+/**
+ * Light whose on/off state lives in a {@link DeviceStateArena} record (1 = on, 0 = off).
+ * The handle holds only its arena and slot.
+ */
+public class ArenaLight extends ArenaDevice implements LightDevice {
+
+    ArenaLight(DeviceStateArena arena, int slot) {
+        super(arena, slot);
+    }
+}
@@ -0,0 +1,14 @@
+package com.smarthome.core.state;
+
+import com.smarthome.core.devices.ThermostatDevice;
+
+/**
+ * Thermostat whose temperature lives in a {@link DeviceStateArena} record.
+ * The handle holds only its arena and slot.
+ */
+public class ArenaThermostat extends ArenaDevice implements ThermostatDevice {
+
+    ArenaThermostat(DeviceStateArena arena, int slot) {
+        super(arena, slot);
+    }
+}
@@ -0,0 +1,236 @@
+package com.smarthome.core.state;
+
+import com.smarthome.core.Device;
+import com.smarthome.core.DeviceType;
+import com.smarthome.core.StatefulDevice;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Off-heap arena of fixed-layout device records, so a fleet of millions of devices costs a few direct
+ * chunks instead of millions of state objects and strings on the Java heap.
+ *
+ * <p>Each record is 16 bytes: {@code id:int, type:int, word:long}. The word is the device's
+ * {@link StatefulDevice#stateWord() state word}: a version in the high half and the value in the low half, which is
+ * the on/off or unlocked/locked state of a switch and the temperature of a thermostat. Records live in direct
+ * buffers of {@value #CHUNK_RECORDS} entries and are read and written through {@link VarHandle} views, which
+ * give volatile and compare-and-set access to the off-heap memory. (The Foreign Memory API is still
+ * incubating on Java 17, so direct buffers are used as the off-heap backing.)
+ *
+ * <p>Records are appended under the arena's lock and become visible only once written: {@link #size()} is
+ * published after the record, so a reader never reaches a slot whose chunk or fields are not yet in place.
+ *
+ * <p>Device handles ({@link ArenaLight}, {@link ArenaDoor}, {@link ArenaThermostat}) keep only the arena and their
+ * slot; the id and state word are read from the record.
+ */
+public final class DeviceStateArena {
+    public static final int RECORD_BYTES = 16;
+    static final int CHUNK_RECORDS = 1 << 20;
+    private static final int CHUNK_SHIFT = 20;
+    private static final int CHUNK_MASK = CHUNK_RECORDS - 1;
+    private static final int ID = 0;
+    private static final int TYPE = 4;
+    private static final int WORD = 8;
+    private static final int SNAPSHOT_MAGIC = 0x53484157; // "SHAW": records carry a versioned state word
+    private static final int SNAPSHOT_HEADER_BYTES = 12;
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final DeviceType[] TYPES = DeviceType.values();
+
+    /** Number of written records; published after each record, so every slot below it is readable. */
+    private volatile int size;
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+
+    /** Appends a record with the given state value (a switch state or a temperature) and returns its slot. */
+    public synchronized int allocate(int id, DeviceType type, int value) {
+        int slot = size;
+        ByteBuffer chunk = chunkFor(slot);
+        int offset = offset(slot);
+        INT.set(chunk, offset + ID, id);
+        INT.set(chunk, offset + TYPE, type.ordinal());
+        LONG.set(chunk, offset + WORD, value & 0xFFFFFFFFL);
+        size = slot + 1; // publishes the record
+        return slot;
+    }
+
+    public ArenaLight light(int id, boolean on) {
+        return new ArenaLight(this, allocate(id, DeviceType.LIGHT, on ? 1 : 0));
+    }
+
+    public ArenaDoor door(int id, boolean locked) {
+        return new ArenaDoor(this, allocate(id, DeviceType.DOOR, locked ? 0 : 1));
+    }
+
+    public ArenaThermostat thermostat(int id, int temperature) {
+        return new ArenaThermostat(this, allocate(id, DeviceType.THERMOSTAT, temperature));
+    }
+
+    /** Creates a handle for an existing record, e.g. after {@link #load(Path)}. */
+    public Device handle(int slot) {
+        return switch (type(slot)) {
+            case LIGHT -> new ArenaLight(this, slot);
+            case DOOR -> new ArenaDoor(this, slot);
+            case THERMOSTAT -> new ArenaThermostat(this, slot);
+        };
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int id(int slot) {
+        return (int) INT.get(chunk(slot), offset(slot) + ID);
+    }
+
+    public DeviceType type(int slot) {
+        return TYPES[(int) INT.get(chunk(slot), offset(slot) + TYPE)];
+    }
+
+    /** The record's state word: version in the high half, value in the low half. */
+    public long stateWord(int slot) {
+        return (long) LONG.getVolatile(chunk(slot), offset(slot) + WORD);
+    }
+
+    /** Sets the value and increments the version if the state word is still {@code expectedWord}. */
+    public boolean compareAndSetStateWord(int slot, long expectedWord, int value) {
+        return LONG.compareAndSet(chunk(slot), offset(slot) + WORD, expectedWord, StatefulDevice.next(expectedWord, value));
+    }
+
+    public int state(int slot) {
+        return StatefulDevice.value(stateWord(slot));
+    }
+
+    public void setState(int slot, int state) {
+        ByteBuffer chunk = chunk(slot);
+        int offset = offset(slot) + WORD;
+        long word;
+        do {
+            word = (long) LONG.getVolatile(chunk, offset);
+            if (StatefulDevice.value(word) == state) {
+                return;
+            }
+        } while (!LONG.compareAndSet(chunk, offset, word, StatefulDevice.next(word, state)));
+    }
+
+    public boolean compareAndSetState(int slot, int expected, int state) {
+        ByteBuffer chunk = chunk(slot);
+        int offset = offset(slot) + WORD;
+        long word;
+        do {
+            word = (long) LONG.getVolatile(chunk, offset);
+            if (StatefulDevice.value(word) != expected) {
+                return false;
+            }
+        } while (!LONG.compareAndSet(chunk, offset, word, StatefulDevice.next(word, state)));
+        return true;
+    }
+
+    /** The temperature of a thermostat record, which is its state value. */
+    public int temperature(int slot) {
+        return state(slot);
+    }
+
+    public void setTemperature(int slot, int temperature) {
+        setState(slot, temperature);
+    }
+
+    public boolean compareAndSetTemperature(int slot, int expected, int temperature) {
+        return compareAndSetState(slot, expected, temperature);
+    }
+
+    /** Bytes reserved off-heap. */
+    public long reservedBytes() {
+        return (long) chunks.length * CHUNK_RECORDS * RECORD_BYTES;
+    }
+
+    /**
+     * Writes all records to {@code file} with one gathering write. Records updated concurrently are captured
+     * individually consistent but not as a point-in-time image of the whole fleet.
+     */
+    public void snapshot(Path file) throws IOException {
+        int count = size;
+        ByteBuffer[] current = chunks;
+        int chunkCount = (count + CHUNK_RECORDS - 1) >>> CHUNK_SHIFT;
+        ByteBuffer[] sources = new ByteBuffer[chunkCount + 1];
+        sources[0] = ByteBuffer.allocate(SNAPSHOT_HEADER_BYTES).order(ByteOrder.nativeOrder())
+                .putInt(SNAPSHOT_MAGIC).putInt(RECORD_BYTES).putInt(count).flip();
+        for (int i = 0; i < chunkCount; i++) {
+            int records = Math.min(CHUNK_RECORDS, count - (i << CHUNK_SHIFT));
+            sources[i + 1] = current[i].slice(0, records * RECORD_BYTES);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long remaining = SNAPSHOT_HEADER_BYTES + (long) count * RECORD_BYTES;
+            while (remaining > 0) {
+                remaining -= channel.write(sources);
+            }
+        }
+    }
+
+    /** Rebuilds an arena from a {@link #snapshot(Path)} file written on a machine with the same byte order. */
+    public static DeviceStateArena load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_BYTES).order(ByteOrder.nativeOrder());
+            readFully(channel, header);
+            header.flip();
+            if (header.getInt() != SNAPSHOT_MAGIC || header.getInt() != RECORD_BYTES) {
+                throw new IOException("Not a device state snapshot - " + file);
+            }
+            int count = header.getInt();
+            DeviceStateArena arena = new DeviceStateArena();
+            synchronized (arena) {
+                if (count > 0) {
+                    arena.chunkFor(count - 1);
+                }
+                for (int i = 0; (long) i << CHUNK_SHIFT < count; i++) {
+                    int records = Math.min(CHUNK_RECORDS, count - (i << CHUNK_SHIFT));
+                    readFully(channel, arena.chunks[i].slice(0, records * RECORD_BYTES));
+                }
+                arena.size = count;
+            }
+            return arena;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target) < 0) {
+                throw new IOException("Truncated device state snapshot");
+            }
+        }
+    }
+
+    private ByteBuffer chunk(int slot) {
+        if (slot < 0 || slot >= size) {
+            throw new IndexOutOfBoundsException("No device record at slot " + slot);
+        }
+        return chunks[slot >>> CHUNK_SHIFT];
+    }
+
+    /** Returns the chunk holding {@code slot}, growing the arena if needed; called with the arena's lock held. */
+    private ByteBuffer chunkFor(int slot) {
+        int index = slot >>> CHUNK_SHIFT;
+        ByteBuffer[] current = chunks;
+        if (index >= current.length) {
+            ByteBuffer[] grown = Arrays.copyOf(current, index + 1);
+            for (int i = current.length; i < grown.length; i++) {
+                grown[i] = ByteBuffer.allocateDirect(CHUNK_RECORDS * RECORD_BYTES).order(ByteOrder.nativeOrder());
+            }
+            chunks = grown;
+            current = grown;
+        }
+        return current[index];
+    }
+
+    private static int offset(int slot) {
+        return (slot & CHUNK_MASK) * RECORD_BYTES;
+    }
+}
@@ -0,0 +1,41 @@
+package com.smarthome.core.triggers;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * A trigger condition compiled to a {@link MethodHandle} tree of type {@code (EvaluationContext)boolean}.
+ */
+public final class CompiledCondition {
+    private final String source;
+    private final Expr expression;
+    private final MethodHandle handle;
+
+    CompiledCondition(String source, Expr expression, MethodHandle handle) {
+        this.source = source;
+        this.expression = expression;
+        this.handle = handle;
+    }
+
+    public boolean test(EvaluationContext context) {
+        try {
+            return (boolean) handle.invokeExact(context);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Trigger condition failed - " + source, t);
+        }
+    }
+
+    public String source() {
+        return source;
+    }
+
+    public Expr expression() {
+        return expression;
+    }
+
+    /** True when the condition has to be evaluated once per device instead of once per pass. */
+    public boolean deviceRelative() {
+        return expression.deviceRelative();
+    }
+}
@@ -0,0 +1,52 @@
+package com.smarthome.core.triggers;
+
+import com.smarthome.core.Device;
+import com.smarthome.core.DeviceType;
+import com.smarthome.core.devices.DoorDevice;
+import com.smarthome.core.devices.LightDevice;
+import com.smarthome.core.devices.ThermostatDevice;
+
+/**
+ * Reads the integer value a trigger comparison sees for a device property.
+ */
+final class DeviceProperties {
+    /** Returned when the device does not have the requested property. */
+    static final int NOT_APPLICABLE = Integer.MIN_VALUE;
+
+    private DeviceProperties() {
+    }
+
+    static int read(Device device, DeviceType type, Expr.Property property) {
+        if (device == null) {
+            return NOT_APPLICABLE;
+        }
+        if (property == Expr.Property.TEMPERATURE) {
+            return device instanceof ThermostatDevice thermostat ? thermostat.getTemperature() : NOT_APPLICABLE;
+        }
+        if (type == DeviceType.LIGHT && device instanceof LightDevice light) {
+            return light.state(); // 1 = on, read from the state word without going through a String
+        }
+        if (type == DeviceType.DOOR && device instanceof DoorDevice door) {
+            return door.state(); // 1 = unlocked
+        }
+        return NOT_APPLICABLE;
+    }
+
+    static DeviceType typeOf(Device device) {
+        if (device instanceof ThermostatDevice) {
+            return DeviceType.THERMOSTAT;
+        }
+        if (device instanceof LightDevice) {
+            return DeviceType.LIGHT;
+        }
+        if (device instanceof DoorDevice) {
+            return DeviceType.DOOR;
+        }
+        return null;
+    }
+
+    static boolean test(Device device, Expr.Comparison comparison) {
+        int actual = read(device, comparison.type(), comparison.property());
+        return actual != NOT_APPLICABLE && comparison.operator().apply(actual, comparison.value());
+    }
+}
@@ -0,0 +1,60 @@
+package com.smarthome.core.triggers;
+
+import com.smarthome.core.Device;
+
+import java.time.LocalTime;
+import java.util.function.IntFunction;
+
+/**
+ * State for one trigger evaluation pass: device lookup, the candidate device, the time of day and the
+ * memo table that lets shared sub-conditions be evaluated once per pass. Not thread-safe; create one per pass.
+ */
+public final class EvaluationContext {
+    private static final byte UNKNOWN = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+
+    private final IntFunction<Device> devices;
+    private final int minuteOfDay;
+    private final byte[] memo;
+    private Device current;
+
+    public EvaluationContext(IntFunction<Device> devices, LocalTime now, int memoSlots) {
+        this.devices = devices;
+        this.minuteOfDay = now.getHour() * 60 + now.getMinute();
+        this.memo = new byte[memoSlots];
+    }
+
+    /** Sets the device that bare {@code temperature}/{@code status} references read. */
+    public EvaluationContext at(Device device) {
+        this.current = device;
+        return this;
+    }
+
+    public Device current() {
+        return current;
+    }
+
+    public Device device(int id) {
+        return devices.apply(id);
+    }
+
+    public int minuteOfDay() {
+        return minuteOfDay;
+    }
+
+    boolean isMemoized(int slot) {
+        return slot < memo.length && memo[slot] != UNKNOWN;
+    }
+
+    boolean memoized(int slot) {
+        return memo[slot] == TRUE;
+    }
+
+    boolean memoize(int slot, boolean value) {
+        if (slot < memo.length) {
+            memo[slot] = value ? TRUE : FALSE;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,270 @@
+package com.smarthome.core.triggers;
+
+import com.smarthome.core.DeviceType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Parsed trigger condition. Nodes are immutable and expose a canonical text form, so structurally
+ * equal sub-conditions (including reordered {@code &&}/{@code ||} operands) compare equal and can be shared.
+ */
+public abstract class Expr {
+
+    /** Canonical text used as the identity of this node when sharing work between triggers. */
+    public abstract String canonical();
+
+    /** True when the node reads the candidate device (e.g. bare {@code temperature}) rather than fixed devices. */
+    public abstract boolean deviceRelative();
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Expr other && canonical().equals(other.canonical());
+    }
+
+    @Override
+    public int hashCode() {
+        return canonical().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return canonical();
+    }
+
+    /** Device property a comparison reads. */
+    public enum Property {
+        TEMPERATURE,
+        STATUS
+    }
+
+    /** Relational operators supported in comparisons. */
+    public enum Operator {
+        GT(">"),
+        LT("<"),
+        GE(">="),
+        LE("<="),
+        EQ("=="),
+        NE("!=");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String symbol() {
+            return symbol;
+        }
+
+        /** The operator that holds exactly when this one does not, for values it can be applied to. */
+        public Operator negate() {
+            return switch (this) {
+                case GT -> LE;
+                case LT -> GE;
+                case GE -> LT;
+                case LE -> GT;
+                case EQ -> NE;
+                case NE -> EQ;
+            };
+        }
+
+        public boolean apply(int left, int right) {
+            return switch (this) {
+                case GT -> left > right;
+                case LT -> left < right;
+                case GE -> left >= right;
+                case LE -> left <= right;
+                case EQ -> left == right;
+                case NE -> left != right;
+            };
+        }
+
+        static Operator fromSymbol(String symbol) {
+            for (Operator op : values()) {
+                if (op.symbol.equals(symbol)) {
+                    return op;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * {@code <reference> <op> <value>}, e.g. {@code temperature > 70} or {@code door.3 == unlocked}.
+     * Status words are stored as integers: 1 for on/unlocked and 0 for off/locked.
+     */
+    public static final class Comparison extends Expr {
+        private final DeviceType type;
+        private final int deviceId;
+        private final Property property;
+        private final Operator operator;
+        private final int value;
+        private final String valueText;
+        private final String canonical;
+
+        Comparison(DeviceType type, int deviceId, Property property, Operator operator, int value, String valueText) {
+            this.type = type;
+            this.deviceId = deviceId;
+            this.property = property;
+            this.operator = operator;
+            this.value = value;
+            this.valueText = valueText;
+            String reference = deviceId == 0
+                    ? property.name().toLowerCase()
+                    : type.name().toLowerCase() + "." + deviceId + "." + property.name().toLowerCase();
+            this.canonical = reference + " " + operator.symbol() + " " + valueText;
+        }
+
+        public DeviceType type() {
+            return type;
+        }
+
+        /** Referenced device id, or 0 when the comparison applies to the candidate device. */
+        public int deviceId() {
+            return deviceId;
+        }
+
+        public Property property() {
+            return property;
+        }
+
+        public Operator operator() {
+            return operator;
+        }
+
+        public int value() {
+            return value;
+        }
+
+        /** The opposite comparison; like this one, it is false for a device it does not apply to. */
+        Comparison negated() {
+            return new Comparison(type, deviceId, property, operator.negate(), value, valueText);
+        }
+
+        @Override
+        public String canonical() {
+            return canonical;
+        }
+
+        @Override
+        public boolean deviceRelative() {
+            return deviceId == 0;
+        }
+    }
+
+    /** N-ary {@code &&} or {@code ||} with operands in canonical order. */
+    public static final class Junction extends Expr {
+        private final boolean conjunction;
+        private final List<Expr> operands;
+        private final String canonical;
+        private final boolean deviceRelative;
+
+        Junction(boolean conjunction, List<Expr> operands) {
+            List<Expr> flat = new ArrayList<>();
+            for (Expr operand : operands) {
+                List<Expr> parts = operand instanceof Junction j && j.conjunction == conjunction ? j.operands : List.of(operand);
+                for (Expr part : parts) {
+                    if (!flat.contains(part)) {
+                        flat.add(part);
+                    }
+                }
+            }
+            flat.sort(Comparator.comparing(Expr::canonical));
+            this.conjunction = conjunction;
+            this.operands = Collections.unmodifiableList(flat);
+            StringBuilder sb = new StringBuilder("(");
+            boolean relative = false;
+            for (int i = 0; i < flat.size(); i++) {
+                if (i > 0) {
+                    sb.append(conjunction ? " && " : " || ");
+                }
+                sb.append(flat.get(i).canonical());
+                relative |= flat.get(i).deviceRelative();
+            }
+            this.canonical = sb.append(')').toString();
+            this.deviceRelative = relative;
+        }
+
+        public boolean conjunction() {
+            return conjunction;
+        }
+
+        public List<Expr> operands() {
+            return operands;
+        }
+
+        @Override
+        public String canonical() {
+            return canonical;
+        }
+
+        @Override
+        public boolean deviceRelative() {
+            return deviceRelative;
+        }
+    }
+
+    /**
+     * Logical negation of a time window. The parser negates comparisons by inverting their operator and junctions
+     * by De Morgan's laws, so a negated comparison stays false for a device it does not apply to.
+     */
+    public static final class Negation extends Expr {
+        private final Expr operand;
+        private final String canonical;
+
+        Negation(Expr operand) {
+            this.operand = operand;
+            this.canonical = "!" + operand.canonical();
+        }
+
+        public Expr operand() {
+            return operand;
+        }
+
+        @Override
+        public String canonical() {
+            return canonical;
+        }
+
+        @Override
+        public boolean deviceRelative() {
+            return operand.deviceRelative();
+        }
+    }
+
+    /** Time-of-day window {@code [from, to)} in minutes since midnight; wraps past midnight when from > to. */
+    public static final class TimeWindow extends Expr {
+        private final int fromMinute;
+        private final int toMinute;
+        private final String canonical;
+
+        TimeWindow(int fromMinute, int toMinute) {
+            this.fromMinute = fromMinute;
+            this.toMinute = toMinute;
+            this.canonical = "time in [" + format(fromMinute) + ", " + format(toMinute) + ")";
+        }
+
+        public boolean contains(int minuteOfDay) {
+            return fromMinute <= toMinute
+                    ? minuteOfDay >= fromMinute && minuteOfDay < toMinute
+                    : minuteOfDay >= fromMinute || minuteOfDay < toMinute;
+        }
+
+        private static String format(int minute) {
+            return String.format("%02d:%02d", minute / 60, minute % 60);
+        }
+
+        @Override
+        public String canonical() {
+            return canonical;
+        }
+
+        @Override
+        public boolean deviceRelative() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.smarthome.core.triggers;
+
+import com.smarthome.core.DeviceType;
+import com.smarthome.core.exceptions.InvalidTriggerException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive-descent parser for trigger conditions.
+ *
+ * <pre>
+ * expression := and ( ('||' | 'or') and )*
+ * and        := unary ( ('&amp;&amp;' | 'and') unary )*
+ * unary      := ('!' | 'not') unary | '(' expression ')' | time | comparison
+ * time       := 'time' 'between' HH:mm 'and' HH:mm | 'time' op HH:mm
+ * comparison := reference op (integer | on | off | locked | unlocked)
+ * reference  := 'temperature' | 'status' | type '.' id [ '.' ('temperature' | 'status') ]
+ * op         := '&gt;' | '&lt;' | '&gt;=' | '&lt;=' | '==' | '!='
+ * </pre>
+ *
+ * Bare {@code temperature}/{@code status} refer to the device currently being checked, which keeps the
+ * original {@code temperature > 70} triggers working unchanged; {@code door.3} style references name a
+ * specific device.
+ */
+public final class ExpressionParser {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final String source;
+    private final List<String> tokens;
+    private int pos;
+
+    private ExpressionParser(String source) throws InvalidTriggerException {
+        this.source = source;
+        this.tokens = tokenize(source);
+    }
+
+    public static Expr parse(String condition) throws InvalidTriggerException {
+        if (condition == null || condition.isBlank()) {
+            throw new InvalidTriggerException("Trigger condition must not be empty");
+        }
+        ExpressionParser parser = new ExpressionParser(condition);
+        Expr expr = parser.expression();
+        if (parser.pos != parser.tokens.size()) {
+            throw parser.error("Unexpected token '" + parser.tokens.get(parser.pos) + "'");
+        }
+        return expr;
+    }
+
+    private Expr expression() throws InvalidTriggerException {
+        List<Expr> operands = new ArrayList<>();
+        operands.add(conjunction());
+        while (accept("||") || accept("or")) {
+            operands.add(conjunction());
+        }
+        return junction(false, operands);
+    }
+
+    private Expr conjunction() throws InvalidTriggerException {
+        List<Expr> operands = new ArrayList<>();
+        operands.add(unary());
+        while (accept("&&") || accept("and")) {
+            operands.add(unary());
+        }
+        return junction(true, operands);
+    }
+
+    private static Expr junction(boolean conjunction, List<Expr> operands) {
+        if (operands.size() == 1) {
+            return operands.get(0);
+        }
+        Expr.Junction junction = new Expr.Junction(conjunction, operands);
+        return junction.operands().size() == 1 ? junction.operands().get(0) : junction;
+    }
+
+    private Expr unary() throws InvalidTriggerException {
+        if (accept("!") || accept("not")) {
+            return negate(unary());
+        }
+        if (accept("(")) {
+            Expr inner = expression();
+            expect(")");
+            return inner;
+        }
+        if (accept("time")) {
+            return timeWindow();
+        }
+        return comparison();
+    }
+
+    /**
+     * Pushes a negation down to the comparisons and time windows. A comparison on a device it does not apply to is
+     * unknown rather than false; inverting its operator keeps it false, where negating its result would make it true.
+     */
+    private static Expr negate(Expr operand) {
+        if (operand instanceof Expr.Negation n) {
+            return n.operand();
+        }
+        if (operand instanceof Expr.Comparison c) {
+            return c.negated();
+        }
+        if (operand instanceof Expr.Junction j) {
+            List<Expr> negated = new ArrayList<>();
+            for (Expr inner : j.operands()) {
+                negated.add(negate(inner));
+            }
+            return junction(!j.conjunction(), negated);
+        }
+        return new Expr.Negation(operand);
+    }
+
+    private Expr timeWindow() throws InvalidTriggerException {
+        if (accept("between")) {
+            int from = minuteOfDay(next("time of day"));
+            expect("and");
+            int to = minuteOfDay(next("time of day"));
+            return new Expr.TimeWindow(from, to);
+        }
+        Expr.Operator op = operator();
+        int minute = minuteOfDay(next("time of day"));
+        return switch (op) {
+            case GT -> new Expr.TimeWindow(minute + 1, MINUTES_PER_DAY);
+            case GE -> new Expr.TimeWindow(minute, MINUTES_PER_DAY);
+            case LT -> new Expr.TimeWindow(0, minute);
+            case LE -> new Expr.TimeWindow(0, minute + 1);
+            case EQ -> new Expr.TimeWindow(minute, minute + 1);
+            case NE -> new Expr.Negation(new Expr.TimeWindow(minute, minute + 1));
+        };
+    }
+
+    private Expr comparison() throws InvalidTriggerException {
+        String head = next("device reference").toLowerCase();
+        DeviceType type = null;
+        int deviceId = 0;
+        Expr.Property property;
+        if (head.equals("temperature") || head.equals("status")) {
+            property = Expr.Property.valueOf(head.toUpperCase());
+        } else {
+            type = deviceType(head);
+            expect(".");
+            deviceId = integer(next("device id"));
+            if (deviceId <= 0) {
+                throw error("Device id must be positive");
+            }
+            if (accept(".")) {
+                String name = next("property").toLowerCase();
+                if (!name.equals("temperature") && !name.equals("status")) {
+                    throw error("Unknown property '" + name + "'");
+                }
+                property = Expr.Property.valueOf(name.toUpperCase());
+            } else {
+                property = type == DeviceType.THERMOSTAT ? Expr.Property.TEMPERATURE : Expr.Property.STATUS;
+            }
+        }
+        Expr.Operator op = operator();
+        String valueText = next("value").toLowerCase();
+
+        if (property == Expr.Property.TEMPERATURE) {
+            if (type != null && type != DeviceType.THERMOSTAT) {
+                throw error("Only thermostats have a temperature");
+            }
+            return new Expr.Comparison(DeviceType.THERMOSTAT, deviceId, property, op, integer(valueText), valueText);
+        }
+        if (op != Expr.Operator.EQ && op != Expr.Operator.NE) {
+            throw error("Status can only be compared with == or !=");
+        }
+        DeviceType statusType = switch (valueText) {
+            case "on", "off" -> DeviceType.LIGHT;
+            case "locked", "unlocked" -> DeviceType.DOOR;
+            default -> throw error("Unknown status '" + valueText + "'");
+        };
+        if (type != null && type != statusType) {
+            throw error("Status '" + valueText + "' does not apply to " + type.name().toLowerCase());
+        }
+        int value = valueText.equals("on") || valueText.equals("unlocked") ? 1 : 0;
+        return new Expr.Comparison(statusType, deviceId, property, op, value, valueText);
+    }
+
+    private Expr.Operator operator() throws InvalidTriggerException {
+        String symbol = next("operator");
+        Expr.Operator op = Expr.Operator.fromSymbol(symbol);
+        if (op == null) {
+            throw error("Unknown operator '" + symbol + "'");
+        }
+        return op;
+    }
+
+    private DeviceType deviceType(String name) throws InvalidTriggerException {
+        for (DeviceType type : DeviceType.values()) {
+            if (type.name().equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        throw error("Unknown device reference '" + name + "'");
+    }
+
+    private int integer(String text) throws InvalidTriggerException {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw error("Expected an integer but found '" + text + "'");
+        }
+    }
+
+    private int minuteOfDay(String text) throws InvalidTriggerException {
+        int colon = text.indexOf(':');
+        if (colon < 0) {
+            throw error("Invalid time format. Use HH:mm");
+        }
+        int hours = integer(text.substring(0, colon));
+        int minutes = integer(text.substring(colon + 1));
+        if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+            throw error("Invalid time format. Use HH:mm");
+        }
+        return hours * 60 + minutes;
+    }
+
+    private boolean accept(String token) {
+        if (pos < tokens.size() && tokens.get(pos).equalsIgnoreCase(token)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) throws InvalidTriggerException {
+        if (!accept(token)) {
+            throw error("Expected '" + token + "'");
+        }
+    }
+
+    private String next(String what) throws InvalidTriggerException {
+        if (pos >= tokens.size()) {
+            throw error("Expected " + what + " at end of condition");
+        }
+        return tokens.get(pos++);
+    }
+
+    private InvalidTriggerException error(String message) {
+        return new InvalidTriggerException(message + " in trigger condition - " + source);
+    }
+
+    private static List<String> tokenize(String source) throws InvalidTriggerException {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        int n = source.length();
+        while (i < n) {
+            char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isLetterOrDigit(c) || c == '_'
+                    || (c == '-' && i + 1 < n && Character.isDigit(source.charAt(i + 1)))) {
+                int start = i++;
+                while (i < n && (Character.isLetterOrDigit(source.charAt(i)) || source.charAt(i) == '_' || source.charAt(i) == ':')) {
+                    i++;
+                }
+                tokens.add(source.substring(start, i));
+            } else if (i + 1 < n && isTwoCharOperator(c, source.charAt(i + 1))) {
+                tokens.add(source.substring(i, i + 2));
+                i += 2;
+            } else if ("<>!().".indexOf(c) >= 0) {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else {
+                throw new InvalidTriggerException("Unexpected character '" + c + "' in trigger condition - " + source);
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isTwoCharOperator(char first, char second) {
+        return (second == '=' && "<>=!".indexOf(first) >= 0)
+                || (first == '&' && second == '&')
+                || (first == '|' && second == '|');
+    }
+}
@@ -0,0 +1,72 @@
+package com.smarthome.core.triggers;
+
+import com.smarthome.core.Device;
+import com.smarthome.core.Trigger;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Default engine: every pass evaluates each trigger's compiled condition, once for device-independent
+ * conditions and once per device for device-relative ones. Triggers are kept in a copy-on-write list, so a
+ * pass takes no lock and never blocks commands or other passes; device state is read from each device's
+ * atomic state word.
+ */
+public final class LinearTriggerEngine implements TriggerEngine {
+    private final Map<Integer, Device> devices;
+    private final TriggerCompiler compiler;
+    private final List<Trigger> triggers = new CopyOnWriteArrayList<>();
+
+    public LinearTriggerEngine(Map<Integer, Device> devices, TriggerCompiler compiler) {
+        this.devices = devices;
+        this.compiler = compiler;
+    }
+
+    @Override
+    public void addTrigger(Trigger trigger) {
+        triggers.add(trigger);
+    }
+
+    @Override
+    public List<Trigger> triggers() {
+        return new ArrayList<>(triggers);
+    }
+
+    @Override
+    public void deviceAdded(Device device) {
+        // stateless
+    }
+
+    @Override
+    public void deviceRemoved(Device device) {
+        // stateless
+    }
+
+    @Override
+    public void deviceChanged(Device device) {
+        // stateless
+    }
+
+    @Override
+    public List<Trigger> evaluate(LocalTime now) {
+        EvaluationContext context = new EvaluationContext(devices::get, now, compiler.slotCount());
+        List<Trigger> fired = new ArrayList<>();
+        for (Trigger trigger : triggers) {
+            if (!trigger.isDeviceRelative() && trigger.isTriggered(context.at(null))) {
+                fired.add(trigger);
+            }
+        }
+        for (Device device : devices.values()) {
+            context.at(device);
+            for (Trigger trigger : triggers) {
+                if (trigger.isDeviceRelative() && trigger.isTriggered(context)) {
+                    fired.add(trigger);
+                }
+            }
+        }
+        return fired;
+    }
+}
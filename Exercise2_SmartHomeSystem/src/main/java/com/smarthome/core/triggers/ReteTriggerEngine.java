@@ -0,0 +1,290 @@
+package com.smarthome.core.triggers;
+
+import com.smarthome.core.Device;
+import com.smarthome.core.DeviceType;
+import com.smarthome.core.Trigger;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rete-style trigger engine. Conditions are merged into one discrimination network in which every distinct
+ * sub-condition (by canonical text) is a single shared node: comparisons and time windows are alpha nodes,
+ * {@code &&}/{@code ||}/{@code !} are join nodes, and triggers hang off their root node as terminals.
+ *
+ * <p>Each node remembers its current result: a boolean for conditions on fixed devices, or the set of
+ * matching device ids for device-relative conditions. A state change re-tests only the alpha nodes that read
+ * the changed device and walks upward while results keep changing, so its cost follows the number of
+ * affected rules rather than the total. A pass then only visits rules that currently match.
+ *
+ * <p>Changes must be reported through {@link #deviceChanged}; the hub does this for its own commands. Reporting a
+ * change takes no lock: the device id goes into a concurrent set of pending changes, so parallel commands never
+ * serialise on the engine. The network itself is only touched under the engine's lock, and each pending device is
+ * re-tested once, with its latest state, before the next pass or network update.
+ */
+public final class ReteTriggerEngine implements TriggerEngine {
+    private final Map<Integer, Device> devices;
+    private final List<Trigger> triggers = new ArrayList<>();
+    private final Map<String, Node> nodes = new HashMap<>();
+    /** All nodes in creation order, which is also a valid bottom-up evaluation order. */
+    private final List<Node> ordered = new ArrayList<>();
+    private final Map<Integer, List<Node>> alphasByDevice = new HashMap<>();
+    private final Map<DeviceType, List<Node>> relativeAlphasByType = new EnumMap<>(DeviceType.class);
+    private final List<Node> timeNodes = new ArrayList<>();
+    private final Set<Node> activeRoots = new LinkedHashSet<>();
+    private final Set<Integer> pendingChanges = ConcurrentHashMap.newKeySet();
+    private int minuteOfDay = -1;
+    private long propagations;
+
+    public ReteTriggerEngine(Map<Integer, Device> devices) {
+        this.devices = devices;
+    }
+
+    @Override
+    public synchronized void addTrigger(Trigger trigger) {
+        applyPendingChanges();
+        triggers.add(trigger);
+        Expr expression = trigger.getExpression();
+        if (expression == null) {
+            return; // unparseable conditions never fire
+        }
+        Node root = node(expression);
+        root.terminals.add(trigger);
+        updateRoot(root);
+    }
+
+    @Override
+    public synchronized List<Trigger> triggers() {
+        return new ArrayList<>(triggers);
+    }
+
+    @Override
+    public synchronized void deviceAdded(Device device) {
+        applyPendingChanges();
+        int id = device.getId();
+        for (Node node : ordered) {
+            if (node.relative) {
+                setAt(node, id, compute(node, device, id), false);
+            }
+        }
+        refresh(device);
+    }
+
+    @Override
+    public synchronized void deviceRemoved(Device device) {
+        applyPendingChanges();
+        int id = device.getId();
+        for (Node node : ordered) {
+            if (node.relative && node.trueFor.remove(id)) {
+                updateRoot(node);
+            }
+        }
+        for (Node alpha : alphasByDevice.getOrDefault(id, List.of())) {
+            recomputeAbsolute(alpha);
+        }
+    }
+
+    @Override
+    public void deviceChanged(Device device) {
+        pendingChanges.add(device.getId());
+    }
+
+    /** Re-tests the devices reported changed since the last call. Caller holds the lock. */
+    private void applyPendingChanges() {
+        for (Iterator<Integer> it = pendingChanges.iterator(); it.hasNext(); ) {
+            int id = it.next();
+            it.remove(); // removed before reading the state, so a change racing with this read is queued again
+            Device device = devices.get(id);
+            if (device != null) {
+                refresh(device);
+            }
+        }
+    }
+
+    private void refresh(Device device) {
+        int id = device.getId();
+        for (Node alpha : alphasByDevice.getOrDefault(id, List.of())) {
+            recomputeAbsolute(alpha);
+        }
+        DeviceType type = DeviceProperties.typeOf(device);
+        if (type != null) {
+            for (Node alpha : relativeAlphasByType.getOrDefault(type, List.of())) {
+                recomputeAt(alpha, id, device);
+            }
+        }
+    }
+
+    @Override
+    public synchronized List<Trigger> evaluate(LocalTime now) {
+        applyPendingChanges();
+        int minute = now.getHour() * 60 + now.getMinute();
+        if (minute != minuteOfDay) {
+            minuteOfDay = minute;
+            for (Node node : timeNodes) {
+                recomputeAbsolute(node);
+            }
+        }
+        List<Trigger> fired = new ArrayList<>();
+        for (Node root : activeRoots) {
+            int matches = root.relative ? root.trueFor.size() : 1;
+            for (Trigger trigger : root.terminals) {
+                for (int i = 0; i < matches; i++) {
+                    fired.add(trigger);
+                }
+            }
+        }
+        return fired;
+    }
+
+    /** Number of shared nodes in the network. */
+    public synchronized int nodeCount() {
+        return nodes.size();
+    }
+
+    /** Number of node re-evaluations performed since creation; useful to compare cost per state change. */
+    public synchronized long propagations() {
+        applyPendingChanges();
+        return propagations;
+    }
+
+    private Node node(Expr expr) {
+        Node existing = nodes.get(expr.canonical());
+        if (existing != null) {
+            return existing;
+        }
+        Node node = new Node(expr);
+        if (expr instanceof Expr.Negation n) {
+            link(node, node(n.operand()));
+        } else if (expr instanceof Expr.Junction j) {
+            for (Expr operand : j.operands()) {
+                link(node, node(operand));
+            }
+        } else if (expr instanceof Expr.Comparison c) {
+            if (c.deviceRelative()) {
+                relativeAlphasByType.computeIfAbsent(c.type(), t -> new ArrayList<>()).add(node);
+            } else {
+                alphasByDevice.computeIfAbsent(c.deviceId(), id -> new ArrayList<>()).add(node);
+            }
+        } else if (expr instanceof Expr.TimeWindow) {
+            timeNodes.add(node);
+        }
+        nodes.put(expr.canonical(), node);
+        ordered.add(node);
+
+        // children are initialised already, so the new node can be evaluated directly
+        if (node.relative) {
+            for (Device device : devices.values()) {
+                if (compute(node, device, device.getId())) {
+                    node.trueFor.add(device.getId());
+                }
+            }
+        } else {
+            node.value = compute(node, null, 0);
+        }
+        return node;
+    }
+
+    private static void link(Node parent, Node child) {
+        parent.children.add(child);
+        child.parents.add(parent);
+    }
+
+    private boolean compute(Node node, Device candidate, int candidateId) {
+        propagations++;
+        Expr expr = node.expr;
+        if (expr instanceof Expr.Comparison c) {
+            return DeviceProperties.test(c.deviceRelative() ? candidate : devices.get(c.deviceId()), c);
+        }
+        if (expr instanceof Expr.TimeWindow w) {
+            return minuteOfDay >= 0 && w.contains(minuteOfDay);
+        }
+        if (expr instanceof Expr.Negation) {
+            return !valueAt(node.children.get(0), candidateId);
+        }
+        boolean conjunction = ((Expr.Junction) expr).conjunction();
+        for (Node child : node.children) {
+            if (valueAt(child, candidateId) != conjunction) {
+                return !conjunction;
+            }
+        }
+        return conjunction;
+    }
+
+    private static boolean valueAt(Node node, int deviceId) {
+        return node.relative ? node.trueFor.contains(deviceId) : node.value;
+    }
+
+    private void recomputeAbsolute(Node node) {
+        boolean value = compute(node, null, 0);
+        if (value == node.value) {
+            return;
+        }
+        node.value = value;
+        updateRoot(node);
+        for (Node parent : node.parents) {
+            if (parent.relative) {
+                // a fixed-device input flipped: the relative parent may change for any device
+                for (Device device : devices.values()) {
+                    recomputeAt(parent, device.getId(), device);
+                }
+            } else {
+                recomputeAbsolute(parent);
+            }
+        }
+    }
+
+    private void recomputeAt(Node node, int id, Device device) {
+        setAt(node, id, compute(node, device, id), true);
+    }
+
+    private void setAt(Node node, int id, boolean value, boolean propagate) {
+        boolean changed = value ? node.trueFor.add(id) : node.trueFor.remove(id);
+        if (!changed) {
+            return;
+        }
+        updateRoot(node);
+        if (propagate) {
+            Device device = devices.get(id);
+            for (Node parent : node.parents) {
+                recomputeAt(parent, id, device);
+            }
+        }
+    }
+
+    private void updateRoot(Node node) {
+        if (node.terminals.isEmpty()) {
+            return;
+        }
+        boolean active = node.relative ? !node.trueFor.isEmpty() : node.value;
+        if (active) {
+            activeRoots.add(node);
+        } else {
+            activeRoots.remove(node);
+        }
+    }
+
+    private static final class Node {
+        final Expr expr;
+        final boolean relative;
+        final List<Node> children = new ArrayList<>(2);
+        final List<Node> parents = new ArrayList<>(2);
+        final List<Trigger> terminals = new ArrayList<>(1);
+        final Set<Integer> trueFor;
+        boolean value;
+
+        Node(Expr expr) {
+            this.expr = expr;
+            this.relative = expr.deviceRelative();
+            this.trueFor = relative ? new HashSet<>() : Set.of();
+        }
+    }
+}
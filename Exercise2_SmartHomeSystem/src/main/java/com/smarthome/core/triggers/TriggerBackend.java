@@ -0,0 +1,22 @@
+package com.smarthome.core.triggers;
+
+import com.smarthome.core.Device;
+
+import java.util.Map;
+
+/**
+ * Available {@link TriggerEngine} implementations.
+ */
+public enum TriggerBackend {
+    /** Evaluates every trigger against every device on each pass. */
+    LINEAR,
+    /** Shared Rete-style network that is updated incrementally as device state changes. */
+    RETE;
+
+    public TriggerEngine create(Map<Integer, Device> devices, TriggerCompiler compiler) {
+        return switch (this) {
+            case LINEAR -> new LinearTriggerEngine(devices, compiler);
+            case RETE -> new ReteTriggerEngine(devices);
+        };
+    }
+}
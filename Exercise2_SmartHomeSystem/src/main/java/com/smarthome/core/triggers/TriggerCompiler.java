@@ -0,0 +1,133 @@
+package com.smarthome.core.triggers;
+
+import com.smarthome.core.exceptions.InvalidTriggerException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses trigger conditions once and compiles them into {@link MethodHandle} trees built from
+ * {@code guardWithTest} combinators, so evaluation is plain method-handle dispatch the JIT can inline.
+ *
+ * <p>Compiled sub-conditions are interned by their canonical text across every trigger compiled by the
+ * same instance. Sub-conditions that do not depend on the candidate device get a memo slot, so a
+ * condition such as {@code door.3 == unlocked} shared by many triggers is evaluated once per pass.
+ */
+public final class TriggerCompiler {
+    private static final MethodType CONDITION = MethodType.methodType(boolean.class, EvaluationContext.class);
+    private static final MethodHandle TEST_CURRENT;
+    private static final MethodHandle TEST_DEVICE;
+    private static final MethodHandle IN_WINDOW;
+    private static final MethodHandle NOT;
+    private static final MethodHandle IS_MEMOIZED;
+    private static final MethodHandle MEMOIZED;
+    private static final MethodHandle MEMOIZE;
+    private static final MethodHandle ALWAYS_TRUE =
+            MethodHandles.dropArguments(MethodHandles.constant(boolean.class, true), 0, EvaluationContext.class);
+    private static final MethodHandle ALWAYS_FALSE =
+            MethodHandles.dropArguments(MethodHandles.constant(boolean.class, false), 0, EvaluationContext.class);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TEST_CURRENT = lookup.findStatic(TriggerCompiler.class, "testCurrent",
+                    MethodType.methodType(boolean.class, EvaluationContext.class, Expr.Comparison.class));
+            TEST_DEVICE = lookup.findStatic(TriggerCompiler.class, "testDevice",
+                    MethodType.methodType(boolean.class, EvaluationContext.class, Expr.Comparison.class));
+            IN_WINDOW = lookup.findStatic(TriggerCompiler.class, "inWindow",
+                    MethodType.methodType(boolean.class, EvaluationContext.class, Expr.TimeWindow.class));
+            NOT = lookup.findStatic(TriggerCompiler.class, "not", MethodType.methodType(boolean.class, boolean.class));
+            IS_MEMOIZED = lookup.findVirtual(EvaluationContext.class, "isMemoized", MethodType.methodType(boolean.class, int.class));
+            MEMOIZED = lookup.findVirtual(EvaluationContext.class, "memoized", MethodType.methodType(boolean.class, int.class));
+            MEMOIZE = lookup.findVirtual(EvaluationContext.class, "memoize",
+                    MethodType.methodType(boolean.class, int.class, boolean.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Map<String, MethodHandle> compiled = new HashMap<>();
+    private int slots;
+
+    /** Parses and compiles a condition; equal sub-conditions share one compiled node. */
+    public synchronized CompiledCondition compile(String condition) throws InvalidTriggerException {
+        Expr expr = ExpressionParser.parse(condition);
+        return new CompiledCondition(condition.trim(), expr, compile(expr));
+    }
+
+    /** Number of memo slots an {@link EvaluationContext} needs for the conditions compiled so far. */
+    public synchronized int slotCount() {
+        return slots;
+    }
+
+    /** Number of distinct compiled sub-conditions. */
+    public synchronized int nodeCount() {
+        return compiled.size();
+    }
+
+    private MethodHandle compile(Expr expr) {
+        MethodHandle existing = compiled.get(expr.canonical());
+        if (existing != null) {
+            return existing;
+        }
+        MethodHandle handle;
+        if (expr instanceof Expr.Comparison c) {
+            handle = MethodHandles.insertArguments(c.deviceRelative() ? TEST_CURRENT : TEST_DEVICE, 1, c);
+        } else if (expr instanceof Expr.TimeWindow w) {
+            handle = MethodHandles.insertArguments(IN_WINDOW, 1, w);
+        } else if (expr instanceof Expr.Negation n) {
+            handle = MethodHandles.filterReturnValue(compile(n.operand()), NOT);
+        } else if (expr instanceof Expr.Junction j) {
+            handle = junction(j.conjunction(), j.operands());
+        } else {
+            throw new IllegalArgumentException("Unsupported expression node - " + expr);
+        }
+        if (!expr.deviceRelative()) {
+            handle = memoize(handle, slots++);
+        }
+        compiled.put(expr.canonical(), handle);
+        return handle;
+    }
+
+    private MethodHandle junction(boolean conjunction, List<Expr> operands) {
+        MethodHandle result = compile(operands.get(operands.size() - 1));
+        for (int i = operands.size() - 2; i >= 0; i--) {
+            MethodHandle test = compile(operands.get(i));
+            result = conjunction
+                    ? MethodHandles.guardWithTest(test, result, ALWAYS_FALSE)
+                    : MethodHandles.guardWithTest(test, ALWAYS_TRUE, result);
+        }
+        return result;
+    }
+
+    /** memo(ctx) = ctx.isMemoized(slot) ? ctx.memoized(slot) : ctx.memoize(slot, compute(ctx)) */
+    private static MethodHandle memoize(MethodHandle compute, int slot) {
+        MethodHandle store = MethodHandles.insertArguments(MEMOIZE, 1, slot);
+        MethodHandle storeComputed = MethodHandles.permuteArguments(
+                MethodHandles.collectArguments(store, 1, compute), CONDITION, 0, 0);
+        return MethodHandles.guardWithTest(
+                MethodHandles.insertArguments(IS_MEMOIZED, 1, slot),
+                MethodHandles.insertArguments(MEMOIZED, 1, slot),
+                storeComputed);
+    }
+
+    private static boolean testCurrent(EvaluationContext context, Expr.Comparison comparison) {
+        return DeviceProperties.test(context.current(), comparison);
+    }
+
+    private static boolean testDevice(EvaluationContext context, Expr.Comparison comparison) {
+        return DeviceProperties.test(context.device(comparison.deviceId()), comparison);
+    }
+
+    private static boolean inWindow(EvaluationContext context, Expr.TimeWindow window) {
+        return window.contains(context.minuteOfDay());
+    }
+
+    private static boolean not(boolean value) {
+        return !value;
+    }
+}
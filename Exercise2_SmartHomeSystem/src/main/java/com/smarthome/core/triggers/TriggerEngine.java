@@ -0,0 +1,29 @@
+package com.smarthome.core.triggers;
+
+import com.smarthome.core.Device;
+import com.smarthome.core.Trigger;
+
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Backend that stores triggers and decides which of them fire on a {@code checkTriggers()} pass.
+ * The hub reports device lifecycle and state changes so incremental engines can keep their memory current.
+ */
+public interface TriggerEngine {
+    void addTrigger(Trigger trigger);
+
+    List<Trigger> triggers();
+
+    void deviceAdded(Device device);
+
+    void deviceRemoved(Device device);
+
+    void deviceChanged(Device device);
+
+    /**
+     * Returns the triggers whose conditions hold at {@code now}. Device-relative triggers appear once for
+     * every device that satisfies them, matching one firing per device.
+     */
+    List<Trigger> evaluate(LocalTime now);
+}
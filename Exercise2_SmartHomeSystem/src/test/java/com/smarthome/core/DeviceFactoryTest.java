@@ -0,0 +1,145 @@
+package com.smarthome.core;
+
+import com.smarthome.core.devices.Door;
+import com.smarthome.core.devices.Light;
+import com.smarthome.core.devices.Thermostat;
+
+/**
+ * Plain Java test runner (no JUnit) for device plugins and the typed and bulk factory paths.
+ * Usage: java -cp out com.smarthome.core.DeviceFactoryTest
+ */
+public class DeviceFactoryTest {
+
+    /** A device type that is not in {@link DeviceType}. */
+    static final class Fan implements Device {
+        private final int id;
+        private int speed;
+
+        Fan(int id, int speed) {
+            this.id = id;
+            this.speed = speed;
+        }
+
+        @Override
+        public void turnOn() {
+            speed = Math.max(speed, 1);
+        }
+
+        @Override
+        public void turnOff() {
+            speed = 0;
+        }
+
+        @Override
+        public String deviceType() {
+            return "fan";
+        }
+
+        @Override
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public String statusSummary() {
+            return "Fan " + id + " runs at speed " + speed + ".";
+        }
+
+        @Override
+        public void update(String message) {
+            // no-op
+        }
+    }
+
+    static final class FanPlugin implements DevicePlugin {
+        @Override
+        public String typeName() {
+            return "Fan";
+        }
+
+        @Override
+        public int parseState(String text) {
+            return text == null || text.isBlank() ? 0 : Integer.parseInt(text.trim());
+        }
+
+        @Override
+        public Device create(int id, int state) {
+            return new Fan(id, state);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        // The textual path still parses and validates as before.
+        Light light = (Light) DeviceFactory.buildDevice(1, DeviceType.LIGHT, "ON");
+        Door door = (Door) DeviceFactory.buildDevice(2, DeviceType.DOOR, null);
+        Thermostat thermostat = (Thermostat) DeviceFactory.buildDevice(3, DeviceType.THERMOSTAT, "72");
+        if (!"on".equals(light.getStatus()) || !"locked".equals(door.getStatus()) || thermostat.getTemperature() != 72) {
+            throw new AssertionError("Unexpected state from the textual path");
+        }
+        expectRejected(() -> DeviceFactory.buildDevice(4, DeviceType.LIGHT, "dim"), "Invalid light status");
+        expectRejected(() -> DeviceFactory.buildDevice(4, DeviceType.THERMOSTAT, "warm"), "must be an integer");
+        expectRejected(() -> DeviceFactory.buildDevice(0, DeviceType.DOOR, "locked"), "must be positive");
+        expectRejected(() -> DeviceFactory.buildDevice(4, null, "on"), "must not be null");
+
+        // State codes and the bulk path give the same devices without parsing.
+        Door unlocked = (Door) DeviceFactory.buildDevice(5, DeviceType.DOOR, 1);
+        if (!"Door 5 is Unlocked.".equals(unlocked.statusSummary())) {
+            throw new AssertionError("Unexpected door summary - " + unlocked.statusSummary());
+        }
+        expectRejected(() -> DeviceFactory.buildDevice(6, DeviceType.LIGHT, 2), "Invalid light state");
+
+        int count = 100_000;
+        int[] ids = new int[count];
+        int[] states = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = 1_000 + i;
+            states[i] = i & 1;
+        }
+        Device[] lights = DeviceFactory.buildDevices(DeviceType.LIGHT, ids, states);
+        for (int i = 0; i < count; i++) {
+            Light built = (Light) lights[i];
+            if (built.getId() != ids[i] || !built.getStatus().equals(i % 2 == 1 ? "on" : "off")) {
+                throw new AssertionError("Bulk light " + i + " built wrongly: " + built.statusSummary());
+            }
+        }
+        int[] invalidIds = {7, -1};
+        expectRejected(() -> DeviceFactory.buildDevices(DeviceType.DOOR, invalidIds, new int[2]), "must be positive");
+        expectRejected(() -> DeviceFactory.buildDevices(DeviceType.DOOR, ids, new int[1]), "one state per id");
+
+        // A plugin adds a type without touching DeviceType, by name and case-insensitively.
+        DeviceFactory.register(new FanPlugin());
+        expectRejected(() -> DeviceFactory.register(new FanPlugin()), "already registered");
+        Device fan = DeviceFactory.buildDeviceByName(8, "FAN", "3");
+        if (!"Fan 8 runs at speed 3.".equals(fan.statusSummary()) || !DeviceFactory.typeNames().contains("fan")) {
+            throw new AssertionError("Plugin device not built - " + fan.statusSummary());
+        }
+        Device[] fans = DeviceFactory.buildDevicesByName("fan", new int[]{9, 10}, new int[]{1, 2});
+        if (!"Fan 10 runs at speed 2.".equals(fans[1].statusSummary())) {
+            throw new AssertionError("Plugin bulk build failed - " + fans[1].statusSummary());
+        }
+        if (!(DeviceFactory.buildDeviceByName(11, "thermostat", "68") instanceof Thermostat)) {
+            throw new AssertionError("Built-in types must be reachable by name");
+        }
+        expectRejected(() -> DeviceFactory.buildDeviceByName(12, "toaster", "on"), "Unsupported device type");
+
+        SmartHomeHub hub = SmartHomeHub.getInstance();
+        hub.addDevice(fan);
+        if (!hub.getStatusReport().contains("Fan 8 runs at speed 3.")) {
+            throw new AssertionError("Plugin device missing from the hub report");
+        }
+        hub.removeDevice(fan);
+        System.out.println("DeviceFactoryTest: OK");
+    }
+
+    private static void expectRejected(Runnable action, String messagePart) {
+        try {
+            action.run();
+        } catch (IllegalArgumentException e) {
+            if (!e.getMessage().contains(messagePart)) {
+                throw new AssertionError("Unexpected message - " + e.getMessage());
+            }
+            return;
+        }
+        throw new AssertionError("Expected rejection containing '" + messagePart + "'");
+    }
+}
@@ -17,6 +17,26 @@ public class SmartHomeHubTest {
         if (!report.toLowerCase().contains("light 100 is on")) {
             throw new AssertionError("Expected light 100 to be On, got: " + report);
         }
+        observersAreNotifiedInRegistrationOrder(hub);
         System.out.println("SmartHomeHubTest: OK");
     }
+
+    private static void observersAreNotifiedInRegistrationOrder(SmartHomeHub hub) {
+        StringBuilder seen = new StringBuilder();
+        DeviceObserver first = message -> seen.append('a');
+        DeviceObserver second = message -> seen.append('b');
+        hub.registerObserver(first);
+        hub.registerObserver(second);
+        hub.registerObserver(first);
+        try {
+            hub.notifyObservers("ping");
+        } finally {
+            hub.unregisterObserver(first);
+            hub.unregisterObserver(second);
+            hub.unregisterObserver(first);
+        }
+        if (!seen.toString().equals("aba")) {
+            throw new AssertionError("Expected observers in registration order, each once per registration, got " + seen);
+        }
+    }
 }
\ No newline at end of file
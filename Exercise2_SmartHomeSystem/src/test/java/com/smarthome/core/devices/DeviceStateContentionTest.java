@@ -0,0 +1,198 @@
+package com.smarthome.core.devices;
+
+import com.smarthome.core.SmartHomeHub;
+import com.smarthome.core.StatefulDevice;
+import com.smarthome.core.state.DeviceStateArena;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Plain Java test runner (no JUnit) that hammers device state from several threads, in the style of a jcstress
+ * test: each scenario runs many rounds of racing actors and checks that only the allowed outcomes occur. Every
+ * scenario runs against heap devices and against {@link DeviceStateArena} handles.
+ * Usage: java -cp out com.smarthome.core.devices.DeviceStateContentionTest
+ */
+public class DeviceStateContentionTest {
+    private static final int THREADS = 4;
+
+    public static void main(String[] args) throws Exception {
+        DeviceStateArena arena = new DeviceStateArena();
+
+        exactlyOneWinner(new Light(1, false), "light");
+        exactlyOneWinner(arena.door(2, true), "arena door");
+
+        balancedToggles(new Door(3, true), "door");
+        balancedToggles(arena.light(4, false), "arena light");
+
+        noLostIncrements(new Thermostat(5, 0), "thermostat");
+        noLostIncrements(arena.thermostat(6, 0), "arena thermostat");
+
+        optimisticReadersNeverSeeTornState(new Light(7, false), "light");
+        optimisticReadersNeverSeeTornState(arena.light(8, false), "arena light");
+
+        hubCommandsAreAtomic();
+        System.out.println("DeviceStateContentionTest: OK");
+    }
+
+    /** All threads race to turn the same device on: exactly one tryTurnOn per round may succeed. */
+    private static void exactlyOneWinner(StatefulDevice device, String label) throws Exception {
+        int rounds = 2_000;
+        AtomicInteger winners = new AtomicInteger();
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        CyclicBarrier end = new CyclicBarrier(THREADS, () -> {
+            if (winners.getAndSet(0) != 1) {
+                throw new AssertionError(label + ": expected exactly one winner per round");
+            }
+            if (device.state() != 1) {
+                throw new AssertionError(label + ": device not on after the round");
+            }
+            device.tryTurnOff();
+        });
+        run(label, () -> {
+            for (int i = 0; i < rounds; i++) {
+                start.await();
+                if (device.tryTurnOn()) {
+                    winners.incrementAndGet();
+                }
+                end.await();
+            }
+        });
+    }
+
+    /** Half the threads switch on, half switch off: successful transitions must alternate. */
+    private static void balancedToggles(StatefulDevice device, String label) throws Exception {
+        int perThread = 100_000;
+        AtomicInteger ons = new AtomicInteger();
+        AtomicInteger offs = new AtomicInteger();
+        long versionBefore = device.version();
+        AtomicInteger index = new AtomicInteger();
+        run(label, () -> {
+            boolean on = index.getAndIncrement() % 2 == 0;
+            int won = 0;
+            for (int i = 0; i < perThread; i++) {
+                if (on ? device.tryTurnOn() : device.tryTurnOff()) {
+                    won++;
+                }
+            }
+            (on ? ons : offs).addAndGet(won);
+        });
+        int state = device.state();
+        if (ons.get() - offs.get() != state) {
+            throw new AssertionError(label + ": " + ons + " ons and " + offs + " offs cannot end in state " + state);
+        }
+        if (device.version() - versionBefore != ons.get() + offs.get()) {
+            throw new AssertionError(label + ": version advanced " + (device.version() - versionBefore)
+                    + " times for " + (ons.get() + offs.get()) + " changes");
+        }
+    }
+
+    /** Read-modify-write through compare-and-set on the state word must not lose updates. */
+    private static void noLostIncrements(ThermostatDevice thermostat, String label) throws Exception {
+        int perThread = 50_000;
+        long versionBefore = thermostat.version();
+        run(label, () -> {
+            for (int i = 0; i < perThread; i++) {
+                long word;
+                do {
+                    word = thermostat.stateWord();
+                } while (!thermostat.compareAndSetState(word, StatefulDevice.value(word) + 1));
+            }
+        });
+        int expected = THREADS * perThread;
+        if (thermostat.getTemperature() != expected || thermostat.version() - versionBefore != expected) {
+            throw new AssertionError(label + ": lost updates - temperature " + thermostat.getTemperature()
+                    + ", version " + thermostat.version());
+        }
+    }
+
+    /**
+     * Writers toggle a light while readers check that the value they read fits the version: the light starts
+     * off and every change flips it, so an odd version must be on and an even version off.
+     */
+    private static void optimisticReadersNeverSeeTornState(StatefulDevice light, String label) throws Exception {
+        long base = light.version();
+        int perThread = 100_000;
+        AtomicInteger index = new AtomicInteger();
+        run(label, () -> {
+            boolean writer = index.getAndIncrement() < 2;
+            long lastVersion = 0;
+            for (int i = 0; i < perThread; i++) {
+                if (writer) {
+                    long word = light.stateWord();
+                    light.compareAndSetState(word, 1 - StatefulDevice.value(word));
+                } else {
+                    long word = light.stateWord();
+                    long version = StatefulDevice.version(word) - base;
+                    if (StatefulDevice.value(word) != (version & 1)) {
+                        throw new AssertionError(label + ": value " + StatefulDevice.value(word) + " at version " + version);
+                    }
+                    if (version < lastVersion) {
+                        throw new AssertionError(label + ": version went backwards");
+                    }
+                    lastVersion = version;
+                }
+            }
+        });
+    }
+
+    /**
+     * Concurrent hub commands on the same lights must only ever flip a light: every change increments the version,
+     * so a light that started off at version 0 is on exactly when its version is odd.
+     */
+    private static void hubCommandsAreAtomic() throws Exception {
+        SmartHomeHub hub = SmartHomeHub.getInstance();
+        int lights = 64;
+        Light[] devices = new Light[lights];
+        for (int i = 0; i < lights; i++) {
+            devices[i] = new Light(5_000 + i, false);
+            hub.addDevice(devices[i]);
+        }
+        AtomicInteger index = new AtomicInteger();
+        run("hub", () -> {
+            boolean on = index.getAndIncrement() % 2 == 0;
+            for (int i = 0; i < 20_000; i++) {
+                int id = 5_000 + i % lights;
+                if (on) {
+                    hub.turnOn(id);
+                } else {
+                    hub.turnOff(id);
+                }
+            }
+        });
+        for (Light light : devices) {
+            long version = light.version();
+            if (version == 0 || light.state() != version % 2) {
+                throw new AssertionError("Light " + light.getId() + " is " + light.getStatus() + " after " + version
+                        + " changes");
+            }
+            hub.removeDevice(light);
+        }
+    }
+
+    private interface Actor {
+        void run() throws Exception;
+    }
+
+    private static void run(String label, Actor actor) throws Exception {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    actor.run();
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "contention-" + label + "-" + t);
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(label + " failed", failure.get());
+        }
+    }
+}
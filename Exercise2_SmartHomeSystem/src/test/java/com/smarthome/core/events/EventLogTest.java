@@ -0,0 +1,250 @@
+package com.smarthome.core.events;
+
+import com.smarthome.core.SmartHomeHub;
+import com.smarthome.core.devices.Door;
+import com.smarthome.core.devices.Light;
+import com.smarthome.core.devices.Thermostat;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Random;
+
+/**
+ * Plain Java test runner (no JUnit) for the event-sourced device state log. Point-in-time answers are checked
+ * against a brute-force replay of the same events.
+ * Usage: java -cp out com.smarthome.core.events.EventLogTest
+ */
+public class EventLogTest {
+    private static final int SEGMENT_RECORDS = 1_000;
+    private static final int CHECKPOINT_INTERVAL = 256;
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("event-log-test");
+        try {
+            logAnswersPointInTimeQueries(directory);
+        } finally {
+            delete(directory);
+        }
+        hubAppendsEveryChange();
+        System.out.println("EventLogTest: OK");
+    }
+
+    private static void logAnswersPointInTimeQueries(Path directory) throws Exception {
+        List<long[]> truth = new ArrayList<>(); // {timestamp, deviceId, kind ordinal, value}
+        try (EventLog log = new EventLog(directory, SEGMENT_RECORDS, CHECKPOINT_INTERVAL)) {
+            Random random = new Random(5);
+            long ts = 1_700_000_000_000L;
+            for (int i = 0; i < 20_000; i++) {
+                ts += random.nextInt(3) == 0 ? 0 : random.nextInt(5_000);
+                int deviceId = 1 + random.nextInt(50);
+                EventKind kind = EventKind.values()[random.nextInt(EventKind.values().length)];
+                int value = kind == EventKind.TURNED_ON ? 1 : kind == EventKind.TURNED_OFF ? 0 : random.nextInt(100);
+                if (log.append(ts, deviceId, kind, value) != i) {
+                    throw new AssertionError("Sequence numbers must be dense");
+                }
+                truth.add(new long[]{ts, deviceId, kind.ordinal(), value});
+            }
+            verifyAgainstTruth(log, truth, new Random(4)); // checkpoints may still be in progress
+            log.force();
+            if (log.segmentCount() != 20 || log.checkpointCount() != 20_000 / CHECKPOINT_INTERVAL) {
+                throw new AssertionError("Expected 20 segments and a checkpoint every " + CHECKPOINT_INTERVAL
+                        + " events, got " + log.segmentCount() + " and " + log.checkpointCount());
+            }
+            verifyAgainstTruth(log, truth, random);
+
+            long clamped = log.append(ts - 60_000, 1, EventKind.TURNED_ON, 1);
+            if (log.event(clamped).timestampMillis() != ts) {
+                throw new AssertionError("An older timestamp should be clamped to the latest");
+            }
+            truth.add(new long[]{ts, 1, EventKind.TURNED_ON.ordinal(), 1});
+
+            int[] window = {0};
+            log.events(7, truth.get(5_000)[0], truth.get(9_999)[0], (sequence, timestamp, deviceId, kind, value) -> {
+                if (deviceId != 7 || timestamp < truth.get(5_000)[0] || timestamp > truth.get(9_999)[0]) {
+                    throw new AssertionError("Event " + sequence + " outside the requested device or window");
+                }
+                window[0]++;
+            });
+            long expected = truth.stream()
+                    .filter(e -> e[1] == 7 && e[0] >= truth.get(5_000)[0] && e[0] <= truth.get(9_999)[0]).count();
+            if (window[0] != expected) {
+                throw new AssertionError("Expected " + expected + " events for device 7 in the window, got " + window[0]);
+            }
+        }
+
+        reopenRebuildsIndexAndDropsTornTail(directory, truth);
+    }
+
+    private static void verifyAgainstTruth(EventLog log, List<long[]> truth, Random random) {
+        if (log.size() != truth.size()) {
+            throw new AssertionError("Expected " + truth.size() + " events, got " + log.size());
+        }
+        long first = truth.get(0)[0];
+        long last = truth.get(truth.size() - 1)[0];
+        for (int probe = 0; probe < 200; probe++) {
+            long at = first - 1_000 + (long) (random.nextDouble() * (last - first + 2_000));
+            Map<Integer, Integer> expected = replay(truth, at);
+            if (!expected.equals(log.snapshotAt(at))) {
+                throw new AssertionError("Snapshot at " + at + " differs from a full replay");
+            }
+            int deviceId = 1 + random.nextInt(50);
+            OptionalInt state = log.stateAt(deviceId, at);
+            Integer want = expected.get(deviceId);
+            if (want == null ? state.isPresent() : state.isEmpty() || state.getAsInt() != want) {
+                throw new AssertionError("Device " + deviceId + " at " + at + ": expected " + want + ", got " + state);
+            }
+        }
+    }
+
+    private static Map<Integer, Integer> replay(List<long[]> truth, long at) {
+        Map<Integer, Integer> states = new HashMap<>();
+        for (long[] event : truth) {
+            if (event[0] > at) {
+                break;
+            }
+            if (event[2] == EventKind.REMOVED.ordinal()) {
+                states.remove((int) event[1]);
+            } else {
+                states.put((int) event[1], (int) event[3]);
+            }
+        }
+        return states;
+    }
+
+    private static void reopenRebuildsIndexAndDropsTornTail(Path directory, List<long[]> truth) throws Exception {
+        int checkpoints = 20_000 / CHECKPOINT_INTERVAL;
+        try (EventLog reopened = new EventLog(directory, SEGMENT_RECORDS, CHECKPOINT_INTERVAL)) {
+            if (reopened.checkpointCount() != checkpoints) {
+                throw new AssertionError("Expected the " + checkpoints + " checkpoint files to be reused");
+            }
+            verifyAgainstTruth(reopened, truth, new Random(6));
+        }
+
+        Files.delete(directory.resolve(String.format("checkpoint-%06d.idx", checkpoints / 2)));
+        Files.writeString(directory.resolve(String.format("checkpoint-%06d.idx.tmp", checkpoints)), "torn");
+        try (EventLog rebuilt = new EventLog(directory, SEGMENT_RECORDS, CHECKPOINT_INTERVAL)) {
+            if (rebuilt.checkpointCount() != checkpoints) {
+                throw new AssertionError("Missing checkpoints should be rebuilt, got " + rebuilt.checkpointCount());
+            }
+            verifyAgainstTruth(rebuilt, truth, new Random(8));
+        }
+
+        long lastSequence = truth.size() - 1;
+        Path lastSegment = directory.resolve(String.format("events-%06d.log", lastSequence / SEGMENT_RECORDS));
+        try (FileChannel channel = FileChannel.open(lastSegment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long valueOffset = (lastSequence % SEGMENT_RECORDS) * EventLog.RECORD_BYTES + 12;
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, valueOffset);
+            value.put(0, (byte) (value.get(0) ^ 1)).rewind();
+            channel.write(value, valueOffset); // half-written record
+        }
+        truth.remove(truth.size() - 1);
+        try (EventLog recovered = new EventLog(directory, SEGMENT_RECORDS, CHECKPOINT_INTERVAL)) {
+            verifyAgainstTruth(recovered, truth, new Random(7));
+            recovered.append(truth.get(truth.size() - 1)[0], 99, EventKind.ADDED, 1);
+            if (recovered.size() != truth.size() + 1 || recovered.stateAt(99, Long.MAX_VALUE).getAsInt() != 1) {
+                throw new AssertionError("Appending after recovery should continue where the intact log ends");
+            }
+        }
+    }
+
+    private static void hubAppendsEveryChange() throws Exception {
+        SmartHomeHub hub = SmartHomeHub.getInstance();
+        Path directory = Files.createTempDirectory("event-log-hub-test");
+        Light light = new Light(9101, false);
+        Door door = new Door(9102, true);
+        Thermostat thermostat = new Thermostat(9103, 68);
+        try (EventLog log = new EventLog(directory)) {
+            hub.addDevice(light);
+            hub.attachEventLog(log);
+            hub.addDevice(door);
+            hub.addDevice(thermostat);
+
+            hub.turnOn(9101);
+            hub.turnOn(9101); // no change, no event
+            hub.turnOn(9102);
+            hub.setTemperature(9103, 72);
+            hub.setTemperature(9103, 72); // no change, no event
+            if (log.size() != 6) {
+                throw new AssertionError("Expected 3 added and 3 changed events, got " + log.size());
+            }
+            long now = System.currentTimeMillis();
+            if (log.stateAt(9101, now).getAsInt() != 1 || log.stateAt(9102, now).getAsInt() != 1
+                    || log.stateAt(9103, now).getAsInt() != 72) {
+                throw new AssertionError("Latest logged states should match the devices: " + log.snapshotAt(now));
+            }
+            if (log.lastEvent(9103, now).kind() != EventKind.TEMPERATURE_SET || log.stateAt(9101, 0).isPresent()) {
+                throw new AssertionError("Unexpected thermostat event or state before the log existed");
+            }
+
+            int threads = 4;
+            int togglesPerThread = 5_000;
+            long before = log.size();
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                boolean on = t % 2 == 0;
+                workers[t] = new Thread(() -> {
+                    try {
+                        for (int i = 0; i < togglesPerThread; i++) {
+                            if (on) {
+                                hub.turnOn(9101);
+                            } else {
+                                hub.turnOff(9101);
+                            }
+                        }
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                workers[t].start();
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            int[] previous = {1};
+            log.replay(before, log.size(), (sequence, timestamp, deviceId, kind, value) -> {
+                if (value == previous[0]) {
+                    throw new AssertionError("Racing commands logged two " + kind + " events in a row at " + sequence);
+                }
+                previous[0] = value;
+            });
+            if (previous[0] != light.state()) {
+                throw new AssertionError("The last logged event should match the light's state");
+            }
+
+            hub.removeDevice(door);
+            if (log.stateAt(9102, System.currentTimeMillis()).isPresent()
+                    || log.snapshotAt(System.currentTimeMillis()).containsKey(9102)) {
+                throw new AssertionError("A removed device should have no current state");
+            }
+            long logged = log.size();
+            hub.removeDevice(door);
+            if (log.size() != logged) {
+                throw new AssertionError("Removing a device that is not registered should log nothing");
+            }
+        } finally {
+            hub.attachEventLog(null);
+            hub.removeDevice(light);
+            hub.removeDevice(door);
+            hub.removeDevice(thermostat);
+            delete(directory);
+        }
+    }
+
+    private static void delete(Path directory) throws Exception {
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+}
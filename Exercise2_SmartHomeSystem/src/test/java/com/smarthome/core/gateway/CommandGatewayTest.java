@@ -0,0 +1,144 @@
+package com.smarthome.core.gateway;
+
+import com.smarthome.core.DeviceFactory;
+import com.smarthome.core.DeviceType;
+import com.smarthome.core.SmartHomeHub;
+import com.smarthome.core.StatefulDevice;
+import com.smarthome.core.devices.Light;
+import com.smarthome.core.devices.Thermostat;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Plain Java test runner (no JUnit) for the network command gateway, over loopback TCP and a Unix domain socket.
+ * Usage: java -cp out com.smarthome.core.gateway.CommandGatewayTest
+ */
+public class CommandGatewayTest {
+
+    public static void main(String[] args) throws Exception {
+        SmartHomeHub hub = SmartHomeHub.getInstance();
+        Light light = (Light) DeviceFactory.buildDevice(7001, DeviceType.LIGHT, 0);
+        Thermostat thermostat = (Thermostat) DeviceFactory.buildDevice(7002, DeviceType.THERMOSTAT, 68);
+        hub.addDevice(light);
+        hub.addDevice(thermostat);
+
+        try (CommandGateway gateway = new CommandGateway(hub, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2)) {
+            exercise(gateway.address(), light, thermostat);
+            if (gateway.requests() == 0) {
+                throw new AssertionError("Gateway counted no requests");
+            }
+            slowSubscriber(gateway, hub);
+        }
+
+        Path directory = Files.createTempDirectory("gateway-test");
+        SocketAddress unix = UnixDomainSocketAddress.of(directory.resolve("hub.sock"));
+        try (CommandGateway gateway = new CommandGateway(hub, unix, 1)) {
+            exercise(gateway.address(), light, thermostat);
+        } finally {
+            Files.deleteIfExists(directory.resolve("hub.sock"));
+            Files.deleteIfExists(directory);
+        }
+
+        hub.removeDevice(light);
+        hub.removeDevice(thermostat);
+        System.out.println("CommandGatewayTest: OK");
+        System.exit(0); // the accepted schedule keeps the schedule executor's thread alive
+    }
+
+    private static void exercise(SocketAddress address, Light light, Thermostat thermostat) throws Exception {
+        try (GatewayClient client = GatewayClient.connect(address);
+             GatewayClient subscriber = GatewayClient.connect(address)) {
+            light.turnOff();
+
+            // Single calls and errors.
+            expectOk(client.call(client.turnOn(7001)));
+            if (!"on".equals(light.getStatus())) {
+                throw new AssertionError("turnOn did not reach the hub");
+            }
+            GatewayClient.Response missing = client.call(client.turnOff(999_999));
+            if (missing.ok() || !missing.message().contains("999999")) {
+                throw new AssertionError("Expected an error for an unknown device, got " + missing);
+            }
+            GatewayClient.Response status = client.call(client.status(7001));
+            expectOk(status);
+            if (StatefulDevice.value(status.stateWord()) != 1 || !"Light 7001 is On.".equals(status.message())) {
+                throw new AssertionError("Unexpected status " + status);
+            }
+            expectOk(client.call(client.setTemperature(7002, 71)));
+            if (thermostat.getTemperature() != 71) {
+                throw new AssertionError("setTemperature did not reach the hub");
+            }
+            expectOk(client.call(client.setSchedule(7001, "23:59", "turnOff")));
+            if (client.call(client.setSchedule(7001, "25:99", "turnOff")).ok()) {
+                throw new AssertionError("Invalid schedule time accepted");
+            }
+            expectOk(client.call(client.addTrigger("temperature > 90", "turnOff(7001)")));
+            if (client.call(client.addTrigger("temperature >", "turnOff(7001)")).ok()) {
+                throw new AssertionError("Invalid trigger accepted");
+            }
+
+            // Status streaming to another connection.
+            int subscription = subscriber.subscribe();
+            expectOk(subscriber.call(subscription));
+            expectOk(client.call(client.turnOff(7001)));
+            GatewayClient.Response event = subscriber.read();
+            if (event.status() != GatewayProtocol.EVENT || event.requestId() != subscription
+                    || !"Light 7001 is off.".equals(event.message())) {
+                throw new AssertionError("Expected a notification event, got " + event);
+            }
+
+            // Pipelined requests are answered in order, in batches.
+            int requests = 3_000;
+            int first = 0;
+            for (int i = 0; i < requests; i++) {
+                int id = i % 2 == 0 ? client.turnOn(7001) : client.turnOff(7001);
+                if (i == 0) {
+                    first = id;
+                }
+                if (i % 200 == 199) {
+                    client.flush();
+                    for (int j = i - 199; j <= i; j++) {
+                        GatewayClient.Response response = client.read();
+                        if (!response.ok() || response.requestId() != first + j) {
+                            throw new AssertionError("Pipelined response " + j + " out of order: " + response);
+                        }
+                    }
+                }
+            }
+            if (!"off".equals(light.getStatus())) {
+                throw new AssertionError("The last pipelined command should have switched the light off");
+            }
+        }
+    }
+
+    private static void slowSubscriber(CommandGateway gateway, SmartHomeHub hub) throws Exception {
+        try (GatewayClient subscriber = GatewayClient.connect(gateway.address())) {
+            expectOk(subscriber.call(subscriber.subscribe()));
+            // The subscriber never reads again, so once the socket buffers fill up, events must be dropped.
+            for (int i = 0; i < 2_000_000 && gateway.droppedEvents() == 0; i++) {
+                if (i % 2 == 0) {
+                    hub.turnOn(7001);
+                } else {
+                    hub.turnOff(7001);
+                }
+            }
+            if (gateway.droppedEvents() == 0) {
+                throw new AssertionError("A subscriber that never reads should lose events");
+            }
+            if (gateway.peakBufferBytes() > 2 * GatewayProtocol.MAX_FRAME_BYTES) {
+                throw new AssertionError("Output buffer grew to " + gateway.peakBufferBytes() + " bytes");
+            }
+        }
+    }
+
+    private static void expectOk(GatewayClient.Response response) {
+        if (!response.ok()) {
+            throw new AssertionError("Expected OK, got " + response);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.smarthome.core.history;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Plain Java test runner (no JUnit) for the compressed sensor history store.
+ * Usage: java -cp out com.smarthome.core.history.SensorHistoryStoreTest
+ */
+public class SensorHistoryStoreTest {
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("history-test");
+        int samples = 50_000;
+        long[] timestamps = new long[samples];
+        double[] values = new double[samples];
+        try {
+            try (SensorHistoryStore store = new SensorHistoryStore(directory, 256, 2, 10, 4)) {
+                Random random = new Random(11);
+                long ts = 1_700_000_000_000L;
+                double temperature = 70;
+                for (int i = 0; i < samples; i++) {
+                    ts += random.nextInt(10) == 0 ? random.nextInt(100_000) : 1_000; // mostly regular intervals
+                    temperature = random.nextInt(20) == 0 ? random.nextGaussian() * 1e6 : temperature + random.nextInt(3) - 1;
+                    timestamps[i] = ts;
+                    values[i] = temperature;
+                    store.record(7, ts, temperature);
+                }
+
+                List<double[]> read = new ArrayList<>();
+                store.range(7, Long.MIN_VALUE, Long.MAX_VALUE, (t, v) -> read.add(new double[]{t, v}));
+                if (read.size() != samples) {
+                    throw new AssertionError("Expected " + samples + " samples including spilled blocks, got " + read.size());
+                }
+                for (int i = 0; i < samples; i++) {
+                    if ((long) read.get(i)[0] != timestamps[i] || Double.compare(read.get(i)[1], values[i]) != 0) {
+                        throw new AssertionError("Sample " + i + " did not round-trip");
+                    }
+                }
+
+                int[] inWindow = {0};
+                store.range(7, timestamps[1000], timestamps[1999], (t, v) -> inWindow[0]++);
+                if (inWindow[0] != 1000) {
+                    throw new AssertionError("Expected 1000 samples in window, got " + inWindow[0]);
+                }
+
+                long[] rolled = {0};
+                double[] lastMax = {Double.NaN};
+                store.rollups(7, Resolution.MINUTE, Long.MIN_VALUE, Long.MAX_VALUE, (start, min, max, avg, count) -> {
+                    rolled[0] += count;
+                    lastMax[0] = max;
+                    if (min > avg || avg > max) {
+                        throw new AssertionError("Inconsistent rollup bucket at " + start);
+                    }
+                });
+                if (rolled[0] == 0 || lastMax[0] < values[samples - 1]) {
+                    throw new AssertionError("Expected retained minute rollups to cover the latest sample");
+                }
+            }
+            reopenKeepsHistory(directory, timestamps, values);
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(directory);
+        }
+        System.out.println("SensorHistoryStoreTest: OK");
+    }
+
+    /** Closing wrote the in-memory blocks to the segments; a new store on the directory must continue from them. */
+    private static void reopenKeepsHistory(Path directory, long[] timestamps, double[] values) {
+        int samples = timestamps.length;
+        long next = timestamps[samples - 1] + 1_000;
+        try (SensorHistoryStore reopened = new SensorHistoryStore(directory, 256, 2, 10, 4)) {
+            reopened.record(7, next, 1.5);
+            List<double[]> reread = new ArrayList<>();
+            reopened.range(7, Long.MIN_VALUE, Long.MAX_VALUE, (t, v) -> reread.add(new double[]{t, v}));
+            if (reread.size() != samples + 1 || reopened.sampleCount(7) != samples + 1) {
+                throw new AssertionError("Reopening should keep all " + samples + " samples, got " + reread.size());
+            }
+            for (int i = 0; i < samples; i++) {
+                if ((long) reread.get(i)[0] != timestamps[i] || Double.compare(reread.get(i)[1], values[i]) != 0) {
+                    throw new AssertionError("Sample " + i + " did not survive reopening");
+                }
+            }
+            if ((long) reread.get(samples)[0] != next) {
+                throw new AssertionError("A sample recorded after reopening should follow the recovered ones");
+            }
+        }
+    }
+}
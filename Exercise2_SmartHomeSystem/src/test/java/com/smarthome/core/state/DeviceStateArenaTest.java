@@ -0,0 +1,99 @@
+package com.smarthome.core.state;
+
+import com.smarthome.core.Device;
+import com.smarthome.core.SmartHomeHub;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Plain Java test runner (no JUnit) for the off-heap device state arena.
+ * Usage: java -cp out com.smarthome.core.state.DeviceStateArenaTest
+ */
+public class DeviceStateArenaTest {
+
+    public static void main(String[] args) throws Exception {
+        DeviceStateArena arena = new DeviceStateArena();
+        ArenaLight light = arena.light(901, false);
+        ArenaDoor door = arena.door(902, true);
+        ArenaThermostat thermostat = arena.thermostat(903, 68);
+
+        SmartHomeHub hub = SmartHomeHub.getInstance();
+        hub.addDevice(light);
+        hub.addDevice(door);
+        hub.addDevice(thermostat);
+        hub.turnOn(901);
+        hub.turnOn(902);
+        hub.setTemperature(903, 74);
+        if (!"on".equals(light.getStatus()) || arena.state(light.slot()) != 1) {
+            throw new AssertionError("Light state not written to the arena");
+        }
+        if (!"Door 902 is Unlocked.".equals(door.statusSummary())) {
+            throw new AssertionError("Unexpected door summary - " + door.statusSummary());
+        }
+        if (arena.temperature(thermostat.slot()) != 74) {
+            throw new AssertionError("Thermostat temperature not written to the arena");
+        }
+
+        // Concurrent increments through compare-and-set must not lose updates.
+        int threads = 4;
+        int perThread = 50_000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    int current;
+                    do {
+                        current = arena.temperature(thermostat.slot());
+                    } while (!arena.compareAndSetTemperature(thermostat.slot(), current, current + 1));
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (thermostat.getTemperature() != 74 + threads * perThread) {
+            throw new AssertionError("Lost concurrent updates: " + thermostat.getTemperature());
+        }
+
+        // Enough records to span more than one chunk, then round-trip through a snapshot. A reader racing the
+        // allocator must only ever see records that are fully written.
+        Thread allocator = new Thread(() -> {
+            for (int i = 0; i < DeviceStateArena.CHUNK_RECORDS + 10; i++) {
+                arena.light(10_000 + i, (i & 1) == 0);
+            }
+        });
+        allocator.start();
+        while (allocator.isAlive()) {
+            int newest = arena.size() - 1;
+            if (newest > 2 && arena.id(newest) != 10_000 + newest - 3) {
+                throw new AssertionError("Record " + newest + " was visible before it was written");
+            }
+        }
+        allocator.join();
+        Path file = Files.createTempFile("arena-test", ".snapshot");
+        try {
+            arena.snapshot(file);
+            DeviceStateArena loaded = DeviceStateArena.load(file);
+            if (loaded.size() != arena.size()) {
+                throw new AssertionError("Expected " + arena.size() + " records, got " + loaded.size());
+            }
+            for (int slot = 0; slot < loaded.size(); slot += 997) {
+                if (loaded.id(slot) != arena.id(slot) || loaded.state(slot) != arena.state(slot)) {
+                    throw new AssertionError("Record " + slot + " did not round-trip");
+                }
+            }
+            Device last = loaded.handle(loaded.size() - 1);
+            if (!(last instanceof ArenaLight) || last.getId() != arena.id(arena.size() - 1)) {
+                throw new AssertionError("Unexpected handle for last record - " + last.statusSummary());
+            }
+            if (!(loaded.handle(door.slot()) instanceof ArenaDoor) || !(loaded.handle(thermostat.slot()) instanceof ArenaThermostat)) {
+                throw new AssertionError("Handles lost their device type");
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        System.out.println("DeviceStateArenaTest: OK");
+    }
+}
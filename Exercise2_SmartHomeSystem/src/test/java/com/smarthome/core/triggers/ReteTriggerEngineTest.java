@@ -0,0 +1,155 @@
+package com.smarthome.core.triggers;
+
+import com.smarthome.core.Device;
+import com.smarthome.core.DeviceFactory;
+import com.smarthome.core.DeviceType;
+import com.smarthome.core.Trigger;
+import com.smarthome.core.devices.Thermostat;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Plain Java test runner (no JUnit): drives random state changes through the Rete and linear engines
+ * and checks that both fire the same triggers.
+ * Usage: java -cp out com.smarthome.core.triggers.ReteTriggerEngineTest
+ */
+public class ReteTriggerEngineTest {
+    private static final String[] CONDITIONS = {
+            "temperature > 70",
+            "temperature > 70",
+            "temperature <= 65 || status == on",
+            "temperature > 70 && door.3 == unlocked",
+            "!(door.3 == unlocked) && light.1 == on",
+            "thermostat.2 > 72 or thermostat.5 > 72",
+            "status == unlocked && time between 22:00 and 06:00",
+            "not (light.1 == on || door.4 == locked)",
+            "!(temperature > 74)",
+    };
+
+    public static void main(String[] args) throws Exception {
+        Map<Integer, Device> devices = new ConcurrentHashMap<>();
+        devices.put(1, DeviceFactory.buildDevice(1, DeviceType.LIGHT, "off"));
+        devices.put(2, DeviceFactory.buildDevice(2, DeviceType.THERMOSTAT, "68"));
+        devices.put(3, DeviceFactory.buildDevice(3, DeviceType.DOOR, "locked"));
+        devices.put(4, DeviceFactory.buildDevice(4, DeviceType.DOOR, "locked"));
+        devices.put(5, DeviceFactory.buildDevice(5, DeviceType.THERMOSTAT, "75"));
+
+        TriggerCompiler compiler = new TriggerCompiler();
+        LinearTriggerEngine linear = new LinearTriggerEngine(devices, compiler);
+        ReteTriggerEngine rete = new ReteTriggerEngine(devices);
+        for (int i = 0; i < CONDITIONS.length; i++) {
+            Trigger trigger = new Trigger(compiler.compile(CONDITIONS[i]), "turnOff", i + 1);
+            linear.addTrigger(trigger);
+            rete.addTrigger(trigger);
+        }
+        if (rete.nodeCount() != compiler.nodeCount()) {
+            throw new AssertionError("Expected one shared network node per distinct sub-condition, got " + rete.nodeCount());
+        }
+
+        Random random = new Random(7);
+        LocalTime time = LocalTime.of(12, 0);
+        for (int step = 0; step < 2_000; step++) {
+            int id = 1 + random.nextInt(6);
+            Device device = devices.get(id);
+            if (id == 6) {
+                if (device == null) {
+                    device = DeviceFactory.buildDevice(6, DeviceType.THERMOSTAT, "71");
+                    devices.put(6, device);
+                    rete.deviceAdded(device);
+                } else {
+                    devices.remove(6);
+                    rete.deviceRemoved(device);
+                }
+            } else {
+                if (device instanceof Thermostat thermostat) {
+                    thermostat.setTemperature(60 + random.nextInt(20));
+                } else if (random.nextBoolean()) {
+                    device.turnOn();
+                } else {
+                    device.turnOff();
+                }
+                rete.deviceChanged(device);
+            }
+            if (step % 50 == 0) {
+                time = time.plusMinutes(97);
+            }
+            List<String> expected = describe(linear.evaluate(time));
+            List<String> actual = describe(rete.evaluate(time));
+            if (!expected.equals(actual)) {
+                throw new AssertionError("Step " + step + ": linear fired " + expected + " but rete fired " + actual);
+            }
+        }
+        negationSkipsOtherDeviceTypes();
+        concurrentChangesAreApplied(devices, linear, rete);
+        System.out.println("ReteTriggerEngineTest: OK");
+    }
+
+    /** A negated comparison is as inapplicable to other device types as the comparison itself. */
+    private static void negationSkipsOtherDeviceTypes() throws Exception {
+        Map<Integer, Device> devices = new ConcurrentHashMap<>();
+        devices.put(1, DeviceFactory.buildDevice(1, DeviceType.LIGHT, "on"));
+        devices.put(2, DeviceFactory.buildDevice(2, DeviceType.THERMOSTAT, "75"));
+        TriggerCompiler compiler = new TriggerCompiler();
+        LinearTriggerEngine linear = new LinearTriggerEngine(devices, compiler);
+        ReteTriggerEngine rete = new ReteTriggerEngine(devices);
+        Trigger trigger = new Trigger(compiler.compile("!(temperature > 80)"), "turnOff", 1);
+        linear.addTrigger(trigger);
+        rete.addTrigger(trigger);
+        LocalTime noon = LocalTime.of(12, 0);
+        if (linear.evaluate(noon).size() != 1 || rete.evaluate(noon).size() != 1) {
+            throw new AssertionError("'!(temperature > 80)' should only fire for the thermostat");
+        }
+    }
+
+    /** Threads report changes while passes run; once they stop, both engines must agree again. */
+    private static void concurrentChangesAreApplied(Map<Integer, Device> devices, LinearTriggerEngine linear,
+                                                    ReteTriggerEngine rete) throws Exception {
+        LocalTime noon = LocalTime.of(12, 0);
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            Device device = devices.get(t + 1);
+            Random random = new Random(t);
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    if (device instanceof Thermostat thermostat) {
+                        thermostat.setTemperature(60 + random.nextInt(20));
+                    } else if (random.nextBoolean()) {
+                        device.turnOn();
+                    } else {
+                        device.turnOff();
+                    }
+                    rete.deviceChanged(device);
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            while (writer.isAlive()) {
+                rete.evaluate(noon);
+            }
+            writer.join();
+        }
+        List<String> expected = describe(linear.evaluate(noon));
+        List<String> actual = describe(rete.evaluate(noon));
+        if (!expected.equals(actual)) {
+            throw new AssertionError("After concurrent changes linear fired " + expected + " but rete fired " + actual);
+        }
+    }
+
+    private static List<String> describe(List<Trigger> fired) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Trigger trigger : fired) {
+            counts.merge(trigger.getId() + ":" + trigger.getCondition(), 1, Integer::sum);
+        }
+        List<String> result = new ArrayList<>();
+        counts.entrySet().stream().sorted(Map.Entry.comparingByKey())
+                .forEach(e -> result.add(e.getKey() + " x" + e.getValue()));
+        return result;
+    }
+}
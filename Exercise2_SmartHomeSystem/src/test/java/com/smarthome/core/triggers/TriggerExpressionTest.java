@@ -0,0 +1,95 @@
+package com.smarthome.core.triggers;
+
+import com.smarthome.core.Device;
+import com.smarthome.core.DeviceFactory;
+import com.smarthome.core.DeviceType;
+import com.smarthome.core.Trigger;
+import com.smarthome.core.devices.Thermostat;
+import com.smarthome.core.exceptions.InvalidTriggerException;
+
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Plain Java test runner (no JUnit) for the trigger expression language.
+ * Usage: java -cp out com.smarthome.core.triggers.TriggerExpressionTest
+ */
+public class TriggerExpressionTest {
+    private static final Map<Integer, Device> devices = new HashMap<>();
+
+    public static void main(String[] args) throws Exception {
+        devices.put(1, DeviceFactory.buildDevice(1, DeviceType.LIGHT, "on"));
+        devices.put(2, DeviceFactory.buildDevice(2, DeviceType.THERMOSTAT, "75"));
+        devices.put(3, DeviceFactory.buildDevice(3, DeviceType.DOOR, "unlocked"));
+
+        TriggerCompiler compiler = new TriggerCompiler();
+
+        expect(compiler, "temperature > 70", devices.get(2), "12:00", true);
+        expect(compiler, "temperature > 70", devices.get(1), "12:00", false);
+        expect(compiler, "temperature > 70 && door.3 == unlocked", devices.get(2), "12:00", true);
+        expect(compiler, "temperature > 80 || door.3 == unlocked", devices.get(1), "12:00", true);
+        expect(compiler, "!(light.1 == on) or thermostat.2 <= 75", null, "12:00", true);
+        expect(compiler, "not light.1 == on", null, "12:00", false);
+        // a negated comparison does not apply to other device types, just as the comparison itself does not
+        expect(compiler, "!(temperature > 80)", devices.get(2), "12:00", true);
+        expect(compiler, "!(temperature > 80)", devices.get(1), "12:00", false);
+        expect(compiler, "!(temperature > 80 || status == off)", devices.get(1), "12:00", false);
+        expect(compiler, "!(door.9 == unlocked)", null, "12:00", false);
+        expect(compiler, "door.3 == unlocked and time between 22:00 and 06:00", null, "23:30", true);
+        expect(compiler, "door.3 == unlocked and time between 22:00 and 06:00", null, "12:00", false);
+        expect(compiler, "time >= 07:30", null, "07:30", true);
+        expect(compiler, "time != 07:30", null, "07:30", false);
+
+        ((Thermostat) devices.get(2)).setTemperature(65);
+        expect(compiler, "thermostat.2.temperature < 70 && status == on", devices.get(1), "12:00", true);
+
+        // both comparisons were compiled above; only the (reordered, identical) conjunction is new
+        int nodes = compiler.nodeCount();
+        compiler.compile("door.3 == unlocked && thermostat.2 < 70");
+        compiler.compile("thermostat.2 < 70 && door.3 == unlocked");
+        if (compiler.nodeCount() != nodes + 1) {
+            throw new AssertionError("Expected one new shared node, got " + (compiler.nodeCount() - nodes));
+        }
+
+        Expr nested = compiler.compile("door.3 == unlocked && (door.3 == unlocked && light.1 == on)").expression();
+        if (!(nested instanceof Expr.Junction junction) || junction.operands().size() != 2) {
+            throw new AssertionError("Flattened operands should be deduplicated, got " + nested);
+        }
+
+        Trigger standalone = new Trigger("temperature < 70 && door.3 == unlocked", "turnOff", 2, compiler);
+        if (!standalone.isTriggered(devices.get(2), devices::get) || standalone.isTriggered(devices.get(2))) {
+            throw new AssertionError("A standalone trigger should resolve other devices only through the given lookup");
+        }
+        if (new Trigger("temperature >", "turnOff", 2).isTriggered(devices.get(2))) {
+            throw new AssertionError("An unparseable condition should never fire");
+        }
+
+        expectInvalid(compiler, "temperature >");
+        expectInvalid(compiler, "door.3 > unlocked");
+        expectInvalid(compiler, "light.1 == locked");
+        expectInvalid(compiler, "time between 25:00 and 06:00");
+        expectInvalid(compiler, "(temperature > 70");
+
+        System.out.println("TriggerExpressionTest: OK");
+    }
+
+    private static void expect(TriggerCompiler compiler, String condition, Device candidate, String time, boolean expected)
+            throws InvalidTriggerException {
+        CompiledCondition compiled = compiler.compile(condition);
+        EvaluationContext context = new EvaluationContext(devices::get, LocalTime.parse(time), compiler.slotCount());
+        boolean actual = compiled.test(context.at(candidate));
+        if (actual != expected) {
+            throw new AssertionError("Expected '" + condition + "' at " + time + " to be " + expected);
+        }
+    }
+
+    private static void expectInvalid(TriggerCompiler compiler, String condition) {
+        try {
+            compiler.compile(condition);
+        } catch (InvalidTriggerException e) {
+            return;
+        }
+        throw new AssertionError("Expected '" + condition + "' to be rejected");
+    }
+}